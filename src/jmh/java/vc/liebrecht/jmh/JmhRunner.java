@@ -0,0 +1,36 @@
+package vc.liebrecht.jmh;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.profile.StackProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the JMH benchmark jar.
+ * <p>
+ * Accepts the regular JMH command-line options, for example
+ * {@code -p scenario=L6 -p executor=VIRTUAL}, and always attaches the GC
+ * profiler (allocation rate and GC counts) and the stack profiler (thread
+ * states and hot methods).
+ */
+public class JmhRunner {
+	/**
+	 * Runs the selected JMH benchmarks with the GC and stack profilers.
+	 *
+	 * @param args JMH command-line options
+	 * @throws CommandLineOptionException If the options cannot be parsed
+	 * @throws RunnerException            If a benchmark fails
+	 */
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.addProfiler(StackProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
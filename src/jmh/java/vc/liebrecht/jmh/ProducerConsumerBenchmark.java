@@ -0,0 +1,174 @@
+package vc.liebrecht.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import vc.liebrecht.config.BenchmarkConfig;
+import vc.liebrecht.config.Scenario;
+import vc.liebrecht.consumer.ConsumerFactory;
+import vc.liebrecht.consumer.ConsumerType;
+import vc.liebrecht.consumer.DefaultConsumerFactory;
+import vc.liebrecht.consumer.HeavyConsumer;
+import vc.liebrecht.engine.Benchmark;
+import vc.liebrecht.engine.RunResult;
+import vc.liebrecht.executor.ExecutorType;
+import vc.liebrecht.network.EchoServer;
+
+/**
+ * JMH benchmark of the producer-consumer scenarios run by {@code Main}.
+ * <p>
+ * Every benchmark invocation performs one complete {@code Benchmark.run}: the
+ * producers enqueue all messages and the invocation ends when every consumer
+ * has terminated. JMH takes care of forking, warm-up and statistics; the
+ * built-in JFR recording of the harness is disabled. The digests of heavy
+ * consumers are folded into a {@code LongAdder}, whose sum is passed to a
+ * {@code Blackhole} on the benchmark thread once the run has finished, since a
+ * {@code Blackhole} must not be shared between the consumer threads. Together
+ * with the returned {@code RunResult}, no work can be eliminated as dead code.
+ * <p>
+ * The {@code scenario} parameter selects one of the predefined configurations.
+ * The remaining parameters override single values of the scenario; their
+ * default ({@code 0} or an empty string) keeps the value of the scenario.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(3)
+public class ProducerConsumerBenchmark {
+	@Param({ "L1", "L2", "L3", "L4", "L5", "L6", "L7", "L8", "L9", "H1", "H2", "H3", "H4", "H5", "H6" })
+	public Scenario scenario;
+
+	@Param({ "PLATFORM_POOL", "VIRTUAL" })
+	public ExecutorType executor;
+
+	@Param({ "0" })
+	public int producers;
+
+	@Param({ "0" })
+	public int consumers;
+
+	@Param({ "" })
+	public String consumerType;
+
+	@Param({ "0" })
+	public int messages;
+
+	@Param({ "0" })
+	public int payloadSize;
+
+	private BenchmarkConfig _config;
+	private EchoServer _echoServer;
+	private Benchmark _benchmark;
+	private ExecutorService _executorService;
+	private LongAdder _digests;
+
+	/**
+	 * Creates the configuration of the selected scenario with all overrides
+	 * applied, and the benchmark with a consumer factory that folds the digests
+	 * of heavy consumers into a {@code LongAdder}. Starts an echo server for
+	 * network consumer types.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		List<String> args = new ArrayList<>(List.of("--jfr", "false"));
+		addOverride(args, "--numProducers", producers);
+		addOverride(args, "--numConsumers", consumers);
+		addOverride(args, "--numMessages", messages);
+		addOverride(args, "--payloadSize", payloadSize);
+		if (!consumerType.isEmpty()) {
+			args.add("--consumerType");
+			args.add(consumerType);
+		}
+		_config = BenchmarkConfig.parseAll(args.toArray(String[]::new), scenario.toConfig()).get(0);
+
+		ConsumerType type = _config.getConsumerType();
+		_echoServer = type.requiresEchoServer() ? new EchoServer(_config.getServerDelayMicros()) : null;
+		ConsumerFactory factory = new DefaultConsumerFactory(type,
+				Benchmark.consumerSettings(_config, _echoServer == null ? null : _echoServer.getAddress()));
+		_digests = new LongAdder();
+		if (type == ConsumerType.HEAVY) {
+			factory = (queue, completion, latency) -> new HeavyConsumer(queue, completion, latency,
+					_config.getIdleStrategy(), _config.getBatchSize(), digest -> _digests.add(digest[0]));
+		}
+		_benchmark = new Benchmark(_config, factory);
+	}
+
+	/**
+	 * Adds an option to the arguments if its value overrides the scenario.
+	 *
+	 * @param args   The arguments to add to
+	 * @param option The option name
+	 * @param value  The value, or {@code 0} to keep the value of the scenario
+	 */
+	private static void addOverride(List<String> args, String option, int value) {
+		if (value > 0) {
+			args.add(option);
+			args.add(Integer.toString(value));
+		}
+	}
+
+	/**
+	 * Creates a fresh executor for every invocation, as the orchestrator does for
+	 * every run. The creation is not part of the measurement.
+	 */
+	@Setup(Level.Invocation)
+	public void createExecutor() {
+		_executorService = executor.create(_config.getProducers() + _config.getConsumers(),
+				_config.getVirtualPermits());
+	}
+
+	/**
+	 * Performs one complete benchmark run and consumes the digests folded by its
+	 * consumers, which have all terminated when the run returns.
+	 *
+	 * @param blackhole The blackhole consuming the digests
+	 * @return The result of the run, returned to prevent dead-code elimination
+	 * @throws InterruptedException If the benchmark thread is interrupted
+	 */
+	@org.openjdk.jmh.annotations.Benchmark
+	public RunResult run(Blackhole blackhole) throws InterruptedException {
+		RunResult result = _benchmark.run(_executorService, executor.isBounded(), executor.isPerMessage());
+		blackhole.consume(_digests.sumThenReset());
+		return result;
+	}
+
+	/**
+	 * Shuts down the executor of the invocation and waits for its threads.
+	 *
+	 * @throws InterruptedException If the benchmark thread is interrupted
+	 */
+	@TearDown(Level.Invocation)
+	public void shutdownExecutor() throws InterruptedException {
+		_executorService.shutdown();
+		_executorService.awaitTermination(2, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Stops the echo server, if one was started.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (_echoServer != null) {
+			_echoServer.close();
+		}
+	}
+}
@@ -2,12 +2,21 @@ package vc.liebrecht;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import vc.liebrecht.config.BenchmarkConfig;
-import vc.liebrecht.consumer.ConsumerType;
+import vc.liebrecht.config.Scenario;
+import vc.liebrecht.engine.BaselineComparator;
 import vc.liebrecht.engine.BenchmarkOrchestrator;
 import vc.liebrecht.engine.BenchmarkResult;
+import vc.liebrecht.engine.ComparisonReport;
+import vc.liebrecht.engine.ForkRunner;
+import vc.liebrecht.engine.RateSweep;
+import vc.liebrecht.engine.ScalingSweep;
+import vc.liebrecht.writer.ResultWriter;
 
 /**
  * Main class for the Producer-Consumer-Benchmark.
@@ -20,64 +29,229 @@ public class Main {
 	/**
 	 * Entry point of the application.
 	 * <p>
-	 * Creates a {@code BenchmarkOrchestrator} and runs benchmarks with multiple
-	 * predefined configurations. Each configuration is executed sequentially.
+	 * Creates a {@code BenchmarkOrchestrator} and runs benchmarks with the
+	 * predefined configurations of every {@code Scenario}. Each configuration is
+	 * executed sequentially.
+	 * Command-line arguments override the corresponding values of every
+	 * predefined configuration (see {@link BenchmarkConfig#parseAll}); an argument
+	 * with several comma-separated values, such as
+	 * {@code --queueType ARRAY_BLOCKING,LINKED_BLOCKING}, runs every configuration
+	 * once per value.
+	 * With {@code --fork true}, every configuration runs in its own child JVM;
+	 * the low-parallelism scenarios run first, up to {@code --parallelForks} at a
+	 * time, followed by all other scenarios one after another. Options such as
+	 * {@code --gc G1,ZGC,PARALLEL,SERIAL --heapSize 512m,4g} run every scenario in
+	 * a child JVM per collector and heap size (GC matrix). Finally, a comparison
+	 * shows for every configuration whether the executor types win or lose
+	 * against the first one.
 	 * After all benchmarks are completed, the results are written to a file named
-	 * {@code results.txt}. If an error occurs, an error message is printed and the
-	 * program exits with code 1.
+	 * {@code results.txt}, and as CSV and JSON files to {@code --resultDir}. If an
+	 * error occurs, an error message is printed and the program exits with code 1.
+	 * <p>
+	 * With {@code compare} as first argument, no benchmark is run; instead two
+	 * JSON summaries are compared, see {@link #compare(String[])}. With
+	 * {@code sweep} as first argument, the highest open-loop rate within a
+	 * latency budget is searched, see {@link #sweep(String[])}. With
+	 * {@code scale} as first argument, the throughput is measured on a grid of
+	 * producers, consumers and CPUs, see {@link #scale(String[])}.
 	 *
-	 * @param args Command-line arguments (currently unused, configurations are
-	 *             hardcoded)
+	 * @param args Command-line arguments overriding the predefined
+	 *             configurations
 	 */
 	public static void main(String[] args) {
+		if (args.length > 0 && args[0].equals("compare")) {
+			System.exit(compare(Arrays.copyOfRange(args, 1, args.length)));
+		}
+		if (args.length > 0 && args[0].equals("sweep")) {
+			System.exit(sweep(Arrays.copyOfRange(args, 1, args.length)));
+		}
+		if (args.length > 0 && args[0].equals("scale")) {
+			System.exit(scale(Arrays.copyOfRange(args, 1, args.length)));
+		}
 		try {
 			BenchmarkOrchestrator orchestrator = new BenchmarkOrchestrator();
-			List<BenchmarkConfig> configs = List.of(
+			BenchmarkConfig options = BenchmarkConfig.parse(args);
 
-					// Lightweight Consumers – geringe Systemlast
-					new BenchmarkConfig(1, 1, ConsumerType.LIGHTWEIGHT, 50, 16, 501),      // Config L1
-					new BenchmarkConfig(10, 1, ConsumerType.LIGHTWEIGHT, 50, 16, 251),     // Config L2
+			// Im Fork-Modus laufen Szenarien mit geringer Parallelität gleichzeitig
+			// auf getrennten CPUs, alle anderen nacheinander mit allen CPUs.
+			List<BenchmarkConfig> concurrent = new ArrayList<>();
+			List<BenchmarkConfig> exclusive = new ArrayList<>();
+			for (Scenario scenario : Scenario.values()) {
+				for (BenchmarkConfig config : BenchmarkConfig.parseAll(args, scenario.toConfig())) {
+					if (!config.isForked()) {
+						orchestrator.runBenchmarks(config);
+					} else if (scenario.isLowParallelism() && options.getParallelForks() > 1) {
+						concurrent.add(config);
+					} else {
+						exclusive.add(config);
+					}
+				}
+			}
+			if (!concurrent.isEmpty()) {
+				orchestrator.runForked(concurrent,
+						new ForkRunner(options.getParallelForks(), options.getCpusPerFork()));
+			}
+			if (!exclusive.isEmpty()) {
+				orchestrator.runForked(exclusive, new ForkRunner(1, 0));
+			}
 
-					// Lightweight Consumers – mittlere Systemlast
-					new BenchmarkConfig(1, 1, ConsumerType.LIGHTWEIGHT, 10_000, 16, 51),   // Config L3
-					new BenchmarkConfig(50, 1, ConsumerType.LIGHTWEIGHT, 10_000, 16, 31),  // Config L4
-					new BenchmarkConfig(500, 1, ConsumerType.LIGHTWEIGHT, 10_000, 16, 21), // Config L5
+			String comparison = ComparisonReport.format(orchestrator.getResults());
+			System.out.println(comparison);
 
-					// Lightweight Consumers – hohe Systemlast
-					new BenchmarkConfig(1_000, 1, ConsumerType.LIGHTWEIGHT, 100_000, 16, 21), // Config L6
+			try (BufferedWriter writer = new BufferedWriter(new FileWriter("results.txt"))) {
+				for (BenchmarkResult result : orchestrator.getResults()) {
+					writer.write(result + "\n\n");
+				}
+				writer.write(comparison);
+			}
 
-					// Lightweight Consumers – hohe Parallelität
-					new BenchmarkConfig(100, 100, ConsumerType.LIGHTWEIGHT, 10_000, 16, 21),   // Config L7
-					new BenchmarkConfig(500, 500, ConsumerType.LIGHTWEIGHT, 10_000, 16, 21),   // Config L8
-					new BenchmarkConfig(1_000, 1_000, ConsumerType.LIGHTWEIGHT, 5_000, 16, 21),// Config L9
+			ResultWriter resultWriter = new ResultWriter(Path.of(options.getResultDirectory()));
+			System.out.println("Results written to " + resultWriter.writeCsv(orchestrator.getResults()) + " and "
+					+ resultWriter.writeJson(orchestrator.getResults()));
 
-					// Heavy Consumers – geringe Systemlast
-					new BenchmarkConfig(1, 1, ConsumerType.HEAVY, 500, 16_384, 101),  // Config H1
-					new BenchmarkConfig(10, 1, ConsumerType.HEAVY, 500, 16_384, 51),  // Config H2
+		} catch (Exception e) {
+			System.err.println("Fehler beim Ausführen des Benchmarks:");
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
 
-					// Heavy Consumers – mittlere Systemlast
-					new BenchmarkConfig(1, 1, ConsumerType.HEAVY, 20_000, 16_384, 21), // Config H3
-					new BenchmarkConfig(10, 1, ConsumerType.HEAVY, 20_000, 16_384, 21),// Config H4
+	/**
+	 * Compares a JSON summary against a baseline summary.
+	 * <p>
+	 * Expects {@code <baseline.json> <current.json>}, optionally followed by
+	 * {@code --threshold} (minimum throughput drop, default 0.05),
+	 * {@code --latencyThreshold} (minimum p99 latency increase, default 0.10) and
+	 * {@code --alpha} (significance level, default 0.05).
+	 *
+	 * @param args The arguments following {@code compare}
+	 * @return 0 if no result regressed, 1 if a result regressed, 2 if the
+	 *         arguments or files are invalid
+	 */
+	private static int compare(String[] args) {
+		if (args.length < 2 || args.length % 2 != 0) {
+			System.err.println("Usage: compare <baseline.json> <current.json> [--threshold 0.05]"
+					+ " [--latencyThreshold 0.10] [--alpha 0.05]");
+			return 2;
+		}
+		try {
+			double threshold = 0.05;
+			double latencyThreshold = 0.10;
+			double alpha = 0.05;
+			for (int i = 2; i < args.length; i += 2) {
+				switch (args[i]) {
+					case "--threshold" -> threshold = Double.parseDouble(args[i + 1]);
+					case "--latencyThreshold" -> latencyThreshold = Double.parseDouble(args[i + 1]);
+					case "--alpha" -> alpha = Double.parseDouble(args[i + 1]);
+					default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+				}
+			}
 
-					// Heavy Consumers – hohe Systemlast
-					new BenchmarkConfig(1, 1, ConsumerType.HEAVY, 200_000, 16_384, 21), // Config H5
-					new BenchmarkConfig(20, 1, ConsumerType.HEAVY, 200_000, 16_384, 21) // Config H6
-			);
+			BaselineComparator.Outcome outcome = new BaselineComparator(threshold, latencyThreshold, alpha)
+					.compare(Path.of(args[0]), Path.of(args[1]));
+			System.out.println(outcome.report());
+			return outcome.hasRegressions() ? 1 : 0;
+		} catch (Exception e) {
+			System.err.println("Fehler beim Vergleichen der Ergebnisse: " + e.getMessage());
+			return 2;
+		}
+	}
 
-			for (BenchmarkConfig config : configs) {
-				orchestrator.runBenchmarks(config);
+	/**
+	 * Searches the highest open-loop rate every executor type sustains within a
+	 * p99 latency budget.
+	 * <p>
+	 * Accepts {@code --p99BudgetMicros} (default 1000), {@code --startRate}
+	 * (default 1000), {@code --maxRate} (default 1000000) and
+	 * {@code --refinements} (default 4); all other arguments configure the
+	 * benchmark as for a normal run, on top of the defaults of
+	 * {@link BenchmarkConfig#parse(String[])}. The results of all probed rates
+	 * are written to {@code --resultDir}.
+	 *
+	 * @param args The arguments following {@code sweep}
+	 * @return 0 if the sweep completed, 1 if it failed
+	 */
+	private static int sweep(String[] args) {
+		try {
+			long budgetMicros = 1_000;
+			double startRate = 1_000;
+			double maxRate = 1_000_000;
+			int refinements = 4;
+			List<String> benchmarkArgs = new ArrayList<>();
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+					case "--p99BudgetMicros" -> budgetMicros = Long.parseLong(args[++i]);
+					case "--startRate" -> startRate = Double.parseDouble(args[++i]);
+					case "--maxRate" -> maxRate = Double.parseDouble(args[++i]);
+					case "--refinements" -> refinements = Integer.parseInt(args[++i]);
+					default -> benchmarkArgs.add(args[i]);
+				}
 			}
 
-			try (BufferedWriter writer = new BufferedWriter(new FileWriter("results.txt"))) {
-				for (BenchmarkResult result : orchestrator.getResults()) {
-					writer.write(result + "\n\n");
+			BenchmarkConfig config = BenchmarkConfig.parse(benchmarkArgs.toArray(String[]::new));
+			RateSweep sweep = new RateSweep(budgetMicros * 1_000, startRate, maxRate, refinements);
+			String report = sweep.format(sweep.run(config));
+			System.out.println(report);
+
+			ResultWriter resultWriter = new ResultWriter(Path.of(config.getResultDirectory()));
+			System.out.println("Results written to " + resultWriter.writeCsv(sweep.getResults()) + " and "
+					+ resultWriter.writeJson(sweep.getResults()));
+			return 0;
+		} catch (Exception e) {
+			System.err.println("Fehler beim Ausführen des Raten-Sweeps:");
+			e.printStackTrace();
+			return 1;
+		}
+	}
+
+	/**
+	 * Measures how the throughput of every executor type scales with the number
+	 * of producers, consumers and CPUs, and reports the knee of every scaling
+	 * curve.
+	 * <p>
+	 * Accepts {@code --maxProducers} (default 16), {@code --maxConsumers}
+	 * (default 16), {@code --maxCpus} (default all available processors),
+	 * {@code --factor} (grid factor, default 2) and {@code --kneeEfficiency}
+	 * (default 0.5); all other arguments configure the benchmark as for a normal
+	 * run, on top of the defaults of {@link BenchmarkConfig#parse(String[])}.
+	 * Every grid point runs in its own child JVM. The results of all points are
+	 * written to {@code --resultDir}.
+	 *
+	 * @param args The arguments following {@code scale}
+	 * @return 0 if the sweep completed, 1 if it failed
+	 */
+	private static int scale(String[] args) {
+		try {
+			int maxProducers = 16;
+			int maxConsumers = 16;
+			int maxCpus = Runtime.getRuntime().availableProcessors();
+			int factor = 2;
+			double kneeEfficiency = 0.5;
+			List<String> benchmarkArgs = new ArrayList<>();
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+					case "--maxProducers" -> maxProducers = Integer.parseInt(args[++i]);
+					case "--maxConsumers" -> maxConsumers = Integer.parseInt(args[++i]);
+					case "--maxCpus" -> maxCpus = Integer.parseInt(args[++i]);
+					case "--factor" -> factor = Integer.parseInt(args[++i]);
+					case "--kneeEfficiency" -> kneeEfficiency = Double.parseDouble(args[++i]);
+					default -> benchmarkArgs.add(args[i]);
 				}
 			}
 
+			BenchmarkConfig config = BenchmarkConfig.parse(benchmarkArgs.toArray(String[]::new));
+			ScalingSweep sweep = new ScalingSweep(maxProducers, maxConsumers, maxCpus, factor, kneeEfficiency);
+			sweep.run(config);
+			System.out.println(sweep.format());
+
+			ResultWriter resultWriter = new ResultWriter(Path.of(config.getResultDirectory()));
+			System.out.println("Results written to " + resultWriter.writeCsv(sweep.getResults()) + " and "
+					+ resultWriter.writeJson(sweep.getResults()));
+			return 0;
 		} catch (Exception e) {
-			System.err.println("Fehler beim Ausführen des Benchmarks:");
+			System.err.println("Fehler beim Ausführen des Skalierungs-Sweeps:");
 			e.printStackTrace();
-			System.exit(1);
+			return 1;
 		}
 	}
 }
\ No newline at end of file
@@ -1,6 +1,22 @@
 package vc.liebrecht.config;
 
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import vc.liebrecht.consumer.ActorMode;
 import vc.liebrecht.consumer.ConsumerType;
+import vc.liebrecht.consumer.IdleStrategy;
+import vc.liebrecht.domain.PayloadMode;
+import vc.liebrecht.executor.ExecutorType;
+import vc.liebrecht.metrics.Estimator;
+import vc.liebrecht.producer.ArrivalProcess;
+import vc.liebrecht.producer.RequestMode;
+import vc.liebrecht.queue.QueueTopology;
+import vc.liebrecht.queue.QueueType;
+import vc.liebrecht.queue.RoutingPolicy;
+import vc.liebrecht.queue.WaitStrategyType;
 
 /**
  * Configuration class for benchmark parameters.
@@ -10,14 +26,66 @@ import vc.liebrecht.consumer.ConsumerType;
  * including the number of producers, number of consumers, consumer type,
  * messages per producer,
  * payload size, and number of runs.
+ * <p>
+ * Optional settings such as the queue type are initialized with defaults and
+ * can be overridden on the command line via {@link #parseAll(String[], BenchmarkConfig)}.
+ * {@link #toArgs()} converts a configuration back into command-line arguments,
+ * which is how configurations are passed to forked benchmark JVMs.
  */
-public class BenchmarkConfig {
-	private final int _numProducers;
-	private final int _numConsumers;
-	private final ConsumerType _consumerType;
-	private final int _numMessagesPerProducer;
-	private final int _payloadSize;
-	private final int _numRuns;
+public class BenchmarkConfig implements Serializable {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private int _numProducers;
+	private int _numConsumers;
+	private ConsumerType _consumerType;
+	private int _numMessagesPerProducer;
+	private int _payloadSize;
+	private int _numRuns;
+	private QueueType _queueType;
+	private int _queueCapacity;
+	private QueueTopology _topology;
+	private RoutingPolicy _routing;
+	private PipelineSpec _pipeline;
+	private ActorMode _actors;
+	private long _keys;
+	private double _keySkew;
+	private RequestMode _requestMode;
+	private WaitStrategyType _waitStrategy;
+	private IdleStrategy _idleStrategy;
+	private int _batchSize;
+	private long _serverDelayMicros;
+	private int _connections;
+	private String _fileDirectory;
+	private int _syncEvery;
+	// Always a List.of or List.copyOf result, which is serializable.
+	@SuppressWarnings("serial")
+	private List<ExecutorType> _executorTypes;
+	private int _virtualPermits;
+	private int _messagePermits;
+	private long _lockHoldMicros;
+	private boolean _jfrEnabled;
+	private PayloadMode _payloadMode;
+	private int _poolSize;
+	private double _rate;
+	private ArrivalProcess _arrivals;
+	private boolean _adaptive;
+	private double _ciWidth;
+	private Estimator _ciEstimator;
+	private int _maxRuns;
+	private int _maxWarmups;
+	private int _warmupWindow;
+	private double _warmupTolerance;
+	private boolean _forked;
+	// Always a List.of result, which is serializable.
+	@SuppressWarnings("serial")
+	private List<String> _jvmArgs;
+	private int _parallelForks;
+	private int _cpusPerFork;
+	private int _cpus;
+	private GcType _gc;
+	private String _heapSize;
+	private String _resultDirectory;
 
 	/**
 	 * Constructs a new benchmark configuration.
@@ -37,6 +105,100 @@ public class BenchmarkConfig {
 		_numMessagesPerProducer = numMessagesPerProducer;
 		_payloadSize = payloadSize;
 		_numRuns = numRuns;
+		_queueType = QueueType.ARRAY_BLOCKING;
+		_queueCapacity = 0;
+		_topology = QueueTopology.SHARED;
+		_routing = RoutingPolicy.ROUND_ROBIN;
+		_pipeline = null;
+		_actors = ActorMode.NONE;
+		_keys = 0L;
+		_keySkew = 0.0;
+		_requestMode = RequestMode.FIRE_AND_FORGET;
+		_waitStrategy = WaitStrategyType.BLOCKING;
+		_idleStrategy = IdleStrategy.BLOCKING;
+		_batchSize = 1;
+		_serverDelayMicros = 1_000L;
+		_connections = 1;
+		_fileDirectory = System.getProperty("java.io.tmpdir");
+		_syncEvery = 0;
+		_executorTypes = List.of(ExecutorType.PLATFORM_POOL, ExecutorType.VIRTUAL);
+		_virtualPermits = 100;
+		_messagePermits = 0;
+		_lockHoldMicros = 0L;
+		_jfrEnabled = false;
+		_payloadMode = PayloadMode.SHARED;
+		_poolSize = 4096;
+		_rate = 0.0;
+		_arrivals = ArrivalProcess.UNIFORM;
+		_adaptive = false;
+		_ciWidth = 0.05;
+		_ciEstimator = Estimator.MEAN;
+		_maxRuns = 200;
+		_maxWarmups = 50;
+		_warmupWindow = 5;
+		_warmupTolerance = 0.05;
+		_forked = false;
+		_jvmArgs = List.of();
+		_parallelForks = 1;
+		_cpusPerFork = 0;
+		_cpus = 0;
+		_gc = GcType.DEFAULT;
+		_heapSize = "";
+		_resultDirectory = "results";
+	}
+
+	/**
+	 * Constructs a copy of the given configuration.
+	 *
+	 * @param other The configuration to copy
+	 */
+	private BenchmarkConfig(BenchmarkConfig other) {
+		_numProducers = other._numProducers;
+		_numConsumers = other._numConsumers;
+		_consumerType = other._consumerType;
+		_numMessagesPerProducer = other._numMessagesPerProducer;
+		_payloadSize = other._payloadSize;
+		_numRuns = other._numRuns;
+		_queueType = other._queueType;
+		_queueCapacity = other._queueCapacity;
+		_topology = other._topology;
+		_routing = other._routing;
+		_pipeline = other._pipeline;
+		_actors = other._actors;
+		_keys = other._keys;
+		_keySkew = other._keySkew;
+		_requestMode = other._requestMode;
+		_waitStrategy = other._waitStrategy;
+		_idleStrategy = other._idleStrategy;
+		_batchSize = other._batchSize;
+		_serverDelayMicros = other._serverDelayMicros;
+		_connections = other._connections;
+		_fileDirectory = other._fileDirectory;
+		_syncEvery = other._syncEvery;
+		_executorTypes = other._executorTypes;
+		_virtualPermits = other._virtualPermits;
+		_messagePermits = other._messagePermits;
+		_lockHoldMicros = other._lockHoldMicros;
+		_jfrEnabled = other._jfrEnabled;
+		_payloadMode = other._payloadMode;
+		_poolSize = other._poolSize;
+		_rate = other._rate;
+		_arrivals = other._arrivals;
+		_adaptive = other._adaptive;
+		_ciWidth = other._ciWidth;
+		_ciEstimator = other._ciEstimator;
+		_maxRuns = other._maxRuns;
+		_maxWarmups = other._maxWarmups;
+		_warmupWindow = other._warmupWindow;
+		_warmupTolerance = other._warmupTolerance;
+		_forked = other._forked;
+		_jvmArgs = other._jvmArgs;
+		_parallelForks = other._parallelForks;
+		_cpusPerFork = other._cpusPerFork;
+		_cpus = other._cpus;
+		_gc = other._gc;
+		_heapSize = other._heapSize;
+		_resultDirectory = other._resultDirectory;
 	}
 
 	/**
@@ -46,61 +208,394 @@ public class BenchmarkConfig {
 	 * <ul>
 	 * <li>{@code --numProducers}: Number of producer threads (default: 100)</li>
 	 * <li>{@code --numConsumers}: Number of consumer threads (default: 1)</li>
-	 * <li>{@code --consumerType}: Type of consumer - HEAVY or LIGHTWEIGHT (default:
-	 * HEAVY)</li>
+	 * <li>{@code --consumerType}: Type of consumer - HEAVY, LIGHTWEIGHT, NETWORK,
+	 * NETWORK_NIO, FILE_CHANNEL, FILE_ASYNC, FILE_MMAP, LOCK_SYNCHRONIZED,
+	 * LOCK_REENTRANT, LOCK_STAMPED or LOCK_STRIPED (default: HEAVY)</li>
 	 * <li>{@code --numMessages}: Number of messages per producer (default:
 	 * 100)</li>
 	 * <li>{@code --payloadSize}: Size of message payload in bytes (default:
 	 * 1024)</li>
 	 * <li>{@code --numRuns}: Number of benchmark runs (default: 5)</li>
+	 * <li>{@code --queueType}: Queue connecting producers and consumers -
+	 * ARRAY_BLOCKING, LINKED_BLOCKING, LINKED_TRANSFER, SYNCHRONOUS or
+	 * CONCURRENT_LINKED or RING_BUFFER (default: ARRAY_BLOCKING)</li>
+	 * <li>{@code --queueCapacity}: Capacity of ARRAY_BLOCKING, LINKED_BLOCKING
+	 * and RING_BUFFER queues, so that producers block when consumers fall
+	 * behind; 0 to hold all messages of a run (default: 0)</li>
+	 * <li>{@code --topology}: How queues connect producers and consumers -
+	 * SHARED, SHARDED or SHARDED_STEALING; sharded topologies give every
+	 * consumer its own queue and split the capacity among them (default:
+	 * SHARED)</li>
+	 * <li>{@code --routing}: How producers choose the queue of a message in a
+	 * sharded topology - ROUND_ROBIN, KEY_HASH or RANDOM (default:
+	 * ROUND_ROBIN)</li>
+	 * <li>{@code --pipeline}: Multi-stage pipeline that replaces the consumers,
+	 * e.g. {@code decode:LIGHTWEIGHT:2>hash:HEAVY:4>sink:LIGHTWEIGHT:1}; see
+	 * {@link PipelineSpec} (default: none)</li>
+	 * <li>{@code --actors}: How messages of the same key are processed in order -
+	 * NONE, VIRTUAL_PER_KEY, SERIAL_EXECUTOR or STRIPED; ordered modes require a
+	 * single consumer or the SHARDED topology with KEY_HASH routing (default:
+	 * NONE)</li>
+	 * <li>{@code --keys}: Number of distinct message keys, 0 to use the index of
+	 * the producer as key (default: 0)</li>
+	 * <li>{@code --keySkew}: Exponent of the Zipf distribution of the message
+	 * keys, 0 for uniform keys (default: 0)</li>
+	 * <li>{@code --requestMode}: How producers send messages - FIRE_AND_FORGET,
+	 * or one of the request/response modes BLOCKING, COMPLETABLE_FUTURE or FLOW,
+	 * in which every producer waits for the reply to each request; requires the
+	 * SHARED topology without pipeline and ordered actors (default:
+	 * FIRE_AND_FORGET)</li>
+	 * <li>{@code --waitStrategy}: Wait strategy of the ring buffer - BUSY_SPIN,
+	 * YIELD, PARK_NANOS or BLOCKING (default: BLOCKING)</li>
+	 * <li>{@code --idleStrategy}: How consumers wait for messages - BLOCKING,
+	 * BACKOFF or SPIN_THEN_PARK (default: BLOCKING)</li>
+	 * <li>{@code --batchSize}: Number of messages producers publish and consumers
+	 * drain at once (default: 1)</li>
+	 * <li>{@code --serverDelayMicros}: Delay of the echo server before it replies,
+	 * for network consumers (default: 1000)</li>
+	 * <li>{@code --connections}: Number of connections multiplexed by each
+	 * NETWORK_NIO consumer (default: 1)</li>
+	 * <li>{@code --fileDirectory}: Directory in which file consumers create their
+	 * logs (default: {@code java.io.tmpdir})</li>
+	 * <li>{@code --syncEvery}: Number of records after which file consumers force
+	 * their log to disk, 0 to never force (default: 0)</li>
+	 * <li>{@code --executors}: Comma-separated executor strategies every run is
+	 * performed with - PLATFORM_POOL, PLATFORM_CORES, CACHED, FORK_JOIN, VIRTUAL,
+	 * VIRTUAL_THROTTLED, STRUCTURED or VIRTUAL_PER_MESSAGE (default:
+	 * PLATFORM_POOL,VIRTUAL)</li>
+	 * <li>{@code --virtualPermits}: Number of tasks the VIRTUAL_THROTTLED executor
+	 * runs at once (default: 100)</li>
+	 * <li>{@code --messagePermits}: Number of message tasks the
+	 * VIRTUAL_PER_MESSAGE executor runs at once, 0 for no limit (default: 0)</li>
+	 * <li>{@code --lockHoldMicros}: Duration of the blocking call inside the
+	 * critical section of LOCK_* consumers, 0 for none (default: 0)</li>
+	 * <li>{@code --jfr}: Whether GC pauses, allocation, thread parks, virtual
+	 * thread pinning and CPU load are recorded with JFR during every run - true
+	 * or false (default: false). The park and allocation events are streamed
+	 * inside the timed window and add measurement overhead, so the durations
+	 * of runs with and without JFR are not comparable</li>
+	 * <li>{@code --payloadMode}: How producers obtain messages - SHARED, HEAP,
+	 * POOLED or OFF_HEAP (default: SHARED)</li>
+	 * <li>{@code --poolSize}: Number of messages in the pool of the POOLED and
+	 * OFF_HEAP payload modes (default: 4096)</li>
+	 * <li>{@code --rate}: Target rate of all producers together in messages per
+	 * second, which makes producers run open loop; 0 to publish as fast as
+	 * possible (default: 0)</li>
+	 * <li>{@code --arrivals}: Arrival process of open-loop producers - UNIFORM or
+	 * POISSON (default: UNIFORM)</li>
+	 * <li>{@code --adaptive}: Whether the number of warm-up and measured runs is
+	 * determined adaptively instead of using {@code --numRuns} - true or false
+	 * (default: false)</li>
+	 * <li>{@code --ciWidth}: Relative width of the 95% confidence interval at
+	 * which adaptive measuring stops (default: 0.05)</li>
+	 * <li>{@code --ciEstimator}: Location estimate the confidence interval is
+	 * computed for - MEAN or MEDIAN (default: MEAN)</li>
+	 * <li>{@code --maxRuns}: Maximum number of measured runs in adaptive mode
+	 * (default: 200)</li>
+	 * <li>{@code --maxWarmups}: Maximum number of warm-up runs in adaptive mode
+	 * (default: 50)</li>
+	 * <li>{@code --warmupWindow}: Number of recent warm-up runs examined for a
+	 * steady state (default: 5)</li>
+	 * <li>{@code --warmupTolerance}: Maximum relative variation and trend of the
+	 * warm-up window in a steady state (default: 0.05)</li>
+	 * <li>{@code --fork}: Whether every configuration runs in its own child JVM -
+	 * true or false (default: false)</li>
+	 * <li>{@code --jvmArgs}: Space-separated JVM flags of the child JVMs, e.g.
+	 * {@code "-Xmx2g -XX:+UseZGC"} (default: none)</li>
+	 * <li>{@code --parallelForks}: Number of child JVMs running low-parallelism
+	 * scenarios at the same time (default: 1)</li>
+	 * <li>{@code --cpusPerFork}: Number of CPUs each concurrently running child
+	 * JVM is pinned to with {@code taskset}, 0 for no pinning (default: 0)</li>
+	 * <li>{@code --cpus}: Number of CPUs the child JVM may use; the JVM is pinned
+	 * to them and sizes its processor count and virtual thread scheduler
+	 * accordingly; implies {@code --fork true}, 0 for all CPUs (default: 0)</li>
+	 * <li>{@code --gc}: Garbage collector of the child JVM - DEFAULT, G1, ZGC,
+	 * PARALLEL or SERIAL; any other than DEFAULT implies {@code --fork true}
+	 * (default: DEFAULT)</li>
+	 * <li>{@code --heapSize}: Fixed heap size of the child JVM, e.g. {@code 512m}
+	 * or {@code 4g}; implies {@code --fork true} (default: JVM default)</li>
+	 * <li>{@code --resultDir}: Directory the CSV and JSON result files are
+	 * written to (default: {@code results})</li>
 	 * </ul>
 	 * Unknown arguments are printed to {@code System.err} but do not cause the
-	 * parsing to fail.
+	 * parsing to fail. If an argument lists several comma-separated values, only
+	 * the first one is used; see {@link #parseAll(String[], BenchmarkConfig)}.
 	 *
 	 * @param args Command-line arguments to parse
 	 * @return A new {@code BenchmarkConfig} instance with parsed or default values
 	 */
 	public static BenchmarkConfig parse(String[] args) {
-		int numProducers = 100;
-		int numConsumers = 1;
-		ConsumerType consumerType = ConsumerType.HEAVY;
-		int numMessagesPerProducer = 100;
-		int payloadSize = 1024;
-		int numRuns = 5;
+		BenchmarkConfig defaults = new BenchmarkConfig(100, 1, ConsumerType.HEAVY, 100, 1024, 5);
+		return parseAll(args, defaults).get(0);
+	}
+
+	/**
+	 * Parses command-line arguments on top of an existing configuration.
+	 * <p>
+	 * Accepts the same arguments as {@link #parse(String[])}, but every value that
+	 * is not specified is taken from {@code defaults}. Each argument may list
+	 * several comma-separated values (for example
+	 * {@code --queueType ARRAY_BLOCKING,LINKED_BLOCKING}); the result then contains
+	 * one configuration per combination of values. The only exceptions are
+	 * {@code --executors}, whose comma-separated values are all compared within
+	 * each configuration, and {@code --jvmArgs}, whose value is a single list of
+	 * JVM flags.
+	 *
+	 * @param args     Command-line arguments to parse
+	 * @param defaults The configuration providing the values of unspecified
+	 *                 arguments
+	 * @return The list of resulting configurations, never empty
+	 */
+	public static List<BenchmarkConfig> parseAll(String[] args, BenchmarkConfig defaults) {
+		List<BenchmarkConfig> configs = List.of(defaults);
 
 		for (int i = 0; i < args.length; i++) {
-			switch (args[i]) {
-				case "--numProducers":
-					numProducers = Integer.parseInt(args[++i]);
-					break;
+			String option = args[i];
+			if (!isOption(option) || i + 1 >= args.length) {
+				System.err.println("Unknown argument: " + option);
+				continue;
+			}
 
-				case "--numConsumers":
-					numConsumers = Integer.parseInt(args[++i]);
-					break;
+			String[] values = option.equals("--executors") || option.equals("--jvmArgs")
+					? new String[] { args[++i] }
+					: args[++i].split(",");
+			List<BenchmarkConfig> expanded = new ArrayList<>(configs.size() * values.length);
+			for (BenchmarkConfig config : configs) {
+				for (String value : values) {
+					BenchmarkConfig copy = new BenchmarkConfig(config);
+					copy.apply(option, value.trim());
+					expanded.add(copy);
+				}
+			}
+			configs = expanded;
+		}
 
-				case "--consumerType":
-					consumerType = ConsumerType.valueOf(args[++i].toUpperCase());
-					break;
+		return configs;
+	}
 
-				case "--numMessages":
-					numMessagesPerProducer = Integer.parseInt(args[++i]);
-					break;
+	/**
+	 * Checks whether the given argument is a supported option.
+	 *
+	 * @param option The argument to check
+	 * @return {@code true} if the option is supported
+	 */
+	private static boolean isOption(String option) {
+		return switch (option) {
+			case "--numProducers", "--numConsumers", "--consumerType", "--numMessages", "--payloadSize",
+					"--numRuns", "--queueType", "--queueCapacity", "--topology", "--routing", "--pipeline", "--actors",
+					"--keys", "--keySkew", "--requestMode", "--waitStrategy",
+					"--idleStrategy", "--batchSize", "--serverDelayMicros", "--connections",
+					"--fileDirectory", "--syncEvery", "--executors", "--virtualPermits", "--messagePermits",
+					"--lockHoldMicros", "--jfr", "--payloadMode", "--poolSize", "--rate", "--arrivals", "--adaptive", "--ciWidth",
+					"--ciEstimator", "--maxRuns", "--maxWarmups", "--warmupWindow", "--warmupTolerance",
+					"--fork", "--jvmArgs", "--parallelForks", "--cpusPerFork", "--cpus", "--gc", "--heapSize", "--resultDir" -> true;
+			default -> false;
+		};
+	}
 
-				case "--payloadSize":
-					payloadSize = Integer.parseInt(args[++i]);
-					break;
+	/**
+	 * Sets the field belonging to the given option. Only used on fresh copies
+	 * during parsing.
+	 *
+	 * @param option The option name
+	 * @param value  The option value
+	 */
+	private void apply(String option, String value) {
+		switch (option) {
+			case "--numProducers":
+				_numProducers = Integer.parseInt(value);
+				break;
 
-				case "--numRuns":
-					numRuns = Integer.parseInt(args[++i]);
-					break;
+			case "--numConsumers":
+				_numConsumers = Integer.parseInt(value);
+				break;
 
-				default:
-					System.err.println("Unknown argument: " + args[i]);
-			}
-		}
+			case "--consumerType":
+				_consumerType = ConsumerType.valueOf(value.toUpperCase());
+				break;
+
+			case "--numMessages":
+				_numMessagesPerProducer = Integer.parseInt(value);
+				break;
+
+			case "--payloadSize":
+				_payloadSize = Integer.parseInt(value);
+				break;
+
+			case "--numRuns":
+				_numRuns = Integer.parseInt(value);
+				break;
+
+			case "--queueType":
+				_queueType = QueueType.valueOf(value.toUpperCase());
+				break;
+
+			case "--queueCapacity":
+				_queueCapacity = Integer.parseInt(value);
+				break;
+
+			case "--topology":
+				_topology = QueueTopology.valueOf(value.toUpperCase());
+				break;
+
+			case "--routing":
+				_routing = RoutingPolicy.valueOf(value.toUpperCase());
+				break;
+
+			case "--pipeline":
+				_pipeline = value.isBlank() ? null : PipelineSpec.parse(value);
+				break;
+
+			case "--actors":
+				_actors = ActorMode.valueOf(value.toUpperCase());
+				break;
+
+			case "--keys":
+				_keys = Long.parseLong(value);
+				break;
 
-		return new BenchmarkConfig(numProducers, numConsumers, consumerType, numMessagesPerProducer, payloadSize,
-				numRuns);
+			case "--keySkew":
+				_keySkew = Double.parseDouble(value);
+				break;
+
+			case "--requestMode":
+				_requestMode = RequestMode.valueOf(value.toUpperCase());
+				break;
+
+			case "--waitStrategy":
+				_waitStrategy = WaitStrategyType.valueOf(value.toUpperCase());
+				break;
+
+			case "--idleStrategy":
+				_idleStrategy = IdleStrategy.valueOf(value.toUpperCase());
+				break;
+
+			case "--batchSize":
+				_batchSize = Integer.parseInt(value);
+				break;
+
+			case "--serverDelayMicros":
+				_serverDelayMicros = Long.parseLong(value);
+				break;
+
+			case "--connections":
+				_connections = Integer.parseInt(value);
+				break;
+
+			case "--fileDirectory":
+				_fileDirectory = value;
+				break;
+
+			case "--syncEvery":
+				_syncEvery = Integer.parseInt(value);
+				break;
+
+			case "--executors":
+				List<ExecutorType> executorTypes = new ArrayList<>();
+				for (String type : value.split(",")) {
+					executorTypes.add(ExecutorType.valueOf(type.trim().toUpperCase()));
+				}
+				_executorTypes = List.copyOf(executorTypes);
+				break;
+
+			case "--virtualPermits":
+				_virtualPermits = Integer.parseInt(value);
+				break;
+
+			case "--messagePermits":
+				_messagePermits = Integer.parseInt(value);
+				break;
+
+			case "--lockHoldMicros":
+				_lockHoldMicros = Long.parseLong(value);
+				break;
+
+			case "--jfr":
+				_jfrEnabled = Boolean.parseBoolean(value);
+				break;
+
+			case "--payloadMode":
+				_payloadMode = PayloadMode.valueOf(value.toUpperCase());
+				break;
+
+			case "--poolSize":
+				_poolSize = Integer.parseInt(value);
+				break;
+
+			case "--rate":
+				_rate = Double.parseDouble(value);
+				break;
+
+			case "--arrivals":
+				_arrivals = ArrivalProcess.valueOf(value.toUpperCase());
+				break;
+
+			case "--adaptive":
+				_adaptive = Boolean.parseBoolean(value);
+				break;
+
+			case "--ciWidth":
+				_ciWidth = Double.parseDouble(value);
+				break;
+
+			case "--ciEstimator":
+				_ciEstimator = Estimator.valueOf(value.toUpperCase());
+				break;
+
+			case "--maxRuns":
+				_maxRuns = Integer.parseInt(value);
+				break;
+
+			case "--maxWarmups":
+				_maxWarmups = Integer.parseInt(value);
+				break;
+
+			case "--warmupWindow":
+				_warmupWindow = Integer.parseInt(value);
+				break;
+
+			case "--warmupTolerance":
+				_warmupTolerance = Double.parseDouble(value);
+				break;
+
+			case "--fork":
+				_forked = Boolean.parseBoolean(value);
+				break;
+
+			case "--jvmArgs":
+				_jvmArgs = value.isBlank() ? List.of() : List.of(value.trim().split("\\s+"));
+				break;
+
+			case "--parallelForks":
+				_parallelForks = Integer.parseInt(value);
+				break;
+
+			case "--cpusPerFork":
+				_cpusPerFork = Integer.parseInt(value);
+				break;
+
+			case "--cpus":
+				_cpus = Integer.parseInt(value);
+				break;
+
+			case "--gc":
+				_gc = GcType.valueOf(value.toUpperCase());
+				break;
+
+			case "--heapSize":
+				if (!value.matches("(\\d+[kKmMgG]?)?")) {
+					throw new IllegalArgumentException("Invalid heap size: " + value);
+				}
+				_heapSize = value;
+				break;
+
+			case "--resultDir":
+				_resultDirectory = value;
+				break;
+
+			default:
+				throw new IllegalArgumentException("Unknown argument: " + option);
+		}
 	}
 
 	/**
@@ -157,6 +652,488 @@ public class BenchmarkConfig {
 		return _numRuns;
 	}
 
+	/**
+	 * Returns the type of queue connecting producers and consumers.
+	 *
+	 * @return The queue type
+	 */
+	public QueueType getQueueType() {
+		return _queueType;
+	}
+
+	/**
+	 * Returns the capacity of the queue.
+	 *
+	 * @return The capacity, or {@code 0} if the queue holds all messages of a run
+	 */
+	public int getQueueCapacity() {
+		return _queueCapacity;
+	}
+
+	/**
+	 * Returns how queues connect producers and consumers.
+	 *
+	 * @return The queue topology
+	 */
+	public QueueTopology getTopology() {
+		return _topology;
+	}
+
+	/**
+	 * Returns the policy producers use to choose the queue of a message in a
+	 * sharded topology.
+	 *
+	 * @return The routing policy
+	 */
+	public RoutingPolicy getRouting() {
+		return _routing;
+	}
+
+	/**
+	 * Returns the multi-stage pipeline that replaces the consumers.
+	 *
+	 * @return The pipeline, or {@code null} if the producers feed the consumers
+	 *         directly
+	 */
+	public PipelineSpec getPipeline() {
+		return _pipeline;
+	}
+
+	/**
+	 * Returns how messages of the same key are processed in order.
+	 *
+	 * @return The actor mode, {@code NONE} for unordered processing
+	 */
+	public ActorMode getActorMode() {
+		return _actors;
+	}
+
+	/**
+	 * Returns the number of distinct message keys.
+	 *
+	 * @return The number of keys, or {@code 0} if the key of every message is the
+	 *         index of its producer
+	 */
+	public long getKeys() {
+		return _keys;
+	}
+
+	/**
+	 * Returns the exponent of the Zipf distribution of the message keys.
+	 *
+	 * @return The skew, {@code 0} for uniform keys
+	 */
+	public double getKeySkew() {
+		return _keySkew;
+	}
+
+	/**
+	 * Returns how producers send messages.
+	 *
+	 * @return The request mode, {@code FIRE_AND_FORGET} unless producers wait for
+	 *         replies
+	 */
+	public RequestMode getRequestMode() {
+		return _requestMode;
+	}
+
+	/**
+	 * Returns the number of consumer tasks of a run.
+	 *
+	 * @return The number of stage consumers of the pipeline, or the number of
+	 *         consumers without a pipeline
+	 */
+	public int getConsumerTasks() {
+		return _pipeline != null ? _pipeline.getWorkers() : _numConsumers;
+	}
+
+	/**
+	 * Returns the number of queues connecting producers and consumers.
+	 *
+	 * @return The number of consumers for sharded topologies, otherwise
+	 *         {@code 1}
+	 */
+	public int getShards() {
+		return _topology == QueueTopology.SHARED ? 1 : _numConsumers;
+	}
+
+	/**
+	 * Returns whether producers can block because a queue is full.
+	 * <p>
+	 * Sharded topologies always count as bounded: a consumer that only takes from
+	 * its own queue cannot drain the messages routed to another consumer, so
+	 * every consumer must be running for the producers to finish. The same holds
+	 * for pipelines, whose stages only terminate once the stages before them
+	 * have. In request/response mode, callers wait for the replies of the
+	 * consumers, so they cannot finish before the consumers run either.
+	 *
+	 * @return {@code true} if a capacity is configured, the queue type has no
+	 *         capacity at all, the topology is sharded, a pipeline is
+	 *         configured, or producers wait for replies
+	 */
+	public boolean hasBackpressure() {
+		return _queueCapacity > 0 || _queueType == QueueType.SYNCHRONOUS || _topology != QueueTopology.SHARED
+				|| _pipeline != null || _requestMode.isRoundTrip();
+	}
+
+	/**
+	 * Returns the wait strategy used by the ring buffer queue.
+	 *
+	 * @return The wait strategy type
+	 */
+	public WaitStrategyType getWaitStrategy() {
+		return _waitStrategy;
+	}
+
+	/**
+	 * Returns the strategy consumers use to wait for messages.
+	 *
+	 * @return The idle strategy
+	 */
+	public IdleStrategy getIdleStrategy() {
+		return _idleStrategy;
+	}
+
+	/**
+	 * Returns the number of messages producers publish and consumers drain at
+	 * once.
+	 *
+	 * @return The batch size
+	 */
+	public int getBatchSize() {
+		return _batchSize;
+	}
+
+	/**
+	 * Returns the delay of the echo server before it replies to a network
+	 * consumer.
+	 *
+	 * @return The server-side delay in microseconds
+	 */
+	public long getServerDelayMicros() {
+		return _serverDelayMicros;
+	}
+
+	/**
+	 * Returns the number of connections each NIO network consumer multiplexes.
+	 *
+	 * @return The number of connections per consumer
+	 */
+	public int getConnections() {
+		return _connections;
+	}
+
+	/**
+	 * Returns the directory in which file consumers create their logs.
+	 *
+	 * @return The log directory
+	 */
+	public String getFileDirectory() {
+		return _fileDirectory;
+	}
+
+	/**
+	 * Returns the number of records after which file consumers force their log to
+	 * disk.
+	 *
+	 * @return The group commit size, or {@code 0} if logs are never forced
+	 */
+	public int getSyncEvery() {
+		return _syncEvery;
+	}
+
+	/**
+	 * Returns the executor strategies every run is performed with.
+	 *
+	 * @return The executor types in the order they are run
+	 */
+	public List<ExecutorType> getExecutorTypes() {
+		return _executorTypes;
+	}
+
+	/**
+	 * Returns the number of tasks the semaphore-throttled virtual thread executor
+	 * runs at once.
+	 *
+	 * @return The number of permits
+	 */
+	public int getVirtualPermits() {
+		return _virtualPermits;
+	}
+
+	/**
+	 * Returns the number of message tasks the thread-per-message executor runs at
+	 * once.
+	 *
+	 * @return The number of permits, or {@code 0} for no limit
+	 */
+	public int getMessagePermits() {
+		return _messagePermits;
+	}
+
+	/**
+	 * Returns the duration of the blocking call inside the critical section of
+	 * shared state consumers.
+	 *
+	 * @return The lock hold time in microseconds, or {@code 0} for no blocking
+	 *         call
+	 */
+	public long getLockHoldMicros() {
+		return _lockHoldMicros;
+	}
+
+	/**
+	 * Returns whether JFR events are recorded during every run.
+	 *
+	 * @return {@code true} if JFR events are recorded
+	 */
+	public boolean isJfrEnabled() {
+		return _jfrEnabled;
+	}
+
+	/**
+	 * Returns how producers obtain messages and payloads.
+	 *
+	 * @return The payload mode
+	 */
+	public PayloadMode getPayloadMode() {
+		return _payloadMode;
+	}
+
+	/**
+	 * Returns the number of messages in the pool of the pooled payload modes.
+	 *
+	 * @return The pool size
+	 */
+	public int getPoolSize() {
+		return _poolSize;
+	}
+
+	/**
+	 * Returns the target rate of all producers together.
+	 *
+	 * @return The rate in messages per second, or {@code 0} if producers publish
+	 *         as fast as possible
+	 */
+	public double getRate() {
+		return _rate;
+	}
+
+	/**
+	 * Returns the arrival process of open-loop producers.
+	 *
+	 * @return The arrival process
+	 */
+	public ArrivalProcess getArrivals() {
+		return _arrivals;
+	}
+
+	/**
+	 * Returns whether the number of warm-up and measured runs is determined
+	 * adaptively.
+	 *
+	 * @return {@code true} if runs continue until a steady state and a narrow
+	 *         confidence interval are reached, {@code false} if the fixed number
+	 *         of runs is used
+	 */
+	public boolean isAdaptive() {
+		return _adaptive;
+	}
+
+	/**
+	 * Returns the relative width of the 95% confidence interval at which adaptive
+	 * measuring stops.
+	 *
+	 * @return The target width relative to the estimate, e.g. {@code 0.05}
+	 */
+	public double getCiWidth() {
+		return _ciWidth;
+	}
+
+	/**
+	 * Returns the location estimate the confidence interval is computed for.
+	 *
+	 * @return The estimator
+	 */
+	public Estimator getCiEstimator() {
+		return _ciEstimator;
+	}
+
+	/**
+	 * Returns the maximum number of measured runs in adaptive mode.
+	 *
+	 * @return The maximum number of measured runs
+	 */
+	public int getMaxRuns() {
+		return _maxRuns;
+	}
+
+	/**
+	 * Returns the maximum number of warm-up runs in adaptive mode.
+	 *
+	 * @return The maximum number of warm-up runs
+	 */
+	public int getMaxWarmups() {
+		return _maxWarmups;
+	}
+
+	/**
+	 * Returns the number of recent warm-up runs examined for a steady state.
+	 *
+	 * @return The size of the warm-up window
+	 */
+	public int getWarmupWindow() {
+		return _warmupWindow;
+	}
+
+	/**
+	 * Returns the maximum relative variation and trend of the warm-up window in a
+	 * steady state.
+	 *
+	 * @return The warm-up tolerance, e.g. {@code 0.05}
+	 */
+	public double getWarmupTolerance() {
+		return _warmupTolerance;
+	}
+
+	/**
+	 * Returns whether the configuration runs in its own child JVM.
+	 * <p>
+	 * A garbage collector, heap size or number of CPUs can only be chosen when a
+	 * JVM starts, so configurations that set one are always forked.
+	 *
+	 * @return {@code true} if the benchmark is forked
+	 */
+	public boolean isForked() {
+		return _forked || _gc != GcType.DEFAULT || !_heapSize.isEmpty() || _cpus > 0;
+	}
+
+	/**
+	 * Returns the JVM flags of the child JVM.
+	 *
+	 * @return The JVM flags, never {@code null}
+	 */
+	public List<String> getJvmArgs() {
+		return _jvmArgs;
+	}
+
+	/**
+	 * Returns the number of child JVMs that may run low-parallelism scenarios at
+	 * the same time.
+	 *
+	 * @return The number of concurrent forks
+	 */
+	public int getParallelForks() {
+		return _parallelForks;
+	}
+
+	/**
+	 * Returns the number of CPUs each concurrently running child JVM is pinned
+	 * to.
+	 *
+	 * @return The CPUs per fork, or {@code 0} for no pinning
+	 */
+	public int getCpusPerFork() {
+		return _cpusPerFork;
+	}
+
+	/**
+	 * Returns the number of CPUs the child JVM may use.
+	 *
+	 * @return The number of CPUs, or {@code 0} for all CPUs
+	 */
+	public int getCpus() {
+		return _cpus;
+	}
+
+	/**
+	 * Returns the garbage collector of the child JVM.
+	 *
+	 * @return The garbage collector
+	 */
+	public GcType getGc() {
+		return _gc;
+	}
+
+	/**
+	 * Returns the fixed heap size of the child JVM.
+	 *
+	 * @return The heap size as given to {@code -Xmx}, e.g. {@code 4g}, or an empty
+	 *         string for the JVM default
+	 */
+	public String getHeapSize() {
+		return _heapSize;
+	}
+
+	/**
+	 * Returns the directory the result files are written to.
+	 *
+	 * @return The result directory
+	 */
+	public String getResultDirectory() {
+		return _resultDirectory;
+	}
+
+	/**
+	 * Converts the configuration into command-line arguments.
+	 * <p>
+	 * Parsing the arguments with {@link #parse(String[])} yields an equal
+	 * configuration. The fork options and the result directory are omitted,
+	 * since a forked benchmark never forks again and never writes result files;
+	 * the garbage collector and heap size are included, so that the result of a
+	 * forked benchmark shows which JVM it was measured in.
+	 *
+	 * @return The arguments, as option-value pairs
+	 */
+	public List<String> toArgs() {
+		List<String> executorNames = new ArrayList<>();
+		for (ExecutorType type : _executorTypes) {
+			executorNames.add(type.name());
+		}
+		return List.of(
+				"--numProducers", String.valueOf(_numProducers),
+				"--numConsumers", String.valueOf(_numConsumers),
+				"--consumerType", _consumerType.name(),
+				"--numMessages", String.valueOf(_numMessagesPerProducer),
+				"--payloadSize", String.valueOf(_payloadSize),
+				"--numRuns", String.valueOf(_numRuns),
+				"--queueType", _queueType.name(),
+				"--queueCapacity", String.valueOf(_queueCapacity),
+				"--topology", _topology.name(),
+				"--routing", _routing.name(),
+				"--pipeline", _pipeline != null ? _pipeline.toString() : "",
+				"--actors", _actors.name(),
+				"--keys", String.valueOf(_keys),
+				"--keySkew", String.valueOf(_keySkew),
+				"--requestMode", _requestMode.name(),
+				"--waitStrategy", _waitStrategy.name(),
+				"--idleStrategy", _idleStrategy.name(),
+				"--batchSize", String.valueOf(_batchSize),
+				"--serverDelayMicros", String.valueOf(_serverDelayMicros),
+				"--connections", String.valueOf(_connections),
+				"--fileDirectory", _fileDirectory,
+				"--syncEvery", String.valueOf(_syncEvery),
+				"--executors", String.join(",", executorNames),
+				"--virtualPermits", String.valueOf(_virtualPermits),
+				"--messagePermits", String.valueOf(_messagePermits),
+				"--lockHoldMicros", String.valueOf(_lockHoldMicros),
+				"--jfr", String.valueOf(_jfrEnabled),
+				"--payloadMode", _payloadMode.name(),
+				"--poolSize", String.valueOf(_poolSize),
+				"--rate", String.valueOf(_rate),
+				"--arrivals", _arrivals.name(),
+				"--adaptive", String.valueOf(_adaptive),
+				"--ciWidth", String.valueOf(_ciWidth),
+				"--ciEstimator", _ciEstimator.name(),
+				"--maxRuns", String.valueOf(_maxRuns),
+				"--maxWarmups", String.valueOf(_maxWarmups),
+				"--warmupWindow", String.valueOf(_warmupWindow),
+				"--warmupTolerance", String.valueOf(_warmupTolerance),
+				"--cpus", String.valueOf(_cpus),
+				"--gc", _gc.name(),
+				"--heapSize", _heapSize);
+	}
+
 	/**
 	 * Returns a formatted string representation of the benchmark configuration.
 	 * <p>
@@ -175,6 +1152,42 @@ public class BenchmarkConfig {
 				    \tMessages per producer:\t%d
 				    \tPayload size:        \t%d byte
 				    \tRuns:                \t%d
+				    \tQueue type:          \t%s
+				    \tQueue capacity:      \t%s
+				    \tTopology:            \t%s
+				    \tRouting:             \t%s
+				    \tPipeline:            \t%s
+				    \tActors:              \t%s
+				    \tKeys:                \t%s
+				    \tRequest mode:        \t%s
+				    \tWait strategy:       \t%s
+				    \tIdle strategy:       \t%s
+				    \tBatch size:          \t%d
+				    \tServer delay:        \t%d us
+				    \tConnections:         \t%d
+				    \tFile directory:      \t%s
+				    \tSync every:          \t%d
+				    \tExecutors:           \t%s
+				    \tVirtual permits:     \t%d
+				    \tMessage permits:     \t%s
+				    \tLock hold time:      \t%d us
+				    \tJFR events:          \t%b
+				    \tPayload mode:        \t%s
+				    \tPool size:           \t%d
+				    \tRate:                \t%s
+				    \tArrivals:            \t%s
+				    \tAdaptive runs:       \t%b
+				    \tCI width:            \t%.3f
+				    \tCI estimator:        \t%s
+				    \tMax runs:            \t%d
+				    \tMax warm-ups:        \t%d
+				    \tWarm-up window:      \t%d
+				    \tWarm-up tolerance:   \t%.3f
+				    \tForked:              \t%b
+				    \tJVM args:            \t%s
+				    \tCPUs:                \t%s
+				    \tGarbage collector:   \t%s
+				    \tHeap size:           \t%s
 				\t}
 				""".formatted(
 				this.getProducers(),
@@ -182,6 +1195,42 @@ public class BenchmarkConfig {
 				this.getConsumerType(),
 				this.getMessagesPerProducer(),
 				this.getPayloadSize(),
-				this.getRuns());
+				this.getRuns(),
+				this.getQueueType(),
+				this.getQueueCapacity() > 0 ? String.valueOf(this.getQueueCapacity()) : "all messages",
+				this.getTopology(),
+				this.getRouting(),
+				this.getPipeline() != null ? this.getPipeline() : "none",
+				this.getActorMode(),
+				this.getKeys() > 0 ? "%d, skew %.2f".formatted(this.getKeys(), this.getKeySkew()) : "producer index",
+				this.getRequestMode(),
+				this.getWaitStrategy(),
+				this.getIdleStrategy(),
+				this.getBatchSize(),
+				this.getServerDelayMicros(),
+				this.getConnections(),
+				this.getFileDirectory(),
+				this.getSyncEvery(),
+				this.getExecutorTypes(),
+				this.getVirtualPermits(),
+				this.getMessagePermits() > 0 ? String.valueOf(this.getMessagePermits()) : "unlimited",
+				this.getLockHoldMicros(),
+				this.isJfrEnabled(),
+				this.getPayloadMode(),
+				this.getPoolSize(),
+				this.getRate() > 0 ? "%.0f msgs/sec".formatted(this.getRate()) : "closed loop",
+				this.getArrivals(),
+				this.isAdaptive(),
+				this.getCiWidth(),
+				this.getCiEstimator(),
+				this.getMaxRuns(),
+				this.getMaxWarmups(),
+				this.getWarmupWindow(),
+				this.getWarmupTolerance(),
+				this.isForked(),
+				String.join(" ", this.getJvmArgs()),
+				this.getCpus() > 0 ? String.valueOf(this.getCpus()) : "all",
+				this.getGc(),
+				this.getHeapSize().isEmpty() ? "JVM default" : this.getHeapSize());
 	}
 }
\ No newline at end of file
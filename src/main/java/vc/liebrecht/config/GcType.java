@@ -0,0 +1,73 @@
+package vc.liebrecht.config;
+
+import java.util.List;
+
+/**
+ * Enumeration for the garbage collectors a forked benchmark JVM can be started
+ * with.
+ * <p>
+ * Virtual threads keep their stacks on the heap while they are unmounted, so
+ * the collector has a noticeable influence on their performance. A collector
+ * can only be chosen when the JVM starts; benchmarks with a collector other
+ * than {@code DEFAULT} therefore always run in a child JVM.
+ */
+public enum GcType {
+	/**
+	 * The default collector of the JVM, without additional flags.
+	 */
+	DEFAULT("JVM default"),
+
+	/**
+	 * The Garbage-First collector.
+	 */
+	G1("G1", "-XX:+UseG1GC"),
+
+	/**
+	 * The generational Z Garbage Collector with concurrent, sub-millisecond
+	 * pauses.
+	 */
+	ZGC("ZGC (generational)", "-XX:+UseZGC", "-XX:+ZGenerational"),
+
+	/**
+	 * The throughput-oriented parallel collector.
+	 */
+	PARALLEL("Parallel", "-XX:+UseParallelGC"),
+
+	/**
+	 * The single-threaded serial collector.
+	 */
+	SERIAL("Serial", "-XX:+UseSerialGC");
+
+	private final String _displayName;
+	private final List<String> _jvmFlags;
+
+	/**
+	 * Constructs a collector type.
+	 *
+	 * @param displayName The display name for this collector
+	 * @param jvmFlags    The JVM flags that select this collector
+	 */
+	GcType(String displayName, String... jvmFlags) {
+		_displayName = displayName;
+		_jvmFlags = List.of(jvmFlags);
+	}
+
+	/**
+	 * Returns the JVM flags that select this collector.
+	 *
+	 * @return The JVM flags, empty for {@code DEFAULT}
+	 */
+	public List<String> jvmFlags() {
+		return _jvmFlags;
+	}
+
+	/**
+	 * Returns the display name of this collector.
+	 *
+	 * @return The display name of the collector
+	 */
+	@Override
+	public String toString() {
+		return _displayName;
+	}
+}
@@ -0,0 +1,168 @@
+package vc.liebrecht.config;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import vc.liebrecht.consumer.ConsumerType;
+
+/**
+ * The definition of a multi-stage pipeline as a directed acyclic graph of
+ * stages arranged in levels.
+ * <p>
+ * A definition lists the levels separated by {@code >}, and the stages of a
+ * level separated by {@code |}. Every stage is given as
+ * {@code name:TYPE:parallelism} with an optional {@code :capacity} of its input
+ * queue, for example {@code decode:LIGHTWEIGHT:2>enrich:LIGHTWEIGHT:2|hash:HEAVY:4>sink:LIGHTWEIGHT:1}.
+ * Every stage forwards each message it has processed to all stages of the next
+ * level, so that a level with several stages is a fan-out of the level before
+ * it and a fan-in of the level after it. The producers insert into the only
+ * stage of the first level.
+ * <p>
+ * The body of a stage is the processing of a {@code LIGHTWEIGHT} or
+ * {@code HEAVY} consumer. Since the definition contains no commas, a list of
+ * definitions can be given like any other option with several values.
+ */
+public final class PipelineSpec implements Serializable {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	// Nested List.copyOf results, which are serializable.
+	@SuppressWarnings("serial")
+	private final List<List<Stage>> _levels;
+
+	/**
+	 * A stage of a pipeline.
+	 *
+	 * @param name        The name of the stage, unique within the pipeline
+	 * @param type        The consumer type whose processing is the body of the
+	 *                    stage, {@code LIGHTWEIGHT} or {@code HEAVY}
+	 * @param parallelism The number of consumer tasks of the stage
+	 * @param capacity    The capacity of the input queue of the stage, or
+	 *                    {@code 0} for the configured queue capacity
+	 */
+	public record Stage(String name, ConsumerType type, int parallelism, int capacity) implements Serializable {
+		/**
+		 * Returns the stage in the syntax of a pipeline definition.
+		 *
+		 * @return The stage as {@code name:TYPE:parallelism[:capacity]}
+		 */
+		@Override
+		public String toString() {
+			return this.name() + ":" + this.type().name() + ":" + this.parallelism()
+					+ (this.capacity() > 0 ? ":" + this.capacity() : "");
+		}
+	}
+
+	/**
+	 * Constructs a pipeline from its levels.
+	 *
+	 * @param levels The stages of every level, in the order of the data flow
+	 */
+	private PipelineSpec(List<List<Stage>> levels) {
+		_levels = levels;
+	}
+
+	/**
+	 * Parses a pipeline definition.
+	 *
+	 * @param definition The definition, e.g.
+	 *                   {@code decode:LIGHTWEIGHT:2>hash:HEAVY:4>sink:LIGHTWEIGHT:1}
+	 * @return The parsed pipeline
+	 * @throws IllegalArgumentException If the definition is malformed, a stage
+	 *                                  name is used twice, a stage type is not
+	 *                                  supported, or the first level has more
+	 *                                  than one stage
+	 */
+	public static PipelineSpec parse(String definition) {
+		List<List<Stage>> levels = new ArrayList<>();
+		List<String> names = new ArrayList<>();
+		for (String level : definition.split(">")) {
+			List<Stage> stages = new ArrayList<>();
+			for (String stage : level.split("\\|")) {
+				String[] parts = stage.trim().split(":");
+				if (parts.length < 3 || parts.length > 4 || parts[0].isBlank()) {
+					throw new IllegalArgumentException("Invalid pipeline stage: " + stage.trim());
+				}
+				ConsumerType type = ConsumerType.valueOf(parts[1].trim().toUpperCase());
+				if (type != ConsumerType.LIGHTWEIGHT && type != ConsumerType.HEAVY) {
+					throw new IllegalArgumentException("Pipeline stages must be LIGHTWEIGHT or HEAVY: " + type.name());
+				}
+				int parallelism = Integer.parseInt(parts[2].trim());
+				int capacity = parts.length == 4 ? Integer.parseInt(parts[3].trim()) : 0;
+				if (parallelism < 1 || capacity < 0) {
+					throw new IllegalArgumentException("Invalid pipeline stage: " + stage.trim());
+				}
+				String name = parts[0].trim();
+				if (names.contains(name)) {
+					throw new IllegalArgumentException("Duplicate pipeline stage: " + name);
+				}
+				names.add(name);
+				stages.add(new Stage(name, type, parallelism, capacity));
+			}
+			levels.add(List.copyOf(stages));
+		}
+		if (levels.get(0).size() != 1) {
+			throw new IllegalArgumentException("The first level of a pipeline must have exactly one stage");
+		}
+		return new PipelineSpec(List.copyOf(levels));
+	}
+
+	/**
+	 * Returns the stages of every level.
+	 *
+	 * @return The levels in the order of the data flow
+	 */
+	public List<List<Stage>> getLevels() {
+		return _levels;
+	}
+
+	/**
+	 * Returns the number of consumer tasks of all stages.
+	 *
+	 * @return The summed parallelism of all stages
+	 */
+	public int getWorkers() {
+		int workers = 0;
+		for (List<Stage> level : _levels) {
+			for (Stage stage : level) {
+				workers += stage.parallelism();
+			}
+		}
+		return workers;
+	}
+
+	/**
+	 * Returns how many copies of every produced message reach the last level in
+	 * total, as every stage forwards to all stages of the next level.
+	 *
+	 * @return The product of the number of stages of every level
+	 */
+	public long getCopiesPerMessage() {
+		long copies = 1;
+		for (List<Stage> level : _levels) {
+			copies *= level.size();
+		}
+		return copies;
+	}
+
+	/**
+	 * Returns the pipeline in the syntax of a definition, so that it can be
+	 * passed to {@link #parse(String)} again.
+	 *
+	 * @return The definition of the pipeline
+	 */
+	@Override
+	public String toString() {
+		List<String> levels = new ArrayList<>();
+		for (List<Stage> level : _levels) {
+			List<String> stages = new ArrayList<>();
+			for (Stage stage : level) {
+				stages.add(stage.toString());
+			}
+			levels.add(String.join("|", stages));
+		}
+		return String.join(">", levels);
+	}
+}
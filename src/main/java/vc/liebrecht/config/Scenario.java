@@ -0,0 +1,95 @@
+package vc.liebrecht.config;
+
+import vc.liebrecht.consumer.ConsumerType;
+
+/**
+ * Enumeration of the predefined benchmark scenarios.
+ * <p>
+ * The scenarios {@code L1} to {@code L9} use lightweight consumers, the
+ * scenarios {@code H1} to {@code H6} use heavy consumers, each with increasing
+ * load and parallelism. They are run by {@code Main} and exposed as parameters
+ * of the JMH benchmarks, so that both harnesses measure the same workloads.
+ */
+public enum Scenario {
+	// Lightweight Consumers – geringe Systemlast
+	L1(1, 1, ConsumerType.LIGHTWEIGHT, 50, 16, 501),
+	L2(10, 1, ConsumerType.LIGHTWEIGHT, 50, 16, 251),
+
+	// Lightweight Consumers – mittlere Systemlast
+	L3(1, 1, ConsumerType.LIGHTWEIGHT, 10_000, 16, 51),
+	L4(50, 1, ConsumerType.LIGHTWEIGHT, 10_000, 16, 31),
+	L5(500, 1, ConsumerType.LIGHTWEIGHT, 10_000, 16, 21),
+
+	// Lightweight Consumers – hohe Systemlast
+	L6(1_000, 1, ConsumerType.LIGHTWEIGHT, 100_000, 16, 21),
+
+	// Lightweight Consumers – hohe Parallelität
+	L7(100, 100, ConsumerType.LIGHTWEIGHT, 10_000, 16, 21),
+	L8(500, 500, ConsumerType.LIGHTWEIGHT, 10_000, 16, 21),
+	L9(1_000, 1_000, ConsumerType.LIGHTWEIGHT, 5_000, 16, 21),
+
+	// Heavy Consumers – geringe Systemlast
+	H1(1, 1, ConsumerType.HEAVY, 500, 16_384, 101),
+	H2(10, 1, ConsumerType.HEAVY, 500, 16_384, 51),
+
+	// Heavy Consumers – mittlere Systemlast
+	H3(1, 1, ConsumerType.HEAVY, 20_000, 16_384, 21),
+	H4(10, 1, ConsumerType.HEAVY, 20_000, 16_384, 21),
+
+	// Heavy Consumers – hohe Systemlast
+	H5(1, 1, ConsumerType.HEAVY, 200_000, 16_384, 21),
+	H6(20, 1, ConsumerType.HEAVY, 200_000, 16_384, 21);
+
+	private final int _numProducers;
+	private final int _numConsumers;
+	private final ConsumerType _consumerType;
+	private final int _numMessagesPerProducer;
+	private final int _payloadSize;
+	private final int _numRuns;
+
+	/**
+	 * Constructs a scenario.
+	 *
+	 * @param numProducers           The number of producer threads
+	 * @param numConsumers           The number of consumer threads
+	 * @param consumerType           The type of consumer to use
+	 * @param numMessagesPerProducer The number of messages each producer creates
+	 * @param payloadSize            The size of each message payload in bytes
+	 * @param numRuns                The number of benchmark runs to perform
+	 */
+	Scenario(int numProducers, int numConsumers, ConsumerType consumerType, int numMessagesPerProducer,
+			int payloadSize, int numRuns) {
+		_numProducers = numProducers;
+		_numConsumers = numConsumers;
+		_consumerType = consumerType;
+		_numMessagesPerProducer = numMessagesPerProducer;
+		_payloadSize = payloadSize;
+		_numRuns = numRuns;
+	}
+
+	/**
+	 * Creates a new benchmark configuration for this scenario. All optional
+	 * settings have their default values.
+	 *
+	 * @return A new {@code BenchmarkConfig}
+	 */
+	public BenchmarkConfig toConfig() {
+		return new BenchmarkConfig(_numProducers, _numConsumers, _consumerType, _numMessagesPerProducer,
+				_payloadSize, _numRuns);
+	}
+
+	/**
+	 * Returns whether the scenario keeps only a few threads busy, so that it can
+	 * share the machine with other such scenarios when run in forked JVMs on
+	 * disjoint CPUs.
+	 *
+	 * @return {@code true} for the low-parallelism scenarios {@code L1} to
+	 *         {@code L3} and {@code H1}
+	 */
+	public boolean isLowParallelism() {
+		return switch (this) {
+			case L1, L2, L3, H1 -> true;
+			default -> false;
+		};
+	}
+}
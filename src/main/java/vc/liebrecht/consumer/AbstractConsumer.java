@@ -0,0 +1,210 @@
+package vc.liebrecht.consumer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+import vc.liebrecht.domain.Message;
+import vc.liebrecht.metrics.LatencyRecorder;
+
+/**
+ * Base class for consumers that take messages from a {@code BlockingQueue}
+ * until they receive the poison pill.
+ * <p>
+ * The consumer loop waits for messages according to the configured
+ * {@code IdleStrategy}, records the dequeue and completion latency of every
+ * message, and counts it in the shared {@code CompletionCounter}. With a batch
+ * size greater than one, the consumer drains up to a full batch with
+ * {@code drainTo} into a reused buffer after each wait. Subclasses only
+ * implement the processing of a single message.
+ * <p>
+ * Subclasses that complete messages asynchronously override
+ * {@link #completesAsynchronously()}, call {@link #complete(Message)} once the
+ * processing has finished, and wait for outstanding messages in
+ * {@link #awaitCompletions()}.
+ */
+public abstract class AbstractConsumer implements Runnable {
+	private final BlockingQueue<Message> _queue;
+	private final CompletionCounter _completion;
+	private final LatencyRecorder _latency;
+	private final IdleStrategy _idleStrategy;
+	private final int _batchSize;
+
+	/**
+	 * Constructs a new consumer.
+	 *
+	 * @param q            The queue to retrieve messages from
+	 * @param completion   The counter to report processed messages and
+	 *                     termination to
+	 * @param latency      The recorder for the latencies of the consumed messages
+	 * @param idleStrategy The strategy used to wait for messages
+	 * @param batchSize    The maximum number of messages taken from the queue at
+	 *                     once
+	 */
+	protected AbstractConsumer(BlockingQueue<Message> q, CompletionCounter completion, LatencyRecorder latency,
+			IdleStrategy idleStrategy, int batchSize) {
+		_queue = q;
+		_completion = completion;
+		_latency = latency;
+		_idleStrategy = idleStrategy;
+		_batchSize = batchSize;
+	}
+
+	/**
+	 * Executes the consumer task.
+	 * <p>
+	 * Takes messages from the queue until {@link Message#POISON_PILL} is received.
+	 * For every other message, the dequeue latency is recorded, the message is
+	 * passed to {@link #process(Message)}, and the completion latency is recorded
+	 * before the message is counted as completed. After the poison pill, the
+	 * consumer waits for asynchronously processed messages. The consumer always
+	 * signals its termination to the {@code CompletionCounter} after releasing its
+	 * resources, even if processing fails. If the thread is interrupted while
+	 * waiting, the interrupt flag is restored and the consumer terminates.
+	 */
+	@Override
+	public void run() {
+		try {
+			if (_batchSize <= 1) {
+				this.consumeSingle();
+			} else {
+				this.consumeBatches();
+			}
+			this.awaitCompletions();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			this.release();
+			_completion.consumerFinished();
+		}
+	}
+
+	/**
+	 * Takes and handles one message at a time until the poison pill arrives.
+	 *
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	private void consumeSingle() throws InterruptedException {
+		while (true) {
+			Message m = _idleStrategy.take(_queue);
+			if (m == Message.POISON_PILL) {
+				return;
+			}
+			this.handle(m, System.nanoTime());
+		}
+	}
+
+	/**
+	 * Waits for one message, drains up to a full batch, and handles the batch
+	 * until a poison pill arrives.
+	 * <p>
+	 * All messages of a batch share the same dequeue timestamp. Since a drained
+	 * batch may contain the poison pills of other consumers, every pill beyond
+	 * the first is put back into the queue.
+	 *
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	private void consumeBatches() throws InterruptedException {
+		List<Message> batch = new ArrayList<>(_batchSize);
+		int pills = 0;
+		while (pills == 0) {
+			batch.add(_idleStrategy.take(_queue));
+			_queue.drainTo(batch, _batchSize - 1);
+
+			long dequeued = System.nanoTime();
+			for (int i = 0; i < batch.size(); i++) {
+				Message m = batch.get(i);
+				if (m == Message.POISON_PILL) {
+					pills++;
+				} else {
+					this.handle(m, dequeued);
+				}
+			}
+			batch.clear();
+		}
+
+		for (int i = 1; i < pills; i++) {
+			_queue.put(Message.POISON_PILL);
+		}
+	}
+
+	/**
+	 * Processes a message and records its latencies and completion, unless the
+	 * subclass completes messages asynchronously.
+	 *
+	 * @param m             The message to handle
+	 * @param dequeuedNanos The {@code System.nanoTime()} at which the message was
+	 *                      taken from the queue
+	 */
+	private void handle(Message m, long dequeuedNanos) {
+		_latency.recordDequeue(m.enqueueNanos(), dequeuedNanos);
+		this.process(m);
+		if (!this.completesAsynchronously()) {
+			this.complete(m);
+		}
+	}
+
+	/**
+	 * Records the completion latency of a message, replies to its sender if it is
+	 * a request, returns it to its pool, and counts it as completed.
+	 * <p>
+	 * The latency recorder is not thread-safe; asynchronous subclasses must not
+	 * call this method concurrently, but use
+	 * {@link #complete(Message, LatencyRecorder)} with a recorder of the
+	 * completing thread instead.
+	 *
+	 * @param m The message whose processing has finished
+	 */
+	protected final void complete(Message m) {
+		this.complete(m, _latency);
+	}
+
+	/**
+	 * Completes a message like {@link #complete(Message)}, but records its
+	 * completion latency into the given recorder, which the subclass merges into
+	 * the recorder of this consumer before {@link #awaitCompletions()} returns.
+	 *
+	 * @param m       The message whose processing has finished
+	 * @param latency The recorder used by the completing thread alone
+	 */
+	protected final void complete(Message m, LatencyRecorder latency) {
+		latency.recordCompletion(m.enqueueNanos(), System.nanoTime());
+		m.reply();
+		m.release();
+		_completion.messageCompleted();
+	}
+
+	/**
+	 * Returns whether the subclass calls {@link #complete(Message)} itself once a
+	 * message has been processed asynchronously.
+	 *
+	 * @return {@code false} by default, so that messages are completed as soon as
+	 *         {@link #process(Message)} returns
+	 */
+	protected boolean completesAsynchronously() {
+		return false;
+	}
+
+	/**
+	 * Waits until all asynchronously processed messages have been completed.
+	 * Called once after the poison pill; does nothing by default.
+	 *
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	protected void awaitCompletions() throws InterruptedException {
+	}
+
+	/**
+	 * Processes a single message.
+	 *
+	 * @param m The message to process, never the poison pill
+	 */
+	protected abstract void process(Message m);
+
+	/**
+	 * Releases resources held by the consumer, such as connections or files.
+	 * Called exactly once when the consumer terminates; does nothing by default.
+	 */
+	protected void release() {
+	}
+}
@@ -0,0 +1,153 @@
+package vc.liebrecht.consumer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import vc.liebrecht.domain.Message;
+import vc.liebrecht.metrics.LatencyRecorder;
+
+/**
+ * A dispatcher that hands every message to the mailbox of its key, where the
+ * messages of a key are processed one at a time in the order they arrived.
+ * <p>
+ * A mailbox is a lock-free queue with a scheduled flag. The dispatcher appends
+ * a message and, if the mailbox was idle, submits it to the mailbox executor,
+ * which drains up to {@value #THROUGHPUT} messages before the mailbox gives
+ * its thread back and is submitted again. Depending on the executor, every
+ * activation of a mailbox runs on a new virtual thread or on a shared pool of
+ * platform threads. Since every key is consumed by exactly one dispatcher,
+ * messages of the same key are never processed concurrently.
+ * <p>
+ * Only mailboxes of active keys are kept: a mailbox that ran empty reports
+ * itself to its dispatcher, which removes it if it is still empty, so that
+ * millions of keys do not hold millions of mailboxes. Every thread that drains
+ * mailboxes creates its own consumer as the body that processes messages,
+ * since consumer state such as the digest of a {@code HeavyConsumer} is not
+ * thread-safe.
+ */
+public class ActorConsumer extends DispatchingConsumer {
+	/**
+	 * The maximum number of messages a mailbox processes per activation, so that
+	 * a hot key cannot monopolize a thread of a shared pool.
+	 */
+	private static final int THROUGHPUT = 64;
+
+	private final Executor _executor;
+	private final ThreadLocal<AbstractConsumer> _body;
+	private final Map<Long, Mailbox> _mailboxes;
+	private final Queue<Mailbox> _idle;
+
+	/**
+	 * The messages of one key.
+	 */
+	private final class Mailbox implements Runnable {
+		private final long _key;
+		private final Queue<Message> _messages;
+		private final AtomicBoolean _scheduled;
+
+		/**
+		 * Constructs an empty mailbox.
+		 *
+		 * @param key The key of the messages
+		 */
+		private Mailbox(long key) {
+			_key = key;
+			_messages = new ConcurrentLinkedQueue<>();
+			_scheduled = new AtomicBoolean();
+		}
+
+		/**
+		 * Appends a message and schedules the mailbox if it is idle. Only called by
+		 * the dispatcher.
+		 *
+		 * @param m The message
+		 */
+		private void post(Message m) {
+			_messages.offer(m);
+			if (_scheduled.compareAndSet(false, true)) {
+				_executor.execute(this);
+			}
+		}
+
+		/**
+		 * Processes the messages of the mailbox in order, then either schedules the
+		 * mailbox again or reports it as idle.
+		 */
+		@Override
+		public void run() {
+			AbstractConsumer body = _body.get();
+			Message m;
+			for (int i = 0; i < THROUGHPUT && (m = _messages.poll()) != null; i++) {
+				try {
+					body.process(m);
+				} catch (RuntimeException e) {
+					System.err.println("WARNING: Actor failed to process a message: " + e);
+					ActorConsumer.this.finished();
+					continue;
+				}
+				ActorConsumer.this.completeDispatched(m);
+			}
+			_scheduled.set(false);
+			// A message posted after the last poll found the flag still set.
+			if (!_messages.isEmpty() && _scheduled.compareAndSet(false, true)) {
+				_executor.execute(this);
+			} else {
+				_idle.offer(this);
+			}
+		}
+	}
+
+	/**
+	 * Constructs a new dispatcher.
+	 *
+	 * @param q            The queue to retrieve messages from
+	 * @param completion   The counter to report processed messages and
+	 *                     termination to
+	 * @param latency      The recorder for the latencies of the consumed messages
+	 * @param idleStrategy The strategy used to wait for messages
+	 * @param batchSize    The maximum number of messages taken from the queue at
+	 *                     once
+	 * @param executor     The executor that drains the mailboxes
+	 * @param permits      The semaphore limiting the messages in flight, or
+	 *                     {@code null} for no limit
+	 * @param bodies       Creates the consumer that processes messages; called
+	 *                     once per thread that drains mailboxes
+	 */
+	public ActorConsumer(BlockingQueue<Message> q, CompletionCounter completion, LatencyRecorder latency,
+			IdleStrategy idleStrategy, int batchSize, Executor executor, Semaphore permits,
+			Supplier<Runnable> bodies) {
+		super(q, completion, latency, idleStrategy, batchSize, permits);
+		_executor = executor;
+		_body = ThreadLocal.withInitial(() -> checkBody(bodies.get()));
+		_mailboxes = new HashMap<>();
+		_idle = new ConcurrentLinkedQueue<>();
+	}
+
+	/**
+	 * Removes the mailboxes that ran empty, then posts the message to the mailbox
+	 * of its key.
+	 *
+	 * @param m The message to process
+	 * @throws IllegalStateException If the dispatcher is interrupted while
+	 *                               waiting for a permit
+	 */
+	@Override
+	protected void process(Message m) {
+		Mailbox idle;
+		while ((idle = _idle.poll()) != null) {
+			// Only the dispatcher posts, so an unscheduled empty mailbox stays idle.
+			if (!idle._scheduled.get() && idle._messages.isEmpty()) {
+				_mailboxes.remove(idle._key, idle);
+			}
+		}
+		this.dispatched();
+		_mailboxes.computeIfAbsent(m.key(), Mailbox::new).post(m);
+	}
+}
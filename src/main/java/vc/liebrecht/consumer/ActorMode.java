@@ -0,0 +1,94 @@
+package vc.liebrecht.consumer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Enumeration for the designs that process the messages of every key in order.
+ * <p>
+ * All ordered designs require every key to be consumed by a single consumer,
+ * i.e. key hash routing onto sharded queues. The mailbox designs then let the
+ * consumer hand every message to the mailbox of its key, which is drained
+ * serially by one task at a time; the striped design processes every shard on
+ * its consumer, the single writer of all keys hashed to it.
+ */
+public enum ActorMode {
+	/**
+	 * No ordering: consumers process messages as they take them.
+	 */
+	NONE("none", false),
+
+	/**
+	 * A mailbox per active key, drained by a new virtual thread whenever the
+	 * mailbox receives a message while idle.
+	 */
+	VIRTUAL_PER_KEY("Virtual thread per active key", true),
+
+	/**
+	 * A mailbox per active key that acts as a serial executor: it is scheduled
+	 * onto a shared pool with one platform thread per available processor.
+	 */
+	SERIAL_EXECUTOR("Serial executor per key on a platform pool", true),
+
+	/**
+	 * Every consumer is the single writer of the keys hashed to its shard and
+	 * processes their messages itself.
+	 */
+	STRIPED("Striped single writer", false);
+
+	private final String _displayName;
+	private final boolean _mailboxes;
+
+	/**
+	 * Constructs an actor mode.
+	 *
+	 * @param displayName The display name for this actor mode
+	 * @param mailboxes   Whether messages are processed from per-key mailboxes
+	 */
+	ActorMode(String displayName, boolean mailboxes) {
+		_displayName = displayName;
+		_mailboxes = mailboxes;
+	}
+
+	/**
+	 * Returns whether messages of the same key are processed in order.
+	 *
+	 * @return {@code true} for every mode except {@link #NONE}
+	 */
+	public boolean isOrdered() {
+		return this != NONE;
+	}
+
+	/**
+	 * Returns whether consumers dispatch messages to per-key mailboxes.
+	 *
+	 * @return {@code true} if the mode needs a mailbox executor
+	 */
+	public boolean usesMailboxes() {
+		return _mailboxes;
+	}
+
+	/**
+	 * Creates the executor that drains the mailboxes.
+	 *
+	 * @return A new {@code ExecutorService}
+	 * @throws IllegalStateException If this mode does not use mailboxes
+	 */
+	public ExecutorService createMailboxExecutor() {
+		return switch (this) {
+			case VIRTUAL_PER_KEY -> Executors.newVirtualThreadPerTaskExecutor();
+			case SERIAL_EXECUTOR -> Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+			default -> throw new IllegalStateException("Actor mode " + this.name() + " uses no mailboxes");
+		};
+	}
+
+	/**
+	 * Returns the display name of this actor mode.
+	 *
+	 * @return The display name of the actor mode
+	 */
+	@Override
+	public String toString() {
+		return _displayName;
+	}
+}
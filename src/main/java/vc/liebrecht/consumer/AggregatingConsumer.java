@@ -0,0 +1,46 @@
+package vc.liebrecht.consumer;
+
+import java.util.concurrent.BlockingQueue;
+
+import vc.liebrecht.domain.Message;
+import vc.liebrecht.metrics.LatencyRecorder;
+
+/**
+ * A consumer that adds the payload size of every message to a
+ * {@code SharedAggregate} shared by all consumers.
+ * <p>
+ * The key is derived from the enqueue timestamp, which spreads the updates
+ * across the table. How much the consumers contend, and whether they pin their
+ * carrier threads, depends on the locking mechanism of the aggregate.
+ */
+public class AggregatingConsumer extends AbstractConsumer {
+	private final SharedAggregate _aggregate;
+
+	/**
+	 * Constructs a new consumer.
+	 *
+	 * @param q            The queue to retrieve messages from
+	 * @param completion   The counter to report processed messages and
+	 *                     termination to
+	 * @param latency      The recorder for the latencies of the consumed messages
+	 * @param idleStrategy The strategy used to wait for messages
+	 * @param batchSize    The maximum number of messages taken from the queue at
+	 *                     once
+	 * @param aggregate    The aggregate shared by all consumers
+	 */
+	public AggregatingConsumer(BlockingQueue<Message> q, CompletionCounter completion, LatencyRecorder latency,
+			IdleStrategy idleStrategy, int batchSize, SharedAggregate aggregate) {
+		super(q, completion, latency, idleStrategy, batchSize);
+		_aggregate = aggregate;
+	}
+
+	/**
+	 * Adds the payload size to the shared aggregate.
+	 *
+	 * @param m The message to process
+	 */
+	@Override
+	protected void process(Message m) {
+		_aggregate.add(Long.hashCode(m.enqueueNanos()), m.payloadLength());
+	}
+}
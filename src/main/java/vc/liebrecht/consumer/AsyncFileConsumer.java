@@ -0,0 +1,230 @@
+package vc.liebrecht.consumer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import vc.liebrecht.domain.Message;
+import vc.liebrecht.metrics.LatencyRecorder;
+
+/**
+ * A file consumer that appends every message to a log file with an
+ * {@code AsynchronousFileChannel} and completes it in a
+ * {@code CompletionHandler}.
+ * <p>
+ * The consumer thread only reserves a position in its circular log of
+ * {@link FileChannelConsumer#LOG_SIZE} bytes, copies the record into a free
+ * write slot and starts the write; up to {@link #MAX_IN_FLIGHT} writes are
+ * outstanding at a time. The completion latency is recorded by the handler,
+ * which on Linux runs on the channel's internal thread pool, since the JDK
+ * emulates asynchronous file I/O with blocking writes on platform threads.
+ * After every {@code syncEvery} records, the consumer forces the channel, which
+ * covers all writes completed so far.
+ */
+public class AsyncFileConsumer extends AbstractConsumer {
+	/**
+	 * The maximum number of writes a consumer keeps in flight.
+	 */
+	public static final int MAX_IN_FLIGHT = 64;
+
+	private final AsynchronousFileChannel _channel;
+	private final BlockingQueue<WriteSlot> _free;
+	private final WriteHandler _handler;
+	private final ReentrantLock _completionLock;
+	private final int _syncEvery;
+	private long _position;
+	private int _unsynced;
+	private volatile IOException _failure;
+
+	/**
+	 * Constructs a new consumer and creates its log file.
+	 *
+	 * @param q            The queue to retrieve messages from
+	 * @param completion   The counter to report processed messages and
+	 *                     termination to
+	 * @param latency      The recorder for the latencies of the consumed messages
+	 * @param idleStrategy The strategy used to wait for messages
+	 * @param batchSize    The maximum number of messages taken from the queue at
+	 *                     once
+	 * @param directory    The directory in which the log file is created
+	 * @param syncEvery    The number of records after which the channel is
+	 *                     forced, or {@code 0} to never force
+	 * @throws UncheckedIOException If the log file cannot be created
+	 */
+	public AsyncFileConsumer(BlockingQueue<Message> q, CompletionCounter completion, LatencyRecorder latency,
+			IdleStrategy idleStrategy, int batchSize, Path directory, int syncEvery) {
+		super(q, completion, latency, idleStrategy, batchSize);
+		try {
+			Path file = Files.createTempFile(directory, "async-file-", ".log");
+			_channel = AsynchronousFileChannel.open(file, StandardOpenOption.WRITE,
+					StandardOpenOption.DELETE_ON_CLOSE);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		_free = new ArrayBlockingQueue<>(MAX_IN_FLIGHT);
+		for (int i = 0; i < MAX_IN_FLIGHT; i++) {
+			_free.add(new WriteSlot());
+		}
+		_handler = new WriteHandler();
+		_completionLock = new ReentrantLock();
+		_syncEvery = syncEvery;
+	}
+
+	/**
+	 * Starts writing the message as a record to the log, waiting for a free write
+	 * slot if {@link #MAX_IN_FLIGHT} writes are outstanding.
+	 *
+	 * @param m The message to process
+	 * @throws UncheckedIOException If a previous write or forcing the channel
+	 *                              failed
+	 */
+	@Override
+	protected void process(Message m) {
+		WriteSlot slot;
+		try {
+			slot = _free.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a write slot", e);
+		}
+		this.checkFailure();
+
+		int length = m.payloadLength();
+		int recordLength = Integer.BYTES + length;
+		if (slot._buffer.capacity() < recordLength) {
+			slot._buffer = ByteBuffer.allocateDirect(recordLength);
+		}
+		slot._buffer.clear();
+		slot._buffer.putInt(length);
+		m.copyPayloadTo(slot._buffer);
+		slot._buffer.flip();
+
+		if (_position + recordLength > FileChannelConsumer.LOG_SIZE) {
+			_position = 0;
+		}
+		slot._message = m;
+		slot._position = _position;
+		_position += recordLength;
+		_channel.write(slot._buffer, slot._position, slot, _handler);
+
+		if (_syncEvery > 0 && ++_unsynced >= _syncEvery) {
+			try {
+				_channel.force(false);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			_unsynced = 0;
+		}
+	}
+
+	/**
+	 * Returns {@code true}, since messages are completed by the write handler.
+	 *
+	 * @return Always {@code true}
+	 */
+	@Override
+	protected boolean completesAsynchronously() {
+		return true;
+	}
+
+	/**
+	 * Waits until every write slot has been returned, i.e. no write is in flight.
+	 *
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 * @throws UncheckedIOException If a write failed
+	 */
+	@Override
+	protected void awaitCompletions() throws InterruptedException {
+		for (int i = 0; i < MAX_IN_FLIGHT; i++) {
+			_free.take();
+		}
+		this.checkFailure();
+	}
+
+	/**
+	 * Closes and deletes the log file.
+	 */
+	@Override
+	protected void release() {
+		try {
+			_channel.close();
+		} catch (IOException e) {
+			System.err.println("WARNING: Failed to close log file: " + e);
+		}
+	}
+
+	/**
+	 * Rethrows the first failure reported by the write handler, if any.
+	 *
+	 * @throws UncheckedIOException If a write failed
+	 */
+	private void checkFailure() {
+		IOException failure = _failure;
+		if (failure != null) {
+			throw new UncheckedIOException(failure);
+		}
+	}
+
+	/**
+	 * A reusable direct buffer together with the message and file position of the
+	 * write it currently carries.
+	 */
+	private static final class WriteSlot {
+		private ByteBuffer _buffer = ByteBuffer.allocateDirect(0);
+		private Message _message;
+		private long _position;
+	}
+
+	/**
+	 * Completes messages once their record has been written completely and
+	 * returns the write slot to the pool.
+	 */
+	private final class WriteHandler implements CompletionHandler<Integer, WriteSlot> {
+		/**
+		 * Continues a partial write, or completes the message of a finished one.
+		 *
+		 * @param written The number of bytes written
+		 * @param slot    The write slot of the finished write
+		 */
+		@Override
+		public void completed(Integer written, WriteSlot slot) {
+			if (slot._buffer.hasRemaining()) {
+				slot._position += written;
+				_channel.write(slot._buffer, slot._position, slot, this);
+				return;
+			}
+
+			_completionLock.lock();
+			try {
+				AsyncFileConsumer.this.complete(slot._message);
+			} finally {
+				_completionLock.unlock();
+			}
+			slot._message = null;
+			_free.add(slot);
+		}
+
+		/**
+		 * Remembers the failure and returns the write slot to the pool.
+		 *
+		 * @param e    The cause of the failure
+		 * @param slot The write slot of the failed write
+		 */
+		@Override
+		public void failed(Throwable e, WriteSlot slot) {
+			if (_failure == null) {
+				_failure = e instanceof IOException io ? io : new IOException(e);
+			}
+			slot._message = null;
+			_free.add(slot);
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package vc.liebrecht.consumer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks the progress of the consumers of a benchmark run.
+ * <p>
+ * Processed messages are counted in a striped {@code LongAdder}, so that
+ * consumers do not contend on a single counter for every message. The end of
+ * the run is detected separately: each consumer signals once when it has
+ * received its poison pill and terminated. The time of the first completed
+ * message is kept to separate the start-up of a run from its steady drain.
+ */
+public class CompletionCounter {
+	private final LongAdder _completedMessages;
+	private final CountDownLatch _finishedConsumers;
+	private final AtomicLong _firstCompletionNanos;
+
+	/**
+	 * Constructs a new completion counter.
+	 *
+	 * @param numConsumers The number of consumers that will signal termination
+	 */
+	public CompletionCounter(int numConsumers) {
+		_completedMessages = new LongAdder();
+		_finishedConsumers = new CountDownLatch(numConsumers);
+		_firstCompletionNanos = new AtomicLong();
+	}
+
+	/**
+	 * Counts one processed message.
+	 * <p>
+	 * Only the first message writes its completion time; all later ones merely
+	 * read it, so that the shared field does not become a contention point.
+	 */
+	public void messageCompleted() {
+		if (_firstCompletionNanos.get() == 0) {
+			_firstCompletionNanos.compareAndSet(0, System.nanoTime());
+		}
+		_completedMessages.increment();
+	}
+
+	/**
+	 * Signals that a consumer has terminated.
+	 */
+	public void consumerFinished() {
+		_finishedConsumers.countDown();
+	}
+
+	/**
+	 * Waits until all consumers have terminated.
+	 *
+	 * @param timeout The maximum time to wait
+	 * @param unit    The unit of the timeout
+	 * @return {@code true} if all consumers terminated in time
+	 * @throws InterruptedException If the current thread is interrupted
+	 */
+	public boolean awaitConsumers(long timeout, TimeUnit unit) throws InterruptedException {
+		return _finishedConsumers.await(timeout, unit);
+	}
+
+	/**
+	 * Returns the time at which the first message was completed.
+	 *
+	 * @return The {@code System.nanoTime()} of the first completion, or {@code 0}
+	 *         if no message has been completed yet
+	 */
+	public long getFirstCompletionNanos() {
+		return _firstCompletionNanos.get();
+	}
+
+	/**
+	 * Returns the number of processed messages.
+	 *
+	 * @return The number of messages counted so far
+	 */
+	public long getCompletedMessages() {
+		return _completedMessages.sum();
+	}
+}
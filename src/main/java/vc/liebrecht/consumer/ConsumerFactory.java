@@ -1,9 +1,9 @@
 package vc.liebrecht.consumer;
 
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.CountDownLatch;
 
 import vc.liebrecht.domain.Message;
+import vc.liebrecht.metrics.LatencyRecorder;
 
 /**
  * Factory interface for creating consumer instances.
@@ -19,9 +19,11 @@ public interface ConsumerFactory {
 	/**
 	 * Creates a new consumer instance.
 	 *
-	 * @param queue The queue to retrieve messages from
-	 * @param done  The latch to signal when all messages have been received
+	 * @param queue      The queue to retrieve messages from
+	 * @param completion The counter to report processed messages and termination
+	 *                   to
+	 * @param latency    The recorder for the latencies of the consumed messages
 	 * @return A new {@code Runnable} consumer instance
 	 */
-	Runnable createConsumer(BlockingQueue<Message> queue, CountDownLatch done);
+	Runnable createConsumer(BlockingQueue<Message> queue, CompletionCounter completion, LatencyRecorder latency);
 }
\ No newline at end of file
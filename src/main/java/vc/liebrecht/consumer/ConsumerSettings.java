@@ -0,0 +1,28 @@
+package vc.liebrecht.consumer;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+
+/**
+ * Groups the settings that the {@code DefaultConsumerFactory} passes on to the
+ * consumers it creates.
+ * <p>
+ * Settings that only apply to some consumer types are ignored by the others.
+ *
+ * @param idleStrategy   The strategy consumers use to wait for messages
+ * @param batchSize      The maximum number of messages a consumer takes from
+ *                       the queue at once
+ * @param echoServer     The address of the echo server for network consumers,
+ *                       or {@code null} if none is running
+ * @param connections    The number of connections each NIO network consumer
+ *                       multiplexes
+ * @param fileDirectory  The directory in which file consumers create their logs
+ * @param syncEvery      The number of messages after which file consumers force
+ *                       their writes to disk, or {@code 0} to never force
+ * @param lockHoldMicros The duration of the blocking call inside the critical
+ *                       section of shared state consumers in microseconds, or
+ *                       {@code 0} for no blocking call
+ */
+public record ConsumerSettings(IdleStrategy idleStrategy, int batchSize, InetSocketAddress echoServer,
+		int connections, Path fileDirectory, int syncEvery, long lockHoldMicros) {
+}
@@ -3,8 +3,12 @@ package vc.liebrecht.consumer;
 /**
  * Enumeration for different consumer types used in the benchmark.
  * <p>
- * Defines the supported consumer types: {@code HEAVY} for CPU-intensive processing
- * and {@code LIGHTWEIGHT} for minimal processing.
+ * Defines the supported consumer types: {@code HEAVY} for CPU-intensive processing,
+ * {@code LIGHTWEIGHT} for minimal processing, {@code NETWORK} and
+ * {@code NETWORK_NIO} for I/O-bound processing against a loopback echo server,
+ * {@code FILE_CHANNEL}, {@code FILE_ASYNC} and {@code FILE_MMAP} for
+ * appending to a log file, and the {@code LOCK_*} types for updating state
+ * shared by all consumers under different locks.
  */
 public enum ConsumerType {
     /**
@@ -15,17 +19,108 @@ public enum ConsumerType {
     /**
      * Lightweight consumer type that performs minimal processing.
      */
-    LIGHTWEIGHT("Lightweight");
+    LIGHTWEIGHT("Lightweight"),
+
+    /**
+     * Network consumer type that sends each payload over a blocking socket and
+     * waits for the echoed reply.
+     */
+    NETWORK("Network (blocking socket)", true),
+
+    /**
+     * Network consumer type that multiplexes several non-blocking connections in
+     * a selector-based event loop.
+     */
+    NETWORK_NIO("Network (NIO selector)", true),
+
+    /**
+     * File consumer type that appends each payload to a log with a blocking
+     * {@code FileChannel} write.
+     */
+    FILE_CHANNEL("File (blocking FileChannel)"),
+
+    /**
+     * File consumer type that appends each payload to a log with an
+     * {@code AsynchronousFileChannel} and completes it in a completion handler.
+     */
+    FILE_ASYNC("File (AsynchronousFileChannel)"),
+
+    /**
+     * File consumer type that copies each payload into a memory-mapped log.
+     */
+    FILE_MMAP("File (memory-mapped log)"),
+
+    /**
+     * Shared state consumer type that updates a shared aggregate inside a
+     * {@code synchronized} block.
+     */
+    LOCK_SYNCHRONIZED("Shared state (synchronized)"),
+
+    /**
+     * Shared state consumer type that updates a shared aggregate while holding a
+     * {@code ReentrantLock}.
+     */
+    LOCK_REENTRANT("Shared state (ReentrantLock)"),
+
+    /**
+     * Shared state consumer type that updates a shared aggregate while holding
+     * the write lock of a {@code StampedLock}.
+     */
+    LOCK_STAMPED("Shared state (StampedLock)"),
+
+    /**
+     * Shared state consumer type that updates a shared aggregate while holding
+     * one of several striped {@code ReentrantLock}s.
+     */
+    LOCK_STRIPED("Shared state (striped ReentrantLock)");
 
     private final String _displayName;
+    private final boolean _requiresEchoServer;
 
     /**
-     * Constructs a consumer type.
+     * Constructs a consumer type that does not need an echo server.
      *
      * @param displayName The display name for this consumer type
      */
     ConsumerType(String displayName) {
+        this(displayName, false);
+    }
+
+    /**
+     * Constructs a consumer type.
+     *
+     * @param displayName        The display name for this consumer type
+     * @param requiresEchoServer Whether consumers of this type talk to an echo
+     *                           server
+     */
+    ConsumerType(String displayName, boolean requiresEchoServer) {
         _displayName = displayName;
+        _requiresEchoServer = requiresEchoServer;
+    }
+
+    /**
+     * Returns whether consumers of this type need a running echo server.
+     *
+     * @return {@code true} if an echo server must be started for this type
+     */
+    public boolean requiresEchoServer() {
+        return _requiresEchoServer;
+    }
+
+    /**
+     * Returns whether consumers of this type can be created to process messages
+     * on behalf of a dispatching consumer, on a task per message or per mailbox.
+     * <p>
+     * This holds for the types that process messages in memory; the network and
+     * file types would open a connection or a file per task.
+     *
+     * @return {@code true} if this type supports dispatching consumers
+     */
+    public boolean supportsDispatch() {
+        return switch (this) {
+            case HEAVY, LIGHTWEIGHT, LOCK_SYNCHRONIZED, LOCK_REENTRANT, LOCK_STAMPED, LOCK_STRIPED -> true;
+            default -> false;
+        };
     }
 
     /**
@@ -1,9 +1,9 @@
 package vc.liebrecht.consumer;
 
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.CountDownLatch;
 
 import vc.liebrecht.domain.Message;
+import vc.liebrecht.metrics.LatencyRecorder;
 
 /**
  * Default implementation of {@code ConsumerFactory} that creates consumers
@@ -15,32 +15,66 @@ import vc.liebrecht.domain.Message;
  * allowing new consumer types to be added through the {@code ConsumerType} enum
  * without
  * modifying this factory class.
+ * <p>
+ * Shared state consumers of all runs created by one factory update the same
+ * {@code SharedAggregate}.
  */
 public class DefaultConsumerFactory implements ConsumerFactory {
 	private final ConsumerType _consumerType;
+	private final ConsumerSettings _settings;
+	private final SharedAggregate _aggregate;
 
 	/**
 	 * Constructs a new consumer factory with the specified consumer type.
 	 *
 	 * @param consumerType The type of consumer to create
+	 * @param settings     The settings passed on to the created consumers
 	 */
-	public DefaultConsumerFactory(ConsumerType consumerType) {
+	public DefaultConsumerFactory(ConsumerType consumerType, ConsumerSettings settings) {
 		_consumerType = consumerType;
+		_settings = settings;
+		_aggregate = switch (consumerType) {
+			case LOCK_SYNCHRONIZED -> new SynchronizedAggregate(settings.lockHoldMicros());
+			case LOCK_REENTRANT -> new ReentrantLockAggregate(settings.lockHoldMicros());
+			case LOCK_STAMPED -> new StampedLockAggregate(settings.lockHoldMicros());
+			case LOCK_STRIPED -> new StripedLockAggregate(settings.lockHoldMicros());
+			default -> null;
+		};
 	}
 
 	/**
 	 * Creates a new consumer instance based on the configured consumer type.
 	 *
-	 * @param queue The queue to retrieve messages from
-	 * @param done  The latch to signal when all messages have been received
+	 * @param queue      The queue to retrieve messages from
+	 * @param completion The counter to report processed messages and termination
+	 *                   to
+	 * @param latency    The recorder for the latencies of the consumed messages
 	 * @return A new {@code Runnable} consumer instance
 	 * @throws IllegalArgumentException If the consumer type is not supported
+	 * @throws IllegalStateException    If the consumer type needs an echo server
+	 *                                  but none was configured
 	 */
 	@Override
-	public Runnable createConsumer(BlockingQueue<Message> queue, CountDownLatch done) {
+	public Runnable createConsumer(BlockingQueue<Message> queue, CompletionCounter completion, LatencyRecorder latency) {
+		if (_consumerType.requiresEchoServer() && _settings.echoServer() == null) {
+			throw new IllegalStateException("Consumer type " + _consumerType + " requires an echo server");
+		}
+		IdleStrategy idle = _settings.idleStrategy();
+		int batchSize = _settings.batchSize();
 		return switch (_consumerType) {
-			case HEAVY -> new HeavyConsumer(queue, done);
-			case LIGHTWEIGHT -> new LightweightConsumer(queue, done);
+			case HEAVY -> new HeavyConsumer(queue, completion, latency, idle, batchSize);
+			case LIGHTWEIGHT -> new LightweightConsumer(queue, completion, latency, idle, batchSize);
+			case NETWORK -> new NetworkConsumer(queue, completion, latency, idle, batchSize, _settings.echoServer());
+			case NETWORK_NIO -> new NioNetworkConsumer(queue, completion, latency, idle, _settings.echoServer(),
+					_settings.connections());
+			case FILE_CHANNEL -> new FileChannelConsumer(queue, completion, latency, idle, batchSize,
+					_settings.fileDirectory(), _settings.syncEvery());
+			case FILE_ASYNC -> new AsyncFileConsumer(queue, completion, latency, idle, batchSize,
+					_settings.fileDirectory(), _settings.syncEvery());
+			case FILE_MMAP -> new MappedLogConsumer(queue, completion, latency, idle, batchSize,
+					_settings.fileDirectory(), _settings.syncEvery());
+			case LOCK_SYNCHRONIZED, LOCK_REENTRANT, LOCK_STAMPED, LOCK_STRIPED -> new AggregatingConsumer(queue,
+					completion, latency, idle, batchSize, _aggregate);
 		};
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,162 @@
+package vc.liebrecht.consumer;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import vc.liebrecht.domain.Message;
+import vc.liebrecht.metrics.LatencyRecorder;
+
+/**
+ * Base class for consumers that hand every message to other threads for
+ * processing instead of processing it themselves.
+ * <p>
+ * Subclasses call {@link #dispatched()} for every message they hand off, and
+ * the thread that processed it calls {@link #completeDispatched(Message)}
+ * once it is done. Since dispatched messages finish concurrently and a
+ * {@code LatencyRecorder} is not thread-safe, every completion borrows a
+ * recorder from a lock-free pool and returns it afterwards, so that no two
+ * threads record into the same one and completions never wait for each other.
+ * The pool only grows to the number of completions running at the same time.
+ * After the poison pill, the consumer waits until every dispatched message has
+ * been completed and merges the pooled recorders into its own.
+ * <p>
+ * The number of messages dispatched but not yet finished can be limited by a
+ * semaphore, which may be shared by several consumers. A consumer that finds
+ * no permit waits before it hands off the next message, and thus stops taking
+ * messages from its queue.
+ */
+public abstract class DispatchingConsumer extends AbstractConsumer {
+	private final LatencyRecorder _latency;
+	private final Semaphore _permits;
+	private final ConcurrentLinkedQueue<LatencyRecorder> _recorders;
+	private final AtomicLong _pending;
+	private final CountDownLatch _drained;
+
+	/**
+	 * Constructs a new dispatching consumer.
+	 *
+	 * @param q            The queue to retrieve messages from
+	 * @param completion   The counter to report processed messages and
+	 *                     termination to
+	 * @param latency      The recorder for the latencies of the consumed messages
+	 * @param idleStrategy The strategy used to wait for messages
+	 * @param batchSize    The maximum number of messages taken from the queue at
+	 *                     once
+	 * @param permits      The semaphore limiting the messages in flight, or
+	 *                     {@code null} for no limit
+	 */
+	protected DispatchingConsumer(BlockingQueue<Message> q, CompletionCounter completion, LatencyRecorder latency,
+			IdleStrategy idleStrategy, int batchSize, Semaphore permits) {
+		super(q, completion, latency, idleStrategy, batchSize);
+		_latency = latency;
+		_permits = permits;
+		_recorders = new ConcurrentLinkedQueue<>();
+		// One pending count for the consumer itself until it has received its pill.
+		_pending = new AtomicLong(1);
+		_drained = new CountDownLatch(1);
+	}
+
+	/**
+	 * Counts a message as handed off, after waiting for a permit if the messages
+	 * in flight are limited. Must be called before the message is visible to the
+	 * thread that processes it.
+	 *
+	 * @throws IllegalStateException If the consumer is interrupted while waiting
+	 *                               for a permit
+	 */
+	protected final void dispatched() {
+		if (_permits != null) {
+			try {
+				_permits.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for a permit", e);
+			}
+		}
+		_pending.incrementAndGet();
+	}
+
+	/**
+	 * Completes a dispatched message and counts it as finished; may be called
+	 * from any thread.
+	 *
+	 * @param m The processed message
+	 */
+	protected final void completeDispatched(Message m) {
+		LatencyRecorder recorder = _recorders.poll();
+		if (recorder == null) {
+			recorder = new LatencyRecorder();
+		}
+		this.complete(m, recorder);
+		// Returned before the message counts as finished, so that the merge sees it.
+		_recorders.offer(recorder);
+		this.finished();
+	}
+
+	/**
+	 * Counts a dispatched message as finished without completing it, e.g.
+	 * because processing it failed.
+	 */
+	protected final void finished() {
+		if (_permits != null) {
+			_permits.release();
+		}
+		this.settle();
+	}
+
+	/**
+	 * Decrements the pending count and signals once it reaches zero.
+	 */
+	private void settle() {
+		if (_pending.decrementAndGet() == 0) {
+			_drained.countDown();
+		}
+	}
+
+	/**
+	 * Returns {@code true}, since messages are completed by the threads that
+	 * process them.
+	 *
+	 * @return Always {@code true}
+	 */
+	@Override
+	protected boolean completesAsynchronously() {
+		return true;
+	}
+
+	/**
+	 * Waits until every dispatched message has finished, then merges the
+	 * completion latencies recorded by the processing threads into the recorder
+	 * of this consumer.
+	 *
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	@Override
+	protected void awaitCompletions() throws InterruptedException {
+		this.settle();
+		_drained.await();
+		LatencyRecorder recorder;
+		while ((recorder = _recorders.poll()) != null) {
+			_latency.add(recorder);
+		}
+	}
+
+	/**
+	 * Checks that a consumer created by a factory can process messages on behalf
+	 * of a dispatching consumer.
+	 *
+	 * @param body The consumer created by the factory
+	 * @return The consumer, whose {@code process} method may be called directly
+	 * @throws IllegalArgumentException If the consumer does not complete messages
+	 *                                  synchronously
+	 */
+	static AbstractConsumer checkBody(Runnable body) {
+		if (!(body instanceof AbstractConsumer consumer) || consumer.completesAsynchronously()) {
+			throw new IllegalArgumentException("Consumer cannot process messages on behalf of a dispatcher");
+		}
+		return consumer;
+	}
+}
@@ -0,0 +1,115 @@
+package vc.liebrecht.consumer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.BlockingQueue;
+
+import vc.liebrecht.domain.Message;
+import vc.liebrecht.metrics.LatencyRecorder;
+
+/**
+ * A file consumer that appends every message to a log file with a blocking
+ * {@code FileChannel.write}.
+ * <p>
+ * Each consumer owns a log file of {@link #LOG_SIZE} bytes that is written as a
+ * circular log, so disk usage stays bounded regardless of the number of
+ * messages. Every record is a 4-byte length followed by the payload, copied
+ * into a reused direct buffer. After every {@code syncEvery} records the
+ * channel is forced to disk (group commit).
+ * <p>
+ * File I/O cannot unmount a virtual thread: the carrier thread is blocked for
+ * the duration of the system call, and the scheduler compensates by
+ * temporarily adding carrier threads.
+ */
+public class FileChannelConsumer extends AbstractConsumer {
+	/**
+	 * The size of each consumer's circular log in bytes.
+	 */
+	public static final long LOG_SIZE = 64L * 1024 * 1024;
+
+	private final FileChannel _channel;
+	private final int _syncEvery;
+	private ByteBuffer _buffer;
+	private long _position;
+	private int _unsynced;
+
+	/**
+	 * Constructs a new consumer and creates its log file.
+	 *
+	 * @param q            The queue to retrieve messages from
+	 * @param completion   The counter to report processed messages and
+	 *                     termination to
+	 * @param latency      The recorder for the latencies of the consumed messages
+	 * @param idleStrategy The strategy used to wait for messages
+	 * @param batchSize    The maximum number of messages taken from the queue at
+	 *                     once
+	 * @param directory    The directory in which the log file is created
+	 * @param syncEvery    The number of records after which the channel is
+	 *                     forced, or {@code 0} to never force
+	 * @throws UncheckedIOException If the log file cannot be created
+	 */
+	public FileChannelConsumer(BlockingQueue<Message> q, CompletionCounter completion, LatencyRecorder latency,
+			IdleStrategy idleStrategy, int batchSize, Path directory, int syncEvery) {
+		super(q, completion, latency, idleStrategy, batchSize);
+		try {
+			Path file = Files.createTempFile(directory, "file-channel-", ".log");
+			_channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		_syncEvery = syncEvery;
+		_buffer = ByteBuffer.allocateDirect(0);
+	}
+
+	/**
+	 * Appends the message as a record to the log, wrapping around at the end of
+	 * the file, and forces the channel after every {@code syncEvery} records.
+	 *
+	 * @param m The message to process
+	 * @throws UncheckedIOException If an I/O error occurs
+	 */
+	@Override
+	protected void process(Message m) {
+		int length = m.payloadLength();
+		int recordLength = Integer.BYTES + length;
+		if (_buffer.capacity() < recordLength) {
+			_buffer = ByteBuffer.allocateDirect(recordLength);
+		}
+		_buffer.clear();
+		_buffer.putInt(length);
+		m.copyPayloadTo(_buffer);
+		_buffer.flip();
+
+		if (_position + recordLength > LOG_SIZE) {
+			_position = 0;
+		}
+		try {
+			while (_buffer.hasRemaining()) {
+				_position += _channel.write(_buffer, _position);
+			}
+			if (_syncEvery > 0 && ++_unsynced >= _syncEvery) {
+				_channel.force(false);
+				_unsynced = 0;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Closes and deletes the log file.
+	 */
+	@Override
+	protected void release() {
+		try {
+			_channel.close();
+		} catch (IOException e) {
+			System.err.println("WARNING: Failed to close log file: " + e);
+		}
+	}
+}
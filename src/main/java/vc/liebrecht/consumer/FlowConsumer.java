@@ -0,0 +1,99 @@
+package vc.liebrecht.consumer;
+
+import java.util.concurrent.Flow;
+
+import vc.liebrecht.domain.Message;
+import vc.liebrecht.metrics.LatencyRecorder;
+
+/**
+ * A consumer that subscribes to a {@code Flow.Publisher} of requests instead of
+ * taking them from a queue.
+ * <p>
+ * The subscriber keeps a fixed demand outstanding: it requests that many
+ * messages when it subscribes and one more after every processed message, so
+ * that the publisher buffers further requests or blocks their senders once the
+ * demand is used up. Like a queue consumer, it records the time every message
+ * waited for delivery and the time until its processing finished, replies to
+ * the sender, and counts the message as completed. Messages are processed by a
+ * consumer created by the factory, whose {@code process} method is called
+ * directly; the publisher delivers to a subscriber one message at a time.
+ */
+public class FlowConsumer implements Flow.Subscriber<Message> {
+	private final CompletionCounter _completion;
+	private final LatencyRecorder _latency;
+	private final AbstractConsumer _body;
+	private final int _demand;
+	private Flow.Subscription _subscription;
+
+	/**
+	 * Constructs a new subscriber.
+	 *
+	 * @param completion The counter to report processed messages and termination
+	 *                   to
+	 * @param latency    The recorder for the latencies of the consumed messages
+	 * @param demand     The number of messages requested ahead
+	 * @param body       The consumer that processes the messages
+	 * @throws IllegalArgumentException If the consumer does not complete messages
+	 *                                  synchronously
+	 */
+	public FlowConsumer(CompletionCounter completion, LatencyRecorder latency, int demand, Runnable body) {
+		_completion = completion;
+		_latency = latency;
+		_body = DispatchingConsumer.checkBody(body);
+		_demand = Math.max(1, demand);
+	}
+
+	/**
+	 * Keeps the subscription and requests the configured number of messages
+	 * ahead.
+	 *
+	 * @param subscription The subscription to the requests
+	 */
+	@Override
+	public void onSubscribe(Flow.Subscription subscription) {
+		_subscription = subscription;
+		subscription.request(_demand);
+	}
+
+	/**
+	 * Processes a message, replies to its sender, and requests the next one.
+	 *
+	 * @param m The message
+	 */
+	@Override
+	public void onNext(Message m) {
+		_latency.recordDequeue(m.enqueueNanos(), System.nanoTime());
+		try {
+			_body.process(m);
+		} catch (RuntimeException e) {
+			_subscription.cancel();
+			this.onError(e);
+			return;
+		}
+		_latency.recordCompletion(m.enqueueNanos(), System.nanoTime());
+		m.reply();
+		m.release();
+		_completion.messageCompleted();
+		_subscription.request(1);
+	}
+
+	/**
+	 * Reports the failure and signals the termination of this consumer.
+	 *
+	 * @param throwable The failure
+	 */
+	@Override
+	public void onError(Throwable throwable) {
+		System.err.println("WARNING: Flow consumer failed: " + throwable);
+		_completion.consumerFinished();
+	}
+
+	/**
+	 * Signals the termination of this consumer once the publisher has been
+	 * closed and every message has been delivered.
+	 */
+	@Override
+	public void onComplete() {
+		_completion.consumerFinished();
+	}
+}
@@ -3,10 +3,10 @@ package vc.liebrecht.consumer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import vc.liebrecht.domain.Message;
+import vc.liebrecht.metrics.LatencyRecorder;
 
 /**
  * A heavy consumer that takes messages from a {@code BlockingQueue} and
@@ -17,64 +17,73 @@ import vc.liebrecht.domain.Message;
  * It retrieves messages from the queue and processes each message by computing
  * a SHA-256 hash
  * of the payload, simulating CPU-intensive work. The consumer continues until
- * the specified
- * total number of messages has been received, then signals completion via a
- * {@code CountDownLatch}.
+ * it receives the poison pill. Every digest is passed to a sink, so that a
+ * benchmark harness can consume it and the hashing cannot be eliminated as dead
+ * code.
  */
-public class HeavyConsumer implements Runnable {
-	private final BlockingQueue<Message> _queue;
-	private final CountDownLatch _done;
+public class HeavyConsumer extends AbstractConsumer {
+	private final MessageDigest _digest;
+	private final Consumer<byte[]> _digestSink;
 
 	/**
 	 * Constructs a new consumer.
+	 * <p>
+	 * Any failure to initialize the SHA-256 digest results in a
+	 * {@link RuntimeException}.
 	 *
-	 * @param q    The queue to retrieve messages from
-	 * @param done The latch to signal when all messages have been received
+	 * @param q            The queue to retrieve messages from
+	 * @param completion   The counter to report processed messages and
+	 *                     termination to
+	 * @param latency      The recorder for the latencies of the consumed messages
+	 * @param idleStrategy The strategy used to wait for messages
+	 * @param batchSize    The maximum number of messages taken from the queue at
+	 *                     once
 	 */
-	public HeavyConsumer(BlockingQueue<Message> q, CountDownLatch done) {
-		_queue = q;
-		_done = done;
+	public HeavyConsumer(BlockingQueue<Message> q, CompletionCounter completion, LatencyRecorder latency,
+			IdleStrategy idleStrategy, int batchSize) {
+		this(q, completion, latency, idleStrategy, batchSize, digest -> {
+		});
 	}
 
 	/**
-	 * Executes the consumer task.
+	 * Constructs a new consumer that passes every digest to a sink.
 	 * <p>
-	 * This method continuously retrieves {@link Message} objects from the queue and
-	 * simulates CPU load by hashing the message payload using SHA-256. For every
-	 * message processed, the {@code CountDownLatch} is decremented. The consumer
-	 * continues processing messages until the {@code CountDownLatch} reaches zero,
-	 * indicating that all messages have been processed.
+	 * Any failure to initialize the SHA-256 digest results in a
+	 * {@link RuntimeException}.
 	 *
-	 * <p>
-	 * The method uses a polling mechanism with a short timeout to check for new
-	 * messages. If no message is available and the latch count is zero, the loop
-	 * terminates. If the thread is interrupted while waiting on the queue, the
-	 * interrupt flag is restored and the method proceeds to shutdown. Any failure
-	 * to initialize the SHA-256 digest results in a {@link RuntimeException}.
+	 * @param q            The queue to retrieve messages from
+	 * @param completion   The counter to report processed messages and
+	 *                     termination to
+	 * @param latency      The recorder for the latencies of the consumed messages
+	 * @param idleStrategy The strategy used to wait for messages
+	 * @param batchSize    The maximum number of messages taken from the queue at
+	 *                     once
+	 * @param digestSink   The sink receiving the digest of every payload
 	 */
-	@Override
-	public void run() {
+	public HeavyConsumer(BlockingQueue<Message> q, CompletionCounter completion, LatencyRecorder latency,
+			IdleStrategy idleStrategy, int batchSize, Consumer<byte[]> digestSink) {
+		super(q, completion, latency, idleStrategy, batchSize);
+		_digestSink = digestSink;
 		try {
-			MessageDigest digest = MessageDigest.getInstance("SHA-256");
-			while (true) {
-				Message m = _queue.poll(10, TimeUnit.NANOSECONDS);
-
-				if (m == null) {
-					if (_done.getCount() == 0) {
-						break;
-					}
-					continue;
-				}
-
-				digest.update(m.payload());
-				digest.digest();
-
-				_done.countDown();
-			}
-		} catch (InterruptedException e) {
-			Thread.currentThread().interrupt();
+			_digest = MessageDigest.getInstance("SHA-256");
 		} catch (NoSuchAlgorithmException e) {
 			throw new RuntimeException(e);
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Simulates CPU load by hashing the message payload using SHA-256 and passes
+	 * the digest to the sink.
+	 *
+	 * @param m The message to process
+	 */
+	@Override
+	protected void process(Message m) {
+		if (m.payload() != null) {
+			_digest.update(m.payload());
+		} else {
+			_digest.update(m.offHeapPayload());
+		}
+		_digestSink.accept(_digest.digest());
+	}
+}
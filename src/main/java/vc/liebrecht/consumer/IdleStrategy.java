@@ -0,0 +1,94 @@
+package vc.liebrecht.consumer;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import vc.liebrecht.domain.Message;
+
+/**
+ * Enumeration for the strategies a consumer uses to wait for the next message.
+ * <p>
+ * All strategies block until a message (or the poison pill) is available; they
+ * differ in how the consumer thread behaves while the queue is empty.
+ */
+public enum IdleStrategy {
+	/**
+	 * Blocks in {@code BlockingQueue.take()} until a message arrives.
+	 */
+	BLOCKING("Blocking take") {
+		@Override
+		public Message take(BlockingQueue<Message> queue) throws InterruptedException {
+			return queue.take();
+		}
+	},
+
+	/**
+	 * Uses timed polls whose timeout doubles from 1 µs up to 1 ms while the queue
+	 * stays empty.
+	 */
+	BACKOFF("Timed poll with backoff") {
+		@Override
+		public Message take(BlockingQueue<Message> queue) throws InterruptedException {
+			Message m = queue.poll();
+			long backoffNanos = MIN_BACKOFF_NANOS;
+			while (m == null) {
+				m = queue.poll(backoffNanos, TimeUnit.NANOSECONDS);
+				backoffNanos = Math.min(backoffNanos * 2, MAX_BACKOFF_NANOS);
+			}
+			return m;
+		}
+	},
+
+	/**
+	 * Spins on non-blocking polls for a bounded number of attempts and then falls
+	 * back to a blocking {@code take()}.
+	 */
+	SPIN_THEN_PARK("Spin then park") {
+		@Override
+		public Message take(BlockingQueue<Message> queue) throws InterruptedException {
+			for (int i = 0; i < SPIN_TRIES; i++) {
+				Message m = queue.poll();
+				if (m != null) {
+					return m;
+				}
+				Thread.onSpinWait();
+			}
+			return queue.take();
+		}
+	};
+
+	private static final long MIN_BACKOFF_NANOS = 1_000L;
+	private static final long MAX_BACKOFF_NANOS = 1_000_000L;
+	private static final int SPIN_TRIES = 100;
+
+	private final String _displayName;
+
+	/**
+	 * Constructs an idle strategy.
+	 *
+	 * @param displayName The display name for this idle strategy
+	 */
+	IdleStrategy(String displayName) {
+		_displayName = displayName;
+	}
+
+	/**
+	 * Retrieves and removes the next message from the queue, waiting according to
+	 * this strategy while the queue is empty.
+	 *
+	 * @param queue The queue to retrieve the message from
+	 * @return The next message
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	public abstract Message take(BlockingQueue<Message> queue) throws InterruptedException;
+
+	/**
+	 * Returns the display name of this idle strategy.
+	 *
+	 * @return The display name of the idle strategy
+	 */
+	@Override
+	public String toString() {
+		return _displayName;
+	}
+}
@@ -1,10 +1,9 @@
 package vc.liebrecht.consumer;
 
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
 
 import vc.liebrecht.domain.Message;
+import vc.liebrecht.metrics.LatencyRecorder;
 
 /**
  * A {@code LightweightConsumer} takes messages from a {@code BlockingQueue} and
@@ -12,59 +11,32 @@ import vc.liebrecht.domain.Message;
  * <p>
  * This class implements {@code Runnable} and can be executed in a separate
  * thread.
- * It retrieves messages from the queue until the specified total number of
- * messages
- * has been received, then signals completion via a {@code CountDownLatch}.
+ * It retrieves messages from the queue without performing any processing on
+ * them until it receives the poison pill.
  */
-public class LightweightConsumer implements Runnable {
-	private final BlockingQueue<Message> _queue;
-	private final CountDownLatch _done;
-
+public class LightweightConsumer extends AbstractConsumer {
 	/**
 	 * Constructs a new consumer.
 	 *
-	 * @param q    The queue to retrieve messages from
-	 * @param done The latch to signal when all messages have been received
+	 * @param q            The queue to retrieve messages from
+	 * @param completion   The counter to report processed messages and
+	 *                     termination to
+	 * @param latency      The recorder for the latencies of the consumed messages
+	 * @param idleStrategy The strategy used to wait for messages
+	 * @param batchSize    The maximum number of messages taken from the queue at
+	 *                     once
 	 */
-	public LightweightConsumer(BlockingQueue<Message> q, CountDownLatch done) {
-		_queue = q;
-		_done = done;
+	public LightweightConsumer(BlockingQueue<Message> q, CompletionCounter completion, LatencyRecorder latency,
+			IdleStrategy idleStrategy, int batchSize) {
+		super(q, completion, latency, idleStrategy, batchSize);
 	}
 
 	/**
-	 * Executes the consumer task.
-	 * <p>
-	 * This method continuously retrieves {@link Message} objects from the queue
-	 * without performing any processing on them. The messages are simply taken from
-	 * the queue and discarded. For every message retrieved, the
-	 * {@code CountDownLatch}
-	 * is decremented. The consumer continues processing messages until the
-	 * {@code CountDownLatch} reaches zero, indicating that all messages have been
-	 * processed.
+	 * Discards the message without any processing.
 	 *
-	 * <p>
-	 * The method uses a polling mechanism with a short timeout to check for new
-	 * messages. If no message is available and the latch count is zero, the loop
-	 * terminates. If the thread is interrupted while waiting on the queue, a
-	 * {@link RuntimeException} is thrown.
+	 * @param m The message to process
 	 */
 	@Override
-	public void run() {
-		try {
-			while (true) {
-				Message m = _queue.poll(10, TimeUnit.NANOSECONDS);
-
-				if (m == null) {
-					if (_done.getCount() == 0) {
-						break;
-					}
-					continue;
-				}
-
-				_done.countDown();
-			}
-		} catch (InterruptedException e) {
-			throw new RuntimeException(e);
-		}
+	protected void process(Message m) {
 	}
-}
\ No newline at end of file
+}
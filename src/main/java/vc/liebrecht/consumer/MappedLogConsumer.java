@@ -0,0 +1,92 @@
+package vc.liebrecht.consumer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.BlockingQueue;
+
+import vc.liebrecht.domain.Message;
+import vc.liebrecht.metrics.LatencyRecorder;
+
+/**
+ * A file consumer that appends every message to a memory-mapped log.
+ * <p>
+ * Each consumer maps a circular log of {@link FileChannelConsumer#LOG_SIZE}
+ * bytes into memory once. Appending a record (a 4-byte length followed by the
+ * payload) is a plain memory copy into the page cache without any system call.
+ * After every {@code syncEvery} records, the mapped buffer is forced to disk
+ * (group commit); this is the only operation that blocks in the kernel.
+ */
+public class MappedLogConsumer extends AbstractConsumer {
+	private final FileChannel _channel;
+	private final MappedByteBuffer _log;
+	private final int _syncEvery;
+	private int _unsynced;
+
+	/**
+	 * Constructs a new consumer and maps its log file.
+	 *
+	 * @param q            The queue to retrieve messages from
+	 * @param completion   The counter to report processed messages and
+	 *                     termination to
+	 * @param latency      The recorder for the latencies of the consumed messages
+	 * @param idleStrategy The strategy used to wait for messages
+	 * @param batchSize    The maximum number of messages taken from the queue at
+	 *                     once
+	 * @param directory    The directory in which the log file is created
+	 * @param syncEvery    The number of records after which the log is forced, or
+	 *                     {@code 0} to never force
+	 * @throws UncheckedIOException If the log file cannot be created or mapped
+	 */
+	public MappedLogConsumer(BlockingQueue<Message> q, CompletionCounter completion, LatencyRecorder latency,
+			IdleStrategy idleStrategy, int batchSize, Path directory, int syncEvery) {
+		super(q, completion, latency, idleStrategy, batchSize);
+		try {
+			Path file = Files.createTempFile(directory, "mapped-log-", ".log");
+			_channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+					StandardOpenOption.DELETE_ON_CLOSE);
+			_log = _channel.map(FileChannel.MapMode.READ_WRITE, 0, FileChannelConsumer.LOG_SIZE);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		_syncEvery = syncEvery;
+	}
+
+	/**
+	 * Copies the message as a record into the mapped log, wrapping around at the
+	 * end, and forces the log after every {@code syncEvery} records.
+	 *
+	 * @param m The message to process
+	 */
+	@Override
+	protected void process(Message m) {
+		int length = m.payloadLength();
+		if (_log.remaining() < Integer.BYTES + length) {
+			_log.position(0);
+		}
+		_log.putInt(length);
+		m.copyPayloadTo(_log);
+
+		if (_syncEvery > 0 && ++_unsynced >= _syncEvery) {
+			_log.force();
+			_unsynced = 0;
+		}
+	}
+
+	/**
+	 * Closes and deletes the log file. The mapping itself is released once the
+	 * buffer is garbage collected.
+	 */
+	@Override
+	protected void release() {
+		try {
+			_channel.close();
+		} catch (IOException e) {
+			System.err.println("WARNING: Failed to close log file: " + e);
+		}
+	}
+}
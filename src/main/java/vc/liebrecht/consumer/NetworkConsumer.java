@@ -0,0 +1,108 @@
+package vc.liebrecht.consumer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+
+import vc.liebrecht.domain.Message;
+import vc.liebrecht.metrics.LatencyRecorder;
+
+/**
+ * A network consumer that sends every message over a blocking {@code Socket}
+ * and waits for the reply.
+ * <p>
+ * Each consumer owns one loopback connection to the {@code EchoServer}, which
+ * is opened when the consumer is constructed, i.e. before the benchmark timer
+ * starts. A message is written as a frame (a 4-byte length followed by the
+ * payload), and the consumer blocks until the echoed frame has been read
+ * completely. On a virtual thread the blocking read unmounts the thread from
+ * its carrier; on a platform thread it blocks the thread.
+ */
+public class NetworkConsumer extends AbstractConsumer {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Socket _socket;
+	private final DataOutputStream _out;
+	private final DataInputStream _in;
+	private byte[] _sendBuffer;
+	private byte[] _replyBuffer;
+
+	/**
+	 * Constructs a new consumer and connects it to the echo server.
+	 *
+	 * @param q            The queue to retrieve messages from
+	 * @param completion   The counter to report processed messages and
+	 *                     termination to
+	 * @param latency      The recorder for the latencies of the consumed messages
+	 * @param idleStrategy The strategy used to wait for messages
+	 * @param batchSize    The maximum number of messages taken from the queue at
+	 *                     once
+	 * @param server       The address of the echo server
+	 * @throws UncheckedIOException If the connection cannot be established
+	 */
+	public NetworkConsumer(BlockingQueue<Message> q, CompletionCounter completion, LatencyRecorder latency,
+			IdleStrategy idleStrategy, int batchSize, InetSocketAddress server) {
+		super(q, completion, latency, idleStrategy, batchSize);
+		try {
+			_socket = new Socket(server.getAddress(), server.getPort());
+			_socket.setTcpNoDelay(true);
+			_out = new DataOutputStream(new BufferedOutputStream(_socket.getOutputStream(), BUFFER_SIZE));
+			_in = new DataInputStream(new BufferedInputStream(_socket.getInputStream(), BUFFER_SIZE));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		_sendBuffer = new byte[0];
+		_replyBuffer = new byte[0];
+	}
+
+	/**
+	 * Sends the payload to the echo server and blocks until the reply has been
+	 * received.
+	 *
+	 * @param m The message to process
+	 * @throws UncheckedIOException If an I/O error occurs on the connection
+	 */
+	@Override
+	protected void process(Message m) {
+		try {
+			int sent = m.payloadLength();
+			_out.writeInt(sent);
+			if (m.payload() != null) {
+				_out.write(m.payload());
+			} else {
+				if (_sendBuffer.length < sent) {
+					_sendBuffer = new byte[sent];
+				}
+				m.copyPayloadTo(_sendBuffer);
+				_out.write(_sendBuffer, 0, sent);
+			}
+			_out.flush();
+
+			int length = _in.readInt();
+			if (_replyBuffer.length < length) {
+				_replyBuffer = new byte[length];
+			}
+			_in.readFully(_replyBuffer, 0, length);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Closes the connection to the echo server.
+	 */
+	@Override
+	protected void release() {
+		try {
+			_socket.close();
+		} catch (IOException e) {
+			System.err.println("WARNING: Failed to close connection: " + e);
+		}
+	}
+}
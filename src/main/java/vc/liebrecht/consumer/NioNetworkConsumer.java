@@ -0,0 +1,234 @@
+package vc.liebrecht.consumer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+
+import vc.liebrecht.domain.Message;
+import vc.liebrecht.metrics.LatencyRecorder;
+
+/**
+ * A network consumer that multiplexes several non-blocking connections in a
+ * single {@code Selector} event loop.
+ * <p>
+ * Instead of blocking a thread per request, one consumer thread keeps up to one
+ * request in flight on each of its connections to the {@code EchoServer}. It
+ * hands messages from the queue to idle connections, and completes a message
+ * when its echoed frame has been read. This is the classic event-loop
+ * alternative to thread-per-connection I/O and does not depend on the thread
+ * model for concurrency.
+ * <p>
+ * While all connections are busy, the loop blocks in {@code select()}. While
+ * some connections are idle but requests are in flight, it selects with a
+ * timeout of one millisecond, so that newly enqueued messages are picked up.
+ * Messages are taken one at a time; the batch size does not apply.
+ */
+public class NioNetworkConsumer implements Runnable {
+	private final BlockingQueue<Message> _queue;
+	private final CompletionCounter _completion;
+	private final LatencyRecorder _latency;
+	private final IdleStrategy _idleStrategy;
+	private final Selector _selector;
+	private final ArrayDeque<Connection> _idle;
+
+	/**
+	 * Constructs a new consumer and opens its connections to the echo server.
+	 *
+	 * @param q            The queue to retrieve messages from
+	 * @param completion   The counter to report processed messages and
+	 *                     termination to
+	 * @param latency      The recorder for the latencies of the consumed messages
+	 * @param idleStrategy The strategy used to wait for messages while no request
+	 *                     is in flight
+	 * @param server       The address of the echo server
+	 * @param connections  The number of connections multiplexed by this consumer
+	 * @throws UncheckedIOException If a connection cannot be established
+	 */
+	public NioNetworkConsumer(BlockingQueue<Message> q, CompletionCounter completion, LatencyRecorder latency,
+			IdleStrategy idleStrategy, InetSocketAddress server, int connections) {
+		_queue = q;
+		_completion = completion;
+		_latency = latency;
+		_idleStrategy = idleStrategy;
+		_idle = new ArrayDeque<>(connections);
+		try {
+			_selector = Selector.open();
+			for (int i = 0; i < connections; i++) {
+				SocketChannel channel = SocketChannel.open(server);
+				channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				channel.configureBlocking(false);
+				Connection connection = new Connection(channel);
+				connection._key = channel.register(_selector, 0, connection);
+				_idle.push(connection);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Executes the event loop.
+	 * <p>
+	 * Dispatches messages to idle connections until the poison pill is received,
+	 * then keeps selecting until every request in flight has been answered. The
+	 * dequeue latency is recorded when a message is taken from the queue, the
+	 * completion latency when its reply has been read. The consumer always closes
+	 * its connections and signals its termination to the
+	 * {@code CompletionCounter}.
+	 */
+	@Override
+	public void run() {
+		try {
+			boolean poisoned = false;
+			int inFlight = 0;
+			while (!poisoned || inFlight > 0) {
+				while (!poisoned && !_idle.isEmpty()) {
+					Message m = inFlight == 0 ? _idleStrategy.take(_queue) : _queue.poll();
+					if (m == null) {
+						break;
+					}
+					if (m == Message.POISON_PILL) {
+						poisoned = true;
+						break;
+					}
+					_latency.recordDequeue(m.enqueueNanos(), System.nanoTime());
+					_idle.pop().send(m);
+					inFlight++;
+				}
+
+				if (inFlight == 0) {
+					continue;
+				}
+				if (poisoned || _idle.isEmpty()) {
+					_selector.select();
+				} else {
+					_selector.select(1);
+				}
+
+				Iterator<SelectionKey> keys = _selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					Connection connection = (Connection) key.attachment();
+					if (key.isWritable()) {
+						connection.write();
+					}
+					if (key.isReadable() && connection.read()) {
+						Message m = connection._inFlight;
+						connection._inFlight = null;
+						_latency.recordCompletion(m.enqueueNanos(), System.nanoTime());
+						m.reply();
+						m.release();
+						_completion.messageCompleted();
+						inFlight--;
+						_idle.push(connection);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			this.release();
+			_completion.consumerFinished();
+		}
+	}
+
+	/**
+	 * Closes all connections and the selector.
+	 */
+	private void release() {
+		try {
+			for (SelectionKey key : _selector.keys()) {
+				key.channel().close();
+			}
+			_selector.close();
+		} catch (IOException e) {
+			System.err.println("WARNING: Failed to close connections: " + e);
+		}
+	}
+
+	/**
+	 * The state of a single non-blocking connection with at most one request in
+	 * flight.
+	 */
+	private static final class Connection {
+		private final SocketChannel _channel;
+		private SelectionKey _key;
+		private ByteBuffer _out;
+		private ByteBuffer _in;
+		private Message _inFlight;
+
+		/**
+		 * Constructs the state for a connected channel.
+		 *
+		 * @param channel The connected, non-blocking channel
+		 */
+		private Connection(SocketChannel channel) {
+			_channel = channel;
+			_out = ByteBuffer.allocate(0);
+			_in = ByteBuffer.allocate(0);
+		}
+
+		/**
+		 * Starts sending a message as a frame. The buffers are reused and only grow
+		 * if a larger payload arrives.
+		 *
+		 * @param m The message to send
+		 * @throws IOException If an I/O error occurs on the channel
+		 */
+		private void send(Message m) throws IOException {
+			int length = m.payloadLength();
+			int frameLength = Integer.BYTES + length;
+			if (_out.capacity() < frameLength) {
+				_out = ByteBuffer.allocate(frameLength);
+				_in = ByteBuffer.allocate(frameLength);
+			}
+			_out.clear();
+			_out.putInt(length);
+			m.copyPayloadTo(_out);
+			_out.flip();
+			_in.clear().limit(frameLength);
+			_inFlight = m;
+			this.write();
+		}
+
+		/**
+		 * Writes as much of the pending frame as possible and waits for the reply
+		 * once the frame has been written completely.
+		 *
+		 * @throws IOException If an I/O error occurs on the channel
+		 */
+		private void write() throws IOException {
+			_channel.write(_out);
+			_key.interestOps(_out.hasRemaining() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+		}
+
+		/**
+		 * Reads the available part of the reply.
+		 *
+		 * @return {@code true} if the reply has been read completely
+		 * @throws IOException If an I/O error occurs or the server closed the
+		 *                     connection
+		 */
+		private boolean read() throws IOException {
+			if (_channel.read(_in) < 0) {
+				throw new IOException("Connection closed by echo server");
+			}
+			if (_in.hasRemaining()) {
+				return false;
+			}
+			_key.interestOps(0);
+			return true;
+		}
+	}
+}
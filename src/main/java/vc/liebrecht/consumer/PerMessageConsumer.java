@@ -0,0 +1,81 @@
+package vc.liebrecht.consumer;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+import vc.liebrecht.domain.Message;
+import vc.liebrecht.metrics.LatencyRecorder;
+
+/**
+ * A dispatcher that takes messages from a {@code BlockingQueue} and spawns one
+ * task per message to process it.
+ * <p>
+ * This is the thread-per-message design that virtual threads are meant for:
+ * instead of a few long-lived consumers, every message gets its own task on
+ * the spawner, usually one new virtual thread each. Since consumer state such
+ * as the digest of a {@code HeavyConsumer} is not thread-safe, every task
+ * creates its own consumer as the body that processes the message; this setup
+ * is part of the cost of the design. Only consumer types that complete
+ * messages synchronously and hold no resources can serve as bodies.
+ * <p>
+ * The number of message tasks running at the same time can be limited by a
+ * semaphore shared by all dispatchers. The dispatcher acquires a permit before
+ * it spawns a task, so that it stops taking messages from the queue while all
+ * permits are in use.
+ */
+public class PerMessageConsumer extends DispatchingConsumer {
+	private final Executor _spawner;
+	private final Supplier<Runnable> _bodies;
+
+	/**
+	 * Constructs a new dispatcher.
+	 *
+	 * @param q            The queue to retrieve messages from
+	 * @param completion   The counter to report processed messages and
+	 *                     termination to
+	 * @param latency      The recorder for the latencies of the consumed messages
+	 * @param idleStrategy The strategy used to wait for messages
+	 * @param batchSize    The maximum number of messages taken from the queue at
+	 *                     once
+	 * @param spawner      The executor that runs one task per message
+	 * @param permits      The semaphore limiting the concurrently running message
+	 *                     tasks, or {@code null} for no limit
+	 * @param bodies       Creates the consumer that processes a single message;
+	 *                     called once per message
+	 */
+	public PerMessageConsumer(BlockingQueue<Message> q, CompletionCounter completion, LatencyRecorder latency,
+			IdleStrategy idleStrategy, int batchSize, Executor spawner, Semaphore permits,
+			Supplier<Runnable> bodies) {
+		super(q, completion, latency, idleStrategy, batchSize, permits);
+		_spawner = spawner;
+		_bodies = bodies;
+	}
+
+	/**
+	 * Spawns a task that creates a body, lets it process the message, and
+	 * completes the message.
+	 *
+	 * @param m The message to process
+	 * @throws IllegalStateException If the dispatcher is interrupted while
+	 *                               waiting for a permit
+	 */
+	@Override
+	protected void process(Message m) {
+		this.dispatched();
+		_spawner.execute(() -> {
+			boolean processed = false;
+			try {
+				checkBody(_bodies.get()).process(m);
+				processed = true;
+			} finally {
+				if (processed) {
+					this.completeDispatched(m);
+				} else {
+					this.finished();
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,39 @@
+package vc.liebrecht.consumer;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@code SharedAggregate} guarded by a single {@code ReentrantLock}.
+ * <p>
+ * A virtual thread that blocks while holding the lock unmounts from its carrier
+ * thread.
+ */
+public class ReentrantLockAggregate extends SharedAggregate {
+	private final ReentrantLock _lock = new ReentrantLock();
+
+	/**
+	 * Constructs an empty table.
+	 *
+	 * @param holdMicros The time the blocking call inside the critical section
+	 *                   takes in microseconds, or {@code 0} for no blocking call
+	 */
+	public ReentrantLockAggregate(long holdMicros) {
+		super(holdMicros);
+	}
+
+	/**
+	 * Adds a value to the total of a key while holding the lock.
+	 *
+	 * @param key   The key; only the lowest bits are used
+	 * @param value The value to add
+	 */
+	@Override
+	public void add(int key, long value) {
+		_lock.lock();
+		try {
+			this.update(key, value);
+		} finally {
+			_lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package vc.liebrecht.consumer;
+
+import java.time.Duration;
+
+/**
+ * A table of running totals that all consumers of a benchmark update
+ * concurrently.
+ * <p>
+ * The table itself is not thread-safe; every subclass guards its critical
+ * section with a different locking mechanism. Optionally, the critical section
+ * contains a blocking call that holds the lock for a fixed time. On Java 21, a
+ * virtual thread that blocks while holding a monitor pins its carrier thread,
+ * whereas blocking while holding a {@code java.util.concurrent} lock unmounts
+ * the virtual thread.
+ */
+public abstract class SharedAggregate {
+	/**
+	 * The number of keys in the table; a power of two.
+	 */
+	public static final int KEYS = 1024;
+
+	private final long[] _totals;
+	private final Duration _holdTime;
+
+	/**
+	 * Constructs an empty table.
+	 *
+	 * @param holdMicros The time the blocking call inside the critical section
+	 *                   takes in microseconds, or {@code 0} for no blocking call
+	 */
+	protected SharedAggregate(long holdMicros) {
+		_totals = new long[KEYS];
+		_holdTime = Duration.ofNanos(holdMicros * 1_000L);
+	}
+
+	/**
+	 * Adds a value to the total of a key under the subclass's lock.
+	 *
+	 * @param key   The key; only the lowest bits are used
+	 * @param value The value to add
+	 */
+	public abstract void add(int key, long value);
+
+	/**
+	 * Performs the critical section: updates the total and performs the optional
+	 * blocking call. Must only be called while holding the lock that guards the
+	 * key.
+	 *
+	 * @param key   The key; only the lowest bits are used
+	 * @param value The value to add
+	 */
+	protected final void update(int key, long value) {
+		_totals[key & (KEYS - 1)] += value;
+		if (!_holdTime.isZero()) {
+			try {
+				Thread.sleep(_holdTime);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
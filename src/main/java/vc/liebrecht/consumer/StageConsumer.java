@@ -0,0 +1,85 @@
+package vc.liebrecht.consumer;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+import vc.liebrecht.domain.Message;
+import vc.liebrecht.metrics.LatencyRecorder;
+
+/**
+ * A consumer of one stage of a multi-stage pipeline.
+ * <p>
+ * The stage takes messages from its input queue, processes them like a
+ * {@code LightweightConsumer} or {@code HeavyConsumer}, and puts every message
+ * into the input queue of each downstream stage. A full downstream queue
+ * blocks the stage, so that backpressure propagates upstream through the whole
+ * pipeline. A message counts as completed by the stage once it has been
+ * forwarded. The stage records two latencies: the cumulative latency from the
+ * moment the producer enqueued the message, which accumulates along the
+ * pipeline, and the stage latency from the moment the message entered the
+ * input queue of this stage.
+ * <p>
+ * Every downstream stage receives a copy of the message stamped with the time
+ * it was forwarded. Since the copies share the payload, pipelines only support
+ * payload modes without a pool.
+ */
+public class StageConsumer extends AbstractConsumer {
+	private final AbstractConsumer _body;
+	private final List<BlockingQueue<Message>> _downstream;
+	private final LatencyRecorder _stageLatency;
+
+	/**
+	 * Constructs a new stage consumer.
+	 *
+	 * @param q            The input queue of the stage
+	 * @param completion   The counter of the stage to report processed messages
+	 *                     and termination to
+	 * @param latency      The recorder for the latencies of the consumed messages
+	 *                     since the producer enqueued them
+	 * @param stageLatency The recorder for the latencies of the consumed messages
+	 *                     since they entered the input queue of the stage
+	 * @param idleStrategy The strategy used to wait for messages
+	 * @param batchSize    The maximum number of messages taken from the queue at
+	 *                     once
+	 * @param type         The consumer type whose processing is the body of the
+	 *                     stage
+	 * @param downstream   The input queues of the next stages, empty for the last
+	 *                     stage
+	 * @throws IllegalArgumentException If the type is neither {@code LIGHTWEIGHT}
+	 *                                  nor {@code HEAVY}
+	 */
+	public StageConsumer(BlockingQueue<Message> q, CompletionCounter completion, LatencyRecorder latency,
+			LatencyRecorder stageLatency, IdleStrategy idleStrategy, int batchSize, ConsumerType type,
+			List<BlockingQueue<Message>> downstream) {
+		super(q, completion, latency, idleStrategy, batchSize);
+		// The body is never run; only its processing of a message is reused.
+		_body = switch (type) {
+			case LIGHTWEIGHT -> new LightweightConsumer(q, completion, latency, idleStrategy, batchSize);
+			case HEAVY -> new HeavyConsumer(q, completion, latency, idleStrategy, batchSize);
+			default -> throw new IllegalArgumentException("Unsupported stage type: " + type.name());
+		};
+		_downstream = downstream;
+		_stageLatency = stageLatency;
+	}
+
+	/**
+	 * Processes the message with the body of the stage, forwards a copy to every
+	 * downstream stage, and records the stage latency. If the thread is
+	 * interrupted while a downstream queue is full, the interrupt flag is
+	 * restored, so that the consumer terminates at its next wait.
+	 *
+	 * @param m The message to process
+	 */
+	@Override
+	protected void process(Message m) {
+		_body.process(m);
+		try {
+			for (int i = 0; i < _downstream.size(); i++) {
+				_downstream.get(i).put(m.forward(System.nanoTime()));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		_stageLatency.recordCompletion(m.stageNanos(), System.nanoTime());
+	}
+}
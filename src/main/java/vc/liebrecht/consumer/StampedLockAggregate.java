@@ -0,0 +1,40 @@
+package vc.liebrecht.consumer;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A {@code SharedAggregate} guarded by the write lock of a single
+ * {@code StampedLock}.
+ * <p>
+ * The {@code StampedLock} is not reentrant and waits with {@code LockSupport}
+ * directly, so it does not pin virtual threads either.
+ */
+public class StampedLockAggregate extends SharedAggregate {
+	private final StampedLock _lock = new StampedLock();
+
+	/**
+	 * Constructs an empty table.
+	 *
+	 * @param holdMicros The time the blocking call inside the critical section
+	 *                   takes in microseconds, or {@code 0} for no blocking call
+	 */
+	public StampedLockAggregate(long holdMicros) {
+		super(holdMicros);
+	}
+
+	/**
+	 * Adds a value to the total of a key while holding the write lock.
+	 *
+	 * @param key   The key; only the lowest bits are used
+	 * @param value The value to add
+	 */
+	@Override
+	public void add(int key, long value) {
+		long stamp = _lock.writeLock();
+		try {
+			this.update(key, value);
+		} finally {
+			_lock.unlockWrite(stamp);
+		}
+	}
+}
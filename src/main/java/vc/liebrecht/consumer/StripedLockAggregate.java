@@ -0,0 +1,50 @@
+package vc.liebrecht.consumer;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@code SharedAggregate} whose keys are guarded by {@link #STRIPES}
+ * independent {@code ReentrantLock}s.
+ * <p>
+ * Consumers updating keys of different stripes do not contend, so the critical
+ * sections of up to {@link #STRIPES} consumers can run in parallel.
+ */
+public class StripedLockAggregate extends SharedAggregate {
+	/**
+	 * The number of lock stripes; a power of two.
+	 */
+	public static final int STRIPES = 16;
+
+	private final ReentrantLock[] _locks;
+
+	/**
+	 * Constructs an empty table.
+	 *
+	 * @param holdMicros The time the blocking call inside the critical section
+	 *                   takes in microseconds, or {@code 0} for no blocking call
+	 */
+	public StripedLockAggregate(long holdMicros) {
+		super(holdMicros);
+		_locks = new ReentrantLock[STRIPES];
+		for (int i = 0; i < STRIPES; i++) {
+			_locks[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Adds a value to the total of a key while holding the lock of its stripe.
+	 *
+	 * @param key   The key; only the lowest bits are used
+	 * @param value The value to add
+	 */
+	@Override
+	public void add(int key, long value) {
+		ReentrantLock lock = _locks[key & (STRIPES - 1)];
+		lock.lock();
+		try {
+			this.update(key, value);
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package vc.liebrecht.consumer;
+
+/**
+ * A {@code SharedAggregate} guarded by a single monitor.
+ * <p>
+ * A virtual thread that blocks inside the {@code synchronized} block pins its
+ * carrier thread for the whole blocking call.
+ */
+public class SynchronizedAggregate extends SharedAggregate {
+	private final Object _monitor = new Object();
+
+	/**
+	 * Constructs an empty table.
+	 *
+	 * @param holdMicros The time the blocking call inside the critical section
+	 *                   takes in microseconds, or {@code 0} for no blocking call
+	 */
+	public SynchronizedAggregate(long holdMicros) {
+		super(holdMicros);
+	}
+
+	/**
+	 * Adds a value to the total of a key while holding the monitor.
+	 *
+	 * @param key   The key; only the lowest bits are used
+	 * @param value The value to add
+	 */
+	@Override
+	public void add(int key, long value) {
+		synchronized (_monitor) {
+			this.update(key, value);
+		}
+	}
+}
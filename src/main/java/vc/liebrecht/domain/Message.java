@@ -1,12 +1,254 @@
 package vc.liebrecht.domain;
 
+import java.nio.ByteBuffer;
+
 /**
- * Represents a message with a byte-array as payload.
+ * Represents a message with a payload on the heap or off-heap.
+ * <p>
+ * This class is used to transfer messages between producer and consumer. The
+ * payload can have any size. The enqueue timestamp allows consumers to measure
+ * the end-to-end latency of each message. The key identifies the entity a
+ * message belongs to, such as an account; messages with the same key can be
+ * routed to the same consumer and processed in order. A message sent as a
+ * request carries the action that replies to its sender. In a pipeline, every
+ * stage forwards a copy stamped with the time it entered the next stage, so
+ * that each stage can measure its own latency.
  * <p>
- * This record class is used to transfer messages between producer and consumer.
- * The payload can have any size.
- *
- * @param payload The byte array containing the message payload
+ * Messages created with the public constructor carry a heap payload and are
+ * immutable, except for the reply action of a request, which the sender sets
+ * with {@link #replyTo(Runnable)} and which is cleared when the reply is sent
+ * with {@link #reply()}. Messages owned by a {@code MessagePool} are recycled: the producer
+ * stamps them when it takes them from the pool, and the consumer returns them
+ * with {@link #release()} once it no longer needs the payload. Their payload
+ * is either a heap array or a slice of a direct buffer.
  */
-public record Message(byte[] payload) {
-}
\ No newline at end of file
+public final class Message {
+	/**
+	 * Sentinel message that tells a consumer to terminate. It is compared by
+	 * identity and never counted as a processed message.
+	 */
+	public static final Message POISON_PILL = new Message(new byte[0], 0L);
+
+	private final byte[] _payload;
+	private final ByteBuffer _offHeapPayload;
+	private final MessagePool _pool;
+	private final int _poolIndex;
+	private long _enqueueNanos;
+	private long _key;
+	private long _stageNanos;
+	private Runnable _reply;
+
+	/**
+	 * Constructs a new message with a heap payload that is not owned by a pool
+	 * and has the key {@code 0}.
+	 *
+	 * @param payload      The byte array containing the message payload
+	 * @param enqueueNanos The {@code System.nanoTime()} at which the producer
+	 *                     enqueued the message
+	 */
+	public Message(byte[] payload, long enqueueNanos) {
+		this(payload, enqueueNanos, 0L);
+	}
+
+	/**
+	 * Constructs a new message with a heap payload that is not owned by a pool.
+	 *
+	 * @param payload      The byte array containing the message payload
+	 * @param enqueueNanos The {@code System.nanoTime()} at which the producer
+	 *                     enqueued the message
+	 * @param key          The key of the message
+	 */
+	public Message(byte[] payload, long enqueueNanos, long key) {
+		this(payload, null, null, -1);
+		_enqueueNanos = enqueueNanos;
+		_stageNanos = enqueueNanos;
+		_key = key;
+	}
+
+	/**
+	 * Constructs a new message owned by a pool.
+	 *
+	 * @param payload        The heap payload, or {@code null} for an off-heap
+	 *                       payload
+	 * @param offHeapPayload The off-heap payload, or {@code null} for a heap
+	 *                       payload
+	 * @param pool           The pool owning the message, or {@code null}
+	 * @param poolIndex      The index of the message in its pool
+	 */
+	Message(byte[] payload, ByteBuffer offHeapPayload, MessagePool pool, int poolIndex) {
+		_payload = payload;
+		_offHeapPayload = offHeapPayload;
+		_pool = pool;
+		_poolIndex = poolIndex;
+	}
+
+	/**
+	 * Returns the heap payload.
+	 *
+	 * @return The byte array containing the payload, or {@code null} if the
+	 *         payload is off-heap
+	 */
+	public byte[] payload() {
+		return _payload;
+	}
+
+	/**
+	 * Returns the off-heap payload, positioned at its start.
+	 * <p>
+	 * The buffer is reused when the message is recycled; its position and limit
+	 * may only be changed by the current holder of the message.
+	 *
+	 * @return The direct buffer containing the payload, or {@code null} if the
+	 *         payload is on the heap
+	 */
+	public ByteBuffer offHeapPayload() {
+		return _offHeapPayload == null ? null : _offHeapPayload.clear();
+	}
+
+	/**
+	 * Returns the size of the payload.
+	 *
+	 * @return The payload size in bytes
+	 */
+	public int payloadLength() {
+		return _payload != null ? _payload.length : _offHeapPayload.capacity();
+	}
+
+	/**
+	 * Copies the payload into a buffer at its current position and advances the
+	 * position by the payload size. Does not allocate.
+	 *
+	 * @param dst The buffer to copy the payload into
+	 */
+	public void copyPayloadTo(ByteBuffer dst) {
+		if (_payload != null) {
+			dst.put(_payload);
+		} else {
+			int length = _offHeapPayload.capacity();
+			dst.put(dst.position(), _offHeapPayload, 0, length);
+			dst.position(dst.position() + length);
+		}
+	}
+
+	/**
+	 * Copies the payload into the beginning of an array. Does not allocate.
+	 *
+	 * @param dst The array to copy the payload into; must be at least as long as
+	 *            the payload
+	 */
+	public void copyPayloadTo(byte[] dst) {
+		if (_payload != null) {
+			System.arraycopy(_payload, 0, dst, 0, _payload.length);
+		} else {
+			_offHeapPayload.get(0, dst, 0, _offHeapPayload.capacity());
+		}
+	}
+
+	/**
+	 * Returns the time at which the message was enqueued.
+	 *
+	 * @return The {@code System.nanoTime()} at which the producer enqueued the
+	 *         message
+	 */
+	public long enqueueNanos() {
+		return _enqueueNanos;
+	}
+
+	/**
+	 * Returns the time at which the message entered the input queue of its
+	 * current pipeline stage.
+	 *
+	 * @return The {@code System.nanoTime()} at which the previous stage forwarded
+	 *         the message, or the enqueue time for the first stage
+	 */
+	public long stageNanos() {
+		return _stageNanos;
+	}
+
+	/**
+	 * Creates the copy of the message that a pipeline stage forwards to the next
+	 * stage. The copy shares the payload, enqueue time and key, but not the pool
+	 * or a reply action, since every downstream stage receives a copy of its own.
+	 *
+	 * @param stageNanos The {@code System.nanoTime()} at which the copy enters the
+	 *                   input queue of the next stage
+	 * @return The copy
+	 */
+	public Message forward(long stageNanos) {
+		Message copy = new Message(_payload, _offHeapPayload, null, -1);
+		copy._enqueueNanos = _enqueueNanos;
+		copy._stageNanos = stageNanos;
+		copy._key = _key;
+		return copy;
+	}
+
+	/**
+	 * Returns the key of the message.
+	 *
+	 * @return The key, such as the index of an account
+	 */
+	public long key() {
+		return _key;
+	}
+
+	/**
+	 * Sets the action that replies to the sender once the message has been
+	 * processed, which turns the message into a request.
+	 *
+	 * @param reply The reply action, such as completing a future the sender waits
+	 *              on
+	 * @return This message
+	 */
+	public Message replyTo(Runnable reply) {
+		_reply = reply;
+		return this;
+	}
+
+	/**
+	 * Replies to the sender of a request, at most once. Called by the consumer
+	 * after processing and before releasing the message; does nothing for
+	 * messages that expect no reply.
+	 */
+	public void reply() {
+		Runnable reply = _reply;
+		if (reply != null) {
+			_reply = null;
+			reply.run();
+		}
+	}
+
+	/**
+	 * Sets the enqueue timestamp and the key of a recycled message.
+	 *
+	 * @param enqueueNanos The {@code System.nanoTime()} at which the producer
+	 *                     enqueues the message
+	 * @param key          The key of the message
+	 * @return This message
+	 */
+	Message stamp(long enqueueNanos, long key) {
+		_enqueueNanos = enqueueNanos;
+		_stageNanos = enqueueNanos;
+		_key = key;
+		return this;
+	}
+
+	/**
+	 * Returns the index of the message in its pool.
+	 *
+	 * @return The pool index, or {@code -1} if the message is not pooled
+	 */
+	int poolIndex() {
+		return _poolIndex;
+	}
+
+	/**
+	 * Returns the message to its pool. Must be called exactly once by the consumer
+	 * after it has finished processing the message; does nothing for messages
+	 * that are not pooled.
+	 */
+	public void release() {
+		if (_pool != null) {
+			_pool.release(this);
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package vc.liebrecht.domain;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free pool of preallocated messages.
+ * <p>
+ * The free messages form a stack of pool indices linked through an
+ * {@code AtomicIntegerArray}. The head of the stack packs a version counter in
+ * its upper and the top index in its lower 32 bits, so that a CAS on the head
+ * fails if the stack changed in between, even if the same index is on top again
+ * (ABA). Acquiring and releasing a message therefore allocates nothing.
+ * <p>
+ * Payloads are either preallocated heap arrays or slices of a single direct
+ * buffer allocated up front (the arena). If the pool is empty, producers do
+ * not wait for consumers, since on a bounded executor the consumers might not
+ * be running yet; instead, a message with a fresh heap payload is allocated and
+ * counted as a miss.
+ */
+public final class MessagePool implements MessageSource {
+	private static final int EMPTY = -1;
+
+	private final Message[] _messages;
+	private final AtomicIntegerArray _next;
+	private final AtomicLong _head;
+	private final int _payloadSize;
+	private final LongAdder _misses;
+
+	/**
+	 * Constructs a full pool.
+	 *
+	 * @param capacity    The number of messages in the pool
+	 * @param payloadSize The size of each payload in bytes
+	 * @param offHeap     Whether the payloads are slices of a direct buffer
+	 * @throws IllegalArgumentException If the off-heap arena would exceed 2 GiB
+	 */
+	public MessagePool(int capacity, int payloadSize, boolean offHeap) {
+		if (offHeap && (long) capacity * payloadSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Off-heap arena exceeds 2 GiB: " + capacity + " x " + payloadSize);
+		}
+		_messages = new Message[capacity];
+		_next = new AtomicIntegerArray(capacity);
+		_payloadSize = payloadSize;
+		_misses = new LongAdder();
+
+		ByteBuffer arena = offHeap ? ByteBuffer.allocateDirect(capacity * payloadSize) : null;
+		for (int i = 0; i < capacity; i++) {
+			_messages[i] = offHeap
+					? new Message(null, arena.slice(i * payloadSize, payloadSize), this, i)
+					: new Message(new byte[payloadSize], null, this, i);
+			_next.set(i, i + 1 < capacity ? i + 1 : EMPTY);
+		}
+		_head = new AtomicLong(pack(0L, capacity > 0 ? 0 : EMPTY));
+	}
+
+	/**
+	 * Packs a version and an index into a head value.
+	 *
+	 * @param version The version counter
+	 * @param index   The index on top of the stack, or {@link #EMPTY}
+	 * @return The packed head
+	 */
+	private static long pack(long version, int index) {
+		return version << 32 | (index & 0xFFFF_FFFFL);
+	}
+
+	/**
+	 * Takes a message from the pool and stamps it, or allocates a new one if the
+	 * pool is empty.
+	 *
+	 * @param enqueueNanos The {@code System.nanoTime()} at which the producer
+	 *                     enqueues the message
+	 * @param key          The key of the message
+	 * @return A message that is exclusively owned by the caller
+	 */
+	@Override
+	public Message acquire(long enqueueNanos, long key) {
+		long head;
+		int index;
+		do {
+			head = _head.get();
+			index = (int) head;
+			if (index == EMPTY) {
+				_misses.increment();
+				return new Message(new byte[_payloadSize], enqueueNanos, key);
+			}
+		} while (!_head.compareAndSet(head, pack((head >>> 32) + 1, _next.get(index))));
+		return _messages[index].stamp(enqueueNanos, key);
+	}
+
+	/**
+	 * Returns a message to the pool.
+	 *
+	 * @param m A message owned by this pool that is no longer used
+	 */
+	void release(Message m) {
+		int index = m.poolIndex();
+		long head;
+		do {
+			head = _head.get();
+			_next.set(index, (int) head);
+		} while (!_head.compareAndSet(head, pack((head >>> 32) + 1, index)));
+	}
+
+	/**
+	 * Returns how often the pool was empty when a message was requested.
+	 *
+	 * @return The number of pool misses
+	 */
+	@Override
+	public long misses() {
+		return _misses.sum();
+	}
+}
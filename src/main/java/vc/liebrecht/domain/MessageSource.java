@@ -0,0 +1,43 @@
+package vc.liebrecht.domain;
+
+/**
+ * Supplies the messages that producers enqueue.
+ * <p>
+ * Depending on the {@code PayloadMode}, a source allocates a new message per
+ * call or hands out recycled messages from a pool.
+ */
+@FunctionalInterface
+public interface MessageSource {
+	/**
+	 * Returns a message stamped with the given enqueue timestamp and key.
+	 *
+	 * @param enqueueNanos The {@code System.nanoTime()} at which the producer
+	 *                     enqueues the message
+	 * @param key          The key of the message
+	 * @return A message that is exclusively owned by the caller
+	 */
+	Message acquire(long enqueueNanos, long key);
+
+	/**
+	 * Returns a message stamped with the given enqueue timestamp and the key
+	 * {@code 0}.
+	 *
+	 * @param enqueueNanos The {@code System.nanoTime()} at which the producer
+	 *                     enqueues the message
+	 * @return A message that is exclusively owned by the caller
+	 */
+	default Message acquire(long enqueueNanos) {
+		return this.acquire(enqueueNanos, 0L);
+	}
+
+	/**
+	 * Returns how often the source had to allocate a message because its pool
+	 * was empty.
+	 *
+	 * @return The number of pool misses; always {@code 0} for sources without a
+	 *         pool
+	 */
+	default long misses() {
+		return 0L;
+	}
+}
@@ -0,0 +1,70 @@
+package vc.liebrecht.domain;
+
+/**
+ * Enumeration for the ways producers obtain messages and payloads.
+ * <p>
+ * The modes range from allocating a message and a payload per message to a
+ * completely allocation-free path with recycled messages and off-heap payloads.
+ */
+public enum PayloadMode {
+	/**
+	 * A new message per send, all sharing the same zero-filled heap array.
+	 */
+	SHARED("Shared heap array"),
+
+	/**
+	 * A new message with a freshly allocated heap array per send.
+	 */
+	HEAP("Fresh heap array"),
+
+	/**
+	 * Recycled messages with preallocated heap arrays from a lock-free pool.
+	 */
+	POOLED("Pooled heap messages"),
+
+	/**
+	 * Recycled messages whose payloads are slices of a preallocated direct buffer.
+	 */
+	OFF_HEAP("Pooled off-heap messages");
+
+	private final String _displayName;
+
+	/**
+	 * Constructs a payload mode.
+	 *
+	 * @param displayName The display name for this payload mode
+	 */
+	PayloadMode(String displayName) {
+		_displayName = displayName;
+	}
+
+	/**
+	 * Creates a new message source of this mode.
+	 *
+	 * @param payloadSize The size of each payload in bytes
+	 * @param poolSize    The number of messages of a pool; ignored by modes
+	 *                    without a pool
+	 * @return A new {@code MessageSource}
+	 */
+	public MessageSource createSource(int payloadSize, int poolSize) {
+		return switch (this) {
+			case SHARED -> {
+				byte[] payload = new byte[payloadSize];
+				yield (enqueueNanos, key) -> new Message(payload, enqueueNanos, key);
+			}
+			case HEAP -> (enqueueNanos, key) -> new Message(new byte[payloadSize], enqueueNanos, key);
+			case POOLED -> new MessagePool(poolSize, payloadSize, false);
+			case OFF_HEAP -> new MessagePool(poolSize, payloadSize, true);
+		};
+	}
+
+	/**
+	 * Returns the display name of this payload mode.
+	 *
+	 * @return The display name of the payload mode
+	 */
+	@Override
+	public String toString() {
+		return _displayName;
+	}
+}
@@ -0,0 +1,215 @@
+package vc.liebrecht.engine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import vc.liebrecht.metrics.MannWhitneyTest;
+import vc.liebrecht.metrics.RunningStats;
+import vc.liebrecht.writer.Json;
+
+/**
+ * Compares a JSON summary of benchmark results against a baseline summary, for
+ * example before and after a JDK upgrade.
+ * <p>
+ * Results are matched by scenario key and executor type. For every match, the
+ * change of the median throughput and of the 99th percentile of the end-to-end
+ * latency is computed. A change only counts as a regression if it exceeds both
+ * the configured threshold and the noise of the two measurements, i.e. the
+ * combined relative half-widths of their confidence intervals. A throughput
+ * drop must additionally be significant according to a Mann-Whitney U test on
+ * the individual run durations, so that a single noisy run cannot fail the
+ * gate.
+ */
+public class BaselineComparator {
+	private final double _throughputThreshold;
+	private final double _latencyThreshold;
+	private final double _alpha;
+
+	/**
+	 * Constructs a new comparator.
+	 *
+	 * @param throughputThreshold Minimum relative throughput drop reported as a
+	 *                            regression, e.g. {@code 0.05}
+	 * @param latencyThreshold    Minimum relative increase of the p99 latency
+	 *                            reported as a regression, e.g. {@code 0.10}
+	 * @param alpha               Significance level of the throughput comparison
+	 */
+	public BaselineComparator(double throughputThreshold, double latencyThreshold, double alpha) {
+		_throughputThreshold = throughputThreshold;
+		_latencyThreshold = latencyThreshold;
+		_alpha = alpha;
+	}
+
+	/**
+	 * Compares two summary files written by {@code ResultWriter}.
+	 *
+	 * @param baseline The baseline summary
+	 * @param current  The summary to check against the baseline
+	 * @return The outcome of the comparison
+	 * @throws IOException If a file cannot be read
+	 */
+	public Outcome compare(Path baseline, Path current) throws IOException {
+		return this.compare(Json.parse(Files.readString(baseline)), Json.parse(Files.readString(current)));
+	}
+
+	/**
+	 * Compares two parsed summaries.
+	 *
+	 * @param baseline The baseline summary
+	 * @param current  The summary to check against the baseline
+	 * @return The outcome of the comparison
+	 * @throws IllegalArgumentException If a summary does not have the expected
+	 *                                  structure
+	 */
+	public Outcome compare(Object baseline, Object current) {
+		Map<String, Map<String, Object>> baselineResults = index(baseline);
+		Map<String, Map<String, Object>> currentResults = index(current);
+		StringBuilder report = new StringBuilder();
+		int regressions = 0;
+
+		for (Map.Entry<String, Map<String, Object>> entry : currentResults.entrySet()) {
+			Map<String, Object> base = baselineResults.get(entry.getKey());
+			if (base == null) {
+				report.append("NEW      ").append(entry.getKey()).append(System.lineSeparator());
+				continue;
+			}
+			Map<String, Object> cur = entry.getValue();
+			double noise = Math.sqrt(square(relativeHalfWidth(base)) + square(relativeHalfWidth(cur)));
+
+			double throughputChange = change(number(base, "medianThroughputMsgsPerSec"),
+					number(cur, "medianThroughputMsgsPerSec"));
+			MannWhitneyTest test = MannWhitneyTest.compare(durations(base), durations(cur));
+			boolean throughputRegression = -throughputChange > Math.max(_throughputThreshold, noise)
+					&& test.isSignificant(_alpha);
+
+			double latencyChange = change(number(base, "latencyP99Us"), number(cur, "latencyP99Us"));
+			boolean latencyRegression = latencyChange > Math.max(_latencyThreshold, noise);
+
+			String verdict = throughputRegression || latencyRegression ? "REGRESS" : "ok";
+			if (throughputRegression || latencyRegression) {
+				regressions++;
+			}
+			report.append("%-8s %s | throughput %+.1f%% (%s) | p99 latency %+.1f%% | noise %.1f%%".formatted(
+					verdict, entry.getKey(), throughputChange * 100, test, latencyChange * 100, noise * 100))
+					.append(System.lineSeparator());
+		}
+		for (String key : baselineResults.keySet()) {
+			if (!currentResults.containsKey(key)) {
+				report.append("MISSING  ").append(key).append(System.lineSeparator());
+			}
+		}
+
+		report.append("%d of %d matched results regressed (throughput threshold %.1f%%, latency threshold %.1f%%)"
+				.formatted(regressions, currentResults.size(), _throughputThreshold * 100, _latencyThreshold * 100));
+		return new Outcome(report.toString(), regressions);
+	}
+
+	/**
+	 * Maps every executor summary of a summary file to the key
+	 * {@code "<executor> <scenario>"}.
+	 *
+	 * @param summary The parsed summary
+	 * @return The executor summaries by key, in file order
+	 */
+	@SuppressWarnings("unchecked")
+	private static Map<String, Map<String, Object>> index(Object summary) {
+		Map<String, Map<String, Object>> index = new LinkedHashMap<>();
+		try {
+			for (Object result : (List<Object>) ((Map<String, Object>) summary).get("results")) {
+				Map<String, Object> entry = (Map<String, Object>) result;
+				Map<String, Object> executors = (Map<String, Object>) entry.get("executors");
+				for (Map.Entry<String, Object> executor : executors.entrySet()) {
+					index.put(executor.getKey() + " " + entry.get("scenario"),
+							(Map<String, Object>) executor.getValue());
+				}
+			}
+		} catch (ClassCastException | NullPointerException e) {
+			throw new IllegalArgumentException("Not a benchmark summary", e);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the relative half-width of the confidence interval of an executor
+	 * summary.
+	 *
+	 * @param executor The executor summary
+	 * @return The half-width divided by the center of the interval, or {@code 0}
+	 *         if the interval is missing
+	 */
+	private static double relativeHalfWidth(Map<String, Object> executor) {
+		double lower = number(executor, "ciLowerMs");
+		double upper = number(executor, "ciUpperMs");
+		double width = (upper - lower) / (lower + upper);
+		return Double.isFinite(width) && width > 0.0 ? width : 0.0;
+	}
+
+	/**
+	 * Collects the individual run durations of an executor summary.
+	 *
+	 * @param executor The executor summary
+	 * @return The run durations in nanoseconds
+	 */
+	@SuppressWarnings("unchecked")
+	private static RunningStats durations(Map<String, Object> executor) {
+		RunningStats stats = new RunningStats();
+		for (Object duration : (List<Object>) executor.getOrDefault("durationsMs", List.of())) {
+			stats.add(Math.round(((Number) duration).doubleValue() * 1_000_000.0));
+		}
+		return stats;
+	}
+
+	/**
+	 * Returns a numeric property of an executor summary.
+	 *
+	 * @param executor The executor summary
+	 * @param name     The name of the property
+	 * @return The value, or {@code NaN} if it is missing or not finite
+	 */
+	private static double number(Map<String, Object> executor, String name) {
+		return executor.get(name) instanceof Number n ? n.doubleValue() : Double.NaN;
+	}
+
+	/**
+	 * Returns the relative change between two values.
+	 *
+	 * @param before The baseline value
+	 * @param after  The current value
+	 * @return The relative change, or {@code 0} if it is undefined
+	 */
+	private static double change(double before, double after) {
+		double change = after / before - 1.0;
+		return Double.isFinite(change) ? change : 0.0;
+	}
+
+	/**
+	 * Squares a value.
+	 *
+	 * @param value The value
+	 * @return The square of the value
+	 */
+	private static double square(double value) {
+		return value * value;
+	}
+
+	/**
+	 * The outcome of a baseline comparison.
+	 *
+	 * @param report      One line per compared result, followed by a summary line
+	 * @param regressions The number of results that regressed
+	 */
+	public record Outcome(String report, int regressions) {
+		/**
+		 * Returns whether any result regressed.
+		 *
+		 * @return {@code true} if at least one result regressed
+		 */
+		public boolean hasRegressions() {
+			return this.regressions() > 0;
+		}
+	}
+}
@@ -1,16 +1,52 @@
 package vc.liebrecht.engine;
 
-import java.util.concurrent.ArrayBlockingQueue;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SubmissionPublisher;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 import vc.liebrecht.config.BenchmarkConfig;
+import vc.liebrecht.consumer.ActorConsumer;
+import vc.liebrecht.consumer.ActorMode;
+import vc.liebrecht.consumer.CompletionCounter;
 import vc.liebrecht.consumer.ConsumerFactory;
+import vc.liebrecht.consumer.ConsumerSettings;
 import vc.liebrecht.consumer.DefaultConsumerFactory;
+import vc.liebrecht.consumer.FlowConsumer;
+import vc.liebrecht.consumer.PerMessageConsumer;
 import vc.liebrecht.domain.Message;
+import vc.liebrecht.domain.MessageSource;
+import vc.liebrecht.domain.PayloadMode;
+import vc.liebrecht.metrics.JfrMonitor;
+import vc.liebrecht.metrics.LatencyRecorder;
+import vc.liebrecht.metrics.MemorySampler;
+import vc.liebrecht.metrics.StageMetrics;
+import vc.liebrecht.producer.KeyDistribution;
 import vc.liebrecht.producer.Producer;
+import vc.liebrecht.producer.RequestMode;
+import vc.liebrecht.producer.Requester;
+import vc.liebrecht.queue.DefaultQueueFactory;
+import vc.liebrecht.queue.QueueFactory;
+import vc.liebrecht.queue.QueueTopology;
+import vc.liebrecht.queue.QueueType;
+import vc.liebrecht.queue.RoutingPolicy;
+import vc.liebrecht.queue.ShardedQueue;
+import vc.liebrecht.queue.Sink;
 
 /**
  * Creates a Benchmark for a specific {@code ExecutorService}.
@@ -19,23 +55,41 @@ import vc.liebrecht.producer.Producer;
  * threads
  * insert messages into a {@code BlockingQueue} and multiple consumer threads
  * retrieve
- * these messages. The duration of the benchmark is measured in nanoseconds.
+ * these messages. The duration of the benchmark is measured in nanoseconds and
+ * the latency of every message is recorded by the consumers. The queue holds
+ * all messages of a run unless a smaller capacity is configured, in which case
+ * producers block once it is full. In a sharded topology, every consumer owns a
+ * queue with an equal share of the capacity. With a pipeline, the producers
+ * feed its first stage instead of the consumers, and the run ends once the last
+ * stage has processed every message. In thread-per-message mode, consumers do
+ * not process messages themselves but spawn one task per message; in an actor
+ * mode with mailboxes, they post every message to the mailbox of its key. In
+ * request/response mode, every producer is a caller that waits for the reply to
+ * each request before it sends the next one.
+ * <p>
+ * All producers of all runs share one {@code MessageSource} of the configured
+ * {@code PayloadMode}, so that a message pool is allocated only once per
+ * benchmark.
  */
 public class Benchmark {
+	private static final long MEMORY_SAMPLE_MILLIS = 10;
+
 	private final BenchmarkConfig _config;
 	private final ConsumerFactory _consumerFactory;
+	private final QueueFactory _queueFactory;
+	private final MessageSource _messageSource;
+	private final KeyDistribution _keys;
 
 	/**
 	 * Constructs a new benchmark instance.
 	 * <p>
-	 * Creates a {@code DefaultConsumerFactory} based on the consumer type specified
-	 * in the configuration.
+	 * Creates a {@code DefaultConsumerFactory} and a {@code DefaultQueueFactory}
+	 * based on the consumer type and queue type specified in the configuration.
 	 *
 	 * @param config The benchmark configuration with all necessary parameters
 	 */
 	public Benchmark(BenchmarkConfig config) {
-		_config = config;
-		_consumerFactory = new DefaultConsumerFactory(config.getConsumerType());
+		this(config, new DefaultConsumerFactory(config.getConsumerType(), consumerSettings(config, null)));
 	}
 
 	/**
@@ -49,45 +103,399 @@ public class Benchmark {
 	 * @param consumerFactory The factory to use for creating consumer instances
 	 */
 	public Benchmark(BenchmarkConfig config, ConsumerFactory consumerFactory) {
+		this(config, consumerFactory, new DefaultQueueFactory(config.getQueueType(), config.getWaitStrategy()));
+	}
+
+	/**
+	 * Constructs a new benchmark instance with a custom consumer factory and queue
+	 * factory.
+	 *
+	 * @param config          The benchmark configuration with all necessary
+	 *                        parameters
+	 * @param consumerFactory The factory to use for creating consumer instances
+	 * @param queueFactory    The factory to use for creating the message queue
+	 * @throws IllegalArgumentException If a pipeline is combined with a pooled
+	 *                                  payload mode, a sharded topology, an
+	 *                                  actor mode or a request/response mode, if
+	 *                                  an actor mode cannot consume every key on
+	 *                                  a single consumer, or if a request/response
+	 *                                  mode is not supported by the queues,
+	 *                                  consumers or target rate
+	 */
+	public Benchmark(BenchmarkConfig config, ConsumerFactory consumerFactory, QueueFactory queueFactory) {
+		if (config.getPipeline() != null && (config.getPayloadMode() == PayloadMode.POOLED
+				|| config.getPayloadMode() == PayloadMode.OFF_HEAP)) {
+			throw new IllegalArgumentException("Pipelines share messages between stages and do not support payload mode "
+					+ config.getPayloadMode().name());
+		}
+		if (config.getPipeline() != null && config.getTopology() != QueueTopology.SHARED) {
+			throw new IllegalArgumentException("Pipelines do not support topology " + config.getTopology().name());
+		}
+		if (config.getActorMode().isOrdered() && config.getPipeline() != null) {
+			throw new IllegalArgumentException("Pipelines do not support actor mode " + config.getActorMode().name());
+		}
+		if (config.getActorMode().isOrdered() && config.getConsumers() > 1
+				&& (config.getTopology() != QueueTopology.SHARDED || config.getRouting() != RoutingPolicy.KEY_HASH)) {
+			throw new IllegalArgumentException("Actor mode " + config.getActorMode().name()
+					+ " requires topology SHARDED and routing KEY_HASH, so that every key has a single consumer");
+		}
+		checkRequestMode(config);
 		_config = config;
 		_consumerFactory = consumerFactory;
+		_queueFactory = queueFactory;
+		_messageSource = config.getPayloadMode().createSource(config.getPayloadSize(), config.getPoolSize());
+		_keys = config.getKeys() > 0 ? KeyDistribution.of(config.getKeys(), config.getKeySkew()) : null;
+	}
+
+	/**
+	 * Checks that the request/response mode of a configuration can run.
+	 * <p>
+	 * Callers send one request at a time, so they cannot follow a target rate,
+	 * and a pipeline would reply once per copy of a request. With
+	 * {@code COMPLETABLE_FUTURE}, consumer threads send the next request of a
+	 * caller, so the queues must hold the request of every caller without
+	 * blocking. With {@code FLOW}, requests bypass the queues and are delivered
+	 * by a publisher per consumer to a subscriber that processes them itself.
+	 *
+	 * @param config The benchmark configuration
+	 * @throws IllegalArgumentException If the request mode is not supported by
+	 *                                  the configuration
+	 */
+	private static void checkRequestMode(BenchmarkConfig config) {
+		RequestMode mode = config.getRequestMode();
+		if (!mode.isRoundTrip()) {
+			return;
+		}
+		if (config.getPipeline() != null) {
+			throw new IllegalArgumentException("Pipelines do not support request mode " + mode.name());
+		}
+		if (config.getRate() > 0) {
+			throw new IllegalArgumentException("Request mode " + mode.name()
+					+ " sends one request per caller at a time and does not support a target rate");
+		}
+		int capacityPerShard = config.getQueueCapacity() / config.getShards();
+		if (mode == RequestMode.COMPLETABLE_FUTURE && (config.getQueueType() == QueueType.SYNCHRONOUS
+				|| config.getQueueCapacity() > 0 && capacityPerShard < config.getProducers())) {
+			throw new IllegalArgumentException("Request mode " + mode.name()
+					+ " requires room for the request of every producer in every queue");
+		}
+		if (mode == RequestMode.FLOW && (config.getTopology() != QueueTopology.SHARED
+				|| config.getActorMode() != ActorMode.NONE || !config.getConsumerType().supportsDispatch())) {
+			throw new IllegalArgumentException("Request mode " + mode.name()
+					+ " requires topology SHARED, actor mode NONE and a consumer type that supports dispatch");
+		}
+	}
+
+	/**
+	 * Collects the consumer settings of a configuration.
+	 *
+	 * @param config     The benchmark configuration
+	 * @param echoServer The address of the running echo server, or {@code null} if
+	 *                   none is running
+	 * @return The settings for the {@code DefaultConsumerFactory}
+	 */
+	public static ConsumerSettings consumerSettings(BenchmarkConfig config, InetSocketAddress echoServer) {
+		return new ConsumerSettings(config.getIdleStrategy(), config.getBatchSize(), echoServer,
+				config.getConnections(), Path.of(config.getFileDirectory()), config.getSyncEvery(),
+				config.getLockHoldMicros());
 	}
 
 	/**
 	 * Starts the benchmark with the provided configuration and calculates the
 	 * duration in nanoseconds.
 	 * <p>
-	 * Creates a {@code BlockingQueue} for messages, starts multiple consumer
-	 * threads and multiple
-	 * producer threads according to the configuration. The benchmark runs until all
-	 * messages
-	 * have been processed or a timeout of 10 minutes is reached.
+	 * Creates a {@code ShardedQueue} of the configured queue type and topology,
+	 * starts multiple consumer threads and multiple producer threads according to
+	 * the configuration. Once all producers have finished, one
+	 * {@link Message#POISON_PILL} per consumer is enqueued into the consumer's own
+	 * queue, and the run ends when
+	 * every consumer has received its pill and terminated. The benchmark runs
+	 * until all messages have been processed or a timeout of 10 minutes is
+	 * reached. Every consumer records message latencies into its own
+	 * {@code LatencyRecorder}; the recorders are merged once all consumers have
+	 * terminated. The peak number of live platform threads during the run is
+	 * taken from the {@code ThreadMXBean}; it includes the carrier threads of
+	 * virtual threads and thus shows when the scheduler compensates for blocking
+	 * file I/O. The peak memory footprint is tracked by a {@code MemorySampler},
+	 * and the peak number of concurrently running tasks by counting every task
+	 * while it runs. Unless disabled, JFR events such as virtual thread pinning are
+	 * streamed for the whole run, including the submission of the tasks. If a
+	 * message pool ran empty during the run, a warning is printed, since the
+	 * missing messages were allocated. With a target rate, producers run open
+	 * loop and all latencies are measured from the scheduled send time of each
+	 * message, which corrects them for coordinated omission.
+	 * <p>
+	 * The duration starts once all tasks have been submitted. In addition, the
+	 * submission itself, the time from its start to the first completed message,
+	 * and the drain from that message to the termination of all consumers are
+	 * measured as phases; creation and shutdown of the executor are left at zero
+	 * for the caller to fill in.
 	 *
 	 * @param executor The {@code ExecutorService} to create the threads
-	 * @return The duration of this benchmark run in nanoseconds
+	 * @return The duration and the merged message latencies of this benchmark run
+	 * @throws InterruptedException If the current thread is interrupted
+	 */
+	public RunResult run(ExecutorService executor) throws InterruptedException {
+		return this.run(executor, false);
+	}
+
+	/**
+	 * Starts the benchmark on an executor that may run fewer threads than tasks.
+	 * <p>
+	 * Behaves like {@link #run(ExecutorService)}, but if {@code producersFirst} is
+	 * set, the producers are submitted before the consumers. On a bounded
+	 * executor, consumers blocked on the empty queue would otherwise occupy every
+	 * thread and starve the producers.
+	 *
+	 * @param executor       The {@code ExecutorService} to create the threads
+	 * @param producersFirst Whether producers are submitted before consumers
+	 * @return The duration and the merged message latencies of this benchmark run
 	 * @throws InterruptedException If the current thread is interrupted
 	 */
-	public long run(ExecutorService executor) throws InterruptedException {
+	public RunResult run(ExecutorService executor, boolean producersFirst) throws InterruptedException {
+		return this.run(executor, producersFirst, false);
+	}
+
+	/**
+	 * Starts the benchmark, optionally in thread-per-message mode.
+	 * <p>
+	 * Behaves like {@link #run(ExecutorService, boolean)}, but if
+	 * {@code perMessage} is set, every consumer is a {@code PerMessageConsumer}
+	 * that takes messages from its queue and runs each of them on a new task of
+	 * the executor, with a consumer of the configured type created for the
+	 * message. If message permits are configured, all consumers share one
+	 * semaphore that limits the message tasks running at once. Message tasks are
+	 * counted like producers and consumers while they run, and the number of
+	 * spawned tasks is reported with the result.
+	 * <p>
+	 * In an actor mode with mailboxes, every consumer is an {@code ActorConsumer}
+	 * instead, whose mailboxes run on an executor of the actor mode that is
+	 * created for the run and closed at its end. The message permits then limit
+	 * the messages posted to mailboxes but not yet processed, and every
+	 * activation of a mailbox counts as a spawned task.
+	 * <p>
+	 * In request/response mode, every producer is a {@code Requester} with a
+	 * latency recorder of its own for the round trips, which is merged into the
+	 * latencies of the run. A producer has finished once the reply to its last
+	 * request has arrived. With {@code FLOW}, every consumer is a
+	 * {@code FlowConsumer} subscribed to a {@code SubmissionPublisher} that
+	 * delivers on the executor, and callers send to the publisher of consumer
+	 * {@code i % consumers}; once all callers have finished, the publishers are
+	 * closed instead of enqueueing poison pills.
+	 *
+	 * @param executor       The {@code ExecutorService} to create the threads
+	 * @param producersFirst Whether producers are submitted before consumers
+	 * @param perMessage     Whether consumers spawn one task per message
+	 * @return The duration and the merged message latencies of this benchmark run
+	 * @throws InterruptedException     If the current thread is interrupted
+	 * @throws IllegalArgumentException If thread-per-message mode is combined with
+	 *                                  a pipeline, mailboxes or request mode
+	 *                                  {@code FLOW}, or a dispatching
+	 *                                  mode with a consumer type that does not
+	 *                                  support it
+	 */
+	public RunResult run(ExecutorService executor, boolean producersFirst, boolean perMessage)
+			throws InterruptedException {
+		boolean mailboxes = _config.getActorMode().usesMailboxes();
+		if (perMessage && (_config.getPipeline() != null || mailboxes)) {
+			throw new IllegalArgumentException("Thread-per-message mode does not support "
+					+ (mailboxes ? "actor mode " + _config.getActorMode().name() : "pipelines"));
+		}
+		RequestMode requestMode = _config.getRequestMode();
+		boolean flow = requestMode == RequestMode.FLOW;
+		if (perMessage && flow) {
+			throw new IllegalArgumentException("Thread-per-message mode does not support request mode "
+					+ requestMode.name());
+		}
+		if ((perMessage || mailboxes) && !_config.getConsumerType().supportsDispatch()) {
+			throw new IllegalArgumentException("Consumer type " + _config.getConsumerType().name()
+					+ " cannot process messages on behalf of a dispatching consumer");
+		}
 		int totalMessages = _config.getProducers() * _config.getMessagesPerProducer();
-		BlockingQueue<Message> queue = new ArrayBlockingQueue<>(totalMessages);
-		CountDownLatch done = new CountDownLatch(totalMessages);
+		int shards = _config.getShards();
+		int capacity = _config.getQueueCapacity() > 0 ? _config.getQueueCapacity() : totalMessages;
+		Pipeline pipeline = _config.getPipeline() == null ? null
+				: new Pipeline(_config.getPipeline(), _queueFactory, totalMessages, _config.getQueueCapacity(),
+						_config.getIdleStrategy(), _config.getBatchSize());
+		ShardedQueue queue = pipeline != null || flow ? null
+				: new ShardedQueue(_queueFactory, shards, Math.max(1, (capacity + shards - 1) / shards),
+						_config.getRouting(), _config.getTopology() == QueueTopology.SHARDED_STEALING);
+		CompletionCounter completion = new CompletionCounter(_config.getConsumers());
 
-		for (int i = 0; i < _config.getConsumers(); i++) {
-			executor.submit(_consumerFactory.createConsumer(queue, done));
+		List<LatencyRecorder> recorders = new ArrayList<>(_config.getConsumers());
+		long poolMisses = _messageSource.misses();
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		threads.resetPeakThreadCount();
+		JfrMonitor monitor = new JfrMonitor(_config.isJfrEnabled());
+		monitor.start();
+		MemorySampler memory = new MemorySampler(MEMORY_SAMPLE_MILLIS);
+		memory.start();
+		AtomicInteger liveTasks = new AtomicInteger();
+		AtomicInteger peakLiveTasks = new AtomicInteger();
+		LongAdder spawnedTasks = new LongAdder();
+		Semaphore messagePermits = _config.getMessagePermits() > 0 ? new Semaphore(_config.getMessagePermits())
+				: null;
+		ExecutorService mailboxExecutor = mailboxes ? _config.getActorMode().createMailboxExecutor() : null;
+		Executor spawnTarget = mailboxes ? mailboxExecutor : executor;
+		Executor spawner = task -> {
+			spawnedTasks.increment();
+			spawnTarget.execute(track(task, liveTasks, peakLiveTasks));
+		};
+		Executor tracked = task -> executor.execute(track(task, liveTasks, peakLiveTasks));
+		List<SubmissionPublisher<Message>> publishers = new ArrayList<>();
+		List<LatencyRecorder> callers = new ArrayList<>();
+
+		List<Runnable> consumers = new ArrayList<>(_config.getConsumerTasks());
+		if (pipeline != null) {
+			for (Runnable stage : pipeline.getConsumers()) {
+				consumers.add(track(stage, liveTasks, peakLiveTasks));
+			}
+			pipeline.start();
+		} else if (flow) {
+			// Every caller has at most one request in flight, so a publisher never blocks it.
+			int buffer = Math.max(Flow.defaultBufferSize(), _config.getProducers());
+			for (int i = 0; i < _config.getConsumers(); i++) {
+				LatencyRecorder recorder = new LatencyRecorder();
+				recorders.add(recorder);
+				SubmissionPublisher<Message> publisher = new SubmissionPublisher<>(tracked, buffer);
+				publisher.subscribe(new FlowConsumer(completion, recorder, _config.getBatchSize(),
+						_consumerFactory.createConsumer(null, completion, recorder)));
+				publishers.add(publisher);
+			}
+		} else {
+			for (int i = 0; i < _config.getConsumers(); i++) {
+				BlockingQueue<Message> source = queue.consumerQueue(i);
+				LatencyRecorder recorder = new LatencyRecorder();
+				recorders.add(recorder);
+				Supplier<Runnable> bodies = () -> _consumerFactory.createConsumer(source, completion, recorder);
+				Runnable consumer = perMessage
+						? new PerMessageConsumer(source, completion, recorder, _config.getIdleStrategy(),
+								_config.getBatchSize(), spawner, messagePermits, bodies)
+						: mailboxes
+								? new ActorConsumer(source, completion, recorder, _config.getIdleStrategy(),
+										_config.getBatchSize(), spawner, messagePermits, bodies)
+								: bodies.get();
+				consumers.add(track(consumer, liveTasks, peakLiveTasks));
+			}
 		}
 
+		long submissionStart = System.nanoTime();
+		if (!producersFirst) {
+			consumers.forEach(executor::submit);
+		}
+		List<Future<?>> producers = new ArrayList<>(_config.getProducers());
 		for (int i = 0; i < _config.getProducers(); i++) {
-			executor.submit(new Producer(queue, _config.getMessagesPerProducer(), _config.getPayloadSize()));
+			KeyDistribution keys = _keys != null ? _keys : KeyDistribution.fixed(i);
+			if (requestMode.isRoundTrip()) {
+				LatencyRecorder caller = new LatencyRecorder();
+				callers.add(caller);
+				Requester.Channel channel = flow ? publishers.get(i % publishers.size())::submit
+						: queue.producerSink(i)::put;
+				Requester requester = new Requester(requestMode, channel, _config.getMessagesPerProducer(),
+						_messageSource, keys, caller, tracked);
+				executor.submit(track(requester, liveTasks, peakLiveTasks));
+				producers.add(requester.completion());
+				continue;
+			}
+			Sink<Message> target = pipeline != null ? Sink.of(pipeline.getSourceQueue()) : queue.producerSink(i);
+			producers.add(executor.submit(track(new Producer(target, _config.getMessagesPerProducer(), _messageSource,
+					_config.getBatchSize(), _config.getRate() / _config.getProducers(), _config.getArrivals(), keys),
+					liveTasks, peakLiveTasks)));
+		}
+		if (producersFirst) {
+			consumers.forEach(executor::submit);
 		}
 
 		long startTime = System.nanoTime();
-		boolean completed = done.await(10, TimeUnit.MINUTES);
-		long duration = System.nanoTime() - startTime;
+		long deadline = startTime + TimeUnit.MINUTES.toNanos(10);
+		boolean completed = awaitProducers(producers, deadline);
+		if (completed && pipeline != null) {
+			completed = pipeline.drain(deadline);
+		} else if (completed && flow) {
+			publishers.forEach(SubmissionPublisher::close);
+			completed = completion.awaitConsumers(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		} else if (completed) {
+			for (int i = 0; i < _config.getConsumers(); i++) {
+				queue.consumerQueue(i).put(Message.POISON_PILL);
+			}
+			completed = completion.awaitConsumers(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+		long endTime = System.nanoTime();
+		long duration = endTime - startTime;
+		long firstCompletion = pipeline != null ? pipeline.getFirstCompletionNanos()
+				: completion.getFirstCompletionNanos();
+		long completedMessages = pipeline != null ? pipeline.getCompletedMessages()
+				: completion.getCompletedMessages();
+		long firstMessage = (firstCompletion == 0 ? endTime : firstCompletion) - submissionStart;
+		PhaseTimes phases = new PhaseTimes(0, startTime - submissionStart, firstMessage,
+				endTime - submissionStart - firstMessage, 0);
 
 		if (!completed) {
 			System.err.println("WARNING: Benchmark timed out after 10 minutes. Not all messages were processed.");
+		} else if (completedMessages != totalMessages) {
+			System.err.format("WARNING: %d of %d messages were processed.%n", completedMessages, totalMessages);
 		}
+		poolMisses = _messageSource.misses() - poolMisses;
+		if (poolMisses > 0) {
+			System.err.format("WARNING: Message pool was exhausted %d times; increase --poolSize.%n", poolMisses);
+		}
+
+		LatencyRecorder latency = pipeline != null ? pipeline.getLatency() : new LatencyRecorder();
+		for (LatencyRecorder recorder : recorders) {
+			latency.add(recorder);
+		}
+		for (LatencyRecorder caller : callers) {
+			latency.add(caller);
+		}
+		List<StageMetrics> stages = pipeline != null ? pipeline.stop() : List.of();
+		if (mailboxExecutor != null) {
+			mailboxExecutor.close();
+		}
+
+		return new RunResult(duration, completedMessages, latency, threads.getPeakThreadCount(), monitor.stop(),
+				phases, memory.stop(), peakLiveTasks.get(), spawnedTasks.sum(), stages);
+	}
+
+	/**
+	 * Wraps a task so that it is counted while it runs.
+	 *
+	 * @param task The producer, consumer or message task
+	 * @param live The number of currently running tasks
+	 * @param peak The peak number of running tasks
+	 * @return The counting task
+	 */
+	private static Runnable track(Runnable task, AtomicInteger live, AtomicInteger peak) {
+		return () -> {
+			peak.accumulateAndGet(live.incrementAndGet(), Math::max);
+			try {
+				task.run();
+			} finally {
+				live.decrementAndGet();
+			}
+		};
+	}
 
-		return duration;
+	/**
+	 * Waits until all producer tasks have finished.
+	 * <p>
+	 * A producer that failed with an exception is reported on {@code System.err}
+	 * but counts as finished.
+	 *
+	 * @param producers The futures of the submitted producer tasks
+	 * @param deadline  The {@code System.nanoTime()} deadline
+	 * @return {@code true} if all producers finished before the deadline
+	 * @throws InterruptedException If the current thread is interrupted
+	 */
+	private static boolean awaitProducers(List<Future<?>> producers, long deadline) throws InterruptedException {
+		for (Future<?> producer : producers) {
+			try {
+				producer.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+			} catch (ExecutionException e) {
+				System.err.println("WARNING: Producer failed: " + e.getCause());
+			} catch (TimeoutException e) {
+				return false;
+			}
+		}
+		return true;
 	}
-}
\ No newline at end of file
+}
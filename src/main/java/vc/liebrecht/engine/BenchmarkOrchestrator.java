@@ -1,24 +1,37 @@
 package vc.liebrecht.engine;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import vc.liebrecht.config.BenchmarkConfig;
+import vc.liebrecht.consumer.DefaultConsumerFactory;
+import vc.liebrecht.executor.ExecutorType;
+import vc.liebrecht.metrics.EnvironmentInfo;
+import vc.liebrecht.metrics.SteadyStateDetector;
+import vc.liebrecht.network.EchoServer;
+import vc.liebrecht.producer.RequestMode;
 
 /**
  * Orchestrates the execution of benchmarks for different executor types.
  * <p>
- * This class runs benchmarks for both traditional thread pools and virtual
- * threads
+ * This class runs benchmarks for every configured executor strategy, such as
+ * traditional thread pools and virtual threads,
  * and collects the results in {@code BenchmarkStatistics} objects. The results
  * are
  * printed after all runs are completed and stored in a list for later
  * retrieval.
  */
 public class BenchmarkOrchestrator {
+	/**
+	 * The minimum number of measured runs in adaptive mode, so that the
+	 * confidence interval is not computed from a lucky handful of runs.
+	 */
+	private static final int MIN_ADAPTIVE_RUNS = 5;
+
 	private final List<BenchmarkResult> _results;
 
 	/**
@@ -31,65 +44,213 @@ public class BenchmarkOrchestrator {
 	}
 
 	/**
-	 * Runs benchmarks for both executor types.
+	 * Runs benchmarks for all configured executor types.
 	 * <p>
-	 * Executes the configured number of runs, where each run is performed with both
-	 * a thread pool and virtual threads. The first run (index 0) is a dry run and
-	 * its
-	 * results are not included in the statistics to account for JVM warm-up
-	 * effects.
+	 * Every run is performed once with every executor type, each on a fresh
+	 * executor. With a fixed run count, the configured number of runs is executed
+	 * and the first run (index 0) is a dry run whose results are not included in
+	 * the statistics to account for JVM warm-up effects. In adaptive mode, see
+	 * {@link #runAdaptive}, the number of warm-up and measured runs is derived
+	 * from the measured durations instead.
 	 * Results are collected in {@code BenchmarkStatistics} objects and printed at
-	 * the end,
-	 * along with the configuration details.
+	 * the end, along with the configuration details and a Mann-Whitney U test of
+	 * the run durations of every executor type against the first one. For network
+	 * consumer types, an {@code EchoServer} is started before the first run and
+	 * closed after the last one.
+	 * <p>
+	 * If the queue applies backpressure, an executor type that runs no more tasks
+	 * at once than there are consumers is skipped with a warning: whichever kind
+	 * of task is submitted first can occupy all of its threads, either consumers
+	 * waiting on the empty queue or producers waiting on the full one. The
+	 * thread-per-message type is skipped as well if the configuration has a
+	 * pipeline, per-key mailboxes, or a consumer type that cannot process single
+	 * messages on tasks of their own.
 	 *
 	 * @param config The benchmark configuration with all necessary parameters
 	 * @throws InterruptedException If a thread is interrupted during execution
 	 */
 	public void runBenchmarks(BenchmarkConfig config) throws InterruptedException {
-		BenchmarkStatistics statisticsPool = new BenchmarkStatistics();
-		BenchmarkStatistics statisticsVirtual = new BenchmarkStatistics();
+		Map<ExecutorType, BenchmarkStatistics> statistics = new LinkedHashMap<>();
+		for (ExecutorType type : config.getExecutorTypes()) {
+			if (config.hasBackpressure() && concurrency(config, type) <= config.getConsumerTasks()) {
+				System.err.format("WARNING: Skipping %s: it runs only %d tasks at once, which %d consumers and "
+						+ "producers blocked on a full queue could deadlock.%n", type, concurrency(config, type),
+						config.getConsumerTasks());
+				continue;
+			}
+			if (type.isPerMessage() && (config.getPipeline() != null || config.getActorMode().usesMailboxes()
+					|| config.getRequestMode() == RequestMode.FLOW || !config.getConsumerType().supportsDispatch())) {
+				System.err.format("WARNING: Skipping %s: it does not support %s.%n", type,
+						config.getPipeline() != null ? "pipelines"
+								: config.getActorMode().usesMailboxes() ? "actor mode " + config.getActorMode()
+										: config.getRequestMode() == RequestMode.FLOW
+												? "request mode " + config.getRequestMode()
+												: "consumer type " + config.getConsumerType());
+				continue;
+			}
+			statistics.put(type, new BenchmarkStatistics(config.getCiEstimator()));
+		}
 
 		System.out.println("=== Benchmark started ===");
 
-		Benchmark bm = new Benchmark(config);
-
-		for (int i = 0; i < config.getRuns(); i++) {
-			boolean isDryRun = i == 0;
-			// We need numProducers + numConsumers threads to cover all producers and
-			// consumers
-			ExecutorService pool = Executors.newFixedThreadPool(config.getProducers() + config.getConsumers());
-			long poolDuration = bm.run(pool);
-			pool.shutdown();
-			pool.awaitTermination(2, TimeUnit.MINUTES);
-			if (!isDryRun)
-				statisticsPool.addDuration(poolDuration);
-
-			ExecutorService virtual = Executors.newVirtualThreadPerTaskExecutor();
-			long virtualDuration = bm.run(virtual);
-			virtual.shutdown();
-			virtual.awaitTermination(2, TimeUnit.MINUTES);
-			if (!isDryRun)
-				statisticsVirtual.addDuration(virtualDuration);
-			System.out.format("=== %d. run completed ===\n", i + 1);
+		// Network consumers talk to an echo server that lives for all runs of this
+		// configuration; the resource is null for all other consumer types.
+		try (EchoServer echoServer = config.getConsumerType().requiresEchoServer()
+				? new EchoServer(config.getServerDelayMicros())
+				: null) {
+			Benchmark bm = new Benchmark(config, new DefaultConsumerFactory(config.getConsumerType(),
+					Benchmark.consumerSettings(config, echoServer == null ? null : echoServer.getAddress())));
+
+			if (config.isAdaptive()) {
+				this.runAdaptive(bm, config, statistics);
+			} else {
+				for (int i = 0; i < config.getRuns(); i++) {
+					boolean isDryRun = i == 0;
+					for (Map.Entry<ExecutorType, BenchmarkStatistics> entry : statistics.entrySet()) {
+						RunResult result = runOnce(bm, config, entry.getKey());
+						if (!isDryRun)
+							entry.getValue().addRun(result);
+					}
+					System.out.format("=== %d. run completed ===\n", i + 1);
+				}
+			}
 		}
 
-		_results.add(new BenchmarkResult(config, statisticsPool, statisticsVirtual));
+		BenchmarkResult benchmarkResult = new BenchmarkResult(config, statistics, EnvironmentInfo.current());
+		_results.add(benchmarkResult);
 
 		System.out.println("\n\n=== Benchmark completed successfully ===\n");
 
 		System.out.println(config);
-		System.out.println("-------------------------------------------\n");
-		System.out.println(statisticsPool);
-		System.out.println("-------------------------------------------\n");
-		System.out.println(statisticsVirtual);
+		for (Map.Entry<ExecutorType, BenchmarkStatistics> entry : statistics.entrySet()) {
+			System.out.println("-------------------------------------------\n");
+			System.out.println(entry.getKey() + ":");
+			System.out.println(entry.getValue());
+		}
+		System.out.print(benchmarkResult.significance());
+	}
+
+	/**
+	 * Runs warm-up and measured runs until the results are statistically stable.
+	 * <p>
+	 * Warm-up runs are repeated until the durations of every executor type have
+	 * reached a steady state according to a {@code SteadyStateDetector}, or the
+	 * maximum number of warm-up runs is reached. Measured runs are then repeated
+	 * until the 95% confidence interval of every executor type is narrower than
+	 * the configured relative width, after at least {@value #MIN_ADAPTIVE_RUNS}
+	 * runs, or the maximum number of measured runs is reached.
+	 *
+	 * @param bm         The benchmark to run
+	 * @param config     The benchmark configuration
+	 * @param statistics The statistics per executor type to add the measured runs
+	 *                   to
+	 * @throws InterruptedException If a thread is interrupted during execution
+	 */
+	private void runAdaptive(Benchmark bm, BenchmarkConfig config, Map<ExecutorType, BenchmarkStatistics> statistics)
+			throws InterruptedException {
+		Map<ExecutorType, SteadyStateDetector> detectors = new LinkedHashMap<>();
+		for (ExecutorType type : statistics.keySet()) {
+			detectors.put(type, new SteadyStateDetector(config.getWarmupWindow(), config.getWarmupTolerance()));
+		}
+
+		int warmups = 0;
+		while (warmups < config.getMaxWarmups()
+				&& !detectors.values().stream().allMatch(SteadyStateDetector::isSteady)) {
+			for (Map.Entry<ExecutorType, SteadyStateDetector> entry : detectors.entrySet()) {
+				entry.getValue().add(runOnce(bm, config, entry.getKey()).durationNanos());
+			}
+			warmups++;
+			System.out.format("=== %d. warm-up run completed ===\n", warmups);
+		}
+		if (!detectors.values().stream().allMatch(SteadyStateDetector::isSteady)) {
+			System.err.format("WARNING: No steady state reached after %d warm-up runs.%n", warmups);
+		}
+
+		int runs = 0;
+		while (runs < config.getMaxRuns() && (runs < MIN_ADAPTIVE_RUNS || !statistics.values().stream()
+				.allMatch(s -> s.confidenceInterval().relativeWidth() <= config.getCiWidth()))) {
+			for (Map.Entry<ExecutorType, BenchmarkStatistics> entry : statistics.entrySet()) {
+				entry.getValue().addRun(runOnce(bm, config, entry.getKey()));
+			}
+			runs++;
+			System.out.format("=== %d. run completed ===\n", runs);
+		}
+		if (runs < MIN_ADAPTIVE_RUNS || !statistics.values().stream()
+				.allMatch(s -> s.confidenceInterval().relativeWidth() <= config.getCiWidth())) {
+			System.err.format("WARNING: Confidence interval still wider than %.1f%% after %d runs.%n",
+					config.getCiWidth() * 100, runs);
+		}
+		System.out.format("=== %d warm-up runs, %d measured runs ===\n", warmups, runs);
+	}
+
+	/**
+	 * Performs a single benchmark run on a fresh executor of the given type.
+	 * <p>
+	 * The creation of the executor and its shutdown, until all of its threads
+	 * have terminated, are measured as phases of the run. Thread pools start
+	 * their threads lazily, so the cost of starting platform threads shows up in
+	 * the submission phase rather than in the creation.
+	 * <p>
+	 * On executors that run fewer threads than tasks, producers are submitted
+	 * first so that waiting consumers cannot starve them, unless the queue
+	 * applies backpressure: then producers blocked on the full queue could starve
+	 * the consumers instead, so consumers are submitted first and the remaining
+	 * threads are left to the producers.
+	 *
+	 * @param bm     The benchmark to run
+	 * @param config The benchmark configuration
+	 * @param type   The executor type to run the benchmark with
+	 * @return The result of the run
+	 * @throws InterruptedException If a thread is interrupted during execution
+	 */
+	private static RunResult runOnce(Benchmark bm, BenchmarkConfig config, ExecutorType type)
+			throws InterruptedException {
+		// Unbounded executors need numProducers + numConsumers threads to cover all
+		// producers and consumers
+		long creationStart = System.nanoTime();
+		ExecutorService executor = type.create(config.getProducers() + config.getConsumerTasks(),
+				config.getVirtualPermits());
+		long creation = System.nanoTime() - creationStart;
+		RunResult result = bm.run(executor, type.isBounded() && !config.hasBackpressure(), type.isPerMessage());
+		long shutdownStart = System.nanoTime();
+		executor.shutdown();
+		executor.awaitTermination(2, TimeUnit.MINUTES);
+		return result.withPhases(result.phases().withExecutor(creation, System.nanoTime() - shutdownStart));
+	}
+
+	/**
+	 * Returns how many tasks an executor of the given type runs at once for a
+	 * configuration.
+	 *
+	 * @param config The benchmark configuration
+	 * @param type   The executor type
+	 * @return The number of tasks that can run at the same time
+	 */
+	private static int concurrency(BenchmarkConfig config, ExecutorType type) {
+		return type.concurrency(config.getProducers() + config.getConsumerTasks(), config.getVirtualPermits());
+	}
+
+	/**
+	 * Runs benchmarks for several configurations, each in its own child JVM.
+	 * <p>
+	 * The children run the configurations as {@link #runBenchmarks} would, and
+	 * their output is forwarded to {@code System.out}. The results are collected
+	 * in the order of the configurations.
+	 *
+	 * @param configs The benchmark configurations to run
+	 * @param runner  The runner that starts the child JVMs and determines how
+	 *                many of them run at the same time
+	 * @throws InterruptedException If a thread is interrupted during execution
+	 */
+	public void runForked(List<BenchmarkConfig> configs, ForkRunner runner) throws InterruptedException {
+		_results.addAll(runner.runAll(configs));
 	}
 
 	/**
 	 * Returns the collected benchmark results.
 	 * <p>
 	 * The list contains {@code BenchmarkResult} objects, each containing the
-	 * configuration used and statistics for both thread pool and virtual thread
-	 * executions.
+	 * configuration used and statistics for every executor type.
 	 *
 	 * @return A list with benchmark results for each configuration
 	 */
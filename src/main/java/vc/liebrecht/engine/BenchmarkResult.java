@@ -1,40 +1,104 @@
 package vc.liebrecht.engine;
 
+import java.io.Serializable;
+import java.util.Map;
+
 import vc.liebrecht.config.BenchmarkConfig;
+import vc.liebrecht.executor.ExecutorType;
+import vc.liebrecht.metrics.EnvironmentInfo;
+import vc.liebrecht.metrics.MannWhitneyTest;
 
 /**
- * Represents the result of a benchmark execution with statistics for both
- * executor types.
+ * Represents the result of a benchmark execution with statistics for every
+ * executor type.
  * <p>
  * This record encapsulates the configuration used for the benchmark and the
  * statistics
- * collected for both platform threads (thread pool) and virtual threads. It
+ * collected for each executor type it was run with, such as a thread pool or
+ * virtual threads. It
  * provides
- * a convenient way to store and retrieve benchmark results.
+ * a convenient way to store and retrieve benchmark results. The statistics of
+ * each executor type include the run durations as well as the message latency
+ * percentiles.
  *
- * @param config        The benchmark configuration that was used
- * @param platformStats Statistics for the thread pool executor
- * @param virtualStats  Statistics for the virtual thread executor
+ * @param config      The benchmark configuration that was used
+ * @param statistics  The statistics per executor type, in the order the types
+ *                    were run
+ * @param environment The JVM and machine the benchmark was measured on
  */
-public record BenchmarkResult(BenchmarkConfig config, BenchmarkStatistics platformStats,
-		BenchmarkStatistics virtualStats) {
+public record BenchmarkResult(BenchmarkConfig config, Map<ExecutorType, BenchmarkStatistics> statistics,
+		EnvironmentInfo environment) implements Serializable {
+
+	/**
+	 * Returns the statistics of a single executor type.
+	 *
+	 * @param type The executor type
+	 * @return The statistics, or {@code null} if the benchmark was not run with
+	 *         this executor type
+	 */
+	public BenchmarkStatistics statistics(ExecutorType type) {
+		return this.statistics().get(type);
+	}
+
+	/**
+	 * Tests whether the run durations of two executor types differ significantly.
+	 *
+	 * @param first  The first executor type
+	 * @param second The second executor type
+	 * @return The result of a Mann-Whitney U test of the run durations
+	 * @throws IllegalArgumentException If the benchmark was not run with one of
+	 *                                  the executor types
+	 */
+	public MannWhitneyTest compare(ExecutorType first, ExecutorType second) {
+		BenchmarkStatistics a = this.statistics(first);
+		BenchmarkStatistics b = this.statistics(second);
+		if (a == null || b == null) {
+			throw new IllegalArgumentException("Executor type was not benchmarked: " + (a == null ? first : second));
+		}
+		return MannWhitneyTest.compare(a.getDurations(), b.getDurations());
+	}
+
+	/**
+	 * Formats the Mann-Whitney U tests of the run durations of every executor
+	 * type against the first one.
+	 *
+	 * @return One line per compared executor type, or an empty string if only one
+	 *         executor type was run
+	 */
+	public String significance() {
+		StringBuilder lines = new StringBuilder();
+		ExecutorType baseline = null;
+		for (ExecutorType type : this.statistics().keySet()) {
+			if (baseline == null) {
+				baseline = type;
+				continue;
+			}
+			MannWhitneyTest test = this.compare(baseline, type);
+			lines.append("    %s vs. %s: %s (%s)%n".formatted(baseline, type, test,
+					test.isSignificant(0.05) ? "significant" : "not significant"));
+		}
+		return lines.toString();
+	}
 
 	/**
 	 * Returns a formatted string representation of the benchmark result.
 	 * <p>
-	 * Contains the configuration and statistics for both executor types in a
-	 * readable format.
+	 * Contains the configuration, the environment, statistics for every executor
+	 * type and the significance tests between them in a readable format.
 	 *
 	 * @return A formatted string representation of the benchmark result
 	 */
 	@Override
 	public String toString() {
+		StringBuilder stats = new StringBuilder();
+		for (Map.Entry<ExecutorType, BenchmarkStatistics> entry : this.statistics().entrySet()) {
+			stats.append("    %s = %s".formatted(entry.getKey(), entry.getValue()));
+		}
 		return """
 				BenchmarkResult {
 				    config = %s
-				    platformStats = %s
-				    virtualStats = %s
-				}
-				""".formatted(this.config(), this.platformStats(), this.virtualStats());
+				    environment = %s
+				%s%s}
+				""".formatted(this.config(), this.environment(), stats, this.significance());
 	}
-}
\ No newline at end of file
+}
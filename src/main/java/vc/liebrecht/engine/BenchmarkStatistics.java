@@ -1,24 +1,98 @@
 package vc.liebrecht.engine;
 
-import java.util.ArrayList;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+
+import vc.liebrecht.metrics.ConfidenceInterval;
+import vc.liebrecht.metrics.Estimator;
+import vc.liebrecht.metrics.JfrSummary;
+import vc.liebrecht.metrics.LatencyRecorder;
+import vc.liebrecht.metrics.MemoryPeaks;
+import vc.liebrecht.metrics.RunningStats;
+import vc.liebrecht.metrics.StageMetrics;
 
 /**
  * Collects and calculates statistics for benchmark runs.
  * <p>
  * This class stores the duration of each benchmark run in nanoseconds and
  * provides
- * methods to calculate average, minimum, maximum, total duration, and
- * throughput.
+ * methods to calculate average, median, minimum, maximum, standard deviation,
+ * a 95% confidence interval, total duration, and throughput. The durations are
+ * accumulated in a primitive {@code RunningStats}. In addition, the
+ * per-message latencies of all runs are merged to report latency
+ * percentiles, the highest peak thread count of all runs is
+ * kept, and the JFR events of all runs are summed up into a metrics block that
+ * attributes differences in throughput to garbage collection, allocation,
+ * parking, pinning or CPU saturation. The durations of the phases of every run
+ * are accumulated separately, so that the cost of starting and stopping threads
+ * is visible next to the steady drain of the queue.
  */
-public class BenchmarkStatistics {
-	private final List<Long> _durationsNano;
+public class BenchmarkStatistics implements Serializable {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private final RunningStats _durationsNano;
+	private final Estimator _estimator;
+	private final LatencyRecorder _latency;
+	private final EnumMap<Phase, RunningStats> _phases;
+	private long _totalMessages;
+	private int _peakThreads;
+	private int _peakLiveTasks;
+	private long _spawnedTasks;
+	private MemoryPeaks _memory;
+	private JfrSummary _events;
+	private final LinkedHashMap<String, StageMetrics> _stages;
 
 	/**
-	 * Constructs new benchmark statistics.
+	 * Constructs new benchmark statistics with a confidence interval of the mean.
 	 */
 	public BenchmarkStatistics() {
-		_durationsNano = new ArrayList<>();
+		this(Estimator.MEAN);
+	}
+
+	/**
+	 * Constructs new benchmark statistics.
+	 *
+	 * @param estimator The location estimate the confidence interval is computed
+	 *                  for
+	 */
+	public BenchmarkStatistics(Estimator estimator) {
+		_durationsNano = new RunningStats();
+		_estimator = estimator;
+		_latency = new LatencyRecorder();
+		_phases = new EnumMap<>(Phase.class);
+		for (Phase phase : Phase.values()) {
+			_phases.put(phase, new RunningStats());
+		}
+		_events = JfrSummary.NONE;
+		_memory = MemoryPeaks.NONE;
+		_stages = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Adds the duration and the message latencies of a benchmark run.
+	 *
+	 * @param run The result of the benchmark run
+	 */
+	public void addRun(final RunResult run) {
+		this.addDuration(run.durationNanos());
+		_totalMessages += run.messages();
+		_latency.add(run.latency());
+		_peakThreads = Math.max(_peakThreads, run.peakThreads());
+		_peakLiveTasks = Math.max(_peakLiveTasks, run.peakLiveTasks());
+		_spawnedTasks += run.spawnedTasks();
+		_memory = _memory.max(run.memory());
+		_events = _events.plus(run.events());
+		for (Map.Entry<Phase, RunningStats> entry : _phases.entrySet()) {
+			entry.getValue().add(run.phases().get(entry.getKey()));
+		}
+		for (StageMetrics stage : run.stages()) {
+			_stages.merge(stage.name(), stage, StageMetrics::merge);
+		}
 	}
 
 	/**
@@ -36,7 +110,7 @@ public class BenchmarkStatistics {
 	 * @return The total duration in nanoseconds
 	 */
 	public long totalDuration() {
-		return _durationsNano.stream().reduce(0L, Long::sum);
+		return _durationsNano.sum();
 	}
 
 	/**
@@ -45,7 +119,7 @@ public class BenchmarkStatistics {
 	 * @return The minimum duration in milliseconds
 	 */
 	public long minDurationMs() {
-		return (long) (_durationsNano.stream().min(Long::compareTo).orElse(0L) / 1_000_000.0);
+		return (long) (_durationsNano.min() / 1_000_000.0);
 	}
 
 	/**
@@ -54,7 +128,7 @@ public class BenchmarkStatistics {
 	 * @return The maximum duration in milliseconds
 	 */
 	public long maxDurationMs() {
-		return (long) (_durationsNano.stream().max(Long::compareTo).orElse(0L) / 1_000_000.0);
+		return (long) (_durationsNano.max() / 1_000_000.0);
 	}
 
 	/**
@@ -63,10 +137,75 @@ public class BenchmarkStatistics {
 	 * @return The average duration in milliseconds, or 0.0 if no runs were recorded
 	 */
 	public double averageDurationMs() {
-		if (_durationsNano.isEmpty()) {
-			return 0.0;
-		}
-		return (this.totalDuration() / 1_000_000.0) / _durationsNano.size();
+		return _durationsNano.mean() / 1_000_000.0;
+	}
+
+	/**
+	 * Calculates the median duration of all benchmark runs.
+	 *
+	 * @return The median duration in milliseconds, or 0.0 if no runs were recorded
+	 */
+	public double medianDurationMs() {
+		return _durationsNano.median() / 1_000_000.0;
+	}
+
+	/**
+	 * Calculates the standard deviation of the durations of all benchmark runs.
+	 *
+	 * @return The sample standard deviation in milliseconds, or 0.0 if fewer than
+	 *         two runs were recorded
+	 */
+	public double stddevDurationMs() {
+		return _durationsNano.stddev() / 1_000_000.0;
+	}
+
+	/**
+	 * Calculates the 95% confidence interval of the configured location estimate
+	 * of the run durations.
+	 *
+	 * @return The confidence interval in nanoseconds
+	 */
+	public ConfidenceInterval confidenceInterval() {
+		return _durationsNano.confidenceInterval(_estimator);
+	}
+
+	/**
+	 * Returns the configured location estimate of the confidence interval.
+	 *
+	 * @return The estimator
+	 */
+	public Estimator getEstimator() {
+		return _estimator;
+	}
+
+	/**
+	 * Returns the accumulated run durations.
+	 *
+	 * @return The durations of all runs in nanoseconds
+	 */
+	public RunningStats getDurations() {
+		return _durationsNano;
+	}
+
+	/**
+	 * Returns the accumulated durations of a phase.
+	 *
+	 * @param phase The phase
+	 * @return The durations of the phase in all runs added via
+	 *         {@link #addRun(RunResult)}, in nanoseconds
+	 */
+	public RunningStats getPhase(Phase phase) {
+		return _phases.get(phase);
+	}
+
+	/**
+	 * Calculates the median duration of a phase.
+	 *
+	 * @param phase The phase
+	 * @return The median duration in milliseconds, or 0.0 if no runs were recorded
+	 */
+	public double medianPhaseMs(Phase phase) {
+		return _phases.get(phase).median() / 1_000_000.0;
 	}
 
 	/**
@@ -77,10 +216,26 @@ public class BenchmarkStatistics {
 	 * @return The throughput in runs per second, or 0.0 if no runs were recorded
 	 */
 	public double throughput() {
-		if (_durationsNano.isEmpty() || this.totalDuration() == 0) {
+		if (_durationsNano.count() == 0 || this.totalDuration() == 0) {
+			return 0.0;
+		}
+		return (double) _durationsNano.count() / (this.totalDuration() / 1_000_000_000.0);
+	}
+
+	/**
+	 * Calculates the message throughput of the benchmark runs.
+	 * <p>
+	 * Only runs added via {@link #addRun(RunResult)} contribute processed
+	 * messages.
+	 *
+	 * @return The throughput in messages per second, or 0.0 if no runs were
+	 *         recorded
+	 */
+	public double messageThroughput() {
+		if (_durationsNano.count() == 0 || this.totalDuration() == 0) {
 			return 0.0;
 		}
-		return (double) _durationsNano.size() / (this.totalDuration() / 1_000_000_000.0);
+		return _totalMessages / (this.totalDuration() / 1_000_000_000.0);
 	}
 
 	/**
@@ -89,34 +244,225 @@ public class BenchmarkStatistics {
 	 * @return The number of runs
 	 */
 	public int getCount() {
-		return _durationsNano.size();
+		return _durationsNano.count();
+	}
+
+	/**
+	 * Returns the merged message latencies of all collected benchmark runs.
+	 *
+	 * @return The merged latency recorder
+	 */
+	public LatencyRecorder getLatency() {
+		return _latency;
+	}
+
+	/**
+	 * Returns the highest peak number of live platform threads of all collected
+	 * benchmark runs.
+	 *
+	 * @return The peak thread count, including carrier threads
+	 */
+	public int getPeakThreads() {
+		return _peakThreads;
+	}
+
+	/**
+	 * Returns the highest peak number of concurrently running tasks of all
+	 * collected benchmark runs.
+	 *
+	 * @return The peak number of running producer and consumer tasks
+	 */
+	public int getPeakLiveTasks() {
+		return _peakLiveTasks;
+	}
+
+	/**
+	 * Returns the number of tasks spawned to process messages in all collected
+	 * benchmark runs.
+	 *
+	 * @return The number of message tasks or mailbox activations, {@code 0}
+	 *         unless consumers dispatch messages
+	 */
+	public long getSpawnedTasks() {
+		return _spawnedTasks;
+	}
+
+	/**
+	 * Calculates the rate at which tasks were spawned to process messages.
+	 *
+	 * @return The spawned tasks per second, or 0.0 if no runs were recorded
+	 */
+	public double spawnRate() {
+		if (_durationsNano.count() == 0 || this.totalDuration() == 0) {
+			return 0.0;
+		}
+		return _spawnedTasks / (this.totalDuration() / 1_000_000_000.0);
+	}
+
+	/**
+	 * Returns the highest peak memory footprint of all collected benchmark runs.
+	 *
+	 * @return The peak heap, resident set size and native memory
+	 */
+	public MemoryPeaks getMemory() {
+		return _memory;
+	}
+
+	/**
+	 * Returns the metrics of every pipeline stage, summed over all collected
+	 * benchmark runs.
+	 *
+	 * @return The stage metrics in the order of the pipeline, empty without a
+	 *         pipeline
+	 */
+	public List<StageMetrics> getStages() {
+		return List.copyOf(_stages.values());
+	}
+
+	/**
+	 * Calculates the heap allocation rate of the benchmark runs.
+	 *
+	 * @return The allocation rate in bytes per second, or 0.0 if no runs were
+	 *         recorded
+	 */
+	public double allocationRate() {
+		if (_durationsNano.count() == 0 || this.totalDuration() == 0) {
+			return 0.0;
+		}
+		return _events.allocatedBytes() / (this.totalDuration() / 1_000_000_000.0);
+	}
+
+	/**
+	 * Calculates the share of the run time spent in stop-the-world pauses of the
+	 * garbage collector.
+	 *
+	 * @return The summed pause time divided by the summed run duration, or 0.0 if
+	 *         no runs were recorded
+	 */
+	public double gcOverhead() {
+		if (_durationsNano.count() == 0 || this.totalDuration() == 0) {
+			return 0.0;
+		}
+		return (double) _events.gcPauseNanos() / this.totalDuration();
+	}
+
+	/**
+	 * Returns the summed JFR events of all collected benchmark runs.
+	 *
+	 * @return The event summary, including the number and total duration of
+	 *         virtual thread pinning events
+	 */
+	public JfrSummary getEvents() {
+		return _events;
 	}
 
 	/**
 	 * Returns a formatted string representation of the benchmark statistics.
 	 * <p>
-	 * Contains all important metrics such as total duration, average, minimum,
-	 * maximum, and throughput in a readable format.
+	 * Contains all important metrics such as total duration, average, median,
+	 * standard deviation, confidence interval, minimum, maximum, throughput, the
+	 * median phase durations, the latency percentiles including the round trips
+	 * of request/response mode and the JFR metrics in a readable format.
 	 *
 	 * @return A formatted string representation of the statistics
 	 */
 	@Override
 	public String toString() {
+		ConfidenceInterval ci = this.confidenceInterval();
 		return """
 				\t{
 					\tTotal operations:\t%d
 					\tTotal time:     \t%.3f ms
 					\tThroughput:     \t%.2f ops/sec
+					\tMsg throughput: \t%.0f msgs/sec
 					\tAvg duration:   \t%.2f ms
+					\tMedian duration:\t%.2f ms
+					\tStd deviation:  \t%.2f ms
+					\t95%% CI (%s):\t%.2f .. %.2f ms (%.1f%%)
 					\tMin duration:   \t%d ms
 					\tMax duration:   \t%d ms
+					\tPhases (median):\t%s
+					\tDequeue latency:\t%s
+					\tEnd-to-end latency:\t%s
+					\tRound-trip latency:\t%s
+					\tPeak threads:   \t%d platform, %d running tasks
+					\tSpawned tasks:  \t%d, %.0f per sec
+					\tPeak memory:    \t%s
+					\tPipeline stages:\t%s
+					\tGC pauses:      \t%d collections, %.3f ms total, %.3f ms max, %.2f%% of run time
+					\tGC pause times: \t%s
+					\tAllocation:     \t%.1f MB/sec, %d MB total
+					\tThread parks:   \t%d
+					\tPinned:         \t%d times, %.3f ms total
+					\tSubmit failed:  \t%d
+					\tCPU load:       \t%.0f%% JVM, %.0f%% machine
 				\t}
 				""".formatted(
 				this.getCount(),
 				this.totalDuration() / 1_000_000.0,
 				this.throughput(),
+				this.messageThroughput(),
 				this.averageDurationMs(),
+				this.medianDurationMs(),
+				this.stddevDurationMs(),
+				_estimator,
+				ci.lower() / 1_000_000.0,
+				ci.upper() / 1_000_000.0,
+				ci.relativeWidth() * 100,
 				this.minDurationMs(),
-				this.maxDurationMs());
+				this.maxDurationMs(),
+				this.formatPhases(),
+				_latency.getDequeueLatency(),
+				_latency.getCompletionLatency(),
+				_latency.getRoundTripLatency().getCount() > 0 ? _latency.getRoundTripLatency() : "none",
+				this.getPeakThreads(),
+				this.getPeakLiveTasks(),
+				this.getSpawnedTasks(),
+				this.spawnRate(),
+				this.getMemory(),
+				this.formatStages(),
+				_events.gcCount(),
+				_events.gcPauseNanos() / 1_000_000.0,
+				_events.gcMaxPauseNanos() / 1_000_000.0,
+				this.gcOverhead() * 100,
+				_events.gcPauses(),
+				this.allocationRate() / 1_000_000.0,
+				_events.allocatedBytes() / 1_000_000,
+				_events.parkCount(),
+				_events.pinnedCount(),
+				_events.pinnedNanos() / 1_000_000.0,
+				_events.submitFailedCount(),
+				_events.averageJvmCpu() * 100,
+				_events.averageMachineCpu() * 100);
+	}
+
+	/**
+	 * Formats the metrics of every pipeline stage, one stage per line.
+	 *
+	 * @return The stage metrics, or {@code none} without a pipeline
+	 */
+	private String formatStages() {
+		if (_stages.isEmpty()) {
+			return "none";
+		}
+		StringBuilder stages = new StringBuilder();
+		for (StageMetrics stage : _stages.values()) {
+			stages.append("%n\t\t\t%s (%d tasks): %s".formatted(stage.name(), stage.parallelism(), stage));
+		}
+		return stages.toString();
+	}
+
+	/**
+	 * Formats the median duration of every phase.
+	 *
+	 * @return The phases with their median durations in milliseconds
+	 */
+	private String formatPhases() {
+		StringBuilder phases = new StringBuilder();
+		for (Phase phase : Phase.values()) {
+			phases.append(phases.isEmpty() ? "" : ", ")
+					.append("%s %.3f ms".formatted(phase, this.medianPhaseMs(phase)));
+		}
+		return phases.toString();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package vc.liebrecht.engine;
+
+import java.util.List;
+import java.util.Map;
+
+import vc.liebrecht.config.BenchmarkConfig;
+import vc.liebrecht.executor.ExecutorType;
+import vc.liebrecht.metrics.MannWhitneyTest;
+
+/**
+ * Summarizes for which configurations an executor type wins or loses against
+ * the baseline, i.e. the first executor type of each configuration.
+ * <p>
+ * Every configuration is shown as one line with its scenario parameters, its
+ * garbage collector and heap size, followed by the change of the median run
+ * duration of every other executor type relative to the baseline. An executor
+ * type wins if its runs are significantly shorter according to a Mann-Whitney
+ * U test at the 5% level, and loses if they are significantly longer. This
+ * makes the GC matrix readable at a glance.
+ */
+public final class ComparisonReport {
+	private static final double ALPHA = 0.05;
+
+	/**
+	 * Prevents instantiation.
+	 */
+	private ComparisonReport() {
+	}
+
+	/**
+	 * Formats the comparison of all results.
+	 *
+	 * @param results The benchmark results to compare
+	 * @return One line per result, or an empty string if no result contains more
+	 *         than one executor type
+	 */
+	public static String format(List<BenchmarkResult> results) {
+		StringBuilder report = new StringBuilder();
+		for (BenchmarkResult result : results) {
+			if (result.statistics().size() < 2) {
+				continue;
+			}
+			BenchmarkConfig config = result.config();
+			report.append("%-45s %-20s %-8s".formatted(describe(config), config.getGc(),
+					config.getHeapSize().isEmpty() ? "default" : config.getHeapSize()));
+
+			ExecutorType baseline = null;
+			double baselineMedian = 0.0;
+			for (Map.Entry<ExecutorType, BenchmarkStatistics> entry : result.statistics().entrySet()) {
+				if (baseline == null) {
+					baseline = entry.getKey();
+					baselineMedian = entry.getValue().medianDurationMs();
+					continue;
+				}
+				double change = baselineMedian == 0.0 ? 0.0
+						: entry.getValue().medianDurationMs() / baselineMedian - 1.0;
+				MannWhitneyTest test = result.compare(baseline, entry.getKey());
+				String verdict = !test.isSignificant(ALPHA) ? "tie" : change < 0 ? "wins" : "loses";
+				report.append(" | %s %+.1f%% %s".formatted(entry.getKey().name(), change * 100, verdict));
+			}
+			report.append(System.lineSeparator());
+		}
+		if (report.isEmpty()) {
+			return "";
+		}
+		return "=== Median run duration relative to the first executor type ===" + System.lineSeparator()
+				+ report;
+	}
+
+	/**
+	 * Describes the scenario parameters of a configuration in one short column.
+	 *
+	 * @param config The configuration
+	 * @return The producers, consumers, consumer type, messages and payload size
+	 */
+	private static String describe(BenchmarkConfig config) {
+		return "%dP/%dC %s %dx%dB".formatted(config.getProducers(), config.getConsumers(),
+				config.getConsumerType().name(), config.getMessagesPerProducer(), config.getPayloadSize());
+	}
+}
@@ -0,0 +1,240 @@
+package vc.liebrecht.engine;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import vc.liebrecht.config.BenchmarkConfig;
+
+/**
+ * Runs benchmark configurations in child JVMs.
+ * <p>
+ * Every configuration is passed as command-line arguments to a fresh JVM that
+ * executes {@code ForkedBenchmark} with the classpath of this JVM, the flags
+ * of the configured garbage collector and heap size, and the configured JVM
+ * flags. JIT profiles, heap state and leftover threads of one
+ * configuration therefore cannot influence the next one. The output of a child
+ * is forwarded line by line to {@code System.out}, prefixed with the fork
+ * number; its result is read back from the line starting with
+ * {@link ForkedBenchmark#RESULT_PREFIX}. Errors of the child go directly to
+ * {@code System.err}.
+ * <p>
+ * Several children can run at the same time. If a number of CPUs per fork is
+ * given, each concurrently running child is pinned with {@code taskset} to its
+ * own, disjoint range of CPUs, so that the children do not compete for cores.
+ * <p>
+ * A configuration that limits the number of CPUs is pinned to the first CPUs
+ * of its range, and its JVM is told the same number of processors, which sizes
+ * the common pool, the garbage collector threads and the scheduler of virtual
+ * threads. Without a number of CPUs per fork, the range of such a child is as
+ * wide as its limit, so that concurrent children still get disjoint CPUs.
+ */
+public class ForkRunner {
+	private final int _parallelForks;
+	private final int _cpusPerFork;
+	private final AtomicInteger _forkCount;
+
+	/**
+	 * Constructs a new fork runner.
+	 *
+	 * @param parallelForks The maximum number of child JVMs running at the same
+	 *                      time
+	 * @param cpusPerFork   The number of CPUs each child is pinned to, or
+	 *                      {@code 0} for no pinning
+	 * @throws IllegalArgumentException If the CPU ranges of all concurrent children
+	 *                                  exceed the available processors
+	 */
+	public ForkRunner(int parallelForks, int cpusPerFork) {
+		int cpus = Runtime.getRuntime().availableProcessors();
+		if (parallelForks < 1) {
+			throw new IllegalArgumentException("Number of parallel forks must be at least 1: " + parallelForks);
+		}
+		if (cpusPerFork > 0 && parallelForks * cpusPerFork > cpus) {
+			throw new IllegalArgumentException("%d forks with %d CPUs each exceed the %d available processors"
+					.formatted(parallelForks, cpusPerFork, cpus));
+		}
+		_parallelForks = parallelForks;
+		_cpusPerFork = cpusPerFork;
+		_forkCount = new AtomicInteger();
+	}
+
+	/**
+	 * Runs all configurations in child JVMs, at most {@code parallelForks} at a
+	 * time.
+	 *
+	 * @param configs The configurations to run
+	 * @return The results in the order of the configurations
+	 * @throws InterruptedException  If the current thread is interrupted while
+	 *                               waiting for a child
+	 * @throws IllegalStateException If a child JVM fails
+	 */
+	public List<BenchmarkResult> runAll(List<BenchmarkConfig> configs) throws InterruptedException {
+		BlockingQueue<Integer> cpuSlots = new ArrayBlockingQueue<>(_parallelForks);
+		for (int slot = 0; slot < _parallelForks; slot++) {
+			cpuSlots.add(slot);
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(_parallelForks);
+		try {
+			List<Future<BenchmarkResult>> futures = new ArrayList<>(configs.size());
+			for (BenchmarkConfig config : configs) {
+				futures.add(executor.submit(() -> {
+					int slot = cpuSlots.take();
+					try {
+						return this.run(config, slot);
+					} finally {
+						cpuSlots.put(slot);
+					}
+				}));
+			}
+
+			List<BenchmarkResult> results = new ArrayList<>(configs.size());
+			for (Future<BenchmarkResult> future : futures) {
+				try {
+					results.add(future.get());
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof RuntimeException cause) {
+						throw cause;
+					}
+					throw new IllegalStateException("Forked benchmark failed", e.getCause());
+				}
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Runs a single configuration in a child JVM and waits for its result.
+	 *
+	 * @param config  The configuration to run
+	 * @param cpuSlot The index of the CPU range the child is pinned to, if
+	 *                pinning is enabled
+	 * @return The result reported by the child
+	 * @throws InterruptedException  If the current thread is interrupted while
+	 *                               waiting for the child
+	 * @throws IllegalStateException If the child exits with an error or without a
+	 *                               result
+	 * @throws UncheckedIOException  If the child cannot be started or its output
+	 *                               cannot be read
+	 */
+	public BenchmarkResult run(BenchmarkConfig config, int cpuSlot) throws InterruptedException {
+		int fork = _forkCount.incrementAndGet();
+		List<String> command = this.command(config, cpuSlot);
+		System.out.format("=== Fork %d started: %s ===%n", fork, String.join(" ", command));
+
+		Process process;
+		try {
+			process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to start forked benchmark", e);
+		}
+
+		BenchmarkResult result = null;
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith(ForkedBenchmark.RESULT_PREFIX)) {
+					result = decode(line.substring(ForkedBenchmark.RESULT_PREFIX.length()));
+				} else {
+					System.out.println("[fork " + fork + "] " + line);
+				}
+			}
+		} catch (IOException e) {
+			process.destroyForcibly();
+			throw new UncheckedIOException("Failed to read the output of fork " + fork, e);
+		}
+
+		int exitCode;
+		try {
+			exitCode = process.waitFor();
+		} catch (InterruptedException e) {
+			process.destroyForcibly();
+			throw e;
+		}
+		if (exitCode != 0 || result == null) {
+			throw new IllegalStateException("Fork %d failed with exit code %d".formatted(fork, exitCode));
+		}
+		return result;
+	}
+
+	/**
+	 * Builds the command line of a child JVM.
+	 *
+	 * @param config  The configuration to run
+	 * @param cpuSlot The index of the CPU range the child is pinned to
+	 * @return The command and its arguments
+	 * @throws IllegalArgumentException If the configuration limits the number of
+	 *                                  CPUs to more than are available to it, or
+	 *                                  its range lies beyond the available
+	 *                                  processors
+	 */
+	private List<String> command(BenchmarkConfig config, int cpuSlot) {
+		int cpus = config.getCpus();
+		int available = _cpusPerFork > 0 ? _cpusPerFork : Runtime.getRuntime().availableProcessors();
+		if (cpus > available) {
+			throw new IllegalArgumentException("%d CPUs requested, but only %d available".formatted(cpus, available));
+		}
+
+		List<String> command = new ArrayList<>();
+		if (_cpusPerFork > 0 || cpus > 0) {
+			int first = cpuSlot * (_cpusPerFork > 0 ? _cpusPerFork : cpus);
+			if (_cpusPerFork == 0 && first + cpus > available) {
+				throw new IllegalArgumentException("CPUs %d-%d of fork slot %d exceed the %d available processors"
+						.formatted(first, first + cpus - 1, cpuSlot, available));
+			}
+			command.add("taskset");
+			command.add("-c");
+			command.add(first + "-" + (first + (cpus > 0 ? cpus : _cpusPerFork) - 1));
+		}
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		if (cpus > 0) {
+			command.add("-XX:ActiveProcessorCount=" + cpus);
+			command.add("-Djdk.virtualThreadScheduler.parallelism=" + cpus);
+		}
+		command.addAll(config.getGc().jvmFlags());
+		if (!config.getHeapSize().isEmpty()) {
+			command.add("-Xms" + config.getHeapSize());
+			command.add("-Xmx" + config.getHeapSize());
+		}
+		command.addAll(config.getJvmArgs());
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(ForkedBenchmark.class.getName());
+		command.addAll(config.toArgs());
+		return command;
+	}
+
+	/**
+	 * Deserializes a result written by a child.
+	 *
+	 * @param encoded The Base64-encoded, serialized result
+	 * @return The result
+	 * @throws IllegalStateException If the result cannot be deserialized
+	 */
+	private static BenchmarkResult decode(String encoded) {
+		try (ObjectInputStream in = new ObjectInputStream(
+				new ByteArrayInputStream(Base64.getDecoder().decode(encoded)))) {
+			return (BenchmarkResult) in.readObject();
+		} catch (IOException | ClassNotFoundException e) {
+			throw new IllegalStateException("Failed to read the result of a forked benchmark", e);
+		}
+	}
+}
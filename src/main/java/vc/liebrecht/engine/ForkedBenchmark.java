@@ -0,0 +1,55 @@
+package vc.liebrecht.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Base64;
+
+import vc.liebrecht.config.BenchmarkConfig;
+
+/**
+ * Entry point of a child JVM started by the {@code ForkRunner}.
+ * <p>
+ * Runs the benchmark of a single configuration, given as command-line
+ * arguments, with a {@code BenchmarkOrchestrator} and writes the serialized
+ * {@code BenchmarkResult} to {@code System.out} as a single line starting with
+ * {@link #RESULT_PREFIX}. All other output is passed through by the parent.
+ */
+public final class ForkedBenchmark {
+	/**
+	 * The prefix of the output line that carries the Base64-encoded result.
+	 */
+	public static final String RESULT_PREFIX = "#BENCHMARK-RESULT ";
+
+	/**
+	 * Prevents instantiation.
+	 */
+	private ForkedBenchmark() {
+	}
+
+	/**
+	 * Runs the benchmark and writes its result.
+	 * <p>
+	 * If an error occurs, the stack trace is printed and the JVM exits with code
+	 * 1 without writing a result.
+	 *
+	 * @param args The command-line arguments of the configuration, as produced by
+	 *             {@link BenchmarkConfig#toArgs()}
+	 */
+	public static void main(String[] args) {
+		try {
+			BenchmarkOrchestrator orchestrator = new BenchmarkOrchestrator();
+			orchestrator.runBenchmarks(BenchmarkConfig.parse(args));
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+				out.writeObject(orchestrator.getResults().get(0));
+			}
+			System.out.println(RESULT_PREFIX + Base64.getEncoder().encodeToString(bytes.toByteArray()));
+			System.out.flush();
+		} catch (InterruptedException | IOException | RuntimeException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package vc.liebrecht.engine;
+
+/**
+ * Enumeration for the measured phases of a benchmark run.
+ * <p>
+ * The phases follow the life cycle of the executor: it is created, the
+ * consumer and producer tasks are submitted to it, the consumers complete
+ * the first message and then drain the remaining ones, and finally the executor
+ * is shut down. Creation and shutdown are measured by the
+ * {@code BenchmarkOrchestrator}, all other phases by {@code Benchmark}. The
+ * time to the first message is counted from the start of the submission, so
+ * it overlaps with the submission phase if messages are consumed while tasks
+ * are still being submitted.
+ */
+public enum Phase {
+	/**
+	 * Construction of the {@code ExecutorService}.
+	 */
+	CREATION("creation"),
+
+	/**
+	 * Submission of all consumer and producer tasks, including the start of the
+	 * threads that run them.
+	 */
+	SUBMISSION("submission"),
+
+	/**
+	 * Time from the start of the submission until the first message has been
+	 * completed by a consumer.
+	 */
+	FIRST_MESSAGE("first message"),
+
+	/**
+	 * Time from the first completed message until all consumers have terminated.
+	 */
+	DRAIN("drain"),
+
+	/**
+	 * Shutdown of the {@code ExecutorService} until all of its threads have
+	 * terminated.
+	 */
+	SHUTDOWN("shutdown");
+
+	private final String _displayName;
+
+	/**
+	 * Constructs a phase.
+	 *
+	 * @param displayName The display name for this phase
+	 */
+	Phase(String displayName) {
+		_displayName = displayName;
+	}
+
+	/**
+	 * Returns the display name of this phase.
+	 *
+	 * @return The display name of the phase
+	 */
+	@Override
+	public String toString() {
+		return _displayName;
+	}
+}
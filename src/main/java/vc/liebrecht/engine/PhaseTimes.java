@@ -0,0 +1,43 @@
+package vc.liebrecht.engine;
+
+/**
+ * The durations of the phases of a single benchmark run.
+ *
+ * @param creationNanos     The time to create the executor in nanoseconds
+ * @param submissionNanos   The time to submit all tasks in nanoseconds
+ * @param firstMessageNanos The time from the start of the submission until the
+ *                          first completed message in nanoseconds
+ * @param drainNanos        The time from the first completed message until all
+ *                          consumers terminated in nanoseconds
+ * @param shutdownNanos     The time to shut down the executor in nanoseconds
+ */
+public record PhaseTimes(long creationNanos, long submissionNanos, long firstMessageNanos, long drainNanos,
+		long shutdownNanos) {
+	/**
+	 * Returns the duration of a phase.
+	 *
+	 * @param phase The phase
+	 * @return The duration of the phase in nanoseconds
+	 */
+	public long get(Phase phase) {
+		return switch (phase) {
+			case CREATION -> this.creationNanos();
+			case SUBMISSION -> this.submissionNanos();
+			case FIRST_MESSAGE -> this.firstMessageNanos();
+			case DRAIN -> this.drainNanos();
+			case SHUTDOWN -> this.shutdownNanos();
+		};
+	}
+
+	/**
+	 * Returns a copy with the phases measured around the executor.
+	 *
+	 * @param creation The time to create the executor in nanoseconds
+	 * @param shutdown The time to shut down the executor in nanoseconds
+	 * @return The phase times with the given creation and shutdown times
+	 */
+	public PhaseTimes withExecutor(long creation, long shutdown) {
+		return new PhaseTimes(creation, this.submissionNanos(), this.firstMessageNanos(), this.drainNanos(),
+				shutdown);
+	}
+}
@@ -0,0 +1,267 @@
+package vc.liebrecht.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import vc.liebrecht.config.PipelineSpec;
+import vc.liebrecht.consumer.CompletionCounter;
+import vc.liebrecht.consumer.IdleStrategy;
+import vc.liebrecht.consumer.StageConsumer;
+import vc.liebrecht.domain.Message;
+import vc.liebrecht.metrics.LatencyRecorder;
+import vc.liebrecht.metrics.StageMetrics;
+import vc.liebrecht.queue.QueueFactory;
+
+/**
+ * The queues and consumers of a multi-stage pipeline for a single benchmark
+ * run.
+ * <p>
+ * Every stage has its own input queue, its own {@code CompletionCounter} and
+ * one {@code StageConsumer} per unit of parallelism. The pipeline is shut down
+ * level by level: once all producers have finished, one
+ * {@link Message#POISON_PILL} per consumer is put into the input queue of the
+ * first stage; once all consumers of a level have terminated, every message
+ * has been forwarded to the next level, which then receives its pills.
+ * <p>
+ * While the pipeline runs, a background platform thread samples the depth of
+ * every input queue. The pipeline counts a produced message as completed once
+ * all its copies have been processed by the last level, and reports the
+ * latencies of the last level as the end-to-end latencies of the run. Every
+ * stage also reports its own latency, from entering its input queue until the
+ * message has been forwarded; with fan-in, a stage processes and measures one
+ * copy per upstream stage.
+ */
+public class Pipeline {
+	private static final long DEPTH_SAMPLE_MILLIS = 5;
+
+	private final PipelineSpec _spec;
+	private final List<List<Stage>> _levels;
+	private final List<Runnable> _consumers;
+	private volatile boolean _sampling;
+	private Thread _sampler;
+
+	/**
+	 * The runtime state of one stage.
+	 */
+	private static final class Stage {
+		private final PipelineSpec.Stage _spec;
+		private final BlockingQueue<Message> _queue;
+		private final CompletionCounter _completion;
+		private final List<LatencyRecorder> _recorders;
+		private final List<LatencyRecorder> _stageRecorders;
+		private long _depthSum;
+		private long _depthSamples;
+		private int _maxDepth;
+		private long _endNanos;
+
+		/**
+		 * Constructs the state of a stage.
+		 *
+		 * @param spec  The definition of the stage
+		 * @param queue The input queue of the stage
+		 */
+		private Stage(PipelineSpec.Stage spec, BlockingQueue<Message> queue) {
+			_spec = spec;
+			_queue = queue;
+			_completion = new CompletionCounter(spec.parallelism());
+			_recorders = new ArrayList<>(spec.parallelism());
+			_stageRecorders = new ArrayList<>(spec.parallelism());
+		}
+	}
+
+	/**
+	 * Creates the queues and consumers of all stages.
+	 * <p>
+	 * A stage without a capacity of its own gets the configured queue capacity,
+	 * or, if none is configured, room for all messages it will receive.
+	 *
+	 * @param spec          The definition of the pipeline
+	 * @param queueFactory  The factory that creates the input queues
+	 * @param messages      The number of messages produced in the run
+	 * @param queueCapacity The configured queue capacity, or {@code 0} to hold all
+	 *                      messages
+	 * @param idleStrategy  The strategy consumers use to wait for messages
+	 * @param batchSize     The maximum number of messages a consumer takes from
+	 *                      its queue at once
+	 */
+	public Pipeline(PipelineSpec spec, QueueFactory queueFactory, long messages, int queueCapacity,
+			IdleStrategy idleStrategy, int batchSize) {
+		_spec = spec;
+		_levels = new ArrayList<>();
+		long received = messages;
+		for (List<PipelineSpec.Stage> level : spec.getLevels()) {
+			List<Stage> stages = new ArrayList<>(level.size());
+			for (PipelineSpec.Stage stage : level) {
+				int capacity = stage.capacity() > 0 ? stage.capacity() : queueCapacity > 0 ? queueCapacity
+						: (int) Math.min(Integer.MAX_VALUE, Math.max(1, received));
+				stages.add(new Stage(stage, queueFactory.createQueue(capacity)));
+			}
+			_levels.add(stages);
+			received *= level.size();
+		}
+
+		_consumers = new ArrayList<>(spec.getWorkers());
+		for (int i = 0; i < _levels.size(); i++) {
+			List<BlockingQueue<Message>> downstream = new ArrayList<>();
+			if (i + 1 < _levels.size()) {
+				for (Stage next : _levels.get(i + 1)) {
+					downstream.add(next._queue);
+				}
+			}
+			for (Stage stage : _levels.get(i)) {
+				for (int j = 0; j < stage._spec.parallelism(); j++) {
+					LatencyRecorder recorder = new LatencyRecorder();
+					LatencyRecorder stageRecorder = new LatencyRecorder();
+					stage._recorders.add(recorder);
+					stage._stageRecorders.add(stageRecorder);
+					_consumers.add(new StageConsumer(stage._queue, stage._completion, recorder, stageRecorder,
+							idleStrategy, batchSize, stage._spec.type(), List.copyOf(downstream)));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the queue the producers insert into.
+	 *
+	 * @return The input queue of the first stage
+	 */
+	public BlockingQueue<Message> getSourceQueue() {
+		return _levels.get(0).get(0)._queue;
+	}
+
+	/**
+	 * Returns the consumers of all stages, level by level.
+	 *
+	 * @return The consumer tasks to submit
+	 */
+	public List<Runnable> getConsumers() {
+		return _consumers;
+	}
+
+	/**
+	 * Starts sampling the depths of the input queues in the background.
+	 */
+	public void start() {
+		_sampling = true;
+		_sampler = Thread.ofPlatform().daemon().name("queue-depth-sampler").start(() -> {
+			do {
+				for (List<Stage> level : _levels) {
+					for (Stage stage : level) {
+						int depth = stage._queue.size();
+						stage._depthSum += depth;
+						stage._depthSamples++;
+						stage._maxDepth = Math.max(stage._maxDepth, depth);
+					}
+				}
+				try {
+					Thread.sleep(DEPTH_SAMPLE_MILLIS);
+				} catch (InterruptedException e) {
+					// stop() interrupts the sleep; the loop condition ends sampling.
+				}
+			} while (_sampling);
+		});
+	}
+
+	/**
+	 * Shuts the pipeline down level by level after all producers have finished.
+	 *
+	 * @param deadline The {@code System.nanoTime()} deadline
+	 * @return {@code true} if all consumers terminated before the deadline
+	 * @throws InterruptedException If the current thread is interrupted
+	 */
+	public boolean drain(long deadline) throws InterruptedException {
+		for (List<Stage> level : _levels) {
+			for (Stage stage : level) {
+				for (int i = 0; i < stage._spec.parallelism(); i++) {
+					stage._queue.put(Message.POISON_PILL);
+				}
+			}
+			for (Stage stage : level) {
+				if (!stage._completion.awaitConsumers(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+					return false;
+				}
+				stage._endNanos = System.nanoTime();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the time at which the last level completed its first message.
+	 *
+	 * @return The {@code System.nanoTime()} of the first completion, or {@code 0}
+	 *         if no message has been completed yet
+	 */
+	public long getFirstCompletionNanos() {
+		long first = 0;
+		for (Stage stage : _levels.get(_levels.size() - 1)) {
+			long nanos = stage._completion.getFirstCompletionNanos();
+			if (nanos != 0 && (first == 0 || nanos < first)) {
+				first = nanos;
+			}
+		}
+		return first;
+	}
+
+	/**
+	 * Returns the number of produced messages whose copies have all been
+	 * processed by the last level.
+	 *
+	 * @return The number of completed messages
+	 */
+	public long getCompletedMessages() {
+		long completed = 0;
+		for (Stage stage : _levels.get(_levels.size() - 1)) {
+			completed += stage._completion.getCompletedMessages();
+		}
+		return completed / _spec.getCopiesPerMessage();
+	}
+
+	/**
+	 * Merges the latencies of the last level.
+	 *
+	 * @return The end-to-end latencies of the run
+	 */
+	public LatencyRecorder getLatency() {
+		LatencyRecorder latency = new LatencyRecorder();
+		for (Stage stage : _levels.get(_levels.size() - 1)) {
+			stage._recorders.forEach(latency::add);
+		}
+		return latency;
+	}
+
+	/**
+	 * Stops sampling and collects the metrics of every stage. A stage that did
+	 * not terminate counts as active until now.
+	 *
+	 * @return The metrics of all stages, level by level
+	 * @throws InterruptedException If the current thread is interrupted while
+	 *                              waiting for the sampler thread
+	 */
+	public List<StageMetrics> stop() throws InterruptedException {
+		_sampling = false;
+		_sampler.interrupt();
+		// join() makes the depths written by the sampler thread visible here.
+		_sampler.join();
+
+		long now = System.nanoTime();
+		List<StageMetrics> metrics = new ArrayList<>();
+		for (List<Stage> level : _levels) {
+			for (Stage stage : level) {
+				long first = stage._completion.getFirstCompletionNanos();
+				long end = stage._endNanos != 0 ? stage._endNanos : now;
+				LatencyRecorder latency = new LatencyRecorder();
+				stage._stageRecorders.forEach(latency::add);
+				LatencyRecorder cumulative = new LatencyRecorder();
+				stage._recorders.forEach(cumulative::add);
+				metrics.add(new StageMetrics(stage._spec.name(), stage._spec.parallelism(),
+						stage._completion.getCompletedMessages(), first == 0 ? 0 : end - first, stage._depthSum,
+						stage._depthSamples, stage._maxDepth, latency, cumulative));
+			}
+		}
+		return metrics;
+	}
+}
@@ -0,0 +1,195 @@
+package vc.liebrecht.engine;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import vc.liebrecht.config.BenchmarkConfig;
+import vc.liebrecht.executor.ExecutorType;
+
+/**
+ * Searches the highest open-loop rate every executor type sustains within a
+ * latency budget.
+ * <p>
+ * A rate counts as sustainable if the 99th percentile of the end-to-end
+ * latency, measured from the scheduled send time of each message, stays within
+ * the budget. Since the latencies are corrected for coordinated omission, a
+ * rate the system cannot keep up with makes the queue and thus the percentile
+ * grow without bound, so the percentile alone separates sustainable from
+ * unsustainable rates.
+ * <p>
+ * The sweep starts at the start rate and doubles it until an executor type
+ * exceeds its budget or the maximum rate is reached. The rate of every executor
+ * type that exceeded its budget is then refined by bisection between its last
+ * sustainable and its first unsustainable rate. Every probed rate is a full
+ * benchmark of the {@code BenchmarkOrchestrator}, including its dry run and
+ * echo server, and runs in a child JVM if the configuration is forked. An
+ * executor type that the orchestrator skips for the configuration, e.g.
+ * because it could deadlock on a bounded queue, has no result and is reported
+ * as skipped.
+ */
+public class RateSweep {
+	private final long _p99BudgetNanos;
+	private final double _startRate;
+	private final double _maxRate;
+	private final int _refinements;
+	private final BenchmarkOrchestrator _orchestrator;
+	private final Set<ExecutorType> _skipped;
+
+	/**
+	 * Constructs a new rate sweep.
+	 *
+	 * @param p99BudgetNanos The highest acceptable 99th percentile of the
+	 *                       end-to-end latency in nanoseconds
+	 * @param startRate      The first rate probed, in messages per second
+	 * @param maxRate        The highest rate probed, in messages per second
+	 * @param refinements    The number of bisection steps per executor type
+	 */
+	public RateSweep(long p99BudgetNanos, double startRate, double maxRate, int refinements) {
+		_p99BudgetNanos = p99BudgetNanos;
+		_startRate = startRate;
+		_maxRate = maxRate;
+		_refinements = refinements;
+		_orchestrator = new BenchmarkOrchestrator();
+		_skipped = new LinkedHashSet<>();
+	}
+
+	/**
+	 * Runs the sweep for all executor types of a configuration.
+	 *
+	 * @param config The configuration to sweep; its rate is overridden
+	 * @return The highest sustainable rate per executor type in messages per
+	 *         second, {@code 0} if not even the start rate is sustainable;
+	 *         skipped executor types are left out
+	 * @throws InterruptedException If a thread is interrupted during execution
+	 */
+	public Map<ExecutorType, Double> run(BenchmarkConfig config) throws InterruptedException {
+		Map<ExecutorType, Double> sustained = new LinkedHashMap<>();
+		Map<ExecutorType, Double> exceeded = new LinkedHashMap<>();
+		List<ExecutorType> active = new ArrayList<>(config.getExecutorTypes());
+		for (ExecutorType type : active) {
+			sustained.put(type, 0.0);
+		}
+
+		for (double rate = _startRate; !active.isEmpty() && rate <= _maxRate; rate *= 2) {
+			Map<ExecutorType, Long> p99 = this.probe(config, active, rate);
+			for (ExecutorType type : List.copyOf(active)) {
+				if (!p99.containsKey(type)) {
+					this.skip(type, sustained, exceeded);
+					active.remove(type);
+				} else if (p99.get(type) <= _p99BudgetNanos) {
+					sustained.put(type, rate);
+				} else {
+					exceeded.put(type, rate);
+					active.remove(type);
+				}
+			}
+		}
+
+		for (Map.Entry<ExecutorType, Double> entry : List.copyOf(exceeded.entrySet())) {
+			ExecutorType type = entry.getKey();
+			double low = sustained.get(type);
+			double high = entry.getValue();
+			for (int i = 0; i < _refinements && low > 0; i++) {
+				double rate = (low + high) / 2;
+				Long p99 = this.probe(config, List.of(type), rate).get(type);
+				if (p99 == null) {
+					this.skip(type, sustained, exceeded);
+					break;
+				}
+				if (p99 <= _p99BudgetNanos) {
+					low = rate;
+				} else {
+					high = rate;
+				}
+			}
+			if (!_skipped.contains(type)) {
+				sustained.put(type, low);
+			}
+		}
+		return sustained;
+	}
+
+	/**
+	 * Removes an executor type that the orchestrator skipped from the sweep.
+	 *
+	 * @param type      The skipped executor type
+	 * @param sustained The highest sustainable rate per executor type
+	 * @param exceeded  The first unsustainable rate per executor type
+	 */
+	private void skip(ExecutorType type, Map<ExecutorType, Double> sustained, Map<ExecutorType, Double> exceeded) {
+		_skipped.add(type);
+		sustained.remove(type);
+		exceeded.remove(type);
+		System.out.format("=== Rate sweep: %s skipped for this configuration ===%n", type.name());
+	}
+
+	/**
+	 * Runs the benchmark at one rate and reports the result of every executor
+	 * type.
+	 *
+	 * @param config The configuration to run
+	 * @param types  The executor types to run
+	 * @param rate   The target rate in messages per second
+	 * @return The 99th percentile of the end-to-end latency per executor type in
+	 *         nanoseconds
+	 * @throws InterruptedException If a thread is interrupted during execution
+	 */
+	private Map<ExecutorType, Long> probe(BenchmarkConfig config, List<ExecutorType> types, double rate)
+			throws InterruptedException {
+		List<String> executors = new ArrayList<>();
+		for (ExecutorType type : types) {
+			executors.add(type.name());
+		}
+		BenchmarkConfig probe = BenchmarkConfig.parseAll(new String[] { "--rate", String.valueOf(rate),
+				"--executors", String.join(",", executors) }, config).get(0);
+		if (probe.isForked()) {
+			_orchestrator.runForked(List.of(probe), new ForkRunner(1, 0));
+		} else {
+			_orchestrator.runBenchmarks(probe);
+		}
+
+		List<BenchmarkResult> results = _orchestrator.getResults();
+		Map<ExecutorType, Long> p99 = new LinkedHashMap<>();
+		for (Map.Entry<ExecutorType, BenchmarkStatistics> entry : results.get(results.size() - 1).statistics()
+				.entrySet()) {
+			long value = entry.getValue().getLatency().getCompletionLatency().valueAtPercentile(99.0);
+			p99.put(entry.getKey(), value);
+			System.out.format("=== Rate sweep: %s at %.0f msgs/sec: p99 %.1f us, %s ===%n", entry.getKey().name(),
+					rate, value / 1_000.0, value <= _p99BudgetNanos ? "within budget" : "over budget");
+		}
+		return p99;
+	}
+
+	/**
+	 * Returns the results of all probed rates.
+	 *
+	 * @return One benchmark result per probed rate, in the order of the probes
+	 */
+	public List<BenchmarkResult> getResults() {
+		return _orchestrator.getResults();
+	}
+
+	/**
+	 * Formats the outcome of a sweep.
+	 *
+	 * @param sustained The highest sustainable rate per executor type
+	 * @return One line per executor type, including the skipped ones
+	 */
+	public String format(Map<ExecutorType, Double> sustained) {
+		StringBuilder report = new StringBuilder("=== Highest sustainable rate with p99 <= %.1f us ===%n"
+				.formatted(_p99BudgetNanos / 1_000.0));
+		for (Map.Entry<ExecutorType, Double> entry : sustained.entrySet()) {
+			report.append("%-45s %s%n".formatted(entry.getKey(), entry.getValue() > 0
+					? "%.0f msgs/sec".formatted(entry.getValue())
+					: "below %.0f msgs/sec".formatted(_startRate)));
+		}
+		for (ExecutorType type : _skipped) {
+			report.append("%-45s %s%n".formatted(type, "skipped"));
+		}
+		return report.toString();
+	}
+}
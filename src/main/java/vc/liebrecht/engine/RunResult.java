@@ -0,0 +1,51 @@
+package vc.liebrecht.engine;
+
+import java.util.List;
+
+import vc.liebrecht.metrics.JfrSummary;
+import vc.liebrecht.metrics.LatencyRecorder;
+import vc.liebrecht.metrics.MemoryPeaks;
+import vc.liebrecht.metrics.StageMetrics;
+
+/**
+ * Represents the outcome of a single benchmark run.
+ * <p>
+ * Besides the wall-clock duration of the run, this record carries the merged
+ * per-message latencies of all consumers, the peak number of live platform
+ * threads and of concurrently running tasks, the number of tasks spawned to
+ * process messages, the peak memory footprint, the JFR events recorded during the run,
+ * the durations of its phases and, for a pipeline, the metrics of every stage.
+ *
+ * @param durationNanos The duration of the run in nanoseconds
+ * @param messages      The number of messages processed in the run
+ * @param latency       The merged latencies of all messages consumed in the run
+ * @param peakThreads   The peak number of live platform threads during the run,
+ *                      including carrier threads
+ * @param events        The summary of the JFR events recorded during the run
+ * @param phases        The durations of the phases of the run
+ * @param memory        The peak memory footprint during the run
+ * @param peakLiveTasks The peak number of producer, consumer and message tasks
+ *                      running at the same time; with one thread per task, this is the
+ *                      peak number of live task threads, including virtual
+ *                      threads
+ * @param spawnedTasks  The number of tasks spawned to process messages: one per
+ *                      message in thread-per-message mode, one per mailbox
+ *                      activation in an actor mode, otherwise {@code 0}
+ * @param stages        The metrics of every pipeline stage, empty without a
+ *                      pipeline
+ */
+public record RunResult(long durationNanos, long messages, LatencyRecorder latency, int peakThreads,
+		JfrSummary events, PhaseTimes phases, MemoryPeaks memory, int peakLiveTasks,
+		long spawnedTasks, List<StageMetrics> stages) {
+	/**
+	 * Returns a copy of this result with other phase durations.
+	 *
+	 * @param phases The phase durations
+	 * @return The result with the given phase durations
+	 */
+	public RunResult withPhases(PhaseTimes phases) {
+		return new RunResult(this.durationNanos(), this.messages(), this.latency(), this.peakThreads(),
+				this.events(), phases, this.memory(), this.peakLiveTasks(), this.spawnedTasks(),
+				this.stages());
+	}
+}
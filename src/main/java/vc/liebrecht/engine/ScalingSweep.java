@@ -0,0 +1,273 @@
+package vc.liebrecht.engine;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+import vc.liebrecht.config.BenchmarkConfig;
+import vc.liebrecht.executor.ExecutorType;
+
+/**
+ * Measures how the message throughput of every executor type scales with the
+ * number of producers, consumers and CPUs, and finds the knee of every scaling
+ * curve.
+ * <p>
+ * Producers, consumers and CPUs each follow a geometric grid from 1 up to their
+ * maximum, which is always included as the last point. Every combination of
+ * the three grids is a full benchmark of the {@code BenchmarkOrchestrator} in a
+ * child JVM that is pinned to the given number of CPUs and sizes its common
+ * pool and the scheduler of virtual threads accordingly.
+ * <p>
+ * A scaling curve varies one dimension while the other two are fixed. The
+ * efficiency of a step along a curve is the relative gain in throughput divided
+ * by the relative gain in resources, so that {@code 1.0} is linear scaling and
+ * {@code 0.0} no gain at all. The knee of a curve is the last point before the
+ * first step whose efficiency falls below the configured minimum; beyond it,
+ * adding producers, consumers or CPUs no longer pays off, for example because
+ * threads contend for the lock of an {@code ArrayBlockingQueue} or the carrier
+ * threads of virtual threads are saturated.
+ */
+public class ScalingSweep {
+	private static final List<Dimension> DIMENSIONS = List.of(
+			new Dimension("producers", Point::producers),
+			new Dimension("consumers", Point::consumers),
+			new Dimension("cpus", Point::cpus));
+
+	private final int _maxProducers;
+	private final int _maxConsumers;
+	private final int _maxCpus;
+	private final int _factor;
+	private final double _kneeEfficiency;
+	private final BenchmarkOrchestrator _orchestrator;
+	private final Map<Point, Map<ExecutorType, Double>> _throughput;
+
+	/**
+	 * A point of the grid.
+	 *
+	 * @param producers The number of producers
+	 * @param consumers The number of consumers
+	 * @param cpus      The number of CPUs
+	 */
+	private record Point(int producers, int consumers, int cpus) {
+	}
+
+	/**
+	 * A dimension of the grid along which a scaling curve runs.
+	 *
+	 * @param name  The name of the dimension
+	 * @param value Extracts the value of the dimension from a point
+	 */
+	private record Dimension(String name, ToIntFunction<Point> value) {
+	}
+
+	/**
+	 * Constructs a new scaling sweep.
+	 *
+	 * @param maxProducers   The highest number of producers
+	 * @param maxConsumers   The highest number of consumers
+	 * @param maxCpus        The highest number of CPUs
+	 * @param factor         The factor between two points of a grid
+	 * @param kneeEfficiency The lowest efficiency of a step that still counts as
+	 *                       scaling, e.g. {@code 0.5}
+	 * @throws IllegalArgumentException If a maximum is below 1, the factor below
+	 *                                  2, or more CPUs are requested than
+	 *                                  available
+	 */
+	public ScalingSweep(int maxProducers, int maxConsumers, int maxCpus, int factor, double kneeEfficiency) {
+		int available = Runtime.getRuntime().availableProcessors();
+		if (maxProducers < 1 || maxConsumers < 1 || maxCpus < 1) {
+			throw new IllegalArgumentException("Maximum producers, consumers and CPUs must be at least 1");
+		}
+		if (factor < 2) {
+			throw new IllegalArgumentException("Grid factor must be at least 2: " + factor);
+		}
+		if (maxCpus > available) {
+			throw new IllegalArgumentException(
+					"%d CPUs requested, but only %d available".formatted(maxCpus, available));
+		}
+		_maxProducers = maxProducers;
+		_maxConsumers = maxConsumers;
+		_maxCpus = maxCpus;
+		_factor = factor;
+		_kneeEfficiency = kneeEfficiency;
+		_orchestrator = new BenchmarkOrchestrator();
+		_throughput = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Runs the benchmark at every point of the grid, one child JVM after another.
+	 *
+	 * @param config The configuration to sweep; its producers, consumers and CPUs
+	 *               are overridden
+	 * @throws InterruptedException If a thread is interrupted during execution
+	 */
+	public void run(BenchmarkConfig config) throws InterruptedException {
+		List<BenchmarkConfig> configs = new ArrayList<>();
+		for (int cpus : this.grid(_maxCpus)) {
+			for (int consumers : this.grid(_maxConsumers)) {
+				for (int producers : this.grid(_maxProducers)) {
+					configs.add(BenchmarkConfig.parseAll(new String[] {
+							"--numProducers", String.valueOf(producers),
+							"--numConsumers", String.valueOf(consumers),
+							"--cpus", String.valueOf(cpus) }, config).get(0));
+				}
+			}
+		}
+
+		ForkRunner runner = new ForkRunner(1, 0);
+		for (BenchmarkConfig point : configs) {
+			_orchestrator.runForked(List.of(point), runner);
+			BenchmarkResult result = _orchestrator.getResults().get(_orchestrator.getResults().size() - 1);
+			Map<ExecutorType, Double> throughput = new LinkedHashMap<>();
+			for (Map.Entry<ExecutorType, BenchmarkStatistics> entry : result.statistics().entrySet()) {
+				throughput.put(entry.getKey(), entry.getValue().messageThroughput());
+			}
+			_throughput.put(new Point(point.getProducers(), point.getConsumers(), point.getCpus()), throughput);
+			System.out.format("=== Scaling sweep: %d producers, %d consumers, %d CPUs done (%d of %d) ===%n",
+					point.getProducers(), point.getConsumers(), point.getCpus(), _throughput.size(),
+					configs.size());
+		}
+	}
+
+	/**
+	 * Builds a geometric grid from 1 up to and including the maximum.
+	 *
+	 * @param max The last point of the grid
+	 * @return The points of the grid in ascending order
+	 */
+	private List<Integer> grid(int max) {
+		Set<Integer> grid = new LinkedHashSet<>();
+		for (long value = 1; value < max; value *= _factor) {
+			grid.add((int) value);
+		}
+		grid.add(max);
+		return List.copyOf(grid);
+	}
+
+	/**
+	 * Returns the results of all points of the grid.
+	 *
+	 * @return One benchmark result per point, in the order they were run
+	 */
+	public List<BenchmarkResult> getResults() {
+		return _orchestrator.getResults();
+	}
+
+	/**
+	 * Formats every scaling curve with its knee.
+	 * <p>
+	 * For every executor type and every dimension with more than one point, one
+	 * line is printed per combination of the other two dimensions, followed by
+	 * the point with the highest throughput.
+	 *
+	 * @return The report
+	 */
+	public String format() {
+		StringBuilder report = new StringBuilder("=== Scaling curves (knee: efficiency below %.2f) ===%n"
+				.formatted(_kneeEfficiency));
+		Set<ExecutorType> types = new LinkedHashSet<>();
+		_throughput.values().forEach(throughput -> types.addAll(throughput.keySet()));
+
+		for (ExecutorType type : types) {
+			report.append("%n%s:%n".formatted(type));
+			for (Dimension dimension : DIMENSIONS) {
+				for (Map.Entry<String, List<Point>> curve : this.curves(dimension, type).entrySet()) {
+					report.append("\t%s (%s):%n\t\t%s%n".formatted(dimension.name(), curve.getKey(),
+							this.formatCurve(dimension, type, curve.getValue())));
+				}
+			}
+
+			Point best = null;
+			for (Map.Entry<Point, Map<ExecutorType, Double>> entry : _throughput.entrySet()) {
+				if (entry.getValue().containsKey(type) && (best == null
+						|| entry.getValue().get(type) > _throughput.get(best).get(type))) {
+					best = entry.getKey();
+				}
+			}
+			if (best != null) {
+				report.append("\tPeak: %.0f msgs/sec at %d producers, %d consumers, %d CPUs%n".formatted(
+						_throughput.get(best).get(type), best.producers(), best.consumers(), best.cpus()));
+			}
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Groups the measured points of an executor type into curves along a
+	 * dimension.
+	 *
+	 * @param dimension The dimension the curves vary
+	 * @param type      The executor type
+	 * @return The points of every curve with at least two points, keyed by the
+	 *         values of the other dimensions
+	 */
+	private Map<String, List<Point>> curves(Dimension dimension, ExecutorType type) {
+		Map<String, List<Point>> curves = new LinkedHashMap<>();
+		for (Map.Entry<Point, Map<ExecutorType, Double>> entry : _throughput.entrySet()) {
+			if (!entry.getValue().containsKey(type)) {
+				continue;
+			}
+			List<String> fixed = new ArrayList<>();
+			for (Dimension other : DIMENSIONS) {
+				if (other != dimension) {
+					fixed.add(other.name() + " " + other.value().applyAsInt(entry.getKey()));
+				}
+			}
+			curves.computeIfAbsent(String.join(", ", fixed), key -> new ArrayList<>()).add(entry.getKey());
+		}
+		curves.values().removeIf(points -> points.size() < 2);
+		for (List<Point> points : curves.values()) {
+			points.sort((a, b) -> Integer.compare(dimension.value().applyAsInt(a), dimension.value().applyAsInt(b)));
+		}
+		return curves;
+	}
+
+	/**
+	 * Formats a scaling curve and its knee.
+	 *
+	 * @param dimension The dimension the curve varies
+	 * @param type      The executor type
+	 * @param points    The points of the curve in ascending order
+	 * @return The throughput at every point, followed by the knee
+	 */
+	private String formatCurve(Dimension dimension, ExecutorType type, List<Point> points) {
+		List<String> values = new ArrayList<>();
+		String knee = null;
+		for (int i = 0; i < points.size(); i++) {
+			int x = dimension.value().applyAsInt(points.get(i));
+			double throughput = _throughput.get(points.get(i)).get(type);
+			values.add("%d: %.0f".formatted(x, throughput));
+			if (i > 0 && knee == null) {
+				int previousX = dimension.value().applyAsInt(points.get(i - 1));
+				double previous = _throughput.get(points.get(i - 1)).get(type);
+				double efficiency = efficiency(previousX, previous, x, throughput);
+				if (efficiency < _kneeEfficiency) {
+					knee = "knee at %d (efficiency %.2f up to %d)".formatted(previousX, efficiency, x);
+				}
+			}
+		}
+		return String.join(" | ", values) + " msgs/sec; "
+				+ (knee != null ? knee : "no knee up to %d".formatted(
+						dimension.value().applyAsInt(points.get(points.size() - 1))));
+	}
+
+	/**
+	 * Calculates the scaling efficiency of a step along a curve.
+	 *
+	 * @param fromX          The resources before the step
+	 * @param fromThroughput The throughput before the step
+	 * @param toX            The resources after the step
+	 * @param toThroughput   The throughput after the step
+	 * @return The relative throughput gain divided by the relative resource gain
+	 */
+	private static double efficiency(int fromX, double fromThroughput, int toX, double toThroughput) {
+		if (fromThroughput <= 0 || toX <= fromX) {
+			return 0.0;
+		}
+		return (toThroughput / fromThroughput - 1) / ((double) toX / fromX - 1);
+	}
+}
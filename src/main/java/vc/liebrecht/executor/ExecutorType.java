@@ -0,0 +1,139 @@
+package vc.liebrecht.executor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Enumeration for the executor strategies a benchmark can be run with.
+ * <p>
+ * Bounded strategies run fewer threads than there are producer and consumer
+ * tasks. Since consumers block until the poison pill arrives, producers must be
+ * submitted first on these executors, otherwise waiting consumers could occupy
+ * every thread.
+ */
+public enum ExecutorType {
+	/**
+	 * Fixed thread pool with one platform thread per producer and consumer.
+	 */
+	PLATFORM_POOL("Thread pool (one thread per task)", false),
+
+	/**
+	 * Fixed thread pool with one platform thread per available processor.
+	 */
+	PLATFORM_CORES("Thread pool (one thread per core)", true),
+
+	/**
+	 * Cached thread pool that creates platform threads on demand.
+	 */
+	CACHED("Cached thread pool", false),
+
+	/**
+	 * Work-stealing {@code ForkJoinPool} with one worker per available processor.
+	 */
+	FORK_JOIN("ForkJoinPool", true),
+
+	/**
+	 * One new virtual thread per task.
+	 */
+	VIRTUAL("Virtual threads", false),
+
+	/**
+	 * One new virtual thread per task, with the number of concurrently running
+	 * tasks limited by a semaphore.
+	 */
+	VIRTUAL_THROTTLED("Virtual threads (semaphore-throttled)", true),
+
+	/**
+	 * One new virtual thread per task, forked in a structured scope that cancels
+	 * all tasks as soon as one of them fails.
+	 */
+	STRUCTURED("Virtual threads (structured scope)", false),
+
+	/**
+	 * One new virtual thread per task, with consumers that dispatch every message
+	 * to a new virtual thread of its own instead of processing it themselves.
+	 */
+	VIRTUAL_PER_MESSAGE("Virtual thread per message", false);
+
+	private final String _displayName;
+	private final boolean _bounded;
+
+	/**
+	 * Constructs an executor type.
+	 *
+	 * @param displayName The display name for this executor type
+	 * @param bounded     Whether the executor runs fewer threads than tasks
+	 */
+	ExecutorType(String displayName, boolean bounded) {
+		_displayName = displayName;
+		_bounded = bounded;
+	}
+
+	/**
+	 * Creates a new executor of this type.
+	 *
+	 * @param tasks   The number of tasks the executor will run concurrently
+	 * @param permits The number of tasks a semaphore-throttled executor runs at
+	 *                once
+	 * @return A new {@code ExecutorService}
+	 */
+	public ExecutorService create(int tasks, int permits) {
+		int cores = Runtime.getRuntime().availableProcessors();
+		return switch (this) {
+			case PLATFORM_POOL -> Executors.newFixedThreadPool(tasks);
+			case PLATFORM_CORES -> Executors.newFixedThreadPool(cores);
+			case CACHED -> Executors.newCachedThreadPool();
+			case FORK_JOIN -> new ForkJoinPool(cores);
+			case VIRTUAL, VIRTUAL_PER_MESSAGE -> Executors.newVirtualThreadPerTaskExecutor();
+			case VIRTUAL_THROTTLED -> new ThrottledExecutor(Executors.newVirtualThreadPerTaskExecutor(), permits);
+			case STRUCTURED -> new StructuredExecutor();
+		};
+	}
+
+	/**
+	 * Returns how many tasks an executor of this type runs at the same time.
+	 *
+	 * @param tasks   The number of tasks the executor will run concurrently
+	 * @param permits The number of tasks a semaphore-throttled executor runs at
+	 *                once
+	 * @return The number of tasks that can run at the same time; for unbounded
+	 *         types, {@code tasks}
+	 */
+	public int concurrency(int tasks, int permits) {
+		return switch (this) {
+			case PLATFORM_CORES, FORK_JOIN -> Runtime.getRuntime().availableProcessors();
+			case VIRTUAL_THROTTLED -> permits;
+			default -> tasks;
+		};
+	}
+
+	/**
+	 * Returns whether executors of this type may run fewer threads than tasks.
+	 *
+	 * @return {@code true} if producers must be submitted before consumers
+	 */
+	public boolean isBounded() {
+		return _bounded;
+	}
+
+	/**
+	 * Returns whether consumers spawn one task per message on executors of this
+	 * type.
+	 *
+	 * @return {@code true} if every message is processed on a task of its own
+	 */
+	public boolean isPerMessage() {
+		return this == VIRTUAL_PER_MESSAGE;
+	}
+
+	/**
+	 * Returns the display name of this executor type.
+	 *
+	 * @return The display name of the executor type
+	 */
+	@Override
+	public String toString() {
+		return _displayName;
+	}
+}
@@ -0,0 +1,176 @@
+package vc.liebrecht.executor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An {@code ExecutorService} that forks every task as a virtual thread into a
+ * structured scope with shutdown-on-failure semantics.
+ * <p>
+ * This mirrors {@code StructuredTaskScope.ShutdownOnFailure}, which is still a
+ * preview API in Java 21: all forked threads are owned by the scope, waiting
+ * for termination joins them, and the first task that fails interrupts all of
+ * its siblings instead of leaving them blocked until a timeout. Since the
+ * scope is exposed as an {@code ExecutorService}, the benchmark runs it like
+ * every other executor.
+ */
+public class StructuredExecutor extends AbstractExecutorService {
+	private final ThreadFactory _factory;
+	private final Set<Thread> _threads;
+	private final ReentrantLock _lock;
+	private final AtomicReference<Throwable> _failure;
+	private volatile boolean _shutdown;
+
+	/**
+	 * Constructs a new, open scope.
+	 */
+	public StructuredExecutor() {
+		_factory = Thread.ofVirtual().name("structured-", 0).factory();
+		_threads = ConcurrentHashMap.newKeySet();
+		_lock = new ReentrantLock();
+		_failure = new AtomicReference<>();
+	}
+
+	/**
+	 * Forks the task in a new virtual thread owned by this scope.
+	 *
+	 * @param command The task to execute
+	 * @throws RejectedExecutionException If the scope has been shut down
+	 */
+	@Override
+	public void execute(Runnable command) {
+		_lock.lock();
+		try {
+			if (_shutdown) {
+				throw new RejectedExecutionException("Scope has been shut down");
+			}
+			Thread thread = _factory.newThread(() -> this.runTask(command));
+			_threads.add(thread);
+			thread.start();
+		} finally {
+			_lock.unlock();
+		}
+	}
+
+	/**
+	 * Runs a forked task and shuts down the scope if it fails. A task submitted
+	 * via {@code submit} does not throw but completes its future exceptionally,
+	 * so the state of the future is checked as well.
+	 *
+	 * @param command The task to run
+	 */
+	private void runTask(Runnable command) {
+		try {
+			command.run();
+			if (command instanceof Future<?> future && future.state() == Future.State.FAILED) {
+				this.fail(future.exceptionNow());
+			}
+		} catch (Throwable e) {
+			this.fail(e);
+		} finally {
+			_threads.remove(Thread.currentThread());
+		}
+	}
+
+	/**
+	 * Records the first failure and interrupts all other threads of the scope.
+	 *
+	 * @param e The cause of the failure
+	 */
+	private void fail(Throwable e) {
+		if (_failure.compareAndSet(null, e)) {
+			System.err.println("WARNING: Task failed, cancelling the structured scope: " + e);
+			Thread current = Thread.currentThread();
+			for (Thread thread : _threads) {
+				if (thread != current) {
+					thread.interrupt();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the first failure of a task in this scope.
+	 *
+	 * @return The failure, or {@code null} if no task has failed
+	 */
+	public Throwable getFailure() {
+		return _failure.get();
+	}
+
+	/**
+	 * Closes the scope for new tasks; forked threads keep running.
+	 */
+	@Override
+	public void shutdown() {
+		_lock.lock();
+		try {
+			_shutdown = true;
+		} finally {
+			_lock.unlock();
+		}
+	}
+
+	/**
+	 * Closes the scope for new tasks and interrupts all forked threads.
+	 *
+	 * @return An empty list, since tasks are forked immediately
+	 */
+	@Override
+	public List<Runnable> shutdownNow() {
+		this.shutdown();
+		for (Thread thread : _threads) {
+			thread.interrupt();
+		}
+		return List.of();
+	}
+
+	/**
+	 * Returns whether the scope has been closed for new tasks.
+	 *
+	 * @return {@code true} if the scope has been shut down
+	 */
+	@Override
+	public boolean isShutdown() {
+		return _shutdown;
+	}
+
+	/**
+	 * Returns whether all forked threads have terminated after shutdown.
+	 *
+	 * @return {@code true} if the scope is shut down and no thread is alive
+	 */
+	@Override
+	public boolean isTerminated() {
+		return _shutdown && _threads.isEmpty();
+	}
+
+	/**
+	 * Joins all forked threads after shutdown.
+	 *
+	 * @param timeout The maximum time to wait
+	 * @param unit    The unit of the timeout
+	 * @return {@code true} if all threads terminated before the timeout
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (Thread thread : _threads) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0 || !thread.join(Duration.ofNanos(remaining))) {
+				return false;
+			}
+		}
+		return this.isTerminated();
+	}
+}
@@ -0,0 +1,107 @@
+package vc.liebrecht.executor;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@code ExecutorService} that limits the number of concurrently running
+ * tasks of a delegate executor with a semaphore.
+ * <p>
+ * Every task is handed to the delegate immediately, but acquires a permit
+ * before it runs. With a virtual-thread-per-task delegate, waiting tasks are
+ * cheap parked virtual threads; this is the recommended way to bound
+ * concurrency with virtual threads instead of pooling them. The semaphore is
+ * fair, so tasks start in submission order.
+ */
+public class ThrottledExecutor extends AbstractExecutorService {
+	private final ExecutorService _delegate;
+	private final Semaphore _permits;
+
+	/**
+	 * Constructs a new throttled executor.
+	 *
+	 * @param delegate The executor that runs the tasks
+	 * @param permits  The maximum number of concurrently running tasks
+	 */
+	public ThrottledExecutor(ExecutorService delegate, int permits) {
+		_delegate = delegate;
+		_permits = new Semaphore(permits, true);
+	}
+
+	/**
+	 * Submits the task to the delegate, where it waits for a permit before it
+	 * runs. A task interrupted while waiting for a permit is skipped.
+	 *
+	 * @param command The task to execute
+	 */
+	@Override
+	public void execute(Runnable command) {
+		_delegate.execute(() -> {
+			try {
+				_permits.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			try {
+				command.run();
+			} finally {
+				_permits.release();
+			}
+		});
+	}
+
+	/**
+	 * Shuts down the delegate; previously submitted tasks still run.
+	 */
+	@Override
+	public void shutdown() {
+		_delegate.shutdown();
+	}
+
+	/**
+	 * Shuts down the delegate and interrupts its running tasks.
+	 *
+	 * @return The tasks that never started, as reported by the delegate
+	 */
+	@Override
+	public List<Runnable> shutdownNow() {
+		return _delegate.shutdownNow();
+	}
+
+	/**
+	 * Returns whether the delegate has been shut down.
+	 *
+	 * @return {@code true} if the executor has been shut down
+	 */
+	@Override
+	public boolean isShutdown() {
+		return _delegate.isShutdown();
+	}
+
+	/**
+	 * Returns whether all tasks have completed after shutdown.
+	 *
+	 * @return {@code true} if the delegate has terminated
+	 */
+	@Override
+	public boolean isTerminated() {
+		return _delegate.isTerminated();
+	}
+
+	/**
+	 * Waits until all tasks have completed after shutdown.
+	 *
+	 * @param timeout The maximum time to wait
+	 * @param unit    The unit of the timeout
+	 * @return {@code true} if the delegate terminated before the timeout
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return _delegate.awaitTermination(timeout, unit);
+	}
+}
@@ -0,0 +1,23 @@
+package vc.liebrecht.metrics;
+
+/**
+ * A 95% confidence interval around a location estimate.
+ *
+ * @param estimate The estimated mean or median
+ * @param lower    The lower bound of the interval
+ * @param upper    The upper bound of the interval
+ */
+public record ConfidenceInterval(double estimate, double lower, double upper) {
+	/**
+	 * Returns the width of the interval relative to the estimate.
+	 *
+	 * @return The width divided by the estimate, or positive infinity if the
+	 *         interval is unbounded or the estimate is not positive
+	 */
+	public double relativeWidth() {
+		if (!(this.estimate() > 0) || Double.isNaN(this.upper() - this.lower())) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return (this.upper() - this.lower()) / this.estimate();
+	}
+}
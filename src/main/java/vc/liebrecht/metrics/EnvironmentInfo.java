@@ -0,0 +1,53 @@
+package vc.liebrecht.metrics;
+
+import java.io.Serializable;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Describes the JVM and machine a benchmark was measured on.
+ * <p>
+ * Results are only comparable if they were measured in the same environment,
+ * so this information is exported together with every result. Forked
+ * benchmarks capture it in the child JVM, which may use a different collector
+ * and different flags than the parent.
+ *
+ * @param jdkVersion        The full version of the running JDK
+ * @param jdkVendor         The vendor of the running JDK
+ * @param vmName            The name of the virtual machine
+ * @param osName            The name of the operating system
+ * @param osVersion         The version of the operating system
+ * @param osArch            The architecture of the operating system
+ * @param cores             The number of processors available to the JVM
+ * @param maxHeapBytes      The maximum heap size in bytes
+ * @param garbageCollectors The names of the active garbage collectors
+ * @param jvmFlags          The flags the JVM was started with
+ */
+public record EnvironmentInfo(String jdkVersion, String jdkVendor, String vmName, String osName, String osVersion,
+		String osArch, int cores, long maxHeapBytes, List<String> garbageCollectors, List<String> jvmFlags)
+		implements Serializable {
+	/**
+	 * Captures the environment of the running JVM.
+	 *
+	 * @return The current environment
+	 */
+	public static EnvironmentInfo current() {
+		List<String> collectors = new ArrayList<>();
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			collectors.add(bean.getName());
+		}
+		return new EnvironmentInfo(
+				Runtime.version().toString(),
+				System.getProperty("java.vendor"),
+				System.getProperty("java.vm.name"),
+				System.getProperty("os.name"),
+				System.getProperty("os.version"),
+				System.getProperty("os.arch"),
+				Runtime.getRuntime().availableProcessors(),
+				Runtime.getRuntime().maxMemory(),
+				List.copyOf(collectors),
+				List.copyOf(ManagementFactory.getRuntimeMXBean().getInputArguments()));
+	}
+}
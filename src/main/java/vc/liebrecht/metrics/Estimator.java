@@ -0,0 +1,40 @@
+package vc.liebrecht.metrics;
+
+/**
+ * Enumeration for the location estimators a confidence interval can be computed
+ * for.
+ */
+public enum Estimator {
+	/**
+	 * The arithmetic mean, with a Student-t confidence interval.
+	 */
+	MEAN("mean"),
+
+	/**
+	 * The median, with a distribution-free confidence interval from order
+	 * statistics. More robust against outliers caused by GC pauses or scheduling
+	 * noise, but needs more runs for the same width.
+	 */
+	MEDIAN("median");
+
+	private final String _displayName;
+
+	/**
+	 * Constructs an estimator.
+	 *
+	 * @param displayName The display name for this estimator
+	 */
+	Estimator(String displayName) {
+		_displayName = displayName;
+	}
+
+	/**
+	 * Returns the display name of this estimator.
+	 *
+	 * @return The display name of the estimator
+	 */
+	@Override
+	public String toString() {
+		return _displayName;
+	}
+}
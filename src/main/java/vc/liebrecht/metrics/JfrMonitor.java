@@ -0,0 +1,137 @@
+package vc.liebrecht.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+import com.sun.management.OperatingSystemMXBean;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Streams JFR events of the running JVM for the duration of a single benchmark
+ * run.
+ * <p>
+ * Records virtual thread pinning, garbage collections with the duration of
+ * each of their pauses, heap allocation, thread parking and failed virtual
+ * thread submissions. The thresholds of
+ * {@code jdk.VirtualThreadPinned} and {@code jdk.ThreadPark}, 20 ms by default,
+ * are lowered to zero so that every event is counted, and stack traces are
+ * disabled to keep the overhead low. Since every park and allocation sample is
+ * still written and consumed while the run is measured, monitoring is opt-in
+ * and its durations should not be compared with unmonitored runs.
+ * <p>
+ * The periodic {@code jdk.CPULoad} event is only emitted reliably in the first
+ * recording of a JVM and would miss runs shorter than its period, so the
+ * average CPU load of the run is taken from the
+ * {@code OperatingSystemMXBean} instead, which reports the load since its
+ * previous query.
+ * <p>
+ * Events are consumed on the stream's own thread; a monitor can only be
+ * started and stopped once.
+ */
+public class JfrMonitor {
+	private static final String VIRTUAL_THREAD_PINNED = "jdk.VirtualThreadPinned";
+	private static final String VIRTUAL_THREAD_SUBMIT_FAILED = "jdk.VirtualThreadSubmitFailed";
+	private static final String GARBAGE_COLLECTION = "jdk.GarbageCollection";
+	private static final String GC_PHASE_PAUSE = "jdk.GCPhasePause";
+	private static final String ALLOCATION_IN_NEW_TLAB = "jdk.ObjectAllocationInNewTLAB";
+	private static final String ALLOCATION_OUTSIDE_TLAB = "jdk.ObjectAllocationOutsideTLAB";
+	private static final String THREAD_PARK = "jdk.ThreadPark";
+
+	private final RecordingStream _stream;
+	private final OperatingSystemMXBean _os;
+	private final LatencyHistogram _gcPauses;
+	private long _pinnedCount;
+	private long _pinnedNanos;
+	private long _gcCount;
+	private long _gcPauseNanos;
+	private long _gcMaxPauseNanos;
+	private long _allocatedBytes;
+	private long _parkCount;
+	private long _submitFailedCount;
+
+	/**
+	 * Constructs a new monitor.
+	 *
+	 * @param enabled Whether events are recorded; a disabled monitor reports
+	 *                {@link JfrSummary#NONE}
+	 */
+	public JfrMonitor(boolean enabled) {
+		_os = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+		_gcPauses = new LatencyHistogram();
+		if (!enabled) {
+			_stream = null;
+			return;
+		}
+		_stream = new RecordingStream();
+		_stream.enable(VIRTUAL_THREAD_PINNED).withThreshold(Duration.ZERO).withoutStackTrace();
+		_stream.enable(VIRTUAL_THREAD_SUBMIT_FAILED).withoutStackTrace();
+		_stream.enable(GARBAGE_COLLECTION);
+		_stream.enable(GC_PHASE_PAUSE);
+		_stream.enable(ALLOCATION_IN_NEW_TLAB).withoutStackTrace();
+		_stream.enable(ALLOCATION_OUTSIDE_TLAB).withoutStackTrace();
+		_stream.enable(THREAD_PARK).withThreshold(Duration.ZERO).withoutStackTrace();
+
+		_stream.onEvent(VIRTUAL_THREAD_PINNED, this::onPinned);
+		_stream.onEvent(VIRTUAL_THREAD_SUBMIT_FAILED, e -> _submitFailedCount++);
+		_stream.onEvent(GARBAGE_COLLECTION, this::onGarbageCollection);
+		_stream.onEvent(GC_PHASE_PAUSE, e -> _gcPauses.record(e.getDuration().toNanos()));
+		_stream.onEvent(ALLOCATION_IN_NEW_TLAB, e -> _allocatedBytes += e.getLong("tlabSize"));
+		_stream.onEvent(ALLOCATION_OUTSIDE_TLAB, e -> _allocatedBytes += e.getLong("allocationSize"));
+		_stream.onEvent(THREAD_PARK, e -> _parkCount++);
+	}
+
+	/**
+	 * Counts a pinning event.
+	 *
+	 * @param event The {@code jdk.VirtualThreadPinned} event
+	 */
+	private void onPinned(RecordedEvent event) {
+		_pinnedCount++;
+		_pinnedNanos += event.getDuration().toNanos();
+	}
+
+	/**
+	 * Accumulates the pause times of a garbage collection.
+	 *
+	 * @param event The {@code jdk.GarbageCollection} event
+	 */
+	private void onGarbageCollection(RecordedEvent event) {
+		_gcCount++;
+		_gcPauseNanos += event.getDuration("sumOfPauses").toNanos();
+		_gcMaxPauseNanos = Math.max(_gcMaxPauseNanos, event.getDuration("longestPause").toNanos());
+	}
+
+	/**
+	 * Starts recording events in the background and resets the CPU load
+	 * measurement.
+	 */
+	public void start() {
+		if (_stream != null) {
+			_stream.startAsync();
+			_os.getProcessCpuLoad();
+			_os.getCpuLoad();
+		}
+	}
+
+	/**
+	 * Stops recording, waits until all recorded events have been consumed and
+	 * closes the stream.
+	 *
+	 * @return The summary of the events recorded since {@link #start()}
+	 */
+	public JfrSummary stop() {
+		if (_stream == null) {
+			return JfrSummary.NONE;
+		}
+		double jvmCpu = _os.getProcessCpuLoad();
+		double machineCpu = _os.getCpuLoad();
+		// stop() returns once all events have been processed, which also makes the
+		// counters written by the stream thread visible here.
+		_stream.stop();
+		_stream.close();
+		return new JfrSummary(_pinnedCount, _pinnedNanos, _gcCount, _gcPauseNanos, _gcMaxPauseNanos,
+				_allocatedBytes, _parkCount, _submitFailedCount, 1L, jvmCpu, machineCpu, _gcPauses);
+	}
+}
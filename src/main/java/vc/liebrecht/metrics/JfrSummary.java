@@ -0,0 +1,103 @@
+package vc.liebrecht.metrics;
+
+import java.io.Serializable;
+
+/**
+ * Summarizes the JFR events recorded during one or more benchmark runs.
+ *
+ * @param pinnedCount       The number of {@code jdk.VirtualThreadPinned} events,
+ *                          i.e. how often a virtual thread blocked while pinned
+ *                          to its carrier thread
+ * @param pinnedNanos       The total duration of all pinned blocking operations
+ *                          in nanoseconds
+ * @param gcCount           The number of garbage collections
+ * @param gcPauseNanos      The total stop-the-world pause time of all garbage
+ *                          collections in nanoseconds
+ * @param gcMaxPauseNanos   The longest single stop-the-world pause in
+ *                          nanoseconds
+ * @param allocatedBytes    The number of bytes allocated on the heap, as the sum
+ *                          of all new TLABs and all allocations outside a TLAB
+ * @param parkCount         The number of {@code jdk.ThreadPark} events; only
+ *                          platform threads, including idle carrier threads,
+ *                          emit this event
+ * @param submitFailedCount The number of {@code jdk.VirtualThreadSubmitFailed}
+ *                          events, i.e. failed attempts to schedule a virtual
+ *                          thread
+ * @param cpuSamples        The number of CPU load samples, one per run
+ * @param jvmCpuSum         The sum of the sampled CPU load of the JVM, between 0
+ *                          and 1 per sample
+ * @param machineCpuSum     The sum of the sampled CPU load of the whole machine,
+ *                          between 0 and 1 per sample
+ * @param gcPauses          The distribution of the individual stop-the-world
+ *                          pauses of all garbage collections; must not be
+ *                          modified once the summary has been created
+ */
+public record JfrSummary(long pinnedCount, long pinnedNanos, long gcCount, long gcPauseNanos, long gcMaxPauseNanos,
+		long allocatedBytes, long parkCount, long submitFailedCount, long cpuSamples, double jvmCpuSum,
+		double machineCpuSum, LatencyHistogram gcPauses) implements Serializable {
+	/**
+	 * The summary of a run without recorded events.
+	 */
+	public static final JfrSummary NONE = new JfrSummary(0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0.0, 0.0,
+			new LatencyHistogram());
+
+	/**
+	 * Adds the events of another summary to the events of this one. Counts,
+	 * durations and CPU samples are summed, the longest pause is the maximum of
+	 * both, and the pause distributions are merged into a new histogram.
+	 *
+	 * @param other The summary to add
+	 * @return A new summary containing the events of both summaries
+	 */
+	public JfrSummary plus(JfrSummary other) {
+		LatencyHistogram gcPauses = new LatencyHistogram();
+		gcPauses.add(this.gcPauses());
+		gcPauses.add(other.gcPauses());
+		return new JfrSummary(
+				this.pinnedCount() + other.pinnedCount(),
+				this.pinnedNanos() + other.pinnedNanos(),
+				this.gcCount() + other.gcCount(),
+				this.gcPauseNanos() + other.gcPauseNanos(),
+				Math.max(this.gcMaxPauseNanos(), other.gcMaxPauseNanos()),
+				this.allocatedBytes() + other.allocatedBytes(),
+				this.parkCount() + other.parkCount(),
+				this.submitFailedCount() + other.submitFailedCount(),
+				this.cpuSamples() + other.cpuSamples(),
+				this.jvmCpuSum() + other.jvmCpuSum(),
+				this.machineCpuSum() + other.machineCpuSum(),
+				gcPauses);
+	}
+
+	/**
+	 * Returns the average CPU load of the JVM over all samples.
+	 *
+	 * @return The average JVM CPU load between 0 and 1, or {@code NaN} if no sample
+	 *         was taken
+	 */
+	public double averageJvmCpu() {
+		return this.cpuSamples() == 0 ? Double.NaN : this.jvmCpuSum() / this.cpuSamples();
+	}
+
+	/**
+	 * Returns the average CPU load of the whole machine over all samples.
+	 *
+	 * @return The average machine CPU load between 0 and 1, or {@code NaN} if no
+	 *         sample was taken
+	 */
+	public double averageMachineCpu() {
+		return this.cpuSamples() == 0 ? Double.NaN : this.machineCpuSum() / this.cpuSamples();
+	}
+
+	/**
+	 * Returns a compact, single-line representation of the summary.
+	 *
+	 * @return The most important event counts and durations
+	 */
+	@Override
+	public String toString() {
+		return "gc %d (%.3f ms, max %.3f ms) | alloc %d B | parks %d | pinned %d (%.3f ms) | submit failed %d"
+				.formatted(this.gcCount(), this.gcPauseNanos() / 1_000_000.0, this.gcMaxPauseNanos() / 1_000_000.0,
+						this.allocatedBytes(), this.parkCount(), this.pinnedCount(), this.pinnedNanos() / 1_000_000.0,
+						this.submitFailedCount());
+	}
+}
@@ -0,0 +1,188 @@
+package vc.liebrecht.metrics;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * A log-bucketed histogram of latency values in nanoseconds.
+ * <p>
+ * Similar to HdrHistogram, every power-of-two range is split into a fixed number
+ * of linear sub-buckets, which bounds the relative error of every recorded value
+ * to about 1.6% while keeping the bucket array small. Values below 128 ns are
+ * recorded exactly; values above roughly 36 minutes (2^41 ns) are clamped to the
+ * highest bucket. The exact minimum and maximum are tracked separately.
+ * <p>
+ * Recording only increments a preallocated counter and never allocates. The
+ * histogram is not thread-safe: each consumer records into its own instance and
+ * the instances are merged with {@link #add(LatencyHistogram)} after the run.
+ */
+public class LatencyHistogram implements Serializable {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private static final int SUB_BUCKET_BITS = 7;
+	private static final int SUB_BUCKET_HALF_COUNT = 1 << (SUB_BUCKET_BITS - 1);
+	private static final int MAX_EXPONENT = 40;
+	private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+	private static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+
+	private final long[] _counts;
+	private long _totalCount;
+	private long _sum;
+	private long _min;
+	private long _max;
+
+	/**
+	 * Constructs a new, empty histogram.
+	 */
+	public LatencyHistogram() {
+		_counts = new long[BUCKET_COUNT];
+		_min = Long.MAX_VALUE;
+		_max = 0L;
+	}
+
+	/**
+	 * Computes the bucket index of a value.
+	 * <p>
+	 * Values below {@code 2^SUB_BUCKET_BITS} map to their own bucket. Larger
+	 * values are shifted right until they fit into the upper half of the
+	 * sub-bucket range, and the shift selects the power-of-two range.
+	 *
+	 * @param value The value, between 0 and {@code MAX_VALUE}
+	 * @return The bucket index
+	 */
+	private static int indexOf(long value) {
+		int exponent = 63 - Long.numberOfLeadingZeros(value | 1);
+		if (exponent < SUB_BUCKET_BITS) {
+			return (int) value;
+		}
+		int shift = exponent - SUB_BUCKET_BITS + 1;
+		return shift * SUB_BUCKET_HALF_COUNT + (int) (value >>> shift);
+	}
+
+	/**
+	 * Returns the highest value that maps to the given bucket.
+	 *
+	 * @param index The bucket index
+	 * @return The upper bound of the bucket, inclusive
+	 */
+	private static long highestValueOf(int index) {
+		if (index < 2 * SUB_BUCKET_HALF_COUNT) {
+			return index;
+		}
+		int shift = index / SUB_BUCKET_HALF_COUNT - 1;
+		long subBucket = index - (long) shift * SUB_BUCKET_HALF_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	/**
+	 * Records a single latency value.
+	 *
+	 * @param nanos The latency in nanoseconds; negative values are recorded as 0
+	 */
+	public void record(long nanos) {
+		long value = Math.max(0L, Math.min(nanos, MAX_VALUE));
+		_counts[indexOf(value)]++;
+		_totalCount++;
+		_sum += value;
+		if (value < _min) {
+			_min = value;
+		}
+		if (value > _max) {
+			_max = value;
+		}
+	}
+
+	/**
+	 * Adds all values recorded in another histogram to this histogram.
+	 *
+	 * @param other The histogram to merge into this one
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			_counts[i] += other._counts[i];
+		}
+		_totalCount += other._totalCount;
+		_sum += other._sum;
+		_min = Math.min(_min, other._min);
+		_max = Math.max(_max, other._max);
+	}
+
+	/**
+	 * Returns the value at the given percentile.
+	 * <p>
+	 * The result is the upper bound of the bucket that contains the requested
+	 * rank, capped at the exact maximum.
+	 *
+	 * @param percentile The percentile between 0 and 100
+	 * @return The value at the percentile in nanoseconds, or 0 if no values were
+	 *         recorded
+	 */
+	public long valueAtPercentile(double percentile) {
+		if (_totalCount == 0) {
+			return 0L;
+		}
+		long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * _totalCount));
+		long seen = 0L;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += _counts[i];
+			if (seen >= rank) {
+				return Math.min(highestValueOf(i), _max);
+			}
+		}
+		return _max;
+	}
+
+	/**
+	 * Returns the number of recorded values.
+	 *
+	 * @return The number of recorded values
+	 */
+	public long getCount() {
+		return _totalCount;
+	}
+
+	/**
+	 * Returns the smallest recorded value.
+	 *
+	 * @return The minimum in nanoseconds, or 0 if no values were recorded
+	 */
+	public long getMin() {
+		return _totalCount == 0 ? 0L : _min;
+	}
+
+	/**
+	 * Returns the largest recorded value.
+	 *
+	 * @return The maximum in nanoseconds, or 0 if no values were recorded
+	 */
+	public long getMax() {
+		return _max;
+	}
+
+	/**
+	 * Returns the arithmetic mean of the recorded values.
+	 *
+	 * @return The mean in nanoseconds, or 0.0 if no values were recorded
+	 */
+	public double getMean() {
+		return _totalCount == 0 ? 0.0 : (double) _sum / _totalCount;
+	}
+
+	/**
+	 * Returns a one-line summary with the mean, the p50, p90, p99 and p99.9
+	 * percentiles and the maximum, all in microseconds (us).
+	 *
+	 * @return A formatted summary of the histogram
+	 */
+	@Override
+	public String toString() {
+		return "mean %.1f | p50 %.1f | p90 %.1f | p99 %.1f | p99.9 %.1f | max %.1f us".formatted(
+				this.getMean() / 1_000.0,
+				this.valueAtPercentile(50.0) / 1_000.0,
+				this.valueAtPercentile(90.0) / 1_000.0,
+				this.valueAtPercentile(99.0) / 1_000.0,
+				this.valueAtPercentile(99.9) / 1_000.0,
+				this.getMax() / 1_000.0);
+	}
+}
@@ -0,0 +1,107 @@
+package vc.liebrecht.metrics;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Records the end-to-end latencies of the messages processed by one consumer.
+ * <p>
+ * Two latencies are tracked for every message, both measured from the moment
+ * the producer enqueued it: the dequeue latency (time spent waiting in the
+ * queue) and the completion latency (time until the consumer has finished
+ * processing it). Each consumer owns one recorder; the recorders are merged by
+ * the benchmark once all consumers have finished. In request/response mode,
+ * every caller additionally records the round-trip latency from sending a
+ * request until it received the reply.
+ */
+public class LatencyRecorder implements Serializable {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private final LatencyHistogram _dequeueLatency;
+	private final LatencyHistogram _completionLatency;
+	private final LatencyHistogram _roundTripLatency;
+
+	/**
+	 * Constructs a new recorder with empty histograms.
+	 */
+	public LatencyRecorder() {
+		_dequeueLatency = new LatencyHistogram();
+		_completionLatency = new LatencyHistogram();
+		_roundTripLatency = new LatencyHistogram();
+	}
+
+	/**
+	 * Records the latency between enqueueing and dequeueing a message.
+	 *
+	 * @param enqueueNanos The {@code System.nanoTime()} at which the message was
+	 *                     enqueued
+	 * @param nowNanos     The {@code System.nanoTime()} at which it was dequeued
+	 */
+	public void recordDequeue(long enqueueNanos, long nowNanos) {
+		_dequeueLatency.record(nowNanos - enqueueNanos);
+	}
+
+	/**
+	 * Records the latency between enqueueing a message and finishing its
+	 * processing.
+	 *
+	 * @param enqueueNanos The {@code System.nanoTime()} at which the message was
+	 *                     enqueued
+	 * @param nowNanos     The {@code System.nanoTime()} at which processing
+	 *                     completed
+	 */
+	public void recordCompletion(long enqueueNanos, long nowNanos) {
+		_completionLatency.record(nowNanos - enqueueNanos);
+	}
+
+	/**
+	 * Records the latency between sending a request and receiving its reply.
+	 *
+	 * @param sentNanos The {@code System.nanoTime()} at which the request was
+	 *                  sent
+	 * @param nowNanos  The {@code System.nanoTime()} at which the reply arrived
+	 */
+	public void recordRoundTrip(long sentNanos, long nowNanos) {
+		_roundTripLatency.record(nowNanos - sentNanos);
+	}
+
+	/**
+	 * Adds all latencies recorded by another recorder to this recorder.
+	 *
+	 * @param other The recorder to merge into this one
+	 */
+	public void add(LatencyRecorder other) {
+		_dequeueLatency.add(other._dequeueLatency);
+		_completionLatency.add(other._completionLatency);
+		_roundTripLatency.add(other._roundTripLatency);
+	}
+
+	/**
+	 * Returns the histogram of dequeue latencies.
+	 *
+	 * @return The dequeue latency histogram
+	 */
+	public LatencyHistogram getDequeueLatency() {
+		return _dequeueLatency;
+	}
+
+	/**
+	 * Returns the histogram of completion latencies.
+	 *
+	 * @return The completion latency histogram
+	 */
+	public LatencyHistogram getCompletionLatency() {
+		return _completionLatency;
+	}
+
+	/**
+	 * Returns the histogram of round-trip latencies.
+	 *
+	 * @return The round-trip latency histogram, empty unless requests were sent
+	 *         with replies
+	 */
+	public LatencyHistogram getRoundTripLatency() {
+		return _roundTripLatency;
+	}
+}
@@ -0,0 +1,107 @@
+package vc.liebrecht.metrics;
+
+/**
+ * The result of a two-sided Mann-Whitney U test between two samples, such as
+ * the run durations of two executor strategies.
+ * <p>
+ * The test compares the ranks of the samples and makes no assumption about
+ * their distribution, which suits benchmark durations with their skewed,
+ * outlier-prone shape. The p-value uses the normal approximation with tie and
+ * continuity correction, which is adequate from about eight samples per side.
+ *
+ * @param u      The U statistic of the first sample
+ * @param z      The standardized U statistic; negative if the first sample
+ *               tends to be smaller
+ * @param pValue The two-sided p-value
+ */
+public record MannWhitneyTest(double u, double z, double pValue) {
+	/**
+	 * Runs the test on two samples.
+	 *
+	 * @param first  The first sample
+	 * @param second The second sample
+	 * @return The test result; a p-value of {@code 1} if either sample is empty
+	 *         or all values are equal
+	 */
+	public static MannWhitneyTest compare(RunningStats first, RunningStats second) {
+		long[] a = first.sortedSamples();
+		long[] b = second.sortedSamples();
+		int n1 = a.length;
+		int n2 = b.length;
+		if (n1 == 0 || n2 == 0) {
+			return new MannWhitneyTest(0.0, 0.0, 1.0);
+		}
+
+		// Merge the sorted samples, assigning tied values their average rank.
+		double rankSumA = 0.0;
+		double tieCorrection = 0.0;
+		int i = 0;
+		int j = 0;
+		int rank = 0;
+		while (i < n1 || j < n2) {
+			long value = j >= n2 || (i < n1 && a[i] <= b[j]) ? a[i] : b[j];
+			int tiesA = 0;
+			int tiesB = 0;
+			while (i < n1 && a[i] == value) {
+				tiesA++;
+				i++;
+			}
+			while (j < n2 && b[j] == value) {
+				tiesB++;
+				j++;
+			}
+			int ties = tiesA + tiesB;
+			double averageRank = rank + (ties + 1) / 2.0;
+			rankSumA += tiesA * averageRank;
+			tieCorrection += (double) ties * ties * ties - ties;
+			rank += ties;
+		}
+
+		double n = n1 + n2;
+		double u = rankSumA - n1 * (n1 + 1) / 2.0;
+		double expected = n1 * (double) n2 / 2.0;
+		double variance = n1 * (double) n2 / 12.0 * ((n + 1) - tieCorrection / (n * (n - 1)));
+		if (variance <= 0.0) {
+			return new MannWhitneyTest(u, 0.0, 1.0);
+		}
+		double deviation = Math.max(0.0, Math.abs(u - expected) - 0.5);
+		double z = Math.copySign(deviation / Math.sqrt(variance), u - expected);
+		return new MannWhitneyTest(u, z, Math.min(1.0, 2 * (1 - normalCdf(Math.abs(z)))));
+	}
+
+	/**
+	 * Returns whether the difference between the samples is significant.
+	 *
+	 * @param alpha The significance level, e.g. {@code 0.05}
+	 * @return {@code true} if the p-value is below the significance level
+	 */
+	public boolean isSignificant(double alpha) {
+		return this.pValue() < alpha;
+	}
+
+	/**
+	 * Approximates the cumulative distribution function of the standard normal
+	 * distribution with the error function approximation 7.1.26 of Abramowitz
+	 * and Stegun, accurate to about 1e-7.
+	 *
+	 * @param x The value
+	 * @return The probability of a standard normal variable being at most
+	 *         {@code x}
+	 */
+	private static double normalCdf(double x) {
+		double t = 1.0 / (1.0 + 0.3275911 * Math.abs(x) / Math.sqrt(2));
+		double erf = 1.0 - t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027
+				+ t * 1.061405429)))) * Math.exp(-x * x / 2);
+		return x >= 0 ? (1.0 + erf) / 2 : (1.0 - erf) / 2;
+	}
+
+	/**
+	 * Returns a compact representation of the test result.
+	 *
+	 * @return The U statistic, z-score and p-value
+	 */
+	@Override
+	public String toString() {
+		return "U=%.1f, z=%.2f, p=%.4f".formatted(this.u(), this.z(), this.pValue());
+	}
+}
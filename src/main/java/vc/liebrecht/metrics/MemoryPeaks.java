@@ -0,0 +1,44 @@
+package vc.liebrecht.metrics;
+
+import java.io.Serializable;
+
+/**
+ * The peak memory footprint of one or more benchmark runs.
+ *
+ * @param heapBytes   The peak used heap in bytes, as the sum of the peak usage
+ *                    of all heap memory pools
+ * @param rssBytes    The peak resident set size of the process in bytes, or
+ *                    {@code 0} if the operating system does not report it
+ * @param nativeBytes The peak memory the JVM committed outside the heap in
+ *                    bytes; includes thread stacks only if native memory
+ *                    tracking is enabled
+ */
+public record MemoryPeaks(long heapBytes, long rssBytes, long nativeBytes) implements Serializable {
+	/**
+	 * The footprint of a run without samples.
+	 */
+	public static final MemoryPeaks NONE = new MemoryPeaks(0L, 0L, 0L);
+
+	/**
+	 * Combines the peaks of this and another footprint.
+	 *
+	 * @param other The other footprint
+	 * @return A new footprint with the higher value of each peak
+	 */
+	public MemoryPeaks max(MemoryPeaks other) {
+		return new MemoryPeaks(Math.max(this.heapBytes(), other.heapBytes()),
+				Math.max(this.rssBytes(), other.rssBytes()), Math.max(this.nativeBytes(), other.nativeBytes()));
+	}
+
+	/**
+	 * Returns a compact, single-line representation of the footprint.
+	 *
+	 * @return The peaks in megabytes
+	 */
+	@Override
+	public String toString() {
+		return "heap %.1f MB | RSS %s | native %.1f MB".formatted(this.heapBytes() / 1_000_000.0,
+				this.rssBytes() == 0 ? "n/a" : "%.1f MB".formatted(this.rssBytes() / 1_000_000.0),
+				this.nativeBytes() / 1_000_000.0);
+	}
+}
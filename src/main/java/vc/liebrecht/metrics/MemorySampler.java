@@ -0,0 +1,176 @@
+package vc.liebrecht.metrics;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Tracks the peak memory footprint of the JVM for the duration of a single
+ * benchmark run.
+ * <p>
+ * The peak heap usage is exact: the peak usage of every heap memory pool is
+ * reset when the run starts and read when it ends. Memory outside the heap has
+ * no such counter, so a background platform thread samples it periodically:
+ * the resident set size of the process from {@code /proc/self/status} on
+ * Linux, and the native memory of the JVM. If the JVM runs with
+ * {@code -XX:NativeMemoryTracking=summary}, the native memory is the total
+ * committed memory reported by native memory tracking minus the committed
+ * heap, which includes thread stacks. Otherwise, it is the committed non-heap
+ * memory plus the direct buffer pool, which misses thread stacks; the resident
+ * set size still reflects them.
+ * <p>
+ * A sampler can only be started and stopped once.
+ */
+public class MemorySampler {
+	private static final Path PROC_STATUS = Path.of("/proc/self/status");
+	private static final Pattern NMT_TOTAL = Pattern.compile("Total: reserved=\\d+KB, committed=(\\d+)KB");
+	private static final Pattern NMT_HEAP = Pattern.compile("Java Heap \\(reserved=\\d+KB, committed=(\\d+)KB\\)");
+
+	private final long _intervalMillis;
+	private final MemoryMXBean _memory;
+	private final List<MemoryPoolMXBean> _heapPools;
+	private final List<BufferPoolMXBean> _bufferPools;
+	private final MBeanServer _server;
+	private final ObjectName _diagnosticCommand;
+	private final boolean _nmtEnabled;
+	private volatile boolean _running;
+	private Thread _thread;
+	private long _rssPeak;
+	private long _nativePeak;
+
+	/**
+	 * Constructs a new sampler.
+	 *
+	 * @param intervalMillis The interval between two samples of the memory
+	 *                       outside the heap in milliseconds
+	 */
+	public MemorySampler(long intervalMillis) {
+		_intervalMillis = intervalMillis;
+		_memory = ManagementFactory.getMemoryMXBean();
+		_heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+				.filter(pool -> pool.getType() == MemoryType.HEAP && pool.isValid()).toList();
+		_bufferPools = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class);
+		_server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName diagnosticCommand = null;
+		try {
+			diagnosticCommand = new ObjectName("com.sun.management:type=DiagnosticCommand");
+		} catch (JMException e) {
+			// Cannot happen for a constant, well-formed name.
+		}
+		_diagnosticCommand = diagnosticCommand;
+		_nmtEnabled = this.trackedNativeBytes() >= 0;
+	}
+
+	/**
+	 * Resets the heap peaks and starts sampling in the background.
+	 */
+	public void start() {
+		for (MemoryPoolMXBean pool : _heapPools) {
+			pool.resetPeakUsage();
+		}
+		_running = true;
+		_thread = Thread.ofPlatform().daemon().name("memory-sampler").start(this::sample);
+	}
+
+	/**
+	 * Stops sampling and waits for the sampler thread.
+	 *
+	 * @return The peak footprint since {@link #start()}
+	 * @throws InterruptedException If the current thread is interrupted while
+	 *                              waiting
+	 */
+	public MemoryPeaks stop() throws InterruptedException {
+		_running = false;
+		_thread.interrupt();
+		// join() makes the peaks written by the sampler thread visible here.
+		_thread.join();
+		long heap = 0;
+		for (MemoryPoolMXBean pool : _heapPools) {
+			heap += pool.getPeakUsage().getUsed();
+		}
+		return new MemoryPeaks(heap, _rssPeak, _nativePeak);
+	}
+
+	/**
+	 * Samples the memory outside the heap until the sampler is stopped. Takes a
+	 * final sample after the stop, so that even short runs are covered.
+	 */
+	private void sample() {
+		do {
+			this.sampleOnce();
+			try {
+				Thread.sleep(_intervalMillis);
+			} catch (InterruptedException e) {
+				// stop() interrupts the sleep; the loop condition ends sampling.
+			}
+		} while (_running);
+		this.sampleOnce();
+	}
+
+	/**
+	 * Takes a single sample and updates the peaks.
+	 */
+	private void sampleOnce() {
+		long nativeBytes = _nmtEnabled ? this.trackedNativeBytes() : -1;
+		if (nativeBytes < 0) {
+			nativeBytes = _memory.getNonHeapMemoryUsage().getCommitted();
+			for (BufferPoolMXBean pool : _bufferPools) {
+				nativeBytes += pool.getMemoryUsed();
+			}
+		}
+		_rssPeak = Math.max(_rssPeak, residentSetSize());
+		_nativePeak = Math.max(_nativePeak, nativeBytes);
+	}
+
+	/**
+	 * Queries native memory tracking for the committed memory outside the heap.
+	 *
+	 * @return The committed native memory in bytes, or {@code -1} if native
+	 *         memory tracking is not enabled
+	 */
+	private long trackedNativeBytes() {
+		try {
+			String summary = (String) _server.invoke(_diagnosticCommand, "vmNativeMemory",
+					new Object[] { new String[] { "summary", "scale=KB" } },
+					new String[] { String[].class.getName() });
+			Matcher total = NMT_TOTAL.matcher(summary);
+			Matcher heap = NMT_HEAP.matcher(summary);
+			if (!total.find() || !heap.find()) {
+				return -1;
+			}
+			return (Long.parseLong(total.group(1)) - Long.parseLong(heap.group(1))) * 1024;
+		} catch (JMException | RuntimeException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Reads the resident set size of the process.
+	 *
+	 * @return The resident set size in bytes, or {@code 0} if it is not available
+	 */
+	private static long residentSetSize() {
+		try {
+			for (String line : Files.readAllLines(PROC_STATUS)) {
+				if (line.startsWith("VmRSS:")) {
+					return Long.parseLong(line.substring(6).replace("kB", "").trim()) * 1024;
+				}
+			}
+		} catch (IOException | NumberFormatException e) {
+			// Not on Linux; fall back to the JVM's own accounting.
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,77 @@
+package vc.liebrecht.metrics;
+
+import java.io.Serializable;
+
+/**
+ * The metrics of one stage of a multi-stage pipeline over one or more benchmark
+ * runs.
+ *
+ * @param name         The name of the stage
+ * @param parallelism  The number of consumer tasks of the stage
+ * @param messages     The number of messages the stage processed
+ * @param activeNanos  The time from the first completed message of the stage to
+ *                     the termination of its last consumer, in nanoseconds
+ * @param depthSum     The sum of all sampled depths of the input queue
+ * @param depthSamples The number of samples of the input queue depth
+ * @param maxDepth     The highest sampled depth of the input queue
+ * @param latency      The latencies of the messages processed by the stage,
+ *                     measured from the moment they entered its input queue
+ * @param cumulative   The latencies of the messages processed by the stage,
+ *                     measured from the moment the producer enqueued them, which
+ *                     include all upstream stages
+ */
+public record StageMetrics(String name, int parallelism, long messages, long activeNanos, long depthSum,
+		long depthSamples, int maxDepth, LatencyRecorder latency, LatencyRecorder cumulative)
+		implements Serializable {
+	/**
+	 * Calculates the throughput of the stage while it was active.
+	 *
+	 * @return The throughput in messages per second, or 0.0 if the stage was never
+	 *         active
+	 */
+	public double throughput() {
+		return this.activeNanos() == 0 ? 0.0 : this.messages() / (this.activeNanos() / 1_000_000_000.0);
+	}
+
+	/**
+	 * Calculates the mean depth of the input queue.
+	 *
+	 * @return The mean of all sampled depths, or 0.0 without samples
+	 */
+	public double meanDepth() {
+		return this.depthSamples() == 0 ? 0.0 : (double) this.depthSum() / this.depthSamples();
+	}
+
+	/**
+	 * Combines the metrics of this and another run of the same stage. Neither
+	 * metrics are modified.
+	 *
+	 * @param other The metrics of the other run
+	 * @return New metrics with summed counts and merged latencies
+	 */
+	public StageMetrics merge(StageMetrics other) {
+		LatencyRecorder latency = new LatencyRecorder();
+		latency.add(this.latency());
+		latency.add(other.latency());
+		LatencyRecorder cumulative = new LatencyRecorder();
+		cumulative.add(this.cumulative());
+		cumulative.add(other.cumulative());
+		return new StageMetrics(this.name(), this.parallelism(), this.messages() + other.messages(),
+				this.activeNanos() + other.activeNanos(), this.depthSum() + other.depthSum(),
+				this.depthSamples() + other.depthSamples(), Math.max(this.maxDepth(), other.maxDepth()), latency,
+				cumulative);
+	}
+
+	/**
+	 * Returns a compact, single-line representation of the metrics.
+	 *
+	 * @return The throughput, queue depth and latency percentiles of the stage,
+	 *         followed by the p99 of the cumulative latency
+	 */
+	@Override
+	public String toString() {
+		return "%.0f msgs/sec | queue depth mean %.1f, max %d | stage latency %s | cumulative p99 %.1f us".formatted(
+				this.throughput(), this.meanDepth(), this.maxDepth(), this.latency().getCompletionLatency(),
+				this.cumulative().getCompletionLatency().valueAtPercentile(99.0) / 1_000.0);
+	}
+}
@@ -0,0 +1,86 @@
+package vc.liebrecht.metrics;
+
+/**
+ * Detects the end of the JVM warm-up from a series of run durations.
+ * <p>
+ * While the JIT compiler is still optimizing and the heap is still being sized,
+ * run durations tend to decrease and scatter. The series is considered steady
+ * once the last {@code window} durations both vary little, i.e. their
+ * coefficient of variation is at most the tolerance, and show no trend, i.e.
+ * the means of the older and the newer half of the window differ by at most the
+ * tolerance relative to the mean of the window.
+ */
+public class SteadyStateDetector {
+	private final long[] _window;
+	private final double _tolerance;
+	private int _count;
+
+	/**
+	 * Constructs a new detector.
+	 *
+	 * @param window    The number of most recent durations that are examined;
+	 *                  at least 2
+	 * @param tolerance The maximum relative variation and trend of a steady
+	 *                  series, e.g. {@code 0.05} for 5%
+	 * @throws IllegalArgumentException If the window is smaller than 2
+	 */
+	public SteadyStateDetector(int window, double tolerance) {
+		if (window < 2) {
+			throw new IllegalArgumentException("Warm-up window must be at least 2: " + window);
+		}
+		_window = new long[window];
+		_tolerance = tolerance;
+	}
+
+	/**
+	 * Adds the duration of a warm-up run.
+	 *
+	 * @param durationNanos The duration of the run in nanoseconds
+	 */
+	public void add(long durationNanos) {
+		_window[_count % _window.length] = durationNanos;
+		_count++;
+	}
+
+	/**
+	 * Returns whether the most recent durations indicate a steady state.
+	 *
+	 * @return {@code true} if a full window has been collected and it neither
+	 *         varies nor trends beyond the tolerance
+	 */
+	public boolean isSteady() {
+		int size = _window.length;
+		if (_count < size) {
+			return false;
+		}
+
+		// Oldest entry first: the ring buffer starts at the next write position.
+		RunningStats all = new RunningStats();
+		double olderSum = 0.0;
+		double newerSum = 0.0;
+		for (int i = 0; i < size; i++) {
+			long value = _window[(_count + i) % size];
+			all.add(value);
+			if (i < size / 2) {
+				olderSum += value;
+			} else if (i >= size - size / 2) {
+				newerSum += value;
+			}
+		}
+		double mean = all.mean();
+		if (mean <= 0.0) {
+			return true;
+		}
+		double trend = Math.abs(newerSum - olderSum) / (size / 2) / mean;
+		return all.stddev() / mean <= _tolerance && trend <= _tolerance;
+	}
+
+	/**
+	 * Returns the number of durations added so far.
+	 *
+	 * @return The number of warm-up runs
+	 */
+	public int getCount() {
+		return _count;
+	}
+}
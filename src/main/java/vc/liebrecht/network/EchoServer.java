@@ -0,0 +1,307 @@
+package vc.liebrecht.network;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An embedded loopback echo server for the network consumers.
+ * <p>
+ * The server accepts connections on an ephemeral port of the loopback
+ * interface and answers every frame (a 4-byte length followed by the payload)
+ * by sending the same frame back after a configurable delay. It runs as a
+ * single {@code Selector} loop on a dedicated platform thread, so it neither
+ * competes with the executor under test for threads nor with virtual threads
+ * for carrier threads. Delayed replies are kept in a priority queue ordered by
+ * their due time.
+ */
+public class EchoServer implements AutoCloseable {
+	private static final int BACKLOG = 4_096;
+
+	private final long _delayNanos;
+	private final Selector _selector;
+	private final ServerSocketChannel _serverChannel;
+	private final PriorityQueue<PendingReply> _pendingReplies;
+	private final Thread _thread;
+	private volatile boolean _running;
+
+	/**
+	 * Starts a new echo server on an ephemeral loopback port.
+	 *
+	 * @param delayMicros The delay in microseconds before a frame is echoed back
+	 * @throws UncheckedIOException If the server socket cannot be opened
+	 */
+	public EchoServer(long delayMicros) {
+		_delayNanos = TimeUnit.MICROSECONDS.toNanos(delayMicros);
+		_pendingReplies = new PriorityQueue<>();
+		try {
+			_selector = Selector.open();
+			_serverChannel = ServerSocketChannel.open();
+			_serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), BACKLOG);
+			_serverChannel.configureBlocking(false);
+			_serverChannel.register(_selector, SelectionKey.OP_ACCEPT);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		_running = true;
+		_thread = new Thread(this::serve, "echo-server");
+		_thread.setDaemon(true);
+		_thread.start();
+	}
+
+	/**
+	 * Returns the address clients connect to.
+	 *
+	 * @return The loopback address and port of the server
+	 */
+	public InetSocketAddress getAddress() {
+		try {
+			return (InetSocketAddress) _serverChannel.getLocalAddress();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Runs the selector loop until the server is closed.
+	 * <p>
+	 * The loop blocks in {@code select()} while no reply is pending. Otherwise it
+	 * waits until the next reply is due: in {@code select(timeout)} for delays of
+	 * at least one millisecond, and by parking for shorter delays, since
+	 * {@code select} only has millisecond resolution.
+	 */
+	private void serve() {
+		try {
+			while (_running) {
+				long now = System.nanoTime();
+				this.sendDueReplies(now);
+
+				PendingReply next = _pendingReplies.peek();
+				if (next == null) {
+					_selector.select();
+				} else {
+					long remaining = next.dueNanos() - now;
+					if (remaining >= 1_000_000L) {
+						_selector.select(remaining / 1_000_000L);
+					} else {
+						LockSupport.parkNanos(remaining);
+						_selector.selectNow();
+					}
+				}
+
+				Iterator<SelectionKey> keys = _selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					try {
+						this.handle(key);
+					} catch (IOException e) {
+						key.cancel();
+						key.channel().close();
+					}
+				}
+			}
+		} catch (IOException | ClosedSelectorException e) {
+			if (_running) {
+				System.err.println("WARNING: Echo server failed: " + e);
+			}
+		}
+	}
+
+	/**
+	 * Handles a selected key: accepts new connections, reads frames and writes
+	 * replies that could not be written completely before.
+	 *
+	 * @param key The selected key
+	 * @throws IOException If an I/O error occurs on the channel
+	 */
+	private void handle(SelectionKey key) throws IOException {
+		if (!key.isValid()) {
+			return;
+		}
+		if (key.isAcceptable()) {
+			SocketChannel channel = _serverChannel.accept();
+			if (channel != null) {
+				channel.configureBlocking(false);
+				channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				channel.register(_selector, SelectionKey.OP_READ, new Connection(channel));
+			}
+			return;
+		}
+
+		Connection connection = (Connection) key.attachment();
+		if (key.isReadable()) {
+			this.read(key, connection);
+		}
+		if (key.isValid() && key.isWritable()) {
+			connection.flush(key);
+		}
+	}
+
+	/**
+	 * Reads from the connection and schedules a reply for every complete frame.
+	 *
+	 * @param key        The key of the connection
+	 * @param connection The connection state
+	 * @throws IOException If an I/O error occurs on the channel
+	 */
+	private void read(SelectionKey key, Connection connection) throws IOException {
+		ByteBuffer in = connection._in;
+		if (connection._channel.read(in) < 0) {
+			key.cancel();
+			connection._channel.close();
+			return;
+		}
+
+		in.flip();
+		while (in.remaining() >= Integer.BYTES) {
+			int length = in.getInt(in.position());
+			int frameLength = Integer.BYTES + length;
+			if (frameLength > in.capacity()) {
+				ByteBuffer larger = ByteBuffer.allocate(frameLength);
+				larger.put(in);
+				connection._in = larger;
+				return;
+			}
+			if (in.remaining() < frameLength) {
+				break;
+			}
+
+			ByteBuffer reply = ByteBuffer.allocate(frameLength);
+			int limit = in.limit();
+			in.limit(in.position() + frameLength);
+			reply.put(in);
+			in.limit(limit);
+			reply.flip();
+
+			if (_delayNanos == 0) {
+				connection.send(key, reply);
+			} else {
+				_pendingReplies.add(new PendingReply(System.nanoTime() + _delayNanos, key, reply));
+			}
+		}
+		in.compact();
+	}
+
+	/**
+	 * Sends all pending replies that are due.
+	 *
+	 * @param now The current {@code System.nanoTime()}
+	 */
+	private void sendDueReplies(long now) {
+		PendingReply reply;
+		while ((reply = _pendingReplies.peek()) != null && reply.dueNanos() - now <= 0) {
+			_pendingReplies.poll();
+			SelectionKey key = reply.key();
+			if (!key.isValid()) {
+				continue;
+			}
+			try {
+				((Connection) key.attachment()).send(key, reply.frame());
+			} catch (IOException e) {
+				key.cancel();
+			}
+		}
+	}
+
+	/**
+	 * Stops the selector loop and closes the server socket and all connections.
+	 */
+	@Override
+	public void close() {
+		_running = false;
+		_selector.wakeup();
+		try {
+			_thread.join(TimeUnit.SECONDS.toMillis(5));
+			for (SelectionKey key : _selector.keys()) {
+				key.channel().close();
+			}
+			_selector.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * A reply frame that is sent once its due time has passed.
+	 *
+	 * @param dueNanos The {@code System.nanoTime()} at which the reply is due
+	 * @param key      The key of the connection to reply on
+	 * @param frame    The frame to send
+	 */
+	private record PendingReply(long dueNanos, SelectionKey key, ByteBuffer frame)
+			implements Comparable<PendingReply> {
+		@Override
+		public int compareTo(PendingReply other) {
+			return Long.compare(dueNanos, other.dueNanos);
+		}
+	}
+
+	/**
+	 * The state of a single client connection.
+	 */
+	private static final class Connection {
+		private final SocketChannel _channel;
+		private final ArrayDeque<ByteBuffer> _out;
+		private ByteBuffer _in;
+
+		/**
+		 * Constructs the state for a newly accepted connection.
+		 *
+		 * @param channel The accepted channel
+		 */
+		private Connection(SocketChannel channel) {
+			_channel = channel;
+			_out = new ArrayDeque<>();
+			_in = ByteBuffer.allocate(64 * 1024);
+		}
+
+		/**
+		 * Writes a reply, queueing the rest for later if the socket buffer is full.
+		 *
+		 * @param key   The key of the connection
+		 * @param frame The frame to send
+		 * @throws IOException If an I/O error occurs on the channel
+		 */
+		private void send(SelectionKey key, ByteBuffer frame) throws IOException {
+			_out.add(frame);
+			this.flush(key);
+		}
+
+		/**
+		 * Writes queued replies until the queue is empty or the socket buffer is
+		 * full, and updates the interest set accordingly.
+		 *
+		 * @param key The key of the connection
+		 * @throws IOException If an I/O error occurs on the channel
+		 */
+		private void flush(SelectionKey key) throws IOException {
+			ByteBuffer frame;
+			while ((frame = _out.peek()) != null) {
+				_channel.write(frame);
+				if (frame.hasRemaining()) {
+					key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+					return;
+				}
+				_out.poll();
+			}
+			key.interestOps(SelectionKey.OP_READ);
+		}
+	}
+}
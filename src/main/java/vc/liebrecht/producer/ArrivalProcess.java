@@ -0,0 +1,57 @@
+package vc.liebrecht.producer;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Enumeration for the arrival processes of open-loop producers.
+ * <p>
+ * An arrival process determines the intervals between the scheduled send times
+ * of a producer running at a fixed target rate.
+ */
+public enum ArrivalProcess {
+	/**
+	 * Messages are scheduled at a constant interval.
+	 */
+	UNIFORM("uniform"),
+
+	/**
+	 * Messages are scheduled with exponentially distributed intervals, i.e. as a
+	 * Poisson process. Produces the bursts that independent clients cause in
+	 * production.
+	 */
+	POISSON("Poisson");
+
+	private final String _displayName;
+
+	/**
+	 * Constructs an arrival process.
+	 *
+	 * @param displayName The display name for this arrival process
+	 */
+	ArrivalProcess(String displayName) {
+		_displayName = displayName;
+	}
+
+	/**
+	 * Draws the interval to the next scheduled send time.
+	 *
+	 * @param meanIntervalNanos The mean interval in nanoseconds
+	 * @return The interval in nanoseconds
+	 */
+	public double nextIntervalNanos(double meanIntervalNanos) {
+		return switch (this) {
+			case UNIFORM -> meanIntervalNanos;
+			case POISSON -> -meanIntervalNanos * Math.log(1.0 - ThreadLocalRandom.current().nextDouble());
+		};
+	}
+
+	/**
+	 * Returns the display name of this arrival process.
+	 *
+	 * @return The display name of the arrival process
+	 */
+	@Override
+	public String toString() {
+		return _displayName;
+	}
+}
@@ -0,0 +1,153 @@
+package vc.liebrecht.producer;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws the keys of the messages a producer sends.
+ * <p>
+ * Keys are drawn from {@code 0} to {@code keys - 1}, either uniformly or from a
+ * Zipf distribution in which the key of rank {@code k} is drawn with a
+ * probability proportional to {@code 1 / (k + 1)^skew}, so that key {@code 0}
+ * is the hottest. Zipf keys are sampled by rejection-inversion (Hörmann and
+ * Derflinger, 1996), which needs constant time and memory independent of the
+ * number of keys, so that millions of keys cost no more than a few.
+ * <p>
+ * Instances are immutable and draw from {@code ThreadLocalRandom}; one
+ * distribution can be shared by all producers.
+ */
+public final class KeyDistribution {
+	private final long _offset;
+	private final long _keys;
+	private final double _skew;
+	private final double _hIntegralX1;
+	private final double _hIntegralN;
+	private final double _s;
+
+	/**
+	 * Constructs a distribution.
+	 *
+	 * @param offset The smallest key
+	 * @param keys   The number of distinct keys
+	 * @param skew   The exponent of the Zipf distribution, or {@code 0} for
+	 *               uniform keys
+	 */
+	private KeyDistribution(long offset, long keys, double skew) {
+		_offset = offset;
+		_keys = keys;
+		_skew = skew;
+		if (skew > 0) {
+			_hIntegralX1 = this.hIntegral(1.5) - 1.0;
+			_hIntegralN = this.hIntegral(keys + 0.5);
+			_s = 2.0 - this.hIntegralInverse(this.hIntegral(2.5) - this.h(2.0));
+		} else {
+			_hIntegralX1 = 0.0;
+			_hIntegralN = 0.0;
+			_s = 0.0;
+		}
+	}
+
+	/**
+	 * Creates a distribution that always returns the same key.
+	 *
+	 * @param key The key of every message
+	 * @return The distribution
+	 */
+	public static KeyDistribution fixed(long key) {
+		return new KeyDistribution(key, 1, 0.0);
+	}
+
+	/**
+	 * Creates a distribution over a number of keys.
+	 *
+	 * @param keys The number of distinct keys
+	 * @param skew The exponent of the Zipf distribution, e.g. {@code 1.0}, or
+	 *             {@code 0} for uniform keys
+	 * @return The distribution
+	 * @throws IllegalArgumentException If there are no keys or the skew is
+	 *                                  negative
+	 */
+	public static KeyDistribution of(long keys, double skew) {
+		if (keys < 1) {
+			throw new IllegalArgumentException("Number of keys must be at least 1: " + keys);
+		}
+		if (skew < 0) {
+			throw new IllegalArgumentException("Key skew must not be negative: " + skew);
+		}
+		return new KeyDistribution(0, keys, skew);
+	}
+
+	/**
+	 * Draws the key of the next message.
+	 *
+	 * @return The key
+	 */
+	public long nextKey() {
+		if (_keys == 1) {
+			return _offset;
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		if (_skew == 0) {
+			return _offset + random.nextLong(_keys);
+		}
+		while (true) {
+			double u = _hIntegralN + random.nextDouble() * (_hIntegralX1 - _hIntegralN);
+			double x = this.hIntegralInverse(u);
+			long k = Math.max(1, Math.min(_keys, (long) (x + 0.5)));
+			if (k - x <= _s || u >= this.hIntegral(k + 0.5) - this.h(k)) {
+				return _offset + k - 1;
+			}
+		}
+	}
+
+	/**
+	 * The unnormalized Zipf density {@code x^-skew}.
+	 *
+	 * @param x The rank
+	 * @return The density
+	 */
+	private double h(double x) {
+		return Math.exp(-_skew * Math.log(x));
+	}
+
+	/**
+	 * An integral of {@link #h(double)}.
+	 *
+	 * @param x The upper bound
+	 * @return The integral from 1 to {@code x}, shifted by a constant
+	 */
+	private double hIntegral(double x) {
+		double logX = Math.log(x);
+		return helper2((1.0 - _skew) * logX) * logX;
+	}
+
+	/**
+	 * The inverse of {@link #hIntegral(double)}.
+	 *
+	 * @param x The value of the integral
+	 * @return The upper bound
+	 */
+	private double hIntegralInverse(double x) {
+		double t = Math.max(-1.0, x * (1.0 - _skew));
+		return Math.exp(helper1(t) * x);
+	}
+
+	/**
+	 * Computes {@code log(1 + x) / x} without cancellation near {@code 0}.
+	 *
+	 * @param x The argument
+	 * @return The value
+	 */
+	private static double helper1(double x) {
+		return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1.0 - x * (0.5 - x * (1.0 / 3.0 - 0.25 * x));
+	}
+
+	/**
+	 * Computes {@code (exp(x) - 1) / x} without cancellation near {@code 0}.
+	 *
+	 * @param x The argument
+	 * @return The value
+	 */
+	private static double helper2(double x) {
+		return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1.0 + x * 0.5 * (1.0 + x / 3.0 * (1.0 + 0.25 * x));
+	}
+}
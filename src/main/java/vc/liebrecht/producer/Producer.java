@@ -1,48 +1,198 @@
 package vc.liebrecht.producer;
 
 import vc.liebrecht.domain.Message;
+import vc.liebrecht.domain.MessageSource;
+import vc.liebrecht.domain.PayloadMode;
+import vc.liebrecht.queue.Sink;
 
-import java.util.concurrent.BlockingQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * A {@code Producer} creates messages with a certain payload size and pushes them into the {@code BlockingQueue}.
+ * A {@code Producer} creates messages with a certain payload size and pushes them into a {@code Sink}.
+ * <p>
+ * Messages are obtained from a {@code MessageSource}, which either allocates them
+ * or hands out recycled messages from a pool, depending on the {@code PayloadMode}.
  * <p>
  * This class implements {@code Runnable} and can be executed in a separate thread.
  * It creates a specified number of messages with a fixed payload size and inserts
- * them into the provided queue.
+ * them into the provided sink. With a batch size greater than one, messages are
+ * published in chunks with {@code putAll}, which a {@code BatchingQueue} or a
+ * routing view turns into a single bulk operation per chunk.
+ * <p>
+ * With a target rate, the producer runs open loop: it sends every message at a
+ * scheduled time, independent of how fast the consumers keep up, and stamps the
+ * message with the scheduled rather than the actual send time. A producer that
+ * falls behind its schedule, because {@code put} blocked or its thread was not
+ * scheduled, sends the overdue messages back to back, so that the delay is
+ * attributed to the latency of every affected message instead of being hidden
+ * (coordinated omission). The batch size does not apply in open-loop mode.
+ * <p>
+ * Every message carries a key drawn from a {@code KeyDistribution}, such as the
+ * account it belongs to.
  */
 public class Producer implements Runnable {
-    private final BlockingQueue<Message> _queue;
+    private final Sink<Message> _sink;
     private final int _numMessages;
-    private final byte[] _payload;
+    private final MessageSource _source;
+    private final int _batchSize;
+    private final double _rate;
+    private final ArrivalProcess _arrivals;
+    private final KeyDistribution _keys;
 
     /**
-     * Constructs a new producer.
+     * Constructs a new producer that publishes every message on its own.
      *
-     * @param q The queue to insert messages into
+     * @param q The sink to insert messages into
      * @param numMessages The number of messages to create
      * @param payloadSize The size of each message payload in bytes
      */
-    public Producer(BlockingQueue<Message> q, int numMessages, int payloadSize) {
-        _queue = q;
+    public Producer(Sink<Message> q, int numMessages, int payloadSize) {
+        this(q, numMessages, payloadSize, 1);
+    }
+
+    /**
+     * Constructs a new producer that publishes messages in chunks, all sharing
+     * the same payload array.
+     *
+     * @param q The sink to insert messages into
+     * @param numMessages The number of messages to create
+     * @param payloadSize The size of each message payload in bytes
+     * @param batchSize The number of messages per chunk
+     */
+    public Producer(Sink<Message> q, int numMessages, int payloadSize, int batchSize) {
+        this(q, numMessages, PayloadMode.SHARED.createSource(payloadSize, 0), batchSize);
+    }
+
+    /**
+     * Constructs a new producer that publishes messages from a message source in chunks.
+     *
+     * @param q The sink to insert messages into
+     * @param numMessages The number of messages to create
+     * @param source The source of the messages; may be shared with other producers
+     * @param batchSize The number of messages per chunk
+     */
+    public Producer(Sink<Message> q, int numMessages, MessageSource source, int batchSize) {
+        this(q, numMessages, source, batchSize, 0.0, ArrivalProcess.UNIFORM);
+    }
+
+    /**
+     * Constructs a new producer that publishes messages from a message source,
+     * either as fast as possible or open loop at a target rate.
+     *
+     * @param q The sink to insert messages into
+     * @param numMessages The number of messages to create
+     * @param source The source of the messages; may be shared with other producers
+     * @param batchSize The number of messages per chunk in closed-loop mode
+     * @param rate The target rate of this producer in messages per second, or 0
+     *             to publish as fast as possible
+     * @param arrivals The arrival process of the scheduled send times
+     */
+    public Producer(Sink<Message> q, int numMessages, MessageSource source, int batchSize, double rate,
+            ArrivalProcess arrivals) {
+        this(q, numMessages, source, batchSize, rate, arrivals, KeyDistribution.fixed(0));
+    }
+
+    /**
+     * Constructs a new producer that publishes messages with keys drawn from a
+     * distribution.
+     *
+     * @param q The sink to insert messages into
+     * @param numMessages The number of messages to create
+     * @param source The source of the messages; may be shared with other producers
+     * @param batchSize The number of messages per chunk in closed-loop mode
+     * @param rate The target rate of this producer in messages per second, or 0
+     *             to publish as fast as possible
+     * @param arrivals The arrival process of the scheduled send times
+     * @param keys The distribution of the message keys; may be shared with other producers
+     */
+    public Producer(Sink<Message> q, int numMessages, MessageSource source, int batchSize, double rate,
+            ArrivalProcess arrivals, KeyDistribution keys) {
+        _sink = q;
         _numMessages = numMessages;
-        _payload = new byte[payloadSize];
+        _source = source;
+        _batchSize = batchSize;
+        _rate = rate;
+        _arrivals = arrivals;
+        _keys = keys;
     }
 
     /**
      * Executes the producer task.
      * <p>
-     * Creates the specified number of messages and inserts them into the queue.
+     * Creates the specified number of messages and inserts them into the sink.
+     * Each message is stamped with the current {@code System.nanoTime()} right
+     * before it is enqueued; all messages of a chunk share the same timestamp.
+     * In open-loop mode, see {@link #runOpenLoop()}, messages are stamped with
+     * their scheduled send time instead.
      * If the thread is interrupted, the interrupt flag is set and the method returns.
      */
     @Override
     public void run() {
         try {
-            for (int i = 0; i < _numMessages; i++) {
-                _queue.put(new Message(_payload));
+            if (_rate > 0) {
+                this.runOpenLoop();
+                return;
+            }
+            if (_batchSize <= 1) {
+                for (int i = 0; i < _numMessages; i++) {
+                    _sink.put(_source.acquire(System.nanoTime(), _keys.nextKey()));
+                }
+                return;
+            }
+
+            List<Message> chunk = new ArrayList<>(_batchSize);
+            for (int i = 0; i < _numMessages; i += _batchSize) {
+                int size = Math.min(_batchSize, _numMessages - i);
+                long now = System.nanoTime();
+                for (int j = 0; j < size; j++) {
+                    chunk.add(_source.acquire(now, _keys.nextKey()));
+                }
+                this.publish(chunk);
+                chunk.clear();
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Sends every message at its scheduled time.
+     * <p>
+     * The first send time is offset randomly within one mean interval, so that
+     * producers started together do not send in lockstep. Each following send
+     * time is derived from the previous scheduled one, never from the actual
+     * send time, so that the producer catches up after a delay instead of
+     * silently lowering its rate.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    private void runOpenLoop() throws InterruptedException {
+        double meanInterval = 1_000_000_000.0 / _rate;
+        double scheduled = System.nanoTime() + ThreadLocalRandom.current().nextDouble() * meanInterval;
+        for (int i = 0; i < _numMessages; i++) {
+            long sendTime = (long) scheduled;
+            long remaining;
+            while ((remaining = sendTime - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            _sink.put(_source.acquire(sendTime, _keys.nextKey()));
+            scheduled += _arrivals.nextIntervalNanos(meanInterval);
+        }
+    }
+
+    /**
+     * Inserts a chunk of messages into the sink.
+     *
+     * @param chunk The messages to insert
+     * @throws InterruptedException If the thread is interrupted while waiting for space
+     */
+    private void publish(List<Message> chunk) throws InterruptedException {
+        _sink.putAll(chunk);
+    }
+}
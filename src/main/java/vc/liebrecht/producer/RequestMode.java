@@ -0,0 +1,66 @@
+package vc.liebrecht.producer;
+
+/**
+ * Enumeration for the ways producers send messages.
+ * <p>
+ * Besides fire and forget, three request/response styles are supported, in
+ * which every producer acts as a caller that sends one request at a time and
+ * waits for its reply before it sends the next one. They differ in how the
+ * caller waits: by blocking its thread, by composing futures, or by reacting
+ * to a stream of replies.
+ */
+public enum RequestMode {
+	/**
+	 * Producers send messages without waiting for replies.
+	 */
+	FIRE_AND_FORGET("fire and forget"),
+
+	/**
+	 * Callers block their thread until the reply to every request has arrived;
+	 * the style that virtual threads make cheap.
+	 */
+	BLOCKING("Blocking request/response"),
+
+	/**
+	 * Callers compose a {@code CompletableFuture} per request, whose completion
+	 * sends the next request without blocking a thread.
+	 */
+	COMPLETABLE_FUTURE("CompletableFuture composition"),
+
+	/**
+	 * Requests flow through a {@code SubmissionPublisher} per consumer to a
+	 * subscriber that requests messages on demand, and replies flow back
+	 * through a {@code SubmissionPublisher} per caller.
+	 */
+	FLOW("Flow with SubmissionPublisher");
+
+	private final String _displayName;
+
+	/**
+	 * Constructs a request mode.
+	 *
+	 * @param displayName The display name for this request mode
+	 */
+	RequestMode(String displayName) {
+		_displayName = displayName;
+	}
+
+	/**
+	 * Returns whether callers wait for a reply to every message.
+	 *
+	 * @return {@code true} for every mode except {@link #FIRE_AND_FORGET}
+	 */
+	public boolean isRoundTrip() {
+		return this != FIRE_AND_FORGET;
+	}
+
+	/**
+	 * Returns the display name of this request mode.
+	 *
+	 * @return The display name of the request mode
+	 */
+	@Override
+	public String toString() {
+		return _displayName;
+	}
+}
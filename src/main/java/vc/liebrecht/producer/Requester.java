@@ -0,0 +1,280 @@
+package vc.liebrecht.producer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.LongConsumer;
+
+import vc.liebrecht.domain.Message;
+import vc.liebrecht.domain.MessageSource;
+import vc.liebrecht.metrics.LatencyRecorder;
+
+/**
+ * A caller that sends requests one at a time and waits for the reply to each
+ * before it sends the next one.
+ * <p>
+ * Every request is a message that carries an action replying to the caller,
+ * which the consumer runs once it has processed the message. The time from
+ * sending a request until its reply arrives is recorded as round-trip latency.
+ * How the caller waits depends on the {@code RequestMode}:
+ * <ul>
+ * <li>{@code BLOCKING}: the caller's thread blocks on a future per request.</li>
+ * <li>{@code COMPLETABLE_FUTURE}: the continuation of every reply future sends
+ * the next request on the thread that completed the reply; it is attached
+ * before the request is sent, so that it never runs on the caller's thread and
+ * the chain does not nest.</li>
+ * <li>{@code FLOW}: replies are published to a {@code SubmissionPublisher} of
+ * the caller, whose subscriber requests one reply at a time and sends the next
+ * request from {@code onNext}.</li>
+ * </ul>
+ * In the non-blocking modes, the task returns after sending the first request
+ * and holds no thread while requests are in flight; the caller has finished
+ * once its {@link #completion() completion} future is done, which the benchmark
+ * waits for at the edge like for the future of any producer.
+ */
+public class Requester implements Runnable {
+	private final RequestMode _mode;
+	private final Channel _channel;
+	private final int _numRequests;
+	private final MessageSource _source;
+	private final KeyDistribution _keys;
+	private final LatencyRecorder _latency;
+	private final Executor _executor;
+	private final CompletableFuture<Void> _done;
+
+	/**
+	 * The way requests reach the consumers.
+	 */
+	@FunctionalInterface
+	public interface Channel {
+		/**
+		 * Sends a request.
+		 *
+		 * @param m The request
+		 * @throws InterruptedException If the thread is interrupted while waiting
+		 *                              for space
+		 */
+		void send(Message m) throws InterruptedException;
+	}
+
+	/**
+	 * Constructs a new caller.
+	 *
+	 * @param mode        The request/response style
+	 * @param channel     The channel requests are sent through, such as the
+	 *                    {@code put} method of a queue
+	 * @param numRequests The number of requests to send
+	 * @param source      The source of the messages; may be shared with other
+	 *                    callers
+	 * @param keys        The distribution of the message keys; may be shared
+	 *                    with other callers
+	 * @param latency     The recorder for the round-trip latencies of this
+	 *                    caller
+	 * @param executor    The executor that delivers replies in {@code FLOW}
+	 *                    mode
+	 * @throws IllegalArgumentException If the mode expects no replies
+	 */
+	public Requester(RequestMode mode, Channel channel, int numRequests, MessageSource source, KeyDistribution keys,
+			LatencyRecorder latency, Executor executor) {
+		if (!mode.isRoundTrip()) {
+			throw new IllegalArgumentException("Request mode " + mode.name() + " expects no replies");
+		}
+		_mode = mode;
+		_channel = channel;
+		_numRequests = numRequests;
+		_source = source;
+		_keys = keys;
+		_latency = latency;
+		_executor = executor;
+		_done = new CompletableFuture<>();
+	}
+
+	/**
+	 * Executes the caller task.
+	 * <p>
+	 * In {@code BLOCKING} mode, sends all requests and returns once the last reply
+	 * has arrived; otherwise, sends the first request and returns. Failures,
+	 * including an interrupt, complete the {@link #completion() completion}
+	 * future exceptionally; if the thread is interrupted, the interrupt flag is
+	 * set.
+	 */
+	@Override
+	public void run() {
+		try {
+			switch (_mode) {
+				case BLOCKING -> {
+					this.runBlocking();
+					_done.complete(null);
+				}
+				case COMPLETABLE_FUTURE -> this.sendComposed(0);
+				case FLOW -> this.startReactive();
+				default -> throw new IllegalStateException("Request mode " + _mode.name() + " expects no replies");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			_done.completeExceptionally(e);
+		} catch (ExecutionException e) {
+			_done.completeExceptionally(e.getCause());
+		} catch (RuntimeException e) {
+			_done.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Returns the future that completes once the reply to the last request has
+	 * arrived.
+	 *
+	 * @return The completion of this caller
+	 */
+	public CompletableFuture<Void> completion() {
+		return _done;
+	}
+
+	/**
+	 * Sends every request and blocks until its reply has arrived.
+	 *
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 * @throws ExecutionException   If a reply failed
+	 */
+	private void runBlocking() throws InterruptedException, ExecutionException {
+		for (int i = 0; i < _numRequests; i++) {
+			CompletableFuture<Long> reply = new CompletableFuture<>();
+			this.send(reply::complete);
+			long sent = reply.get();
+			_latency.recordRoundTrip(sent, System.nanoTime());
+		}
+	}
+
+	/**
+	 * Sends a request whose reply future sends the next one, or completes the
+	 * caller after the last reply.
+	 *
+	 * @param request The index of the request to send
+	 */
+	private void sendComposed(int request) {
+		if (request == _numRequests) {
+			_done.complete(null);
+			return;
+		}
+		CompletableFuture<Long> reply = new CompletableFuture<>();
+		reply.thenAccept(sent -> {
+			_latency.recordRoundTrip(sent, System.nanoTime());
+			this.sendComposed(request + 1);
+		}).exceptionally(e -> {
+			_done.completeExceptionally(e);
+			return null;
+		});
+		try {
+			this.send(reply::complete);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			_done.completeExceptionally(e);
+		} catch (RuntimeException e) {
+			_done.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Subscribes to the replies of this caller and sends the first request. The
+	 * publisher of the replies is closed once the caller has finished.
+	 *
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 *                              for space
+	 */
+	private void startReactive() throws InterruptedException {
+		if (_numRequests == 0) {
+			_done.complete(null);
+			return;
+		}
+		SubmissionPublisher<Long> replies = new SubmissionPublisher<>(_executor, 1);
+		_done.whenComplete((result, failure) -> replies.close());
+		replies.subscribe(new ReplySubscriber(replies));
+		this.send(replies::submit);
+	}
+
+	/**
+	 * Receives the replies of a caller in {@code FLOW} mode and sends the next
+	 * request for every reply.
+	 */
+	private final class ReplySubscriber implements Flow.Subscriber<Long> {
+		private final SubmissionPublisher<Long> _replies;
+		private Flow.Subscription _subscription;
+		private int _received;
+
+		/**
+		 * Constructs the subscriber.
+		 *
+		 * @param replies The publisher that the consumers submit replies to
+		 */
+		private ReplySubscriber(SubmissionPublisher<Long> replies) {
+			_replies = replies;
+		}
+
+		/**
+		 * Keeps the subscription and requests the reply to the first request.
+		 *
+		 * @param subscription The subscription to the replies
+		 */
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			_subscription = subscription;
+			subscription.request(1);
+		}
+
+		/**
+		 * Records the round trip of a reply and sends the next request, or
+		 * completes the caller once every reply has been received.
+		 *
+		 * @param sent The send time of the request that was replied to
+		 */
+		@Override
+		public void onNext(Long sent) {
+			_latency.recordRoundTrip(sent, System.nanoTime());
+			if (++_received == _numRequests) {
+				_done.complete(null);
+				return;
+			}
+			_subscription.request(1);
+			try {
+				Requester.this.send(_replies::submit);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				_done.completeExceptionally(e);
+			} catch (RuntimeException e) {
+				_done.completeExceptionally(e);
+			}
+		}
+
+		/**
+		 * Fails the caller.
+		 *
+		 * @param throwable The failure of the publisher
+		 */
+		@Override
+		public void onError(Throwable throwable) {
+			_done.completeExceptionally(throwable);
+		}
+
+		/**
+		 * Does nothing, since the publisher is only closed once the caller has
+		 * finished.
+		 */
+		@Override
+		public void onComplete() {
+		}
+	}
+
+	/**
+	 * Sends a request stamped with the current time.
+	 *
+	 * @param reply Receives the send time once the request has been processed
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 *                              for space
+	 */
+	private void send(LongConsumer reply) throws InterruptedException {
+		long sent = System.nanoTime();
+		_channel.send(_source.acquire(sent, _keys.nextKey()).replyTo(() -> reply.accept(sent)));
+	}
+}
@@ -0,0 +1,26 @@
+package vc.liebrecht.queue;
+
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A {@code BlockingQueue} that can publish a whole batch of elements in one
+ * operation.
+ * <p>
+ * Producers insert through the {@code Sink} interface, so that a chunk they
+ * publish into such a queue is inserted with a single
+ * {@link #putAll(Collection)} instead of one {@code put} per element.
+ *
+ * @param <E> The type of elements held in this queue
+ */
+public interface BatchingQueue<E> extends BlockingQueue<E>, Sink<E> {
+	/**
+	 * Inserts all given elements, waiting if necessary for space to become
+	 * available. The elements are published in iteration order.
+	 *
+	 * @param elements The elements to insert
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	@Override
+	void putAll(Collection<? extends E> elements) throws InterruptedException;
+}
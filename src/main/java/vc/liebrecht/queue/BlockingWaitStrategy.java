@@ -0,0 +1,88 @@
+package vc.liebrecht.queue;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Wait strategy that parks until it is signalled.
+ * <p>
+ * Waiting threads register in a lock-free {@code WaiterList} and park via
+ * {@code LockSupport}; every {@link #signal()} unparks at most one of them, and
+ * a woken thread does not search the list for its registration.
+ * Unlike the Disruptor's blocking strategy, no {@code ReentrantLock} or monitor
+ * is used, so the strategy is safe for virtual threads and never pins a carrier.
+ * <p>
+ * A thread that succeeds after it has been registered passes a possibly consumed
+ * wake-up on to the next waiter, so signals are never lost.
+ */
+public class BlockingWaitStrategy implements WaitStrategy {
+	private final WaiterList _waiters;
+
+	/**
+	 * Constructs a new blocking wait strategy without waiting threads.
+	 */
+	public BlockingWaitStrategy() {
+		_waiters = new WaiterList();
+	}
+
+	/**
+	 * Retries the attempt, parking until signalled between failures.
+	 *
+	 * @param attempt  The attempt to perform
+	 * @param deadline The deadline, or {@code 0} for no time limit
+	 * @param <T>      The result type of the attempt
+	 * @return The result, or {@code null} if the deadline passed
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	@Override
+	public <T> T waitFor(Supplier<T> attempt, long deadline) throws InterruptedException {
+		T result = attempt.get();
+		if (result != null) {
+			return result;
+		}
+
+		WaiterList.Waiter waiter = null;
+		try {
+			while (true) {
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+
+				if (waiter == null || !waiter.isWaiting()) {
+					// Re-check after registering, otherwise a signal between the failed
+					// attempt and the registration would be missed.
+					waiter = _waiters.register();
+				} else {
+					if (deadline == 0L) {
+						LockSupport.park(this);
+					} else {
+						long remaining = deadline - System.nanoTime();
+						if (remaining <= 0) {
+							return null;
+						}
+						LockSupport.parkNanos(this, remaining);
+					}
+				}
+
+				result = attempt.get();
+				if (result != null) {
+					return result;
+				}
+			}
+		} finally {
+			// Only a timeout or an interrupt unlinks the registration right away.
+			if (waiter != null && _waiters.cancel(waiter, result == null)) {
+				// This thread was chosen for a wake-up it may no longer need.
+				this.signal();
+			}
+		}
+	}
+
+	/**
+	 * Unparks the longest waiting thread, if any.
+	 */
+	@Override
+	public void signal() {
+		_waiters.signal();
+	}
+}
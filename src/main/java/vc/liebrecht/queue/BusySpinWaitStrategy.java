@@ -0,0 +1,43 @@
+package vc.liebrecht.queue;
+
+import java.util.function.Supplier;
+
+/**
+ * Wait strategy that retries in a tight loop.
+ * <p>
+ * Offers the lowest hand-off latency but occupies a CPU while waiting. On a
+ * virtual thread the carrier thread is never released, so a spinning virtual
+ * thread blocks every other virtual thread scheduled on the same carrier.
+ */
+public class BusySpinWaitStrategy implements WaitStrategy {
+	/**
+	 * Retries the attempt with {@code Thread.onSpinWait()} between failures.
+	 *
+	 * @param attempt  The attempt to perform
+	 * @param deadline The deadline, or {@code 0} for no time limit
+	 * @param <T>      The result type of the attempt
+	 * @return The result, or {@code null} if the deadline passed
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	@Override
+	public <T> T waitFor(Supplier<T> attempt, long deadline) throws InterruptedException {
+		T result;
+		while ((result = attempt.get()) == null) {
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+			if (deadline != 0L && System.nanoTime() - deadline >= 0) {
+				return null;
+			}
+			Thread.onSpinWait();
+		}
+		return result;
+	}
+
+	/**
+	 * Does nothing, since spinning threads never need to be woken up.
+	 */
+	@Override
+	public void signal() {
+	}
+}
@@ -0,0 +1,52 @@
+package vc.liebrecht.queue;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.SynchronousQueue;
+
+import vc.liebrecht.domain.Message;
+
+/**
+ * Default implementation of {@code QueueFactory} that creates queues based on
+ * the configured queue type.
+ */
+public class DefaultQueueFactory implements QueueFactory {
+	private final QueueType _queueType;
+	private final WaitStrategyType _waitStrategy;
+
+	/**
+	 * Constructs a new queue factory with the specified queue type.
+	 *
+	 * @param queueType    The type of queue to create
+	 * @param waitStrategy The wait strategy for queue types that support one
+	 */
+	public DefaultQueueFactory(QueueType queueType, WaitStrategyType waitStrategy) {
+		_queueType = queueType;
+		_waitStrategy = waitStrategy;
+	}
+
+	/**
+	 * Creates a new queue based on the configured queue type.
+	 * <p>
+	 * {@code ARRAY_BLOCKING} and {@code LINKED_BLOCKING} are bounded by the given
+	 * capacity, {@code RING_BUFFER} by the next power of two and uses the
+	 * configured wait strategy. {@code LINKED_TRANSFER} and {@code CONCURRENT_LINKED} are unbounded
+	 * and {@code SYNCHRONOUS} has no capacity at all.
+	 *
+	 * @param capacity The capacity of the queue
+	 * @return A new {@code BlockingQueue} instance
+	 */
+	@Override
+	public BlockingQueue<Message> createQueue(int capacity) {
+		return switch (_queueType) {
+			case ARRAY_BLOCKING -> new ArrayBlockingQueue<>(capacity);
+			case LINKED_BLOCKING -> new LinkedBlockingQueue<>(capacity);
+			case LINKED_TRANSFER -> new LinkedTransferQueue<>();
+			case SYNCHRONOUS -> new SynchronousQueue<>();
+			case CONCURRENT_LINKED -> new ParkingConcurrentLinkedQueue<>();
+			case RING_BUFFER -> new RingBufferQueue<>(capacity, _waitStrategy);
+		};
+	}
+}
@@ -0,0 +1,256 @@
+package vc.liebrecht.queue;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An unbounded {@code BlockingQueue} adapter around a lock-free
+ * {@code ConcurrentLinkedQueue}.
+ * <p>
+ * Insertions never block. Threads that wait for an element register themselves
+ * in a lock-free {@code WaiterList} and park via {@code LockSupport}; every
+ * insertion unparks at most one waiter. No {@code ReentrantLock} or monitor is
+ * involved, so waiting virtual threads unmount from their carrier without
+ * contending on a lock, and a woken waiter does not search the list for its
+ * registration.
+ * <p>
+ * A waiter that receives an element after it has already been chosen for a
+ * wake-up passes the signal on to the next waiter if elements remain, so
+ * wake-ups are never lost.
+ * <p>
+ * Batches are appended with a single {@code ConcurrentLinkedQueue.addAll} call.
+ *
+ * @param <E> The type of elements held in this queue
+ */
+public class ParkingConcurrentLinkedQueue<E> extends AbstractQueue<E> implements BatchingQueue<E> {
+	private final ConcurrentLinkedQueue<E> _queue;
+	private final WaiterList _waiters;
+
+	/**
+	 * Constructs a new, empty queue.
+	 */
+	public ParkingConcurrentLinkedQueue() {
+		_queue = new ConcurrentLinkedQueue<>();
+		_waiters = new WaiterList();
+	}
+
+	/**
+	 * Inserts the element and unparks one waiting thread, if any.
+	 *
+	 * @param e The element to insert
+	 * @return Always {@code true}, since the queue is unbounded
+	 */
+	@Override
+	public boolean offer(E e) {
+		_queue.offer(e);
+		this.signalWaiter();
+		return true;
+	}
+
+	/**
+	 * Inserts the element. Never blocks, since the queue is unbounded.
+	 *
+	 * @param e The element to insert
+	 */
+	@Override
+	public void put(E e) {
+		this.offer(e);
+	}
+
+	/**
+	 * Appends all elements in one operation and unparks up to one waiting thread
+	 * per element. Never blocks, since the queue is unbounded.
+	 *
+	 * @param elements The elements to insert
+	 */
+	@Override
+	public void putAll(Collection<? extends E> elements) {
+		_queue.addAll(elements);
+		for (int i = 0; i < elements.size(); i++) {
+			this.signalWaiter();
+		}
+	}
+
+	/**
+	 * Inserts the element. Never blocks, since the queue is unbounded.
+	 *
+	 * @param e       The element to insert
+	 * @param timeout Ignored
+	 * @param unit    Ignored
+	 * @return Always {@code true}
+	 */
+	@Override
+	public boolean offer(E e, long timeout, TimeUnit unit) {
+		return this.offer(e);
+	}
+
+	/**
+	 * Retrieves and removes the head of the queue, if present.
+	 *
+	 * @return The head of the queue, or {@code null} if the queue is empty
+	 */
+	@Override
+	public E poll() {
+		return _queue.poll();
+	}
+
+	/**
+	 * Retrieves and removes the head of the queue, parking until an element
+	 * becomes available.
+	 *
+	 * @return The head of the queue
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	@Override
+	public E take() throws InterruptedException {
+		return this.await(0L);
+	}
+
+	/**
+	 * Retrieves and removes the head of the queue, parking up to the specified
+	 * wait time until an element becomes available.
+	 *
+	 * @param timeout The maximum time to wait
+	 * @param unit    The unit of the timeout
+	 * @return The head of the queue, or {@code null} if the timeout elapsed
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		E e = _queue.poll();
+		if (e != null || timeout <= 0) {
+			return e;
+		}
+		return this.await(System.nanoTime() + unit.toNanos(timeout));
+	}
+
+	/**
+	 * Parks the current thread until an element is available or the deadline
+	 * passes.
+	 *
+	 * @param deadline The {@code System.nanoTime()} deadline, or {@code 0} to wait
+	 *                 without a time limit
+	 * @return The retrieved element, or {@code null} if the deadline passed
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	private E await(long deadline) throws InterruptedException {
+		WaiterList.Waiter waiter = null;
+		E e = null;
+		try {
+			while (true) {
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+
+				e = _queue.poll();
+				if (e != null) {
+					return e;
+				}
+
+				if (waiter == null || !waiter.isWaiting()) {
+					// Poll again after registering, otherwise an insertion between the poll
+					// above and the registration would not wake this thread.
+					waiter = _waiters.register();
+					continue;
+				}
+
+				if (deadline == 0L) {
+					LockSupport.park(this);
+				} else {
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) {
+						return null;
+					}
+					LockSupport.parkNanos(this, remaining);
+				}
+			}
+		} finally {
+			// Only a timeout or an interrupt unlinks the registration right away.
+			if (waiter != null && _waiters.cancel(waiter, e == null) && !_queue.isEmpty()) {
+				// This thread may have consumed a wake-up meant for another waiter.
+				this.signalWaiter();
+			}
+		}
+	}
+
+	/**
+	 * Unparks the longest waiting thread, if any.
+	 */
+	private void signalWaiter() {
+		_waiters.signal();
+	}
+
+	/**
+	 * Retrieves, but does not remove, the head of the queue.
+	 *
+	 * @return The head of the queue, or {@code null} if the queue is empty
+	 */
+	@Override
+	public E peek() {
+		return _queue.peek();
+	}
+
+	/**
+	 * Returns the number of elements in the queue. This is an O(n) operation.
+	 *
+	 * @return The number of elements in the queue
+	 */
+	@Override
+	public int size() {
+		return _queue.size();
+	}
+
+	/**
+	 * Returns an iterator over the elements in the queue.
+	 *
+	 * @return A weakly consistent iterator
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return _queue.iterator();
+	}
+
+	/**
+	 * Returns {@code Integer.MAX_VALUE}, since the queue is unbounded.
+	 *
+	 * @return {@code Integer.MAX_VALUE}
+	 */
+	@Override
+	public int remainingCapacity() {
+		return Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Removes all available elements and adds them to the given collection.
+	 *
+	 * @param c The collection to transfer elements into
+	 * @return The number of elements transferred
+	 */
+	@Override
+	public int drainTo(Collection<? super E> c) {
+		return this.drainTo(c, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Removes at most the given number of available elements and adds them to the
+	 * given collection.
+	 *
+	 * @param c           The collection to transfer elements into
+	 * @param maxElements The maximum number of elements to transfer
+	 * @return The number of elements transferred
+	 */
+	@Override
+	public int drainTo(Collection<? super E> c, int maxElements) {
+		int n = 0;
+		E e;
+		while (n < maxElements && (e = _queue.poll()) != null) {
+			c.add(e);
+			n++;
+		}
+		return n;
+	}
+}
@@ -0,0 +1,50 @@
+package vc.liebrecht.queue;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Wait strategy that parks for a short, fixed time between attempts.
+ * <p>
+ * Waiting threads are never signalled; they poll the queue again after each
+ * park. Parked virtual threads release their carrier.
+ */
+public class ParkingWaitStrategy implements WaitStrategy {
+	private static final long PARK_NANOS = 1_000L;
+
+	/**
+	 * Retries the attempt with {@code LockSupport.parkNanos} between failures.
+	 *
+	 * @param attempt  The attempt to perform
+	 * @param deadline The deadline, or {@code 0} for no time limit
+	 * @param <T>      The result type of the attempt
+	 * @return The result, or {@code null} if the deadline passed
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	@Override
+	public <T> T waitFor(Supplier<T> attempt, long deadline) throws InterruptedException {
+		T result;
+		while ((result = attempt.get()) == null) {
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+			long parkNanos = PARK_NANOS;
+			if (deadline != 0L) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return null;
+				}
+				parkNanos = Math.min(parkNanos, remaining);
+			}
+			LockSupport.parkNanos(this, parkNanos);
+		}
+		return result;
+	}
+
+	/**
+	 * Does nothing, since parked threads wake up on their own.
+	 */
+	@Override
+	public void signal() {
+	}
+}
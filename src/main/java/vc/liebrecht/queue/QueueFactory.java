@@ -0,0 +1,23 @@
+package vc.liebrecht.queue;
+
+import java.util.concurrent.BlockingQueue;
+
+import vc.liebrecht.domain.Message;
+
+/**
+ * Factory interface for creating the queue that connects producers and
+ * consumers.
+ * <p>
+ * Analogous to the {@code ConsumerFactory}, this interface lets the benchmark
+ * depend on an abstraction instead of a concrete queue implementation.
+ */
+public interface QueueFactory {
+	/**
+	 * Creates a new, empty queue.
+	 *
+	 * @param capacity The capacity of the queue; ignored by unbounded and
+	 *                 zero-capacity queue types
+	 * @return A new {@code BlockingQueue} instance
+	 */
+	BlockingQueue<Message> createQueue(int capacity);
+}
@@ -0,0 +1,44 @@
+package vc.liebrecht.queue;
+
+/**
+ * Enumeration for the ways producers and consumers are connected by queues.
+ */
+public enum QueueTopology {
+	/**
+	 * All producers and consumers share a single queue.
+	 */
+	SHARED("Shared queue"),
+
+	/**
+	 * Every consumer owns a queue and only takes messages from it; producers
+	 * distribute their messages according to the routing policy.
+	 */
+	SHARDED("Sharded queues"),
+
+	/**
+	 * Like {@code SHARDED}, but an idle consumer steals messages from the
+	 * queues of its siblings.
+	 */
+	SHARDED_STEALING("Sharded queues with work stealing");
+
+	private final String _displayName;
+
+	/**
+	 * Constructs a queue topology.
+	 *
+	 * @param displayName The display name for this topology
+	 */
+	QueueTopology(String displayName) {
+		_displayName = displayName;
+	}
+
+	/**
+	 * Returns the display name of this topology.
+	 *
+	 * @return The display name of the topology
+	 */
+	@Override
+	public String toString() {
+		return _displayName;
+	}
+}
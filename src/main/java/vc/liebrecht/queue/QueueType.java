@@ -0,0 +1,64 @@
+package vc.liebrecht.queue;
+
+/**
+ * Enumeration for the queue implementations that can connect producers and
+ * consumers.
+ * <p>
+ * Each queue type represents a different hand-off mechanism, ranging from the
+ * single-lock {@code ArrayBlockingQueue} to the lock-free
+ * {@code ConcurrentLinkedQueue} and ring buffer. Running the same configuration with different
+ * queue types separates the effect of the thread model from the effect of lock
+ * contention on the queue.
+ */
+public enum QueueType {
+	/**
+	 * Bounded array-backed queue guarded by a single {@code ReentrantLock}.
+	 */
+	ARRAY_BLOCKING("ArrayBlockingQueue"),
+
+	/**
+	 * Linked queue with separate locks for the head and the tail.
+	 */
+	LINKED_BLOCKING("LinkedBlockingQueue"),
+
+	/**
+	 * Lock-free linked queue that supports direct hand-off to waiting consumers.
+	 */
+	LINKED_TRANSFER("LinkedTransferQueue"),
+
+	/**
+	 * Queue without capacity where every insert waits for a matching removal.
+	 */
+	SYNCHRONOUS("SynchronousQueue"),
+
+	/**
+	 * Lock-free {@code ConcurrentLinkedQueue} wrapped in a parking adapter.
+	 */
+	CONCURRENT_LINKED("ConcurrentLinkedQueue"),
+
+	/**
+	 * Lock-free, preallocated ring buffer coordinated by sequence counters.
+	 */
+	RING_BUFFER("RingBuffer");
+
+	private final String _displayName;
+
+	/**
+	 * Constructs a queue type.
+	 *
+	 * @param displayName The display name for this queue type
+	 */
+	QueueType(String displayName) {
+		_displayName = displayName;
+	}
+
+	/**
+	 * Returns the display name of this queue type.
+	 *
+	 * @return The display name of the queue type
+	 */
+	@Override
+	public String toString() {
+		return _displayName;
+	}
+}
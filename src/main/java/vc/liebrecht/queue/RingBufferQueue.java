@@ -0,0 +1,342 @@
+package vc.liebrecht.queue;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free, bounded multi-producer/multi-consumer ring buffer exposed as a
+ * {@code BlockingQueue}.
+ * <p>
+ * In the style of the LMAX Disruptor, the buffer is preallocated with a
+ * power-of-two number of slots and coordinated exclusively through sequence
+ * counters: a producer claims a slot by advancing the tail sequence with a CAS,
+ * a consumer claims a slot by advancing the head sequence. Every slot carries
+ * its own sequence number, which tells producers whether the slot is free and
+ * consumers whether it has been published. No lock or monitor is involved.
+ * <p>
+ * When the buffer is full or empty, the waiting thread is handled by a
+ * configurable {@code WaitStrategy}; the producer side and the consumer side use
+ * separate strategy instances.
+ * <p>
+ * A batch is published by claiming a contiguous range of slots with a single
+ * CAS on the tail sequence.
+ *
+ * @param <E> The type of elements held in this queue
+ */
+public class RingBufferQueue<E> extends AbstractQueue<E> implements BatchingQueue<E> {
+	private final Object[] _buffer;
+	private final AtomicLongArray _sequences;
+	private final int _mask;
+	private final AtomicLong _head;
+	private final AtomicLong _tail;
+	private final WaitStrategy _notEmpty;
+	private final WaitStrategy _notFull;
+
+	/**
+	 * Constructs a new ring buffer.
+	 *
+	 * @param capacity     The minimum capacity; rounded up to the next power of two
+	 * @param waitStrategy The wait strategy used for producers and consumers
+	 */
+	public RingBufferQueue(int capacity, WaitStrategyType waitStrategy) {
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+		}
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+
+		_buffer = new Object[size];
+		_sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			_sequences.set(i, i);
+		}
+		_mask = size - 1;
+		_head = new AtomicLong();
+		_tail = new AtomicLong();
+		_notEmpty = waitStrategy.create();
+		_notFull = waitStrategy.create();
+	}
+
+	/**
+	 * Inserts the element if a slot is free.
+	 *
+	 * @param e The element to insert
+	 * @return {@code true} if the element was inserted, {@code false} if the buffer
+	 *         is full
+	 */
+	@Override
+	public boolean offer(E e) {
+		if (e == null) {
+			throw new NullPointerException();
+		}
+
+		long tail = _tail.get();
+		while (true) {
+			int index = (int) tail & _mask;
+			long diff = _sequences.getAcquire(index) - tail;
+			if (diff == 0) {
+				if (_tail.compareAndSet(tail, tail + 1)) {
+					_buffer[index] = e;
+					_sequences.setRelease(index, tail + 1);
+					_notEmpty.signal();
+					return true;
+				}
+				tail = _tail.get();
+			} else if (diff < 0) {
+				return false;
+			} else {
+				tail = _tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Inserts all elements if enough slots are free, claiming the whole range with
+	 * a single CAS on the tail sequence.
+	 * <p>
+	 * A slot below {@code head + capacity} has been claimed by a consumer, but the
+	 * consumer may not have released it yet; in this case the producer spins
+	 * briefly until the slot's sequence shows it as free.
+	 *
+	 * @param elements The elements to insert
+	 * @return {@code true} if the elements were inserted, {@code false} if not
+	 *         enough slots are free
+	 */
+	private boolean offerAll(Collection<? extends E> elements) {
+		int n = elements.size();
+		long tail;
+		do {
+			tail = _tail.get();
+			if (tail + n - _head.get() > _buffer.length) {
+				return false;
+			}
+		} while (!_tail.compareAndSet(tail, tail + n));
+
+		long seq = tail;
+		for (E e : elements) {
+			int index = (int) seq & _mask;
+			while (_sequences.getAcquire(index) != seq) {
+				Thread.onSpinWait();
+			}
+			_buffer[index] = e;
+			_sequences.setRelease(index, seq + 1);
+			_notEmpty.signal();
+			seq++;
+		}
+		return true;
+	}
+
+	/**
+	 * Inserts all elements, waiting according to the wait strategy until enough
+	 * slots are free. Batches larger than the buffer are inserted one element at a
+	 * time.
+	 *
+	 * @param elements The elements to insert
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	@Override
+	public void putAll(Collection<? extends E> elements) throws InterruptedException {
+		if (elements.size() > _buffer.length) {
+			for (E e : elements) {
+				this.put(e);
+			}
+		} else if (!elements.isEmpty() && !this.offerAll(elements)) {
+			_notFull.waitFor(() -> this.offerAll(elements) ? Boolean.TRUE : null, 0L);
+		}
+	}
+
+	/**
+	 * Retrieves and removes the head of the queue if an element has been
+	 * published.
+	 *
+	 * @return The head of the queue, or {@code null} if the buffer is empty
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		long head = _head.get();
+		while (true) {
+			int index = (int) head & _mask;
+			long diff = _sequences.getAcquire(index) - (head + 1);
+			if (diff == 0) {
+				if (_head.compareAndSet(head, head + 1)) {
+					E e = (E) _buffer[index];
+					_buffer[index] = null;
+					_sequences.setRelease(index, head + _mask + 1);
+					_notFull.signal();
+					return e;
+				}
+				head = _head.get();
+			} else if (diff < 0) {
+				return null;
+			} else {
+				head = _head.get();
+			}
+		}
+	}
+
+	/**
+	 * Inserts the element, waiting according to the wait strategy while the
+	 * buffer is full.
+	 *
+	 * @param e The element to insert
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	@Override
+	public void put(E e) throws InterruptedException {
+		if (!this.offer(e)) {
+			_notFull.waitFor(() -> this.offer(e) ? Boolean.TRUE : null, 0L);
+		}
+	}
+
+	/**
+	 * Inserts the element, waiting up to the specified time while the buffer is
+	 * full.
+	 *
+	 * @param e       The element to insert
+	 * @param timeout The maximum time to wait
+	 * @param unit    The unit of the timeout
+	 * @return {@code true} if the element was inserted
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	@Override
+	public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+		if (this.offer(e)) {
+			return true;
+		}
+		if (timeout <= 0) {
+			return false;
+		}
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		return _notFull.waitFor(() -> this.offer(e) ? Boolean.TRUE : null, deadline) != null;
+	}
+
+	/**
+	 * Retrieves and removes the head of the queue, waiting according to the wait
+	 * strategy while the buffer is empty.
+	 *
+	 * @return The head of the queue
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	@Override
+	public E take() throws InterruptedException {
+		E e = this.poll();
+		if (e != null) {
+			return e;
+		}
+		return _notEmpty.waitFor(this::poll, 0L);
+	}
+
+	/**
+	 * Retrieves and removes the head of the queue, waiting up to the specified
+	 * time while the buffer is empty.
+	 *
+	 * @param timeout The maximum time to wait
+	 * @param unit    The unit of the timeout
+	 * @return The head of the queue, or {@code null} if the timeout elapsed
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		E e = this.poll();
+		if (e != null || timeout <= 0) {
+			return e;
+		}
+		return _notEmpty.waitFor(this::poll, System.nanoTime() + unit.toNanos(timeout));
+	}
+
+	/**
+	 * Retrieves, but does not remove, the head of the queue.
+	 *
+	 * @return The head of the queue, or {@code null} if the buffer is empty
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public E peek() {
+		long head = _head.get();
+		int index = (int) head & _mask;
+		if (_sequences.getAcquire(index) != head + 1) {
+			return null;
+		}
+		return (E) _buffer[index];
+	}
+
+	/**
+	 * Returns the number of claimed but not yet consumed slots.
+	 *
+	 * @return The approximate number of elements in the buffer
+	 */
+	@Override
+	public int size() {
+		long size = _tail.get() - _head.get();
+		return (int) Math.max(0, Math.min(size, _buffer.length));
+	}
+
+	/**
+	 * Returns the number of free slots.
+	 *
+	 * @return The approximate remaining capacity
+	 */
+	@Override
+	public int remainingCapacity() {
+		return _buffer.length - this.size();
+	}
+
+	/**
+	 * Returns an iterator over a snapshot of the published elements.
+	 *
+	 * @return An iterator over the elements at the time of the call
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Iterator<E> iterator() {
+		List<E> snapshot = new ArrayList<>();
+		long tail = _tail.get();
+		for (long seq = _head.get(); seq < tail; seq++) {
+			int index = (int) seq & _mask;
+			Object e = _buffer[index];
+			if (_sequences.getAcquire(index) == seq + 1 && e != null) {
+				snapshot.add((E) e);
+			}
+		}
+		return snapshot.iterator();
+	}
+
+	/**
+	 * Removes all available elements and adds them to the given collection.
+	 *
+	 * @param c The collection to transfer elements into
+	 * @return The number of elements transferred
+	 */
+	@Override
+	public int drainTo(Collection<? super E> c) {
+		return this.drainTo(c, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Removes at most the given number of available elements and adds them to the
+	 * given collection.
+	 *
+	 * @param c           The collection to transfer elements into
+	 * @param maxElements The maximum number of elements to transfer
+	 * @return The number of elements transferred
+	 */
+	@Override
+	public int drainTo(Collection<? super E> c, int maxElements) {
+		int n = 0;
+		E e;
+		while (n < maxElements && (e = this.poll()) != null) {
+			c.add(e);
+			n++;
+		}
+		return n;
+	}
+}
@@ -0,0 +1,46 @@
+package vc.liebrecht.queue;
+
+/**
+ * Enumeration for the policies producers use to choose the shard of a message
+ * in a sharded topology.
+ */
+public enum RoutingPolicy {
+	/**
+	 * Every producer cycles through all shards, starting at a different shard
+	 * per producer.
+	 */
+	ROUND_ROBIN("Round robin"),
+
+	/**
+	 * The shard is chosen by the hash of the message key, so that all messages
+	 * with the same key are consumed in order by the same consumer. Unless keys
+	 * are configured, the key of a message is the index of its producer.
+	 */
+	KEY_HASH("Key hash"),
+
+	/**
+	 * Every message is sent to a uniformly random shard.
+	 */
+	RANDOM("Random");
+
+	private final String _displayName;
+
+	/**
+	 * Constructs a routing policy.
+	 *
+	 * @param displayName The display name for this routing policy
+	 */
+	RoutingPolicy(String displayName) {
+		_displayName = displayName;
+	}
+
+	/**
+	 * Returns the display name of this routing policy.
+	 *
+	 * @return The display name of the routing policy
+	 */
+	@Override
+	public String toString() {
+		return _displayName;
+	}
+}
@@ -0,0 +1,351 @@
+package vc.liebrecht.queue;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import vc.liebrecht.domain.Message;
+
+/**
+ * A set of queue shards that connects producers and consumers.
+ * <p>
+ * Every consumer is assigned one shard, and every producer inserts through its
+ * own routing view, which chooses the shard of each message according to a
+ * {@code RoutingPolicy}. Since every producer has its own view, routing needs
+ * no shared state. With a single shard, the views are the shard itself, so the
+ * shared topology runs without any indirection.
+ * <p>
+ * Consumers either take messages only from their own shard, or, with work
+ * stealing, poll the shards of their siblings while their own is empty. A
+ * stealing consumer waits on its own shard for a short time before it scans
+ * the siblings again. Poison pills are never stolen: a consumer that polls a
+ * sibling's pill records it for its owner instead of consuming it, and the
+ * owner receives it on its next attempt to take a message.
+ */
+public class ShardedQueue {
+	/**
+	 * How long a stealing consumer waits on its own shard before it scans its
+	 * siblings again.
+	 */
+	private static final long STEAL_INTERVAL_MICROS = 100;
+
+	private final BlockingQueue<Message>[] _shards;
+	private final RoutingPolicy _routing;
+	private final boolean _stealing;
+	private final AtomicIntegerArray _stolenPills;
+
+	/**
+	 * Constructs the shards.
+	 *
+	 * @param factory  The factory that creates every shard
+	 * @param shards   The number of shards, one per consumer
+	 * @param capacity The capacity of every shard
+	 * @param routing  The policy producers use to choose a shard
+	 * @param stealing Whether idle consumers steal from sibling shards
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public ShardedQueue(QueueFactory factory, int shards, int capacity, RoutingPolicy routing, boolean stealing) {
+		_shards = new BlockingQueue[shards];
+		for (int i = 0; i < shards; i++) {
+			_shards[i] = factory.createQueue(capacity);
+		}
+		_routing = routing;
+		_stealing = stealing && shards > 1;
+		_stolenPills = new AtomicIntegerArray(shards);
+	}
+
+	/**
+	 * Returns the sink a producer inserts its messages into.
+	 *
+	 * @param producer The index of the producer
+	 * @return A routing view over all shards, or the only shard
+	 */
+	public Sink<Message> producerSink(int producer) {
+		return _shards.length == 1 ? Sink.of(_shards[0]) : new RoutingView(producer);
+	}
+
+	/**
+	 * Returns the queue a consumer takes its messages from. Insertions into this
+	 * queue, such as poison pills, go to the consumer's own shard.
+	 *
+	 * @param consumer The index of the consumer
+	 * @return The consumer's shard, or a stealing view over all shards
+	 */
+	public BlockingQueue<Message> consumerQueue(int consumer) {
+		int shard = consumer % _shards.length;
+		return _stealing ? new StealingView(shard) : _shards[shard];
+	}
+
+	/**
+	 * Inserts messages into the shard chosen by a {@code RoutingPolicy}.
+	 */
+	private final class RoutingView implements Sink<Message> {
+		private int _next;
+
+		/**
+		 * Constructs the view of a producer.
+		 *
+		 * @param producer The index of the producer
+		 */
+		private RoutingView(int producer) {
+			_next = producer % _shards.length;
+		}
+
+		/**
+		 * Chooses the shard of the next message or chunk.
+		 *
+		 * @param m The message, or the first message of the chunk
+		 * @return The shard
+		 */
+		private BlockingQueue<Message> route(Message m) {
+			return switch (_routing) {
+				case ROUND_ROBIN -> {
+					BlockingQueue<Message> shard = _shards[_next];
+					_next = _next + 1 == _shards.length ? 0 : _next + 1;
+					yield shard;
+				}
+				case KEY_HASH -> _shards[Math.floorMod(Long.hashCode(m.key() * 0x9E3779B97F4A7C15L), _shards.length)];
+				case RANDOM -> _shards[ThreadLocalRandom.current().nextInt(_shards.length)];
+			};
+		}
+
+		/**
+		 * Inserts a message into the shard chosen for it, waiting if necessary for
+		 * space in that shard.
+		 *
+		 * @param m The message to insert
+		 * @throws InterruptedException If the thread is interrupted while waiting
+		 */
+		@Override
+		public void put(Message m) throws InterruptedException {
+			this.route(m).put(m);
+		}
+
+		/**
+		 * Inserts a whole chunk into a single shard, with one bulk operation if the
+		 * shard supports it. With key hash routing, the messages of a chunk may
+		 * have different keys, so every message is inserted into its own shard.
+		 *
+		 * @param elements The messages to insert
+		 * @throws InterruptedException If the thread is interrupted while waiting
+		 */
+		@Override
+		public void putAll(Collection<? extends Message> elements) throws InterruptedException {
+			if (_routing == RoutingPolicy.KEY_HASH) {
+				for (Message m : elements) {
+					this.put(m);
+				}
+				return;
+			}
+			if (elements.isEmpty()) {
+				return;
+			}
+			Sink.of(this.route(elements.iterator().next())).putAll(elements);
+		}
+	}
+
+	/**
+	 * Takes messages from a consumer's own shard and steals from its siblings
+	 * while the own shard is empty.
+	 */
+	private final class StealingView extends AbstractQueue<Message> implements BlockingQueue<Message> {
+		private final int _shard;
+		private final BlockingQueue<Message> _own;
+
+		/**
+		 * Constructs the view of a consumer.
+		 *
+		 * @param shard The index of the consumer's own shard
+		 */
+		private StealingView(int shard) {
+			_shard = shard;
+			_own = _shards[shard];
+		}
+
+		/**
+		 * Polls the own shard, then every sibling, starting at a random one.
+		 *
+		 * @return A message, a poison pill of the own shard that a sibling stole,
+		 *         or {@code null} if all shards are empty
+		 */
+		@Override
+		public Message poll() {
+			if (_stolenPills.get(_shard) > 0 && _stolenPills.getAndDecrement(_shard) > 0) {
+				return Message.POISON_PILL;
+			}
+			Message m = _own.poll();
+			if (m != null) {
+				return m;
+			}
+			int start = ThreadLocalRandom.current().nextInt(_shards.length);
+			for (int i = 0; i < _shards.length; i++) {
+				int victim = (start + i) % _shards.length;
+				if (victim == _shard) {
+					continue;
+				}
+				m = _shards[victim].poll();
+				if (m == Message.POISON_PILL) {
+					_stolenPills.incrementAndGet(victim);
+				} else if (m != null) {
+					return m;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Waits for a message, stealing between short waits on the own shard.
+		 *
+		 * @return The next message
+		 * @throws InterruptedException If the thread is interrupted while waiting
+		 */
+		@Override
+		public Message take() throws InterruptedException {
+			while (true) {
+				Message m = this.poll();
+				if (m == null) {
+					m = _own.poll(STEAL_INTERVAL_MICROS, TimeUnit.MICROSECONDS);
+				}
+				if (m != null) {
+					return m;
+				}
+			}
+		}
+
+		/**
+		 * Waits up to the given time for a message, stealing between short waits
+		 * on the own shard.
+		 *
+		 * @param timeout The maximum time to wait
+		 * @param unit    The unit of the timeout
+		 * @return The next message, or {@code null} if the timeout elapsed
+		 * @throws InterruptedException If the thread is interrupted while waiting
+		 */
+		@Override
+		public Message poll(long timeout, TimeUnit unit) throws InterruptedException {
+			long deadline = System.nanoTime() + unit.toNanos(timeout);
+			while (true) {
+				Message m = this.poll();
+				if (m != null) {
+					return m;
+				}
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return null;
+				}
+				m = _own.poll(Math.min(remaining, TimeUnit.MICROSECONDS.toNanos(STEAL_INTERVAL_MICROS)),
+						TimeUnit.NANOSECONDS);
+				if (m != null) {
+					return m;
+				}
+			}
+		}
+
+		/**
+		 * Inserts a message, such as a poison pill, into the own shard.
+		 *
+		 * @param m The message to insert
+		 * @throws InterruptedException If the thread is interrupted while waiting
+		 */
+		@Override
+		public void put(Message m) throws InterruptedException {
+			_own.put(m);
+		}
+
+		/**
+		 * Inserts a message into the own shard if it has space.
+		 *
+		 * @param m The message to insert
+		 * @return {@code true} if the message was inserted
+		 */
+		@Override
+		public boolean offer(Message m) {
+			return _own.offer(m);
+		}
+
+		/**
+		 * Inserts a message into the own shard, waiting up to the given time for
+		 * space.
+		 *
+		 * @param m       The message to insert
+		 * @param timeout The maximum time to wait
+		 * @param unit    The unit of the timeout
+		 * @return {@code true} if the message was inserted
+		 * @throws InterruptedException If the thread is interrupted while waiting
+		 */
+		@Override
+		public boolean offer(Message m, long timeout, TimeUnit unit) throws InterruptedException {
+			return _own.offer(m, timeout, unit);
+		}
+
+		/**
+		 * Returns the head of the own shard without removing it. Sibling shards
+		 * are not inspected.
+		 *
+		 * @return The head of the own shard, or {@code null} if it is empty
+		 */
+		@Override
+		public Message peek() {
+			return _own.peek();
+		}
+
+		/**
+		 * Removes all available messages of the own shard. Batching consumers
+		 * call this after {@code take}, so a batch is only topped up from the own
+		 * shard and never steals.
+		 *
+		 * @param c The collection to add the messages to
+		 * @return The number of messages transferred
+		 */
+		@Override
+		public int drainTo(Collection<? super Message> c) {
+			return _own.drainTo(c);
+		}
+
+		/**
+		 * Removes up to the given number of available messages of the own shard.
+		 *
+		 * @param c           The collection to add the messages to
+		 * @param maxElements The maximum number of messages to transfer
+		 * @return The number of messages transferred
+		 */
+		@Override
+		public int drainTo(Collection<? super Message> c, int maxElements) {
+			return _own.drainTo(c, maxElements);
+		}
+
+		/**
+		 * Returns the remaining capacity of the own shard.
+		 *
+		 * @return The number of messages the own shard can accept without blocking
+		 */
+		@Override
+		public int remainingCapacity() {
+			return _own.remainingCapacity();
+		}
+
+		/**
+		 * Returns an iterator over the messages of the own shard.
+		 *
+		 * @return The iterator
+		 */
+		@Override
+		public Iterator<Message> iterator() {
+			return _own.iterator();
+		}
+
+		/**
+		 * Returns the number of messages in the own shard.
+		 *
+		 * @return The size of the own shard
+		 */
+		@Override
+		public int size() {
+			return _own.size();
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package vc.liebrecht.queue;
+
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The insertion side of a queue, which is all a producer needs.
+ * <p>
+ * Every {@code BatchingQueue} is a sink. Other queues are adapted with
+ * {@link #of(BlockingQueue)}, and views that route each element to one of
+ * several queues implement this interface directly instead of pretending to be
+ * a queue themselves.
+ *
+ * @param <E> The type of elements accepted by this sink
+ */
+public interface Sink<E> {
+	/**
+	 * Inserts an element, waiting if necessary for space to become available.
+	 *
+	 * @param e The element to insert
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	void put(E e) throws InterruptedException;
+
+	/**
+	 * Inserts all given elements, waiting if necessary for space to become
+	 * available. The elements are published in iteration order.
+	 * <p>
+	 * The default implementation inserts one element after the other; sinks that
+	 * can publish a batch in one operation override it.
+	 *
+	 * @param elements The elements to insert
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	default void putAll(Collection<? extends E> elements) throws InterruptedException {
+		for (E e : elements) {
+			this.put(e);
+		}
+	}
+
+	/**
+	 * Returns a sink that inserts into the given queue. A {@code BatchingQueue}
+	 * is returned as it is; any other queue inserts a batch with one
+	 * {@code put} per element.
+	 *
+	 * @param <E>   The type of elements held in the queue
+	 * @param queue The queue to insert into
+	 * @return The sink
+	 */
+	static <E> Sink<E> of(BlockingQueue<E> queue) {
+		if (queue instanceof BatchingQueue<E> batchingQueue) {
+			return batchingQueue;
+		}
+		return queue::put;
+	}
+}
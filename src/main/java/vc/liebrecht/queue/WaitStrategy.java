@@ -0,0 +1,35 @@
+package vc.liebrecht.queue;
+
+import java.util.function.Supplier;
+
+/**
+ * Strategy that determines how a thread waits for a {@code RingBufferQueue} to
+ * become ready, i.e. non-empty for consumers or non-full for producers.
+ * <p>
+ * A wait strategy repeatedly invokes an attempt until it succeeds and decides
+ * what the thread does between two failed attempts: spin, yield, park for a
+ * fixed time or park until it is signalled. Instances may keep state (such as a
+ * list of parked threads) and must therefore not be shared between the producer
+ * and the consumer side of a queue.
+ */
+public interface WaitStrategy {
+	/**
+	 * Repeatedly invokes the attempt until it returns a non-null result, waiting
+	 * between failed attempts.
+	 *
+	 * @param attempt  The attempt to perform; returns {@code null} on failure
+	 * @param deadline The {@code System.nanoTime()} deadline, or {@code 0} to wait
+	 *                 without a time limit
+	 * @param <T>      The result type of the attempt
+	 * @return The result of the first successful attempt, or {@code null} if the
+	 *         deadline passed
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	<T> T waitFor(Supplier<T> attempt, long deadline) throws InterruptedException;
+
+	/**
+	 * Signals that the state of the queue has changed, so that a waiting thread
+	 * may retry. Strategies that never park ignore the signal.
+	 */
+	void signal();
+}
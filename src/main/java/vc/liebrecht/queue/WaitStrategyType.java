@@ -0,0 +1,64 @@
+package vc.liebrecht.queue;
+
+/**
+ * Enumeration for the wait strategies supported by the {@code RingBufferQueue}.
+ * <p>
+ * The spinning strategies never release the carrier thread of a virtual thread,
+ * whereas the parking strategies unmount the virtual thread while it waits.
+ */
+public enum WaitStrategyType {
+	/**
+	 * Spins in a tight loop with {@code Thread.onSpinWait()}.
+	 */
+	BUSY_SPIN("Busy spin"),
+
+	/**
+	 * Calls {@code Thread.yield()} between attempts.
+	 */
+	YIELD("Yield"),
+
+	/**
+	 * Parks for a short, fixed time with {@code LockSupport.parkNanos}.
+	 */
+	PARK_NANOS("Park nanos"),
+
+	/**
+	 * Parks until signalled, without using a lock or monitor.
+	 */
+	BLOCKING("Blocking");
+
+	private final String _displayName;
+
+	/**
+	 * Constructs a wait strategy type.
+	 *
+	 * @param displayName The display name for this wait strategy type
+	 */
+	WaitStrategyType(String displayName) {
+		_displayName = displayName;
+	}
+
+	/**
+	 * Creates a new wait strategy instance of this type.
+	 *
+	 * @return A new {@code WaitStrategy}
+	 */
+	public WaitStrategy create() {
+		return switch (this) {
+			case BUSY_SPIN -> new BusySpinWaitStrategy();
+			case YIELD -> new YieldingWaitStrategy();
+			case PARK_NANOS -> new ParkingWaitStrategy();
+			case BLOCKING -> new BlockingWaitStrategy();
+		};
+	}
+
+	/**
+	 * Returns the display name of this wait strategy type.
+	 *
+	 * @return The display name of the wait strategy type
+	 */
+	@Override
+	public String toString() {
+		return _displayName;
+	}
+}
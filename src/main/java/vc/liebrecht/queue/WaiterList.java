@@ -0,0 +1,97 @@
+package vc.liebrecht.queue;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A lock-free list of parked threads, woken in the order they registered.
+ * <p>
+ * Every registration adds a node with a waiting flag. A signal takes nodes
+ * from the head and unparks the thread of the first node whose flag it clears.
+ * A thread that stops waiting on its own clears the flag of its node instead,
+ * so that later signals skip it; the node is only unlinked right away after a
+ * timeout or an interrupt. Thus neither a wake-up nor a successful retry scans
+ * the list, which would cost O(n) with thousands of parked consumers.
+ */
+final class WaiterList {
+	private final ConcurrentLinkedQueue<Waiter> _waiters;
+
+	/**
+	 * The registration of a parked thread.
+	 */
+	static final class Waiter {
+		private final Thread _thread;
+		private final AtomicBoolean _waiting;
+
+		/**
+		 * Constructs a registration of the current thread.
+		 */
+		private Waiter() {
+			_thread = Thread.currentThread();
+			_waiting = new AtomicBoolean(true);
+		}
+
+		/**
+		 * Returns whether the registration is still waiting for a signal.
+		 *
+		 * @return {@code false} once the thread has been signalled or has cancelled
+		 */
+		boolean isWaiting() {
+			return _waiting.get();
+		}
+	}
+
+	/**
+	 * Constructs an empty list.
+	 */
+	WaiterList() {
+		_waiters = new ConcurrentLinkedQueue<>();
+	}
+
+	/**
+	 * Registers the current thread. The caller must re-check its condition
+	 * before it parks, since a signal sent before the registration is not
+	 * delivered to it.
+	 *
+	 * @return The registration
+	 */
+	Waiter register() {
+		Waiter waiter = new Waiter();
+		_waiters.offer(waiter);
+		return waiter;
+	}
+
+	/**
+	 * Unparks the longest waiting thread, if any, and discards the cancelled
+	 * registrations in front of it.
+	 */
+	void signal() {
+		Waiter waiter;
+		while ((waiter = _waiters.poll()) != null) {
+			if (waiter._waiting.compareAndSet(true, false)) {
+				LockSupport.unpark(waiter._thread);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Withdraws a registration of the current thread.
+	 *
+	 * @param waiter The registration
+	 * @param unlink Whether to unlink the registration now, which costs O(n);
+	 *               otherwise it is discarded by a later signal
+	 * @return {@code true} if the thread had been signalled, so that it may have
+	 *         consumed a wake-up meant for another waiter
+	 */
+	boolean cancel(Waiter waiter, boolean unlink) {
+		if (waiter._waiting.compareAndSet(true, false)) {
+			if (unlink) {
+				_waiters.remove(waiter);
+			}
+			return false;
+		}
+		return true;
+	}
+}
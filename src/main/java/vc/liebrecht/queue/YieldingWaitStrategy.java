@@ -0,0 +1,43 @@
+package vc.liebrecht.queue;
+
+import java.util.function.Supplier;
+
+/**
+ * Wait strategy that yields between attempts.
+ * <p>
+ * On a platform thread this gives the operating system a chance to schedule
+ * another thread. On a virtual thread, {@code Thread.yield()} hands the carrier
+ * to another runnable virtual thread, if there is one.
+ */
+public class YieldingWaitStrategy implements WaitStrategy {
+	/**
+	 * Retries the attempt with {@code Thread.yield()} between failures.
+	 *
+	 * @param attempt  The attempt to perform
+	 * @param deadline The deadline, or {@code 0} for no time limit
+	 * @param <T>      The result type of the attempt
+	 * @return The result, or {@code null} if the deadline passed
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	@Override
+	public <T> T waitFor(Supplier<T> attempt, long deadline) throws InterruptedException {
+		T result;
+		while ((result = attempt.get()) == null) {
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+			if (deadline != 0L && System.nanoTime() - deadline >= 0) {
+				return null;
+			}
+			Thread.yield();
+		}
+		return result;
+	}
+
+	/**
+	 * Does nothing, since yielding threads never need to be woken up.
+	 */
+	@Override
+	public void signal() {
+	}
+}
@@ -0,0 +1,320 @@
+package vc.liebrecht.writer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON support for the result export, without external dependencies.
+ * <p>
+ * Values are represented by plain Java types: objects as {@code Map} with
+ * {@code String} keys, arrays as {@code List}, strings as {@code String},
+ * numbers as {@code Number}, booleans as {@code Boolean} and {@code null}.
+ * Parsed numbers are always {@code Double}. Non-finite numbers, which JSON
+ * cannot represent, are written as {@code null}.
+ */
+public final class Json {
+	/**
+	 * Prevents instantiation.
+	 */
+	private Json() {
+	}
+
+	/**
+	 * Serializes a value as indented JSON.
+	 *
+	 * @param value The value to serialize
+	 * @return The JSON text
+	 * @throws IllegalArgumentException If the value contains an unsupported type
+	 */
+	public static String write(Object value) {
+		StringBuilder out = new StringBuilder();
+		write(value, out, 0);
+		return out.append('\n').toString();
+	}
+
+	/**
+	 * Serializes a value at the given indentation level.
+	 *
+	 * @param value  The value to serialize
+	 * @param out    The builder to append to
+	 * @param indent The indentation level of the value
+	 */
+	private static void write(Object value, StringBuilder out, int indent) {
+		if (value == null) {
+			out.append("null");
+		} else if (value instanceof String s) {
+			quote(s, out);
+		} else if (value instanceof Double d && !Double.isFinite(d)) {
+			out.append("null");
+		} else if (value instanceof Number || value instanceof Boolean) {
+			out.append(value);
+		} else if (value instanceof Map<?, ?> map) {
+			out.append('{');
+			String separator = "\n";
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				out.append(separator).append("  ".repeat(indent + 1));
+				quote(String.valueOf(entry.getKey()), out);
+				out.append(": ");
+				write(entry.getValue(), out, indent + 1);
+				separator = ",\n";
+			}
+			out.append(map.isEmpty() ? "" : "\n" + "  ".repeat(indent)).append('}');
+		} else if (value instanceof List<?> list) {
+			out.append('[');
+			for (int i = 0; i < list.size(); i++) {
+				out.append(i == 0 ? "" : ", ");
+				write(list.get(i), out, indent + 1);
+			}
+			out.append(']');
+		} else {
+			throw new IllegalArgumentException("Unsupported JSON value: " + value.getClass().getName());
+		}
+	}
+
+	/**
+	 * Appends a string literal with all necessary escapes.
+	 *
+	 * @param s   The string
+	 * @param out The builder to append to
+	 */
+	private static void quote(String s, StringBuilder out) {
+		out.append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+				case '"' -> out.append("\\\"");
+				case '\\' -> out.append("\\\\");
+				case '\n' -> out.append("\\n");
+				case '\r' -> out.append("\\r");
+				case '\t' -> out.append("\\t");
+				default -> {
+					if (c < 0x20) {
+						out.append("\\u%04x".formatted((int) c));
+					} else {
+						out.append(c);
+					}
+				}
+			}
+		}
+		out.append('"');
+	}
+
+	/**
+	 * Parses a JSON text.
+	 *
+	 * @param text The JSON text
+	 * @return The parsed value
+	 * @throws IllegalArgumentException If the text is not valid JSON
+	 */
+	public static Object parse(String text) {
+		Parser parser = new Parser(text);
+		Object value = parser.value();
+		parser.skipWhitespace();
+		if (parser._pos != text.length()) {
+			throw parser.error("Unexpected trailing content");
+		}
+		return value;
+	}
+
+	/**
+	 * A recursive-descent parser over a JSON text.
+	 */
+	private static final class Parser {
+		private final String _text;
+		private int _pos;
+
+		/**
+		 * Constructs a parser positioned at the start of the text.
+		 *
+		 * @param text The JSON text
+		 */
+		private Parser(String text) {
+			_text = text;
+		}
+
+		/**
+		 * Parses the value at the current position.
+		 *
+		 * @return The parsed value
+		 */
+		private Object value() {
+			this.skipWhitespace();
+			if (_pos >= _text.length()) {
+				throw this.error("Unexpected end of input");
+			}
+			char c = _text.charAt(_pos);
+			return switch (c) {
+				case '{' -> this.object();
+				case '[' -> this.array();
+				case '"' -> this.string();
+				case 't' -> this.literal("true", Boolean.TRUE);
+				case 'f' -> this.literal("false", Boolean.FALSE);
+				case 'n' -> this.literal("null", null);
+				default -> this.number();
+			};
+		}
+
+		/**
+		 * Parses an object.
+		 *
+		 * @return The members in their original order
+		 */
+		private Map<String, Object> object() {
+			Map<String, Object> map = new LinkedHashMap<>();
+			_pos++;
+			this.skipWhitespace();
+			if (this.consume('}')) {
+				return map;
+			}
+			do {
+				this.skipWhitespace();
+				String key = this.string();
+				this.skipWhitespace();
+				this.expect(':');
+				map.put(key, this.value());
+				this.skipWhitespace();
+			} while (this.consume(','));
+			this.expect('}');
+			return map;
+		}
+
+		/**
+		 * Parses an array.
+		 *
+		 * @return The elements
+		 */
+		private List<Object> array() {
+			List<Object> list = new ArrayList<>();
+			_pos++;
+			this.skipWhitespace();
+			if (this.consume(']')) {
+				return list;
+			}
+			do {
+				list.add(this.value());
+				this.skipWhitespace();
+			} while (this.consume(','));
+			this.expect(']');
+			return list;
+		}
+
+		/**
+		 * Parses a string literal.
+		 *
+		 * @return The unescaped string
+		 */
+		private String string() {
+			this.expect('"');
+			StringBuilder s = new StringBuilder();
+			while (_pos < _text.length()) {
+				char c = _text.charAt(_pos++);
+				if (c == '"') {
+					return s.toString();
+				}
+				if (c != '\\') {
+					s.append(c);
+					continue;
+				}
+				if (_pos >= _text.length()) {
+					break;
+				}
+				char escape = _text.charAt(_pos++);
+				switch (escape) {
+					case 'b' -> s.append('\b');
+					case 'f' -> s.append('\f');
+					case 'n' -> s.append('\n');
+					case 'r' -> s.append('\r');
+					case 't' -> s.append('\t');
+					case 'u' -> {
+						if (_pos + 4 > _text.length()) {
+							throw this.error("Invalid unicode escape");
+						}
+						s.append((char) Integer.parseInt(_text.substring(_pos, _pos + 4), 16));
+						_pos += 4;
+					}
+					default -> s.append(escape);
+				}
+			}
+			throw this.error("Unterminated string");
+		}
+
+		/**
+		 * Parses a number.
+		 *
+		 * @return The number as {@code Double}
+		 */
+		private Double number() {
+			int start = _pos;
+			while (_pos < _text.length() && "+-0123456789.eE".indexOf(_text.charAt(_pos)) >= 0) {
+				_pos++;
+			}
+			try {
+				return Double.valueOf(_text.substring(start, _pos));
+			} catch (NumberFormatException e) {
+				_pos = start;
+				throw this.error("Invalid value");
+			}
+		}
+
+		/**
+		 * Parses a keyword literal.
+		 *
+		 * @param keyword The expected keyword
+		 * @param value   The value of the keyword
+		 * @return The value
+		 */
+		private Object literal(String keyword, Object value) {
+			if (!_text.startsWith(keyword, _pos)) {
+				throw this.error("Invalid value");
+			}
+			_pos += keyword.length();
+			return value;
+		}
+
+		/**
+		 * Skips whitespace at the current position.
+		 */
+		private void skipWhitespace() {
+			while (_pos < _text.length() && Character.isWhitespace(_text.charAt(_pos))) {
+				_pos++;
+			}
+		}
+
+		/**
+		 * Consumes the given character if it is at the current position.
+		 *
+		 * @param c The character
+		 * @return {@code true} if the character was consumed
+		 */
+		private boolean consume(char c) {
+			if (_pos < _text.length() && _text.charAt(_pos) == c) {
+				_pos++;
+				return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Consumes the given character or fails.
+		 *
+		 * @param c The expected character
+		 */
+		private void expect(char c) {
+			if (!this.consume(c)) {
+				throw this.error("Expected '" + c + "'");
+			}
+		}
+
+		/**
+		 * Creates an exception for a syntax error at the current position.
+		 *
+		 * @param message The description of the error
+		 * @return The exception
+		 */
+		private IllegalArgumentException error(String message) {
+			return new IllegalArgumentException(message + " at position " + _pos);
+		}
+	}
+}
@@ -0,0 +1,297 @@
+package vc.liebrecht.writer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import vc.liebrecht.config.BenchmarkConfig;
+import vc.liebrecht.engine.BenchmarkResult;
+import vc.liebrecht.engine.BenchmarkStatistics;
+import vc.liebrecht.engine.Phase;
+import vc.liebrecht.executor.ExecutorType;
+import vc.liebrecht.metrics.ConfidenceInterval;
+import vc.liebrecht.metrics.EnvironmentInfo;
+import vc.liebrecht.metrics.LatencyHistogram;
+import vc.liebrecht.metrics.RunningStats;
+import vc.liebrecht.metrics.StageMetrics;
+
+/**
+ * Exports benchmark results as CSV and JSON files.
+ * <p>
+ * The CSV file {@code producer_consumer_benchmark_<timestamp>.csv} contains one
+ * row per measured run and executor type, together with the full configuration
+ * and the environment it was measured in. The JSON file
+ * {@code summary_<timestamp>.json} contains one entry per configuration with the
+ * aggregated statistics of every executor type, including the individual run
+ * durations, the round-trip latencies in request/response mode and, for
+ * pipelines, the metrics of every stage; it serves as the baseline of
+ * {@code BaselineComparator}.
+ * <p>
+ * Configurations are identified across files by their scenario key, which
+ * consists of all options that define the workload and the JVM, but not of the
+ * options that only control how it is measured, the compared executor types,
+ * or machine-specific paths.
+ */
+public class ResultWriter {
+	private static final Set<String> NON_SCENARIO_OPTIONS = Set.of("--numRuns", "--adaptive", "--ciWidth",
+			"--ciEstimator", "--maxRuns", "--maxWarmups", "--warmupWindow", "--warmupTolerance", "--jfr",
+			"--fileDirectory", "--executors");
+	private static final String CSV_HEADER = "timestamp,scenario,executorType,gc,heapSize,numProducers,numConsumers,"
+			+ "consumerType,queueType,payloadMode,payloadSizeBytes,messagesPerProducer,totalMessages,runIndex,"
+			+ "durationMs,meanMs,medianMs,stddevMs,throughputMsgsPerSec,creationMs,submissionMs,firstMessageMs,"
+			+ "drainMs,shutdownMs,jdkVersion,jdkVendor,cores,"
+			+ "garbageCollectors,jvmFlags,config";
+
+	private final Path _directory;
+	private final String _timestamp;
+
+	/**
+	 * Constructs a new writer for the given directory. The timestamp of the file
+	 * names is taken when the writer is created.
+	 *
+	 * @param directory The directory to write the files to; created if missing
+	 */
+	public ResultWriter(Path directory) {
+		_directory = directory;
+		_timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+	}
+
+	/**
+	 * Returns the key that identifies the scenario of a configuration.
+	 *
+	 * @param config The configuration
+	 * @return The workload and JVM options of the configuration as a single line
+	 */
+	public static String scenarioKey(BenchmarkConfig config) {
+		List<String> args = config.toArgs();
+		StringBuilder key = new StringBuilder();
+		for (int i = 0; i + 1 < args.size(); i += 2) {
+			if (!NON_SCENARIO_OPTIONS.contains(args.get(i)) && !args.get(i + 1).isEmpty()) {
+				key.append(key.isEmpty() ? "" : " ").append(args.get(i)).append(' ').append(args.get(i + 1));
+			}
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Writes one CSV row per measured run of every executor type.
+	 *
+	 * @param results The benchmark results
+	 * @return The path of the written file
+	 * @throws IOException If the file cannot be written
+	 */
+	public Path writeCsv(List<BenchmarkResult> results) throws IOException {
+		Files.createDirectories(_directory);
+		Path file = _directory.resolve("producer_consumer_benchmark_" + _timestamp + ".csv");
+		try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+			writer.write(CSV_HEADER);
+			writer.newLine();
+			for (BenchmarkResult result : results) {
+				BenchmarkConfig config = result.config();
+				EnvironmentInfo env = result.environment();
+				long totalMessages = (long) config.getProducers() * config.getMessagesPerProducer();
+				for (Map.Entry<ExecutorType, BenchmarkStatistics> entry : result.statistics().entrySet()) {
+					BenchmarkStatistics stats = entry.getValue();
+					RunningStats durations = stats.getDurations();
+					for (int run = 0; run < durations.count(); run++) {
+						double durationMs = durations.get(run) / 1_000_000.0;
+						List<Object> row = new ArrayList<>(List.of(_timestamp, scenarioKey(config),
+								entry.getKey().name(), config.getGc().name(), config.getHeapSize(),
+								config.getProducers(), config.getConsumers(), config.getConsumerType().name(),
+								config.getQueueType().name(), config.getPayloadMode().name(), config.getPayloadSize(),
+								config.getMessagesPerProducer(), totalMessages, run, durationMs,
+								stats.averageDurationMs(), stats.medianDurationMs(), stats.stddevDurationMs(),
+								durationMs == 0.0 ? 0.0 : totalMessages / (durationMs / 1_000.0)));
+						for (Phase phase : Phase.values()) {
+							row.add(stats.getPhase(phase).get(run) / 1_000_000.0);
+						}
+						row.addAll(List.of(env.jdkVersion(), env.jdkVendor(), env.cores(),
+								String.join(" ", env.garbageCollectors()), String.join(" ", env.jvmFlags()),
+								String.join(" ", config.toArgs())));
+						writer.write(csvRow(row));
+						writer.newLine();
+					}
+				}
+			}
+		}
+		return file;
+	}
+
+	/**
+	 * Writes the aggregated statistics of every configuration as JSON.
+	 *
+	 * @param results The benchmark results
+	 * @return The path of the written file
+	 * @throws IOException If the file cannot be written
+	 */
+	public Path writeJson(List<BenchmarkResult> results) throws IOException {
+		List<Object> entries = new ArrayList<>();
+		for (BenchmarkResult result : results) {
+			Map<String, Object> executors = new LinkedHashMap<>();
+			for (Map.Entry<ExecutorType, BenchmarkStatistics> entry : result.statistics().entrySet()) {
+				executors.put(entry.getKey().name(), summarize(result.config(), entry.getValue()));
+			}
+
+			Map<String, Object> entry = new LinkedHashMap<>();
+			entry.put("scenario", scenarioKey(result.config()));
+			entry.put("config", configMap(result.config()));
+			entry.put("environment", environmentMap(result.environment()));
+			entry.put("executors", executors);
+			entries.add(entry);
+		}
+
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("timestamp", _timestamp);
+		summary.put("results", entries);
+
+		Files.createDirectories(_directory);
+		Path file = _directory.resolve("summary_" + _timestamp + ".json");
+		Files.writeString(file, Json.write(summary));
+		return file;
+	}
+
+	/**
+	 * Summarizes the statistics of one executor type.
+	 *
+	 * @param config The configuration the statistics were measured with
+	 * @param stats  The statistics
+	 * @return The JSON object of the executor type
+	 */
+	private static Map<String, Object> summarize(BenchmarkConfig config, BenchmarkStatistics stats) {
+		RunningStats durations = stats.getDurations();
+		List<Object> durationsMs = new ArrayList<>(durations.count());
+		for (int run = 0; run < durations.count(); run++) {
+			durationsMs.add(durations.get(run) / 1_000_000.0);
+		}
+		ConfidenceInterval ci = stats.confidenceInterval();
+		LatencyHistogram latency = stats.getLatency().getCompletionLatency();
+		double totalMessages = (double) config.getProducers() * config.getMessagesPerProducer();
+		double medianMs = stats.medianDurationMs();
+
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("runs", durations.count());
+		summary.put("meanMs", stats.averageDurationMs());
+		summary.put("medianMs", medianMs);
+		summary.put("stddevMs", stats.stddevDurationMs());
+		summary.put("minMs", durations.min() / 1_000_000.0);
+		summary.put("maxMs", durations.max() / 1_000_000.0);
+		summary.put("ciEstimator", stats.getEstimator().name());
+		summary.put("ciLowerMs", ci.lower() / 1_000_000.0);
+		summary.put("ciUpperMs", ci.upper() / 1_000_000.0);
+		summary.put("throughputMsgsPerSec", stats.messageThroughput());
+		summary.put("medianThroughputMsgsPerSec", medianMs == 0.0 ? 0.0 : totalMessages / (medianMs / 1_000.0));
+		summary.put("latencyP50Us", latency.valueAtPercentile(50.0) / 1_000.0);
+		summary.put("latencyP99Us", latency.valueAtPercentile(99.0) / 1_000.0);
+		summary.put("latencyP999Us", latency.valueAtPercentile(99.9) / 1_000.0);
+		summary.put("latencyMaxUs", latency.getMax() / 1_000.0);
+		LatencyHistogram roundTrip = stats.getLatency().getRoundTripLatency();
+		if (roundTrip.getCount() > 0) {
+			summary.put("roundTripP50Us", roundTrip.valueAtPercentile(50.0) / 1_000.0);
+			summary.put("roundTripP99Us", roundTrip.valueAtPercentile(99.0) / 1_000.0);
+			summary.put("roundTripP999Us", roundTrip.valueAtPercentile(99.9) / 1_000.0);
+			summary.put("roundTripMaxUs", roundTrip.getMax() / 1_000.0);
+		}
+		Map<String, Object> phases = new LinkedHashMap<>();
+		for (Phase phase : Phase.values()) {
+			phases.put(phase.name(), stats.medianPhaseMs(phase));
+		}
+		summary.put("phasesMedianMs", phases);
+		summary.put("peakThreads", stats.getPeakThreads());
+		summary.put("peakLiveTasks", stats.getPeakLiveTasks());
+		summary.put("spawnedTasks", stats.getSpawnedTasks());
+		summary.put("spawnRatePerSec", stats.spawnRate());
+		summary.put("peakHeapMB", stats.getMemory().heapBytes() / 1_000_000.0);
+		summary.put("peakRssMB", stats.getMemory().rssBytes() / 1_000_000.0);
+		summary.put("peakNativeMB", stats.getMemory().nativeBytes() / 1_000_000.0);
+		summary.put("gcCount", stats.getEvents().gcCount());
+		summary.put("gcPauseMs", stats.getEvents().gcPauseNanos() / 1_000_000.0);
+		summary.put("gcMaxPauseMs", stats.getEvents().gcMaxPauseNanos() / 1_000_000.0);
+		summary.put("gcOverhead", stats.gcOverhead());
+		summary.put("allocationMBPerSec", stats.allocationRate() / 1_000_000.0);
+		if (!stats.getStages().isEmpty()) {
+			Map<String, Object> stages = new LinkedHashMap<>();
+			for (StageMetrics stage : stats.getStages()) {
+				LatencyHistogram stageLatency = stage.latency().getCompletionLatency();
+				Map<String, Object> metrics = new LinkedHashMap<>();
+				metrics.put("parallelism", stage.parallelism());
+				metrics.put("messages", stage.messages());
+				metrics.put("throughputMsgsPerSec", stage.throughput());
+				metrics.put("meanQueueDepth", stage.meanDepth());
+				metrics.put("maxQueueDepth", stage.maxDepth());
+				metrics.put("latencyP50Us", stageLatency.valueAtPercentile(50.0) / 1_000.0);
+				metrics.put("latencyP99Us", stageLatency.valueAtPercentile(99.0) / 1_000.0);
+				metrics.put("cumulativeLatencyP99Us",
+						stage.cumulative().getCompletionLatency().valueAtPercentile(99.0) / 1_000.0);
+				stages.put(stage.name(), metrics);
+			}
+			summary.put("stages", stages);
+		}
+		summary.put("durationsMs", durationsMs);
+		return summary;
+	}
+
+	/**
+	 * Converts a configuration into a JSON object of its options.
+	 *
+	 * @param config The configuration
+	 * @return The options without their leading dashes, mapped to their values
+	 */
+	private static Map<String, Object> configMap(BenchmarkConfig config) {
+		List<String> args = config.toArgs();
+		Map<String, Object> map = new LinkedHashMap<>();
+		for (int i = 0; i + 1 < args.size(); i += 2) {
+			map.put(args.get(i).substring(2), args.get(i + 1));
+		}
+		return map;
+	}
+
+	/**
+	 * Converts the environment into a JSON object.
+	 *
+	 * @param env The environment
+	 * @return The environment properties
+	 */
+	private static Map<String, Object> environmentMap(EnvironmentInfo env) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("jdkVersion", env.jdkVersion());
+		map.put("jdkVendor", env.jdkVendor());
+		map.put("vmName", env.vmName());
+		map.put("osName", env.osName());
+		map.put("osVersion", env.osVersion());
+		map.put("osArch", env.osArch());
+		map.put("cores", env.cores());
+		map.put("maxHeapBytes", env.maxHeapBytes());
+		map.put("garbageCollectors", List.copyOf(env.garbageCollectors()));
+		map.put("jvmFlags", List.copyOf(env.jvmFlags()));
+		return map;
+	}
+
+	/**
+	 * Formats a CSV row, quoting fields that contain separators or quotes.
+	 *
+	 * @param fields The field values
+	 * @return The CSV line without line terminator
+	 */
+	private static String csvRow(List<Object> fields) {
+		StringBuilder row = new StringBuilder();
+		for (int i = 0; i < fields.size(); i++) {
+			String value = String.valueOf(fields.get(i));
+			if (i > 0) {
+				row.append(',');
+			}
+			if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+				value = '"' + value.replace("\"", "\"\"") + '"';
+			}
+			row.append(value);
+		}
+		return row.toString();
+	}
+}